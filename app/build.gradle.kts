@@ -106,6 +106,13 @@ android {
         additionalParameters += listOf("--allow-reserved-package-id", "--package-id", "0x36")
     }
 
+    testOptions {
+        unitTests.all {
+            // 基准测试默认跳过，使用 ./gradlew testDebugUnitTest -Pbenchmark 运行
+            it.systemProperty("hyperceiler.benchmark", project.hasProperty("benchmark"))
+        }
+    }
+
     packaging {
         resources {
             excludes += listOf("/META-INF/**", "/kotlin/**", "/*.txt", "/*.bin", "/*.json")
@@ -266,4 +273,9 @@ dependencies {
     implementation(projects.provision)
     implementation(projects.processor)
     annotationProcessor(projects.processor)
+
+    testImplementation(libs.junit)
+    testImplementation(libs.robolectric)
+    // MenuAppFilter 等类运行时需要 XposedHelpers
+    testImplementation(libs.xposed.api)
 }
@@ -35,7 +35,6 @@ import android.os.Process;
 import com.github.kyuubiran.ezxhelper.EzXHelper;
 import com.hchen.hooktool.HCInit;
 import com.sevtinge.hyperceiler.module.app.VariousThirdApps;
-import com.sevtinge.hyperceiler.module.base.BaseModule;
 import com.sevtinge.hyperceiler.module.base.DataBase;
 import com.sevtinge.hyperceiler.module.base.tool.ResourcesTool;
 import com.sevtinge.hyperceiler.module.hook.systemframework.AllowManageAllNotifications;
@@ -53,11 +52,9 @@ import com.sevtinge.hyperceiler.utils.log.LogManager;
 import com.sevtinge.hyperceiler.utils.prefs.PrefsUtils;
 
 import java.io.File;
-import java.lang.reflect.InvocationTargetException;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.function.BiConsumer;
 
 import de.robv.android.xposed.IXposedHookLoadPackage;
 import de.robv.android.xposed.IXposedHookZygoteInit;
@@ -186,34 +183,22 @@ public class XposedInit implements IXposedHookZygoteInit, IXposedHookLoadPackage
 
         if (isOtherRestrictions(mPkgName)) return;
 
-        HashMap<String, DataBase> dataMap = DataBase.get();
-        if (dataMap.values().stream().noneMatch(dataBase -> dataBase.mTargetPackage.equals(mPkgName))) {
+        List<DataBase> dataBases = DataBase.get(mPkgName);
+        if (dataBases.isEmpty()) {
             mVariousThirdApps.init(lpparam);
             return;
         }
 
-        dataMap.forEach(new BiConsumer<>() {
-            @Override
-            public void accept(String s, DataBase dataBase) {
-                if (!mPkgName.equals(dataBase.mTargetPackage))
-                    return;
-                if (!(dataBase.mTargetSdk == -1) && !isAndroidVersion(dataBase.mTargetSdk))
-                    return;
-                if (!(dataBase.mTargetOSVersion == -1F) && !(isHyperOSVersion(dataBase.mTargetOSVersion)))
-                    return;
-                if ((dataBase.isPad == 1 && !isPad()) || (dataBase.isPad == 2 && isPad()))
-                    return;
-
-                try {
-                    Class<?> clazz = Objects.requireNonNull(getClass().getClassLoader()).loadClass(s);
-                    BaseModule module = (BaseModule) clazz.getDeclaredConstructor().newInstance();
-                    module.init(lpparam);
-                } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException |
-                         InstantiationException | InvocationTargetException e) {
-                    logE(TAG, e);
-                }
-            }
-        });
+        for (DataBase dataBase : dataBases) {
+            if (!(dataBase.mTargetSdk == -1) && !isAndroidVersion(dataBase.mTargetSdk))
+                continue;
+            if (!(dataBase.mTargetOSVersion == -1F) && !(isHyperOSVersion(dataBase.mTargetOSVersion)))
+                continue;
+            if ((dataBase.isPad == 1 && !isPad()) || (dataBase.isPad == 2 && isPad()))
+                continue;
+
+            dataBase.create().init(lpparam);
+        }
     }
 
     private void androidCrashEventHook(XC_LoadPackage.LoadPackageParam lpparam) {
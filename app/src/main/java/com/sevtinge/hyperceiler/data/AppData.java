@@ -18,11 +18,13 @@
 */
 package com.sevtinge.hyperceiler.data;
 
-import android.graphics.Bitmap;
+import android.content.pm.PackageItemInfo;
 
 public class AppData {
     public int user = 0;
-    public Bitmap icon;
+    // 图标来源，图标由 AppIconLoader 按需加载
+    public PackageItemInfo iconInfo;
+    public long lastUpdateTime;
     public String label;
     public String packageName;
     public String activityName;
@@ -33,6 +33,7 @@ import androidx.annotation.Nullable;
 import com.sevtinge.hyperceiler.callback.IEditCallback;
 import com.sevtinge.hyperceiler.data.AppData;
 import com.sevtinge.hyperceiler.ui.base.sub.AppPicker;
+import com.sevtinge.hyperceiler.utils.AppIconLoader;
 import com.sevtinge.hyperceiler.utils.prefs.PrefsUtils;
 
 import java.util.ArrayList;
@@ -101,7 +102,7 @@ public class AppDataAdapter extends ArrayAdapter<AppData> implements IEditCallba
             }
         } else
             appName.setText(appInfo.label);
-        appIcon.setImageBitmap(appInfo.icon);
+        AppIconLoader.getInstance(getContext()).load(appIcon, appInfo);
 
         // appEdit.setText(appInfo.packageName);
         mSelecte.setChecked(shouldSelect(appInfo.packageName));
@@ -36,10 +36,9 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.sevtinge.hyperceiler.R;
 import com.sevtinge.hyperceiler.data.ModData;
 import com.sevtinge.hyperceiler.utils.search.SearchHelper;
+import com.sevtinge.hyperceiler.utils.search.SearchIndex;
 
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.concurrent.CopyOnWriteArrayList;
 
@@ -115,10 +114,9 @@ public class ModSearchAdapter extends CardGroupAdapter {
         public void bind(ModData ad, boolean isChina, String filterString, View.OnClickListener onClickListener) {
             Spannable spannable = new SpannableString(ad.title);
             if (isChina) {
+                String title = ad.title.toLowerCase();
                 for (int i = 0; i < filterString.length(); i++) {
-                    char ch = filterString.charAt(i);
-                    String str = String.valueOf(ch);
-                    int start = ad.title.toLowerCase().indexOf(str);
+                    int start = title.indexOf(filterString.charAt(i));
                     if (start >= 0) {
                         spannable.setSpan(new ForegroundColorSpan(SearchHelper.MARK_COLOR_VIBRANT), start, start + 1, Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
                     }
@@ -147,63 +145,33 @@ public class ModSearchAdapter extends CardGroupAdapter {
 
     private class ItemFilter extends Filter {
         private final Context context;
+        // 上一次的结果，输入追加时在其中缩小范围
+        private SearchIndex.Result mLastResult;
 
         ItemFilter(Context context) {
             this.context = context;
         }
 
-        private final HashMap<String, Integer> modMap = new HashMap<>();
-
         @Override
         protected FilterResults performFiltering(CharSequence constraint) {
             filterString = constraint.toString().toLowerCase();
-            ArrayList<ModData> nlist = new ArrayList<>();
-            modMap.clear();
             isChina = isChina(context);
-            if (isChina) {
-                for (int i = 0; i < filterString.length(); i++) {
-                    char ch = filterString.charAt(i);
-                    String str = String.valueOf(ch);
-                    findList(constraint, str, nlist);
-                }
-            } else findList(constraint, filterString, nlist);
+            SearchIndex.Result result = SearchHelper.getIndex().search(filterString, isChina, mLastResult);
+            mLastResult = result;
             FilterResults results = new FilterResults();
-            results.values = nlist;
-            results.count = nlist.size();
+            results.values = result.mods;
+            results.count = result.mods.size();
             return results;
         }
 
-        private void findList(CharSequence constraint, String str, ArrayList<ModData> nlist) {
-            for (ModData filterableData : SearchHelper.allModsList) {
-                if (constraint.toString().equals(SearchHelper.NEW_MODS_SEARCH_QUERY)) {
-                    if (SearchHelper.NEW_MODS.contains(filterableData.key)) {
-                        if (check(filterableData.key)) {
-                            nlist.add(filterableData);
-                            modMap.put(filterableData.key, 0);
-                        }
-                    }
-                } else if (filterableData.title.toLowerCase().contains(str)) {
-                    if (check(filterableData.key)) {
-                        nlist.add(filterableData);
-                        modMap.put(filterableData.key, 0);
-                    }
-                }
-            }
-        }
-
-        private boolean check(String key) {
-            return modMap.get(key) == null;
-        }
-
         @SuppressLint("NotifyDataSetChanged")
         @Override
         protected void publishResults(CharSequence constraint, FilterResults results) {
             modsList.clear();
             if (results.count > 0 && results.values != null) {
-                modsList.addAll((ArrayList<ModData>) results.values);
+                // 已由索引排好序
+                modsList.addAll((List<ModData>) results.values);
             }
-            if (isChina) modsList.sort(new ModDataComparator(filterString));
-            else sortList();
             notifyDataSetChanged();
         }
     }
@@ -212,44 +180,4 @@ public class ModSearchAdapter extends CardGroupAdapter {
         Locale locale = context.getResources().getConfiguration().getLocales().get(0);
         return locale.getLanguage().contains(new Locale("zh").getLanguage());
     }
-
-    public void sortList() {
-        modsList.sort(new Comparator<>() {
-            public int compare(ModData app1, ModData app2) {
-                int breadcrumbs = app1.breadcrumbs.compareToIgnoreCase(app2.breadcrumbs);
-                if (breadcrumbs == 0)
-                    return app1.title.compareToIgnoreCase(app2.title);
-                else
-                    return breadcrumbs;
-            }
-        });
-    }
-
-    public static class ModDataComparator implements Comparator<ModData> {
-        private final String searchTerm;
-
-        public ModDataComparator(String searchTerm) {
-            this.searchTerm = searchTerm;
-        }
-
-        @Override
-        public int compare(ModData app1, ModData app2) {
-            int frequency1 = calculateFrequency(app1.title);
-            int frequency2 = calculateFrequency(app2.title);
-
-            return Integer.compare(frequency2, frequency1); // 频率高的排在前面
-        }
-
-        private int calculateFrequency(String str) {
-            int frequency = 0;
-            for (int i = 0; i < searchTerm.length(); i++) {
-                char ch = searchTerm.charAt(i);
-                String chStr = String.valueOf(ch);
-                if (str.contains(chStr)) {
-                    frequency = frequency + 1;
-                }
-            }
-            return frequency;
-        }
-    }
 }
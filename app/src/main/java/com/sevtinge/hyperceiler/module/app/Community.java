@@ -27,6 +27,12 @@ import com.sevtinge.hyperceiler.module.hook.community.FuckDetection;
 @HookBase(targetPackage = "com.xiaomi.vipaccount")
 public class Community extends BaseModule {
 
+    @Override
+    public void initDexKit() {
+        if (mPrefsMap.getBoolean("community_device_modify")) DeviceModify.initDexKit();
+        if (mPrefsMap.getBoolean("community_fuck_detection")) FuckDetection.initDexKit();
+    }
+
     @Override
     public void handleLoadPackage() {
         initHook(new DeviceModify(), mPrefsMap.getBoolean("community_device_modify"));
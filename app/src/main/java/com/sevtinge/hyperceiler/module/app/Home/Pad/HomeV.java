@@ -148,66 +148,66 @@ public class HomeV extends BaseModule {
     public void handleLoadPackage() {
 
         // 手势
-        initHook(new QuickBack(), mPrefsMap.getBoolean("home_navigation_quick_back"));
-        initHook(new CornerSlide(),
+        initHook(QuickBack::new, mPrefsMap.getBoolean("home_navigation_quick_back"));
+        initHook(CornerSlide::new,
                 mPrefsMap.getInt("home_navigation_assist_left_slide_action", 0) > 0 ||
                         mPrefsMap.getInt("home_navigation_assist_right_slide_action", 0) > 0
         );
-        initHook(new DoubleTap(), mPrefsMap.getInt("home_gesture_double_tap_action", 0) > 0);
-        initHook(new ScreenSwipe(), mPrefsMap.getInt("home_gesture_up_swipe_action", 0) > 0 ||
+        initHook(DoubleTap::new, mPrefsMap.getInt("home_gesture_double_tap_action", 0) > 0);
+        initHook(ScreenSwipe::new, mPrefsMap.getInt("home_gesture_up_swipe_action", 0) > 0 ||
                 mPrefsMap.getInt("home_gesture_down_swipe_action", 0) > 0 ||
                 mPrefsMap.getInt("home_gesture_up_swipe2_action", 0) > 0 ||
                 mPrefsMap.getInt("home_gesture_down_swipe2_action", 0) > 0);
-        initHook(new HotSeatSwipe(), mPrefsMap.getInt("home_gesture_left_swipe_action", 0) > 0
+        initHook(HotSeatSwipe::new, mPrefsMap.getInt("home_gesture_left_swipe_action", 0) > 0
                 || mPrefsMap.getInt("home_gesture_right_swipe_action", 0) > 0);
-        initHook(new ShakeDevice(), mPrefsMap.getInt("home_gesture_shake_action", 0) > 0);
+        initHook(ShakeDevice::new, mPrefsMap.getInt("home_gesture_shake_action", 0) > 0);
         // initHook(new SwipeAndStop(), mPrefsMap.getInt("home_gesture_swipe_and_stop_action" ,0) > 0);
 
-        initHook(new BackGestureAreaHeight(), mPrefsMap.getInt("home_navigation_back_area_height", 60) != 60);
-        initHook(new BackGestureAreaWidth(), mPrefsMap.getInt("home_navigation_back_area_width", 100) != 100);
+        initHook(BackGestureAreaHeight::new, mPrefsMap.getInt("home_navigation_back_area_height", 60) != 60);
+        initHook(BackGestureAreaWidth::new, mPrefsMap.getInt("home_navigation_back_area_width", 100) != 100);
 
         // 布局
-        initHook(new UnlockGrids(), mPrefsMap.getBoolean("home_layout_unlock_grids"));
+        initHook(UnlockGrids::new, mPrefsMap.getBoolean("home_layout_unlock_grids"));
         // initHook(new UnlockGridsNoWord(), mPrefsMap.getBoolean("home_layout_unlock_grids_no_word"));
-        initHook(new WorkspacePadding(),
+        initHook(WorkspacePadding::new,
                 mPrefsMap.getBoolean("home_layout_workspace_padding_bottom_enable") ||
                         mPrefsMap.getBoolean("home_layout_workspace_padding_top_enable") ||
                         mPrefsMap.getBoolean("home_layout_workspace_padding_horizontal_enable")
         );
 
-        initHook(new IndicatorMarginBottom(), mPrefsMap.getBoolean("home_layout_indicator_margin_bottom_enable"));
-        initHook(new HotSeatsHeight(), mPrefsMap.getBoolean("home_layout_hotseats_height_enable"));
-        initHook(new HotSeatsMarginTop(), mPrefsMap.getBoolean("home_layout_hotseats_margin_top_enable"));
-        initHook(new HotSeatsMarginBottom(), mPrefsMap.getBoolean("home_layout_hotseats_margin_bottom_enable"));
-        initHook(new SearchBarMarginWidth(), mPrefsMap.getBoolean("home_layout_searchbar_width_enable"));
-        initHook(new SearchBarMarginBottom(), (mPrefsMap.getInt("home_layout_searchbar_margin_bottom", 0) > 0) &&
+        initHook(IndicatorMarginBottom::new, mPrefsMap.getBoolean("home_layout_indicator_margin_bottom_enable"));
+        initHook(HotSeatsHeight::new, mPrefsMap.getBoolean("home_layout_hotseats_height_enable"));
+        initHook(HotSeatsMarginTop::new, mPrefsMap.getBoolean("home_layout_hotseats_margin_top_enable"));
+        initHook(HotSeatsMarginBottom::new, mPrefsMap.getBoolean("home_layout_hotseats_margin_bottom_enable"));
+        initHook(SearchBarMarginWidth::new, mPrefsMap.getBoolean("home_layout_searchbar_width_enable"));
+        initHook(SearchBarMarginBottom::new, (mPrefsMap.getInt("home_layout_searchbar_margin_bottom", 0) > 0) &&
                 mPrefsMap.getBoolean("home_layout_searchbar_margin_bottom_enable"));
 
 
         // 文件夹
         initHook(FolderAutoClose.INSTANCE, mPrefsMap.getBoolean("home_folder_auto_close"));
-        initHook(new FolderShade(), mPrefsMap.getStringAsInt("home_folder_shade", 1) > 0);
+        initHook(FolderShade::new, mPrefsMap.getStringAsInt("home_folder_shade", 1) > 0);
         initHook(FolderColumns.INSTANCE, mPrefsMap.getStringAsInt("home_folder_title_pos", 0) != 0 ||
                 mPrefsMap.getBoolean("home_folder_width") ||
                 mPrefsMap.getInt("home_folder_columns", 3) != 3);
-        initHook(new FolderAnimation(), mPrefsMap.getBoolean("home_folder_animation"));
-        initHook(new SmallFolderIconBlur(), mPrefsMap.getBoolean("home_small_folder_icon_bg"));
+        initHook(FolderAnimation::new, mPrefsMap.getBoolean("home_folder_animation"));
+        initHook(SmallFolderIconBlur::new, mPrefsMap.getBoolean("home_small_folder_icon_bg"));
         initHook(FolderVerticalSpacing.INSTANCE, mPrefsMap.getBoolean("home_folder_vertical_spacing_enable"));
 
-        initHook(new BigFolderIcon(), false);
-        initHook(new BigFolderIconBlur2x1(), mPrefsMap.getBoolean("home_big_folder_icon_bg_2x1"));
-        initHook(new BigFolderIconBlur1x2(), mPrefsMap.getBoolean("home_big_folder_icon_bg_1x2"));
-        initHook(new BigFolderIconBlur(), mPrefsMap.getBoolean("home_big_folder_icon_bg"));
-        initHook(new BigFolderItemMaxCount(), mPrefsMap.getBoolean("home_big_folder_item_max_count"));
-        initHook(new UnlockBlurSupported(), mPrefsMap.getBoolean("home_folder_unlock_blur_supported"));
+        initHook(BigFolderIcon::new, false);
+        initHook(BigFolderIconBlur2x1::new, mPrefsMap.getBoolean("home_big_folder_icon_bg_2x1"));
+        initHook(BigFolderIconBlur1x2::new, mPrefsMap.getBoolean("home_big_folder_icon_bg_1x2"));
+        initHook(BigFolderIconBlur::new, mPrefsMap.getBoolean("home_big_folder_icon_bg"));
+        initHook(BigFolderItemMaxCount::new, mPrefsMap.getBoolean("home_big_folder_item_max_count"));
+        initHook(UnlockBlurSupported::new, mPrefsMap.getBoolean("home_folder_unlock_blur_supported"));
         // initHook(new RecommendAppsSwitch(), mPrefsMap.getBoolean("home_folder_recommend_apps_switch"));
 
         // 抽屉
         initHook(AppDrawer.INSTANCE, mPrefsMap.getBoolean("home_drawer_all") ||
                 mPrefsMap.getBoolean("home_drawer_editor"));
         initHook(AllAppsContainerViewBlur.INSTANCE, mPrefsMap.getBoolean("home_drawer_blur"));
-        initHook(new AllAppsContainerViewSuperBlur(), mPrefsMap.getBoolean("home_drawer_blur_super"));
-        initHook(new PinyinArrangement(), mPrefsMap.getBoolean("home_drawer_pinyin"));
+        initHook(AllAppsContainerViewSuperBlur::new, mPrefsMap.getBoolean("home_drawer_blur_super"));
+        initHook(PinyinArrangement::new, mPrefsMap.getBoolean("home_drawer_pinyin"));
 
         // 最近任务
         initHook(BlurLevel.INSTANCE, mPrefsMap.getStringAsInt("home_recent_blur_level", 6) != 6 && !mPrefsMap.getBoolean("home_title_app_blur_enable"));
@@ -216,7 +216,7 @@ public class HomeV extends BaseModule {
         initHook(TaskViewHorizontal.INSTANCE, true);
         initHook(TaskViewVertical.INSTANCE, true);
         initHook(HideFreeform.INSTANCE, mPrefsMap.getBoolean("home_recent_hide_freeform"));
-        initHook(new HideCleanUp(), mPrefsMap.getBoolean("home_recent_hide_clean_up"));
+        initHook(HideCleanUp::new, mPrefsMap.getBoolean("home_recent_hide_clean_up"));
         initHook(FreeformCardBackgroundColor.INSTANCE, true);
         initHook(CardTextColor.INSTANCE, true);
         initHook(CardTextSize.INSTANCE, true);
@@ -229,88 +229,88 @@ public class HomeV extends BaseModule {
         initHook(RealMemory.INSTANCE, mPrefsMap.getBoolean("home_recent_show_real_memory"));
         initHook(MemInfoShow.INSTANCE, mPrefsMap.getBoolean("home_recent_show_memory_info"));
         initHook(AlwaysShowCleanUp.INSTANCE, mPrefsMap.getBoolean("always_show_clean_up"));
-        initHook(new BackgroundBlur(), mPrefsMap.getBoolean("home_recent_blur"));
-        initHook(new ShowLaunch(), mPrefsMap.getBoolean("home_recent_show_launch"));
+        initHook(BackgroundBlur::new, mPrefsMap.getBoolean("home_recent_blur"));
+        initHook(ShowLaunch::new, mPrefsMap.getBoolean("home_recent_show_launch"));
         initHook(HideRecentCard.INSTANCE, !mPrefsMap.getStringSet("home_recent_hide_card").isEmpty());
 
         // 图标
         initHook(BigIconCorner.INSTANCE, mPrefsMap.getBoolean("home_title_big_icon_corner"));
-        initHook(new DownloadAnimation(), mPrefsMap.getBoolean("home_title_download_animation"));
+        initHook(DownloadAnimation::new, mPrefsMap.getBoolean("home_title_download_animation"));
         initHook(DisableHideTheme.INSTANCE, mPrefsMap.getBoolean("home_title_disable_hide_theme"));
         initHook(DisableHideFile.INSTANCE, mPrefsMap.getBoolean("home_title_disable_hide_file"));
         initHook(DisableHideGoogle.INSTANCE, mPrefsMap.getBoolean("home_title_disable_hide_google"));
-        initHook(new FakeNonDefaultIcon(), mPrefsMap.getBoolean("fake_non_default_icon"));
-        initHook(new AnimParamCustom(), mPrefsMap.getBoolean("home_title_custom_anim_param_main"));
+        initHook(FakeNonDefaultIcon::new, mPrefsMap.getBoolean("fake_non_default_icon"));
+        initHook(AnimParamCustom::new, mPrefsMap.getBoolean("home_title_custom_anim_param_main"));
         initHook(AppBlurAnim.INSTANCE, mPrefsMap.getBoolean("home_title_app_blur_enable"));
         // initHook(new IconScaleHook()/*, mPrefsMap.getInt("home_title_icon_scale", 100) != 100*/);
 
         // 标题
-        initHook(new TitleMarquee(), mPrefsMap.getBoolean("home_title_title_marquee"));
-        initHook(new NewInstallIndicator(), mPrefsMap.getBoolean("home_title_title_new_install"));
-        initHook(new IconTitleCustomization(), mPrefsMap.getBoolean("home_title_title_icontitlecustomization_onoff"));
-        initHook(new HiddenAllTitle(), mPrefsMap.getBoolean("home_drawer_font_hidden"));
-        initHook(new TitleFontSize());
+        initHook(TitleMarquee::new, mPrefsMap.getBoolean("home_title_title_marquee"));
+        initHook(NewInstallIndicator::new, mPrefsMap.getBoolean("home_title_title_new_install"));
+        initHook(IconTitleCustomization::new, mPrefsMap.getBoolean("home_title_title_icontitlecustomization_onoff"));
+        initHook(HiddenAllTitle::new, mPrefsMap.getBoolean("home_drawer_font_hidden"));
+        initHook(TitleFontSize::new);
         initHook(IconTitleColor.INSTANCE, true);
-        initHook(new UnlockHotseatIcon(), mPrefsMap.getBoolean("home_dock_unlock_hotseat"));
-        initHook(new IconMessageColorCustom(), mPrefsMap.getBoolean("home_title_notif_color"));
+        initHook(UnlockHotseatIcon::new, mPrefsMap.getBoolean("home_dock_unlock_hotseat"));
+        initHook(IconMessageColorCustom::new, mPrefsMap.getBoolean("home_title_notif_color"));
 
         // 小部件
-        initHook(new AllWidgetAnimation(), mPrefsMap.getBoolean("home_widget_all_widget_animation"));
+        initHook(AllWidgetAnimation::new, mPrefsMap.getBoolean("home_widget_all_widget_animation"));
         initHook(AlwaysShowMiuiWidget.INSTANCE, mPrefsMap.getBoolean("home_widget_show_miui_widget"));
         initHook(AllowMoveAllWidgetToMinus.INSTANCE, mPrefsMap.getBoolean("home_widget_allow_moved_to_minus_one_screen"));
-        initHook(new WidgetCornerRadius(), mPrefsMap.getInt("home_widget_corner_radius", 0) > 0);
+        initHook(WidgetCornerRadius::new, mPrefsMap.getInt("home_widget_corner_radius", 0) > 0);
         initHook(HideWidgetTitles.INSTANCE, mPrefsMap.getBoolean("home_widget_hide_title"));
         initHook(ResizableWidgets.INSTANCE, mPrefsMap.getBoolean("home_widget_resizable"));
 
         // 底栏
-        initHook(new DockCustom(), mPrefsMap.getBoolean("home_dock_bg_custom_enable") && mPrefsMap.getStringAsInt("home_dock_add_blur", 0) == 2);
+        initHook(DockCustom::new, mPrefsMap.getBoolean("home_dock_bg_custom_enable") && mPrefsMap.getStringAsInt("home_dock_add_blur", 0) == 2);
         initHook(DockCustomNew.INSTANCE, mPrefsMap.getBoolean("home_dock_bg_custom_enable") && (mPrefsMap.getStringAsInt("home_dock_add_blur", 0) == 0 || mPrefsMap.getStringAsInt("home_dock_add_blur", 0) == 1));
-        initHook(new SeekPoints(), mPrefsMap.getStringAsInt("home_other_seek_points", 0) > 0);
+        initHook(SeekPoints::new, mPrefsMap.getStringAsInt("home_other_seek_points", 0) > 0);
         initHook(FoldDeviceDock.INSTANCE, mPrefsMap.getBoolean("home_dock_fold"));
         initHook(ShowDockIconTitle.INSTANCE, mPrefsMap.getBoolean("home_dock_icon_title"));
-        initHook(new HideNavigationBar(), mPrefsMap.getBoolean("system_ui_hide_navigation_bar"));
+        initHook(HideNavigationBar::new, mPrefsMap.getBoolean("system_ui_hide_navigation_bar"));
         initHook(DisableRecentsIcon.INSTANCE, mPrefsMap.getBoolean("home_dock_disable_recents_icon"));
         initHook(SlideUpOnlyShowDock.INSTANCE, mPrefsMap.getBoolean("home_dock_slide_up_only_show_dock") && !mPrefsMap.getBoolean("home_dock_hide_dock"));
         initHook(HideDock.INSTANCE, mPrefsMap.getBoolean("home_dock_hide_dock"));
 
         // 其他
-        initHook(new LockApp(), mPrefsMap.getBoolean("system_framework_guided_access"));
-        initHook(new HomeMode(), mPrefsMap.getStringAsInt("home_other_home_mode", 0) > 0);
+        initHook(LockApp::new, mPrefsMap.getBoolean("system_framework_guided_access"));
+        initHook(HomeMode::new, mPrefsMap.getStringAsInt("home_other_home_mode", 0) > 0);
         initHook(AlwaysShowStatusClock.INSTANCE, mPrefsMap.getBoolean("home_other_show_clock"));
-        initHook(new InfiniteScroll(), mPrefsMap.getBoolean("home_other_infinite_scroll"));
-        initHook(new FreeformShortcutMenu(), mPrefsMap.getBoolean("home_other_freeform_shortcut_menu"));
-        initHook(new TasksShortcutMenu(), mPrefsMap.getBoolean("home_other_tasks_shortcut_menu"));
-        initHook(new UserPresentAnimation(), mPrefsMap.getBoolean("home_other_user_present_animation"));
-        initHook(new PerfectIcon(), mPrefsMap.getBoolean("home_other_perfect_icon"));
-        initHook(new EnableIconMonoChrome(), mPrefsMap.getBoolean("home_other_icon_mono_chrome"));
-        initHook(new HomePortraitReverse(), mPrefsMap.getBoolean("home_other_portrait_reverse"));
+        initHook(InfiniteScroll::new, mPrefsMap.getBoolean("home_other_infinite_scroll"));
+        initHook(FreeformShortcutMenu::new, mPrefsMap.getBoolean("home_other_freeform_shortcut_menu"));
+        initHook(TasksShortcutMenu::new, mPrefsMap.getBoolean("home_other_tasks_shortcut_menu"));
+        initHook(UserPresentAnimation::new, mPrefsMap.getBoolean("home_other_user_present_animation"));
+        initHook(PerfectIcon::new, mPrefsMap.getBoolean("home_other_perfect_icon"));
+        initHook(EnableIconMonoChrome::new, mPrefsMap.getBoolean("home_other_icon_mono_chrome"));
+        initHook(HomePortraitReverse::new, mPrefsMap.getBoolean("home_other_portrait_reverse"));
         initHook(AlwaysBlurWallpaper.INSTANCE, mPrefsMap.getBoolean("home_other_always_blur_launcher_wallpaper"));
         initHook(BlurRadius.INSTANCE, mPrefsMap.getInt("home_other_blur_radius", 100) != 100);
         initHook(ShortcutItemCount.INSTANCE, mPrefsMap.getBoolean("home_other_shortcut_remove_restrictions"));
         initHook(ShowAllHideApp.INSTANCE, true); // 桌面快捷方式管理
         // initHook(new AllowShareApk(), mPrefsMap.getBoolean("home_other_allow_share_apk"));
-        initHook(new HideReportText(), mPrefsMap.getBoolean("home_title_hide_report_text"));
-        initHook(new DisablePrestart(), mPrefsMap.getBoolean("home_other_disable_prestart"));
-        initHook(new OptAppLaunchDelay(), mPrefsMap.getBoolean("home_other_opt_app_launch_delay"));
+        initHook(HideReportText::new, mPrefsMap.getBoolean("home_title_hide_report_text"));
+        initHook(DisablePrestart::new, mPrefsMap.getBoolean("home_other_disable_prestart"));
+        initHook(OptAppLaunchDelay::new, mPrefsMap.getBoolean("home_other_opt_app_launch_delay"));
 
         // 实验性功能
         initHook(BlurWhenShowShortcutMenu.INSTANCE, mPrefsMap.getBoolean("home_other_shortcut_background_blur"));
         initHook(FolderBlur.INSTANCE, mPrefsMap.getBoolean("home_folder_blur") && !mPrefsMap.getBoolean("home_title_app_blur_enable"));
-        initHook(new FoldDock(), mPrefsMap.getBoolean("home_other_fold_dock"));
+        initHook(FoldDock::new, mPrefsMap.getBoolean("home_other_fold_dock"));
         // initHook(new AllAppsBlur); // ??
-        initHook(new FixAnimation(), mPrefsMap.getBoolean("home_title_fix_animation"));
-        initHook(new LargeIconCornerRadius(), mPrefsMap.getBoolean("home_large_icon_enable"));
+        initHook(FixAnimation::new, mPrefsMap.getBoolean("home_title_fix_animation"));
+        initHook(LargeIconCornerRadius::new, mPrefsMap.getBoolean("home_large_icon_enable"));
 
         // 多小窗
-        initHook(new FreeFormCountForHome(), mPrefsMap.getBoolean("system_framework_freeform_count"));
-        initHook(new MaxFreeForm(), mPrefsMap.getBoolean("system_framework_freeform_count"));
+        initHook(FreeFormCountForHome::new, mPrefsMap.getBoolean("system_framework_freeform_count"));
+        initHook(MaxFreeForm::new, mPrefsMap.getBoolean("system_framework_freeform_count"));
 
         // Fold2样式负一屏
-        initHook(new OverlapMode(), mPrefsMap.getBoolean("personal_assistant_overlap_mode"));
+        initHook(OverlapMode::new, mPrefsMap.getBoolean("personal_assistant_overlap_mode"));
 
         // Other
-        initHook(new ToastSlideAgain(), mPrefsMap.getBoolean("home_other_toast_slide_again"));
-        initHook(new StickyFloatingWindowsForHome(), mPrefsMap.getBoolean("system_framework_freeform_sticky"));
+        initHook(ToastSlideAgain::new, mPrefsMap.getBoolean("home_other_toast_slide_again"));
+        initHook(StickyFloatingWindowsForHome::new, mPrefsMap.getBoolean("system_framework_freeform_sticky"));
         initHook(AnimDurationRatio.INSTANCE, true);
         initHook(SetDeviceLevel.INSTANCE, mPrefsMap.getBoolean("home_other_high_models"));
 
@@ -322,7 +322,7 @@ public class HomeV extends BaseModule {
 
         // reshook
         initHook(EnableIconMonetColor.INSTANCE, mPrefsMap.getBoolean("home_other_icon_monet_color"));
-        initHook(new AllowShareApk(), mPrefsMap.getBoolean("home_other_allow_share_apk"));
+        initHook(AllowShareApk::new, mPrefsMap.getBoolean("home_other_allow_share_apk"));
     }
 
 }
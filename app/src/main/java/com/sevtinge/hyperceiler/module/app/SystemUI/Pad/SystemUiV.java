@@ -119,29 +119,29 @@ public class SystemUiV extends BaseModule {
     public void handleLoadPackage() {
         // PluginHelper
         initHook(NewPluginHelperKt.INSTANCE);
-        /*initHook(new NewPluginHelper());
+        /*initHook(NewPluginHelper::new);
         initHook(FocusNotifLyricPluginHelper.INSTANCE, mPrefsMap.getBoolean("system_ui_statusbar_music_switch"));*/
         // initHook(Island.INSTANCE, true); // 灵动岛
         // initHook(DisableChargeAnimation.INSTANCE);
 
         // 小窗
-        initHook(new NotificationFreeform(), mPrefsMap.getBoolean("system_ui_notification_freeform"));
+        initHook(NotificationFreeform::new, mPrefsMap.getBoolean("system_ui_notification_freeform"));
 
         // Monet
-        initHook(new MonetThemeOverlay(), mPrefsMap.getBoolean("system_ui_monet_overlay_custom"));
+        initHook(MonetThemeOverlay::new, mPrefsMap.getBoolean("system_ui_monet_overlay_custom"));
 
         // 状态栏图标
-        initHook(new StatusBarIcon(), true);
-        initHook(new IconsFromSystemManager(), true);
-        initHook(new UnlockCustomActions(), mPrefsMap.getBoolean("system_ui_control_center_media_control_unlock_custom_actions"));
-        initHook(new WifiStandard(), mPrefsMap.getStringAsInt("system_ui_status_bar_icon_wifi_standard", 0) > 0);
-        initHook(new SelectiveHideIconForAlarmClock(), mPrefsMap.getStringAsInt("system_ui_status_bar_icon_alarm_clock", 0) == 3 && mPrefsMap.getInt("system_ui_status_bar_icon_alarm_clock_n", 0) > 0);
-        initHook(new NotificationIconColumns(), mPrefsMap.getBoolean("system_ui_status_bar_notification_icon_maximum_enable"));
-        initHook(new HideStatusBarBeforeScreenshot(), mPrefsMap.getBoolean("system_ui_status_bar_hide_icon"));
-        initHook(new DataSaverIcon(), mPrefsMap.getStringAsInt("system_ui_status_bar_icon_data_saver", 0) != 0);
+        initHook(StatusBarIcon::new, true);
+        initHook(IconsFromSystemManager::new, true);
+        initHook(UnlockCustomActions::new, mPrefsMap.getBoolean("system_ui_control_center_media_control_unlock_custom_actions"));
+        initHook(WifiStandard::new, mPrefsMap.getStringAsInt("system_ui_status_bar_icon_wifi_standard", 0) > 0);
+        initHook(SelectiveHideIconForAlarmClock::new, mPrefsMap.getStringAsInt("system_ui_status_bar_icon_alarm_clock", 0) == 3 && mPrefsMap.getInt("system_ui_status_bar_icon_alarm_clock_n", 0) > 0);
+        initHook(NotificationIconColumns::new, mPrefsMap.getBoolean("system_ui_status_bar_notification_icon_maximum_enable"));
+        initHook(HideStatusBarBeforeScreenshot::new, mPrefsMap.getBoolean("system_ui_status_bar_hide_icon"));
+        initHook(DataSaverIcon::new, mPrefsMap.getStringAsInt("system_ui_status_bar_icon_data_saver", 0) != 0);
         initHook(WifiNetworkIndicator.INSTANCE, mPrefsMap.getBoolean("system_ui_status_bar_icon_wifi_network_indicator_new"));
         initHook(HideVoWiFiIcon.INSTANCE, mPrefsMap.getBoolean("system_ui_status_bar_icon_vowifi") || mPrefsMap.getBoolean("system_ui_status_bar_icon_volte"));
-        initHook(new StickyFloatingWindowsForSystemUI(), mPrefsMap.getBoolean("system_framework_freeform_sticky"));
+        initHook(StickyFloatingWindowsForSystemUI::new, mPrefsMap.getBoolean("system_framework_freeform_sticky"));
 
         // 电池相关
         boolean isHideBatteryIcon = mPrefsMap.getBoolean("system_ui_status_bar_battery_icon") ||
@@ -157,13 +157,13 @@ public class SystemUiV extends BaseModule {
         if (mPrefsMap.getBoolean("system_ui_statusbar_network_speed_all_status_enable")) {
             initHook(NewNetworkSpeed.INSTANCE, true);
             initHook(NewNetworkSpeedStyle.INSTANCE, true);
-            initHook(new NetworkSpeedSpacing(), mPrefsMap.getInt("system_ui_statusbar_network_speed_update_spacing", 3) != 3);
-            initHook(new NetworkSpeedSec(), mPrefsMap.getBoolean("system_ui_statusbar_network_speed_sec_unit"));
+            initHook(NetworkSpeedSpacing::new, mPrefsMap.getInt("system_ui_statusbar_network_speed_update_spacing", 3) != 3);
+            initHook(NetworkSpeedSec::new, mPrefsMap.getBoolean("system_ui_statusbar_network_speed_sec_unit"));
         }
 
         // 时钟指示器
         initHook(StatusBarClockNew.INSTANCE, mPrefsMap.getBoolean("system_ui_statusbar_clock_all_status_enable"));
-        initHook(new FixColor(), mPrefsMap.getBoolean("system_ui_statusbar_clock_fix_color"));
+        initHook(FixColor::new, mPrefsMap.getBoolean("system_ui_statusbar_clock_fix_color"));
 
         // initHook(new DisplayHardwareDetailForHyper(), true);
 
@@ -174,10 +174,10 @@ public class SystemUiV extends BaseModule {
         initHook(HideStrongToast.INSTANCE, mPrefsMap.getBoolean("system_ui_status_bar_hide_smart_strong_toast"));
 
         // 导航栏
-        initHook(new HandleLineCustom(), mPrefsMap.getBoolean("system_ui_navigation_handle_custom"));
-        initHook(new NavigationCustom(), mPrefsMap.getBoolean("system_ui_navigation_custom"));
-        initHook(new HideNavigationBar(), mPrefsMap.getBoolean("system_ui_hide_navigation_bar"));
-        initHook(new RotationButton(), mPrefsMap.getStringAsInt("system_framework_other_rotation_button_int", 0) != 0);
+        initHook(HandleLineCustom::new, mPrefsMap.getBoolean("system_ui_navigation_handle_custom"));
+        initHook(NavigationCustom::new, mPrefsMap.getBoolean("system_ui_navigation_custom"));
+        initHook(HideNavigationBar::new, mPrefsMap.getBoolean("system_ui_hide_navigation_bar"));
+        initHook(RotationButton::new, mPrefsMap.getStringAsInt("system_framework_other_rotation_button_int", 0) != 0);
 
         // 实验性功能
         // initHook(new SwitchControlPanel(), false);
@@ -185,27 +185,27 @@ public class SystemUiV extends BaseModule {
 
         // 控制中心
         // initHook(new SmartHome(), false);
-        initHook(new ShadeHeaderGradientBlur(), mPrefsMap.getBoolean("system_ui_shade_header_gradient_blur"));
-        initHook(new QSColor(), mPrefsMap.getBoolean("system_ui_control_center_qs_open_color") || mPrefsMap.getBoolean("system_ui_control_center_qs_big_open_color"));
-        initHook(new UnimportantNotification(), mPrefsMap.getBoolean("system_ui_control_center_unimportant_notification"));
-        initHook(new BlurEnable(), mPrefsMap.getBoolean("system_ui_control_center_statusbar_blur"));
+        initHook(ShadeHeaderGradientBlur::new, mPrefsMap.getBoolean("system_ui_shade_header_gradient_blur"));
+        initHook(QSColor::new, mPrefsMap.getBoolean("system_ui_control_center_qs_open_color") || mPrefsMap.getBoolean("system_ui_control_center_qs_big_open_color"));
+        initHook(UnimportantNotification::new, mPrefsMap.getBoolean("system_ui_control_center_unimportant_notification"));
+        initHook(BlurEnable::new, mPrefsMap.getBoolean("system_ui_control_center_statusbar_blur"));
         initHook(ExpandNotificationKt.INSTANCE, !mPrefsMap.getStringSet("system_ui_control_center_expand_notification").isEmpty());
-        initHook(new HideDelimiter(), mPrefsMap.getStringAsInt("system_ui_control_center_hide_operator", 0) != 0);
-        initHook(new GmsTile(), mPrefsMap.getBoolean("security_center_gms_open"));
-        initHook(new TaplusTile(), mPrefsMap.getBoolean("security_center_taplus"));
-        initHook(new ReduceBrightColorsTile(), mPrefsMap.getBoolean("security_center_reduce_bright_colors_tile"));
-        initHook(new FiveGTile(), mPrefsMap.getStringAsInt("system_control_center_5g_new_tile", 0) != 0);
-        initHook(new SnowLeopardModeTile(), mPrefsMap.getBoolean("system_ui_control_center_snow_leopard_mode"));
+        initHook(HideDelimiter::new, mPrefsMap.getStringAsInt("system_ui_control_center_hide_operator", 0) != 0);
+        initHook(GmsTile::new, mPrefsMap.getBoolean("security_center_gms_open"));
+        initHook(TaplusTile::new, mPrefsMap.getBoolean("security_center_taplus"));
+        initHook(ReduceBrightColorsTile::new, mPrefsMap.getBoolean("security_center_reduce_bright_colors_tile"));
+        initHook(FiveGTile::new, mPrefsMap.getStringAsInt("system_control_center_5g_new_tile", 0) != 0);
+        initHook(SnowLeopardModeTile::new, mPrefsMap.getBoolean("system_ui_control_center_snow_leopard_mode"));
         initHook(NewFlashLight.INSTANCE, mPrefsMap.getStringAsInt("security_flash_light_switch", 0) != 0);
         if (mPrefsMap.getStringAsInt("system_control_center_sunshine_new_mode_high", 0) != 0) {
-            initHook(new SunlightModeHigh());
+            initHook(SunlightModeHigh::new);
         } else {
-            initHook(new SunlightMode(), mPrefsMap.getStringAsInt("system_control_center_sunshine_new_mode", 0) != 0);
+            initHook(SunlightMode::new, mPrefsMap.getStringAsInt("system_control_center_sunshine_new_mode", 0) != 0);
         }
-        initHook(new QSGridLabels(), mPrefsMap.getInt("system_control_center_old_qs_row", 1) > 1 ||
+        initHook(QSGridLabels::new, mPrefsMap.getInt("system_control_center_old_qs_row", 1) > 1 ||
                 mPrefsMap.getBoolean("system_control_center_qs_tile_label"));
-        initHook(new MuteVisibleNotifications(), mPrefsMap.getBoolean("system_ui_control_center_mute_visible_notice"));
-        initHook(new SwitchCCAndNotification(), mPrefsMap.getBoolean("system_ui_control_center_switch_cc_and_notification"));
+        initHook(MuteVisibleNotifications::new, mPrefsMap.getBoolean("system_ui_control_center_mute_visible_notice"));
+        initHook(SwitchCCAndNotification::new, mPrefsMap.getBoolean("system_ui_control_center_switch_cc_and_notification"));
         initHook(OldWeather.INSTANCE, mPrefsMap.getBoolean("system_ui_control_center_show_weather"));
         initHook(NotificationWeather.INSTANCE, mPrefsMap.getBoolean("system_ui_control_center_show_weather"));
         initHook(CompactNotificationsHook.INSTANCE, mPrefsMap.getBoolean("system_ui_control_center_compact_notice"));
@@ -213,40 +213,40 @@ public class SystemUiV extends BaseModule {
                 mPrefsMap.getInt("system_control_center_cc_columns", 4) > 4 ||
                 (mPrefsMap.getBoolean("system_ui_control_center_rounded_rect") && !isMoreHyperOSVersion(1f)) ||
                 mPrefsMap.getBoolean("system_control_center_qs_tile_label"));*/
-        initHook(new QSGrid(), mPrefsMap.getBoolean("system_control_center_old_enable"));
-        initHook(new QQSGrid(), mPrefsMap.getBoolean("system_control_center_old_enable"));
-        initHook(new AutoCollapse(), mPrefsMap.getBoolean("system_ui_control_auto_close"));
+        initHook(QSGrid::new, mPrefsMap.getBoolean("system_control_center_old_enable"));
+        initHook(QQSGrid::new, mPrefsMap.getBoolean("system_control_center_old_enable"));
+        initHook(AutoCollapse::new, mPrefsMap.getBoolean("system_ui_control_auto_close"));
         // initHook(RedirectToNotificationChannelSetting.INSTANCE, mPrefsMap.getBoolean("system_ui_control_center_redirect_notice"));
         initHook(ControlCenterStyle.INSTANCE, mPrefsMap.getBoolean("system_control_center_unlock_old"));
         initHook(NotificationImportanceHyperOSFix.INSTANCE, mPrefsMap.getBoolean("system_settings_more_notification_settings"));
-        initHook(new NotificationRowMenu(), mPrefsMap.getBoolean("system_ui_control_center_notifrowmenu"));
-        initHook(new FixTilesList(), mPrefsMap.getBoolean("system_ui_control_center_fix_tiles_list"));
-        initHook(new AllowAllThemesNotificationBlur(), mPrefsMap.getBoolean("system_ui_control_center_unlock_blur_supported"));
-        initHook(new DisableTransparent(), mPrefsMap.getBoolean("system_ui_control_center_notification_disable_transparent"));
-        initHook(new DisableDeviceManaged(), mPrefsMap.getBoolean("system_ui_control_center_disable_device_managed"));
-        initHook(new RemoveNotifNumLimit(), mPrefsMap.getBoolean("system_ui_control_center_remove_notif_num_limit"));
-        initHook(new NotificationColor(), mPrefsMap.getBoolean("system_ui_control_center_opt_notification_element_background_color"));
+        initHook(NotificationRowMenu::new, mPrefsMap.getBoolean("system_ui_control_center_notifrowmenu"));
+        initHook(FixTilesList::new, mPrefsMap.getBoolean("system_ui_control_center_fix_tiles_list"));
+        initHook(AllowAllThemesNotificationBlur::new, mPrefsMap.getBoolean("system_ui_control_center_unlock_blur_supported"));
+        initHook(DisableTransparent::new, mPrefsMap.getBoolean("system_ui_control_center_notification_disable_transparent"));
+        initHook(DisableDeviceManaged::new, mPrefsMap.getBoolean("system_ui_control_center_disable_device_managed"));
+        initHook(RemoveNotifNumLimit::new, mPrefsMap.getBoolean("system_ui_control_center_remove_notif_num_limit"));
+        initHook(NotificationColor::new, mPrefsMap.getBoolean("system_ui_control_center_opt_notification_element_background_color"));
 
         // Media Card
-        initHook(new MediaControlPanelBackgroundMix(), mPrefsMap.getBoolean("system_ui_control_center_media_control_panel_background_mix"));
-        initHook(new MediaButton(), mPrefsMap.getInt("system_ui_control_center_media_control_media_button", 140) != 140
+        initHook(MediaControlPanelBackgroundMix::new, mPrefsMap.getBoolean("system_ui_control_center_media_control_panel_background_mix"));
+        initHook(MediaButton::new, mPrefsMap.getInt("system_ui_control_center_media_control_media_button", 140) != 140
                 || mPrefsMap.getInt("system_ui_control_center_media_control_media_button_custom", 140) != 140);
-        initHook(new MediaSeekBarColor(), mPrefsMap.getInt("system_ui_control_center_media_control_seekbar_color", -1) != -1
+        initHook(MediaSeekBarColor::new, mPrefsMap.getInt("system_ui_control_center_media_control_seekbar_color", -1) != -1
                 || mPrefsMap.getInt("system_ui_control_center_media_control_seekbar_thumb_color", -1) != -1);
-        initHook(new SquigglyProgress(), mPrefsMap.getStringAsInt("system_ui_control_center_media_control_progress_mode", 0) == 1);
-        initHook(new MediaControlPanelTimeViewTextSize(), mPrefsMap.getInt("system_ui_control_center_media_control_time_view_text_size", 13) != 13);
+        initHook(SquigglyProgress::new, mPrefsMap.getStringAsInt("system_ui_control_center_media_control_progress_mode", 0) == 1);
+        initHook(MediaControlPanelTimeViewTextSize::new, mPrefsMap.getInt("system_ui_control_center_media_control_time_view_text_size", 13) != 13);
         initHook(MediaPicture.INSTANCE, mPrefsMap.getBoolean("system_ui_control_center_media_control_album_picture_rounded_corners") ||
                 mPrefsMap.getBoolean("system_ui_control_center_media_control_remove_album_audio_source_identifie"));
         initHook(MediaSeekBar.INSTANCE, mPrefsMap.getBoolean("system_ui_control_center_remove_media_control_panel_background") ||
                 mPrefsMap.getStringAsInt("system_ui_control_center_media_control_progress_mode", 0) == 2);
 
         // Actions
-        initHook(new StatusBarActions(), true);
+        initHook(StatusBarActions::new, true);
 
         // Other
-        initHook(new UiLockApp(), mPrefsMap.getBoolean("system_framework_guided_access"));
-        initHook(new NotificationFix(), mPrefsMap.getBoolean("system_ui_other_notification_fix"));
-        initHook(new BrightnessPct(), mPrefsMap.getBoolean("system_showpct_title"));
+        initHook(UiLockApp::new, mPrefsMap.getBoolean("system_framework_guided_access"));
+        initHook(NotificationFix::new, mPrefsMap.getBoolean("system_ui_other_notification_fix"));
+        initHook(BrightnessPct::new, mPrefsMap.getBoolean("system_showpct_title"));
         initHook(DisableMiuiMultiWinSwitch.INSTANCE, mPrefsMap.getBoolean("system_ui_disable_miui_multi_win_switch"));
         initHook(RemoveMiuiMultiWinSwitch.INSTANCE, mPrefsMap.getBoolean("system_ui_remove_miui_multi_win_switch"));
         initHook(DisableInfinitymodeGesture.INSTANCE, mPrefsMap.getBoolean("system_ui_disable_infinitymode_gesture"));
@@ -254,7 +254,7 @@ public class SystemUiV extends BaseModule {
         initHook(UnlockClipboard.INSTANCE, mPrefsMap.getBoolean("system_ui_unlock_clipboard"));
 
         // 锁屏
-        initHook(new ScramblePIN(), mPrefsMap.getBoolean("system_ui_lock_screen_scramble_pin"));
+        initHook(ScramblePIN::new, mPrefsMap.getBoolean("system_ui_lock_screen_scramble_pin"));
         initHook(ChargingCVP.INSTANCE, mPrefsMap.getBoolean("system_ui_lock_screen_show_charging_cv"));
         initHook(RemoveCamera.INSTANCE, mPrefsMap.getBoolean("system_ui_lock_screen_hide_camera"));
         initHook(NoPassword.INSTANCE, mPrefsMap.getBoolean("system_ui_lock_screen_password_free"));
@@ -264,14 +264,14 @@ public class SystemUiV extends BaseModule {
         initHook(HideLockScreenStatusBar.INSTANCE, mPrefsMap.getBoolean("system_ui_lock_screen_hide_status_bar"));
         // initHook(new BlockEditor(), mPrefsMap.getBoolean("system_ui_lock_screen_block_editor"));
         initHook(AllowThirdLockScreenUseFace.INSTANCE, mPrefsMap.getBoolean("system_ui_lock_screen_allow_third_face"));
-        initHook(new DisableUnlockByBleToast(), mPrefsMap.getBoolean("system_ui_lock_screen_disable_unlock_by_ble_toast"));
-        initHook(new LinkageAnimCustomer(), mPrefsMap.getBoolean("system_ui_lock_screen_linkage_anim"));
+        initHook(DisableUnlockByBleToast::new, mPrefsMap.getBoolean("system_ui_lock_screen_disable_unlock_by_ble_toast"));
+        initHook(LinkageAnimCustomer::new, mPrefsMap.getBoolean("system_ui_lock_screen_linkage_anim"));
         initHook(BlurButton.INSTANCE, mPrefsMap.getBoolean("system_ui_lock_screen_blur_button"));
 
         initHook(DoubleTapToSleep.INSTANCE, mPrefsMap.getBoolean("system_ui_status_bar_double_tap_to_sleep"));
 
-        initHook(new AllowManageAllNotifications(), mPrefsMap.getBoolean("system_framework_allow_manage_all_notifications"));
+        initHook(AllowManageAllNotifications::new, mPrefsMap.getBoolean("system_framework_allow_manage_all_notifications"));
 
-        initHook(new AutoSEffSwitchForSystemUi(), mPrefsMap.getBoolean("misound_bluetooth"));
+        initHook(AutoSEffSwitchForSystemUi::new, mPrefsMap.getBoolean("misound_bluetooth"));
     }
 }
@@ -31,6 +31,7 @@ import com.sevtinge.hyperceiler.utils.prefs.PrefsMap;
 import com.sevtinge.hyperceiler.utils.prefs.PrefsUtils;
 
 import java.util.HashMap;
+import java.util.function.Supplier;
 
 import de.robv.android.xposed.callbacks.XC_LoadPackage.LoadPackageParam;
 
@@ -45,6 +46,14 @@ public abstract class BaseModule {
     public void initZygote() {
     }
 
+    /**
+     * 在 handleLoadPackage 之前调用，用 DexKit.register 登记本模块的查询，
+     * 未命中缓存的查询会在一次 DexKit 扫描中统一解析，之后钩子中的 findMember 直接命中缓存。
+     * 只登记确实会用到的查询（按对应开关判断），否则会白白增加首次扫描的耗时。
+     */
+    public void initDexKit() {
+    }
+
     public void init(LoadPackageParam lpparam) {
         if (swappedMap.isEmpty()) {
             swappedMap = CrashData.swappedData();
@@ -71,6 +80,8 @@ public abstract class BaseModule {
         mLoadPackageParam = lpparam;
         DexKit.ready(lpparam, TAG);
         try {
+            initDexKit();
+            DexKit.resolveRegistered();
             initZygote();
             handleLoadPackage();
         } catch (Throwable e) {
@@ -94,6 +105,19 @@ public abstract class BaseModule {
         initHook(hook, isInit, null, -1);
     }
 
+    /**
+     * 延迟创建的钩子，仅在 isInit 为 true 时才会加载并实例化钩子类。
+     * <p>
+     * 用法：initHook(XxxHook::new, mPrefsMap.getBoolean("xxx"));
+     */
+    public void initHook(Supplier<?> hook) {
+        initHook(hook, true);
+    }
+
+    public void initHook(Supplier<?> hook, boolean isInit) {
+        if (isInit) onCreate(hook.get());
+    }
+
     public void initHook(Object hook, boolean isInit, String versionName) {
         initHook(hook, isInit, versionName, -1);
     }
@@ -73,103 +73,152 @@ abstract class MusicBaseHook : BaseHook() {
     abstract fun onUpdate(lyricData: LyricData)
     abstract fun onStop()
 
-    @SuppressLint("NotificationPermission", "LaunchActivityFromNotification")
-    fun sendNotification(text: String, extraData: ExtraData) {
-        //  logE("sendNotification: " + context.packageName + ": " + text)
-        createNotificationChannel()
-        val isClickClock = mPrefsMap.getBoolean("system_ui_statusbar_music_click_clock")
-        val launchIntent = context.packageManager.getLaunchIntentForPackage(context.packageName)
-        val base64icon = extraData.base64Icon
-        val bitmap = context.packageManager.getActivityIcon(launchIntent!!).toBitmap()
-        val builder = NotificationCompat.Builder(context, CHANNEL_ID)
-        val intent = Intent("$CHANNEL_ID.actions.switchClockStatus")
-        // 需要重启音乐软件生效
-        val pendingIntent = if (isClickClock) {
+    private val notificationManager by lazy {
+        context.getSystemService("notification") as NotificationManager
+    }
+    private val launchIntent by lazy {
+        context.packageManager.getLaunchIntentForPackage(context.packageName)!!
+    }
+
+    // 需要重启音乐软件生效
+    private val pendingIntent by lazy {
+        if (mPrefsMap.getBoolean("system_ui_statusbar_music_click_clock")) {
+            val intent = Intent("$CHANNEL_ID.actions.switchClockStatus")
             PendingIntent.getBroadcast(context, 0, intent, PendingIntent.FLAG_IMMUTABLE)
         } else {
             PendingIntent.getActivity(context, 0, launchIntent, PendingIntent.FLAG_MUTABLE)
         }
-        builder.setContentTitle(text)
-        if (base64icon != "") {
-            val bitmapBase64Icon = base64ToDrawable(base64icon)
-            if (bitmapBase64Icon != null) {
-                builder.setSmallIcon(IconCompat.createWithBitmap(bitmapBase64Icon))
-            } else {
-                builder.setSmallIcon(IconCompat.createWithBitmap(bitmap))
-            }
-        } else {
-            builder.setSmallIcon(IconCompat.createWithBitmap(bitmap))
+    }
+    private val appIcons by lazy {
+        val bitmap = context.packageManager.getActivityIcon(launchIntent).toBitmap()
+        LyricIcons(IconCompat.createWithBitmap(bitmap), Icon.createWithBitmap(bitmap), Icon.createWithBitmap(bitmap))
+    }
+    private val builder by lazy {
+        NotificationCompat.Builder(context, CHANNEL_ID)
+            .setPriority(NotificationCompat.PRIORITY_LOW)
+            .setOngoing(true) // 设置为常驻通知
+            .setContentIntent(pendingIntent)
+    }
+
+    // 以 Base64 原文为键缓存解码后的图标，命中时会比较完整内容，哈希冲突不会取错图标
+    private val iconCache = object : LinkedHashMap<String, LyricIcons>(ICON_CACHE_SIZE, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<String, LyricIcons>?): Boolean {
+            return size > ICON_CACHE_SIZE
         }
-        builder.setTicker(text).setPriority(NotificationCompat.PRIORITY_LOW)
-        builder.setOngoing(true) // 设置为常驻通知
-        builder.setContentIntent(pendingIntent)
-        val jSONObject = JSONObject()
-        val jSONObject3 = JSONObject()
-        val jSONObject4 = JSONObject()
-        jSONObject4.put("type", 1)
-        jSONObject4.put("title", text)
-        jSONObject3.put("baseInfo", jSONObject4)
-        jSONObject3.put("ticker", text)
-        jSONObject3.put("tickerPic", "miui.focus.pic_ticker")
-        jSONObject3.put("tickerPicDark", "miui.focus.pic_ticker_dark")
-
-        jSONObject.put("param_v2", jSONObject3)
-        val bundle = Bundle()
-        bundle.putString("miui.focus.param", jSONObject.toString())
-        val bundle3 = Bundle()
-        if (base64icon != ""){
-            val bitmapBase64Icon = base64ToDrawable(base64icon)
-            if (bitmapBase64Icon != null) {
-                val iconwiter = Icon.createWithBitmap(bitmapBase64Icon)
-                iconwiter.setTint(Color.WHITE)
-                bundle3.putParcelable(
-                    "miui.focus.pic_ticker", iconwiter
-                )
-                val iconblack = Icon.createWithBitmap(bitmapBase64Icon)
-                iconblack.setTint(Color.BLACK)
-                bundle3.putParcelable(
-                    "miui.focus.pic_ticker_dark", iconblack
-                )
-            } else {
-                bundle3.putParcelable(
-                    "miui.focus.pic_ticker", Icon.createWithBitmap(bitmap)
-                )
-                bundle3.putParcelable(
-                    "miui.focus.pic_ticker_dark", Icon.createWithBitmap(bitmap)
-                )
-            }
+    }
+    private val handler by lazy { Handler(Looper.getMainLooper()) }
+    // 以下状态只在 handler 线程访问
+    private var isChannelCreated = false
+    private var pendingText: String? = null
+    private var pendingExtra: ExtraData? = null
+    private var lastText: String? = null
+    private var lastIcons: LyricIcons? = null
+    private var lastPostTime = 0L
+    private val postRunnable = Runnable { postPending() }
+
+    /**
+     * 发布歌词通知。连续的更新在 [MIN_POST_INTERVAL] 内合并为一次，
+     * 只发布最后一条；文本与图标都未变化时不重新发布。
+     * 可在任意线程调用，实际处理都在 handler 线程中进行。
+     */
+    fun sendNotification(text: String, extraData: ExtraData) {
+        //  logE("sendNotification: " + context.packageName + ": " + text)
+        handler.post { schedulePost(text, extraData) }
+    }
+
+    private fun schedulePost(text: String, extraData: ExtraData) {
+        pendingText = text
+        pendingExtra = extraData
+        handler.removeCallbacks(postRunnable)
+        val delay = lastPostTime + MIN_POST_INTERVAL - SystemClock.uptimeMillis()
+        if (delay > 0) {
+            handler.postDelayed(postRunnable, delay)
         } else {
-            bundle3.putParcelable(
-                "miui.focus.pic_ticker", Icon.createWithBitmap(bitmap)
-            )
-            bundle3.putParcelable(
-                "miui.focus.pic_ticker_dark", Icon.createWithBitmap(bitmap)
-            )
+            postPending()
         }
-        bundle.putBundle("miui.focus.pics", bundle3)
+    }
 
+    @SuppressLint("NotificationPermission")
+    private fun postPending() {
+        // 合并后的发布在 Handler 中执行，不经过 LyricListener 的异常捕获
+        runCatching {
+            val text = pendingText ?: return@runCatching
+            val extraData = pendingExtra ?: return@runCatching
+            pendingText = null
+            pendingExtra = null
+
+            val icons = getIcons(extraData.base64Icon)
+            if (text == lastText && icons === lastIcons) return@runCatching
+            lastText = text
+            lastIcons = icons
+            lastPostTime = SystemClock.uptimeMillis()
+
+            createNotificationChannel()
+            builder.setContentTitle(text)
+                .setTicker(text)
+                .setSmallIcon(icons.smallIcon)
+            val quoted = JSONObject.quote(text)
+            val bundle = Bundle()
+            bundle.putString(
+                "miui.focus.param",
+                "{\"param_v2\":{\"baseInfo\":{\"type\":1,\"title\":$quoted},\"ticker\":$quoted," +
+                    "\"tickerPic\":\"miui.focus.pic_ticker\",\"tickerPicDark\":\"miui.focus.pic_ticker_dark\"}}"
+            )
+            bundle.putBundle("miui.focus.pics", icons.pics)
+            builder.addExtras(bundle)
+            notificationManager.notify(CHANNEL_ID.hashCode(), builder.build())
+        }.onFailure {
+            logE(TAG, lpparam.packageName, it)
+        }
+    }
 
-        builder.addExtras(bundle)
-        val notification = builder.build()
-        (context.getSystemService("notification") as NotificationManager).notify(
-            CHANNEL_ID.hashCode(), notification
-        )
+    private fun getIcons(base64icon: String): LyricIcons {
+        if (base64icon == "") return appIcons
+        iconCache[base64icon]?.let { return it }
+        val bitmapBase64Icon = base64ToDrawable(base64icon) ?: return appIcons
+        val iconWhite = Icon.createWithBitmap(bitmapBase64Icon)
+        iconWhite.setTint(Color.WHITE)
+        val iconBlack = Icon.createWithBitmap(bitmapBase64Icon)
+        iconBlack.setTint(Color.BLACK)
+        val icons = LyricIcons(IconCompat.createWithBitmap(bitmapBase64Icon), iconWhite, iconBlack)
+        iconCache[base64icon] = icons
+        return icons
     }
 
     private fun createNotificationChannel() {
+        if (isChannelCreated) return
         val modRes = OtherTool.getModuleRes(context)
-        val notificationManager = context.getSystemService("notification") as NotificationManager
         val notificationChannel = NotificationChannel(
             CHANNEL_ID, modRes.getString(com.sevtinge.hyperceiler.R.string.system_ui_statusbar_music_notification), NotificationManager.IMPORTANCE_DEFAULT
         )
         notificationChannel.setSound(null, null)
         notificationManager.createNotificationChannel(notificationChannel)
+        isChannelCreated = true
     }
 
 
     @SuppressLint("NotificationPermission")
     fun cancelNotification() {
-        (context.getSystemService("notification") as NotificationManager).cancel(CHANNEL_ID.hashCode())
+        // 与 sendNotification 按调用顺序在同一线程执行
+        handler.post {
+            handler.removeCallbacks(postRunnable)
+            pendingText = null
+            pendingExtra = null
+            lastText = null
+            lastIcons = null
+            runCatching {
+                notificationManager.cancel(CHANNEL_ID.hashCode())
+            }.onFailure {
+                logE(TAG, lpparam.packageName, it)
+            }
+        }
+    }
+
+    private class LyricIcons(val smallIcon: IconCompat, tickerIcon: Icon, tickerIconDark: Icon) {
+        val pics = Bundle().apply {
+            putParcelable("miui.focus.pic_ticker", tickerIcon)
+            putParcelable("miui.focus.pic_ticker_dark", tickerIconDark)
+        }
     }
 
     /**
@@ -188,5 +237,7 @@ abstract class MusicBaseHook : BaseHook() {
 
     companion object {
         const val CHANNEL_ID: String = "channel_id_focusNotifLyrics"
+        private const val MIN_POST_INTERVAL = 300L
+        private const val ICON_CACHE_SIZE = 4
     }
 }
\ No newline at end of file
@@ -20,26 +20,29 @@ package com.sevtinge.hyperceiler.module.base.dexkit;
 
 import static com.sevtinge.hyperceiler.module.base.tool.AppsTool.getPackageVersionCode;
 import static com.sevtinge.hyperceiler.module.base.tool.AppsTool.getPackageVersionName;
-import static com.sevtinge.hyperceiler.utils.shell.ShellUtils.rootExecCmd;
+import static com.sevtinge.hyperceiler.utils.log.XposedLogUtils.logD;
+import static com.sevtinge.hyperceiler.utils.shell.ShellUtils.rootExecCmds;
 
 import android.content.Context;
+import android.os.SystemClock;
 
 import androidx.annotation.NonNull;
-import androidx.annotation.Nullable;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.reflect.TypeToken;
 import com.sevtinge.hyperceiler.R;
 import com.tencent.mmkv.MMKV;
 
 import org.jetbrains.annotations.NotNull;
 import org.luckypray.dexkit.DexKitBridge;
+import org.luckypray.dexkit.query.BatchFindClassUsingStrings;
+import org.luckypray.dexkit.query.BatchFindMethodUsingStrings;
+import org.luckypray.dexkit.query.FindClass;
+import org.luckypray.dexkit.query.FindMethod;
+import org.luckypray.dexkit.query.matchers.ClassMatcher;
+import org.luckypray.dexkit.query.matchers.MethodMatcher;
 import org.luckypray.dexkit.result.BaseDataList;
 import org.luckypray.dexkit.result.ClassData;
 import org.luckypray.dexkit.result.ClassDataList;
 import org.luckypray.dexkit.result.FieldData;
-import org.luckypray.dexkit.result.FieldDataList;
 import org.luckypray.dexkit.result.MethodData;
 import org.luckypray.dexkit.result.MethodDataList;
 import org.luckypray.dexkit.result.base.BaseData;
@@ -48,7 +51,12 @@ import org.luckypray.dexkit.wrap.DexField;
 import org.luckypray.dexkit.wrap.DexMethod;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -62,34 +70,141 @@ import de.robv.android.xposed.callbacks.XC_LoadPackage;
 public class DexKit {
     private static String TAG = "DexKit";
     private static boolean isInit = false;
-    private static final int mVersion = 1; // 新时节，新气象
+    private static final int mVersion = 2; // 缓存改为紧凑文本格式，旧 JSON 缓存作废
     private static final String MMKV_PATH = "/files/hyperceiler/mmkv";
     private static XC_LoadPackage.LoadPackageParam mParam;
-    private static final String TYPE_METHOD = "METHOD";
-    private static final String TYPE_CLASS = "CLASS";
-    private static final String TYPE_FIELD = "FIELD";
+    // 缓存格式：<类型字符><描述符>[\n<描述符>...]
+    private static final char TYPE_METHOD = 'M';
+    private static final char TYPE_CLASS = 'C';
+    private static final char TYPE_FIELD = 'F';
+    private static final char SEPARATOR = '\n';
     private static MMKV mMMKV = null;
-    private static Gson mGson = null;
     private static DexKitBridge mDexKitBridge;
+    // 统计本次加载中缓存命中（warm）与实际查询（cold）的耗时
+    private static long mWarmCount = 0;
+    private static long mWarmTime = 0;
+    private static long mColdCount = 0;
+    private static long mColdTime = 0;
+    // BaseModule#initDexKit 中登记的查询，值为 IDexKit 或 IDexKitList
+    private static final LinkedHashMap<String, Object> mRegistered = new LinkedHashMap<>();
 
     public static void ready(XC_LoadPackage.LoadPackageParam param, String tag) {
         mParam = param;
         TAG = tag;
         isInit = false;
+        mRegistered.clear();
     }
 
-    @NotNull
-    public static DexKitBridge initDexkitBridge() {
-        if (mDexKitBridge != null)
-            return mDexKitBridge;
-        if (isInit)
-            throw new RuntimeException(TAG + ": mDexKitBridge is null!");
+    /**
+     * 仅按字符串匹配的查询，可与其他同类查询合并为一次 batchFind*UsingStrings。
+     * 结果不唯一时返回 null，与 singleOrNull 一致。
+     */
+    public static final class UsingStrings implements IDexKit {
+        private final boolean isMethod;
+        private final String[] mStrings;
+
+        private UsingStrings(boolean isMethod, String[] strings) {
+            this.isMethod = isMethod;
+            mStrings = strings;
+        }
+
+        @Override
+        public BaseData dexkit(DexKitBridge bridge) {
+            if (isMethod) {
+                return bridge.findMethod(FindMethod.create()
+                        .matcher(MethodMatcher.create().usingStrings(mStrings))).singleOrNull();
+            }
+            return bridge.findClass(FindClass.create()
+                    .matcher(ClassMatcher.create().usingStrings(mStrings))).singleOrNull();
+        }
+    }
+
+    public static UsingStrings methodUsingStrings(String... strings) {
+        return new UsingStrings(true, strings);
+    }
+
+    public static UsingStrings classUsingStrings(String... strings) {
+        return new UsingStrings(false, strings);
+    }
+
+    /**
+     * 登记查询，只能在 BaseModule#initDexKit 中调用。
+     * 登记的查询在 handleLoadPackage 之前统一解析并写入缓存，之后 findMember 直接命中。
+     */
+    public static void register(@NonNull String key, IDexKit iDexKit) {
+        mRegistered.put(key, iDexKit);
+    }
+
+    public static void registerList(@NonNull String key, IDexKitList iDexKitList) {
+        mRegistered.put(key, iDexKitList);
+    }
+
+    /**
+     * 解析登记的查询中未命中缓存的部分：共用一个 DexKitBridge，
+     * 纯字符串查询按类型合并为一次批量查询，全部完成后一并写入 MMKV。
+     * 查询失败的键不写入，之后由 findMember 按原方式重试并报错。
+     */
+    public static void resolveRegistered() {
+        if (mRegistered.isEmpty()) return;
+        MMKV mmkv = initMMKV();
+        HashMap<String, Collection<String>> methodGroups = new HashMap<>();
+        HashMap<String, Collection<String>> classGroups = new HashMap<>();
+        LinkedHashMap<String, Object> others = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> entry : mRegistered.entrySet()) {
+            if (mmkv.containsKey(entry.getKey())) continue;
+            if (entry.getValue() instanceof UsingStrings query) {
+                (query.isMethod ? methodGroups : classGroups).put(entry.getKey(), Arrays.asList(query.mStrings));
+            } else others.put(entry.getKey(), entry.getValue());
+        }
+        mRegistered.clear();
+        if (methodGroups.isEmpty() && classGroups.isEmpty() && others.isEmpty()) return;
+
+        long start = SystemClock.elapsedRealtimeNanos();
+        DexKitBridge bridge = initDexkitBridge();
+        HashMap<String, String> resolved = new HashMap<>();
+        if (!methodGroups.isEmpty()) {
+            Map<String, MethodDataList> result = bridge.batchFindMethodUsingStrings(
+                    BatchFindMethodUsingStrings.create().groups(methodGroups));
+            for (Map.Entry<String, MethodDataList> entry : result.entrySet()) {
+                if (entry.getValue().size() == 1) resolved.put(entry.getKey(), encode(entry.getValue().get(0)));
+            }
+        }
+        if (!classGroups.isEmpty()) {
+            Map<String, ClassDataList> result = bridge.batchFindClassUsingStrings(
+                    BatchFindClassUsingStrings.create().groups(classGroups));
+            for (Map.Entry<String, ClassDataList> entry : result.entrySet()) {
+                if (entry.getValue().size() == 1) resolved.put(entry.getKey(), encode(entry.getValue().get(0)));
+            }
+        }
+        for (Map.Entry<String, Object> entry : others.entrySet()) {
+            try {
+                String encoded = entry.getValue() instanceof IDexKit iDexKit
+                        ? encode(iDexKit.dexkit(bridge))
+                        : encodeList(((IDexKitList) entry.getValue()).dexkit(bridge));
+                if (encoded != null) resolved.put(entry.getKey(), encoded);
+            } catch (Throwable ignore) {
+            }
+        }
+
+        // 统一写回
+        for (Map.Entry<String, String> entry : resolved.entrySet()) {
+            mmkv.putString(entry.getKey(), entry.getValue());
+        }
+        logD(TAG, mParam.packageName, "DexKit batch: " + resolved.size() + "/"
+                + (methodGroups.size() + classGroups.size() + others.size()) + " resolved in "
+                + (SystemClock.elapsedRealtimeNanos() - start) / 1000000 + "ms");
+    }
+
+    /**
+     * 启动 MMKV 并校验缓存版本，不会创建 DexKitBridge。
+     */
+    private static MMKV initMMKV() {
+        if (mMMKV != null)
+            return mMMKV;
         if (mParam == null)
             throw new RuntimeException(TAG + ": lpparam is null!");
 
-        String hostDir = mParam.appInfo.sourceDir,
-                mmkvPath = mParam.appInfo.dataDir + MMKV_PATH;
-        mGson = new GsonBuilder().disableHtmlEscaping().setPrettyPrinting().create();
+        String mmkvPath = mParam.appInfo.dataDir + MMKV_PATH;
 
         // 启动 MMKV
         MMKV.initialize(mmkvPath, System::loadLibrary);
@@ -99,7 +214,7 @@ public class DexKit {
         if (mMMKV.containsKey("version")) {
             int version = mMMKV.getInt("version", 0);
             if (version != mVersion) {
-                mMMKV.clear();
+                mMMKV.clearAll();
                 mMMKV.putInt("version", mVersion);
             }
         } else
@@ -110,14 +225,28 @@ public class DexKit {
             String oldPkgVersion = mMMKV.getString("pkgVersion", "null");
             if (!Objects.equals(pkgVersion, oldPkgVersion)) {
                 mMMKV.clearAll();
+                mMMKV.putInt("version", mVersion);
                 mMMKV.putString("pkgVersion", pkgVersion);
             }
         } else
             mMMKV.putString("pkgVersion", pkgVersion);
+        return mMMKV;
+    }
+
+    /**
+     * 缓存全部命中时不会调用本方法，DexKitBridge 只在确有查询时创建，且一次加载内共用。
+     */
+    @NotNull
+    public static DexKitBridge initDexkitBridge() {
+        if (mDexKitBridge != null)
+            return mDexKitBridge;
+        if (isInit)
+            throw new RuntimeException(TAG + ": mDexKitBridge is null!");
+        initMMKV();
 
         // 启动 DexKit
         System.loadLibrary("dexkit");
-        mDexKitBridge = DexKitBridge.create(hostDir);
+        mDexKitBridge = DexKitBridge.create(mParam.appInfo.sourceDir);
         isInit = true;
 
         return mDexKitBridge;
@@ -131,44 +260,27 @@ public class DexKit {
     }
 
     public static <T> T findMember(@NonNull String key, ClassLoader classLoader, IDexKit iDexKit) {
-        DexKitBridge dexKitBridge = initDexkitBridge();
-        String descriptor = mMMKV.getString(key, "");
-        if (descriptor.isEmpty()) {
-            try {
-                BaseData baseData = iDexKit.dexkit(dexKitBridge);
-                if (baseData instanceof FieldData fieldData) {
-                    mMMKV.putString(key, mGson.toJson(new MemberData(TYPE_FIELD, fieldData.toDexField().serialize())) + "\n\n");
-                    return (T) fieldData.getFieldInstance(classLoader);
-                } else if (baseData instanceof MethodData methodData) {
-                    mMMKV.putString(key, mGson.toJson(new MemberData(TYPE_METHOD, methodData.toDexMethod().serialize())) + "\n\n");
-                    return (T) methodData.getMethodInstance(classLoader);
-                } else if (baseData instanceof ClassData classData) {
-                    mMMKV.putString(key, mGson.toJson(new MemberData(TYPE_CLASS, classData.toDexType().serialize())) + "\n\n");
-                    return (T) classData.getInstance(classLoader);
-                }
-            } catch (ReflectiveOperationException e) {
-                throw new RuntimeException(e);
-            }
-        } else {
-            MemberData data = mGson.fromJson(descriptor, new TypeToken<MemberData>() {
-            }.getType());
-            try {
-                switch (data.type) {
-                    case TYPE_METHOD -> {
-                        return (T) new DexMethod(data.serialize).getMethodInstance(classLoader);
-                    }
-                    case TYPE_FIELD -> {
-                        return (T) new DexField(data.serialize).getFieldInstance(classLoader);
-                    }
-                    case TYPE_CLASS -> {
-                        return (T) new DexClass(data.serialize).getInstance(classLoader);
-                    }
-                }
-            } catch (NoSuchMethodException | NoSuchFieldException | ClassNotFoundException e) {
-                throw new RuntimeException(e);
+        String descriptor = initMMKV().getString(key, "");
+        long start = SystemClock.elapsedRealtimeNanos();
+        try {
+            if (descriptor.isEmpty()) {
+                BaseData baseData = iDexKit.dexkit(initDexkitBridge());
+                String encoded = encode(baseData);
+                if (encoded == null) return null;
+                mMMKV.putString(key, encoded);
+                T instance = (T) getInstance(encoded.charAt(0), encoded.substring(1), classLoader);
+                mColdCount++;
+                mColdTime += SystemClock.elapsedRealtimeNanos() - start;
+                return instance;
+            } else {
+                T instance = (T) getInstance(descriptor.charAt(0), descriptor.substring(1), classLoader);
+                mWarmCount++;
+                mWarmTime += SystemClock.elapsedRealtimeNanos() - start;
+                return instance;
             }
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException(e);
         }
-        return null;
     }
 
     public static <T> List<T> findMemberList(@NonNull String key, IDexKitList iDexKitList) {
@@ -176,130 +288,116 @@ public class DexKit {
     }
 
     public static <T> List<T> findMemberList(@NonNull String key, ClassLoader classLoader, IDexKitList iDexKitList) {
-        DexKitBridge dexKitBridge = initDexkitBridge();
-        String descriptor = mMMKV.getString(key, "");
-        if (descriptor.isEmpty()) {
-            try {
-                BaseDataList<?> baseDataList = iDexKitList.dexkit(dexKitBridge);
-                ArrayList<String> serializeList = new ArrayList<>();
-                ArrayList<T> instanceList = new ArrayList<>();
-                if (baseDataList instanceof FieldDataList fieldDataList) {
-                    for (FieldData f : fieldDataList) {
-                        serializeList.add(f.toDexField().serialize());
-                        instanceList.add((T) f.getFieldInstance(classLoader));
-                    }
-                    mMMKV.putString(key, mGson.toJson(new MemberData(TYPE_FIELD, serializeList)) + "\n\n");
-                    return instanceList;
-                } else if (baseDataList instanceof MethodDataList methodDataList) {
-                    for (MethodData m : methodDataList) {
-                        serializeList.add(m.toDexMethod().serialize());
-                        instanceList.add((T) m.getMethodInstance(classLoader));
-                    }
-                    mMMKV.putString(key, mGson.toJson(new MemberData(TYPE_METHOD, serializeList)) + "\n\n");
-                    return instanceList;
-                } else if (baseDataList instanceof ClassDataList classDataList) {
-                    for (ClassData c : classDataList) {
-                        serializeList.add(c.toDexType().serialize());
-                        instanceList.add((T) c.getInstance(classLoader));
-                    }
-                    mMMKV.putString(key, mGson.toJson(new MemberData(TYPE_CLASS, serializeList)) + "\n\n");
-                    return instanceList;
-                }
-            } catch (ReflectiveOperationException e) {
-                throw new RuntimeException(e);
-            }
-        } else {
-            MemberData data = mGson.fromJson(descriptor, new TypeToken<MemberData>() {
-            }.getType());
-            ArrayList<T> instanceList = new ArrayList<>();
-            try {
-                switch (data.type) {
-                    case TYPE_METHOD -> {
-                        for (String s : data.serializeList) {
-                            instanceList.add((T) new DexMethod(s).getMethodInstance(classLoader));
-                        }
-                        return instanceList;
-                    }
-                    case TYPE_FIELD -> {
-                        for (String s : data.serializeList) {
-                            instanceList.add((T) new DexField(s).getFieldInstance(classLoader));
-                        }
-                        return instanceList;
-                    }
-                    case TYPE_CLASS -> {
-                        for (String s : data.serializeList) {
-                            instanceList.add((T) new DexClass(s).getInstance(classLoader));
-                        }
-                        return instanceList;
-                    }
-                }
-            } catch (NoSuchMethodException | NoSuchFieldException | ClassNotFoundException e) {
-                throw new RuntimeException(e);
+        String descriptor = initMMKV().getString(key, "");
+        long start = SystemClock.elapsedRealtimeNanos();
+        try {
+            ArrayList<T> instanceList;
+            if (descriptor.isEmpty()) {
+                BaseDataList<?> baseDataList = iDexKitList.dexkit(initDexkitBridge());
+                String encoded = encodeList(baseDataList);
+                if (encoded == null) return new ArrayList<>();
+                mMMKV.putString(key, encoded);
+                instanceList = decodeList(encoded, classLoader);
+                mColdCount++;
+                mColdTime += SystemClock.elapsedRealtimeNanos() - start;
+            } else {
+                instanceList = decodeList(descriptor, classLoader);
+                mWarmCount++;
+                mWarmTime += SystemClock.elapsedRealtimeNanos() - start;
             }
+            return instanceList;
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static String encode(BaseData baseData) {
+        if (baseData instanceof FieldData fieldData) {
+            return TYPE_FIELD + fieldData.toDexField().serialize();
+        } else if (baseData instanceof MethodData methodData) {
+            return TYPE_METHOD + methodData.toDexMethod().serialize();
+        } else if (baseData instanceof ClassData classData) {
+            return TYPE_CLASS + classData.toDexType().serialize();
+        }
+        return null;
+    }
+
+    private static String encodeList(BaseDataList<?> baseDataList) {
+        if (baseDataList == null) return null;
+        StringBuilder builder = new StringBuilder();
+        char type = 0;
+        for (Object data : baseDataList) {
+            String encoded = encode((BaseData) data);
+            if (encoded == null) return null;
+            if (type == 0) {
+                type = encoded.charAt(0);
+                builder.append(type);
+            } else builder.append(SEPARATOR);
+            builder.append(encoded, 1, encoded.length());
+        }
+        // 空结果也要缓存，避免每次启动都重新查询
+        return type == 0 ? String.valueOf(TYPE_CLASS) : builder.toString();
+    }
+
+    private static <T> ArrayList<T> decodeList(String encoded, ClassLoader classLoader) throws ReflectiveOperationException {
+        ArrayList<T> instanceList = new ArrayList<>();
+        char type = encoded.charAt(0);
+        int start = 1;
+        int length = encoded.length();
+        while (start < length) {
+            int end = encoded.indexOf(SEPARATOR, start);
+            if (end == -1) end = length;
+            instanceList.add((T) getInstance(type, encoded.substring(start, end), classLoader));
+            start = end + 1;
         }
-        return new ArrayList<>();
+        return instanceList;
+    }
+
+    private static Object getInstance(char type, String serialize, ClassLoader classLoader) throws ReflectiveOperationException {
+        return switch (type) {
+            case TYPE_METHOD -> new DexMethod(serialize).getMethodInstance(classLoader);
+            case TYPE_FIELD -> new DexField(serialize).getFieldInstance(classLoader);
+            case TYPE_CLASS -> new DexClass(serialize).getInstance(classLoader);
+            default -> throw new IllegalStateException(TAG + ": unknown cache type: " + type);
+        };
     }
 
     public static void deleteAllCache(Context context) {
         String[] folderNames = context.getResources().getStringArray(R.array.xposed_scope);
         ExecutorService executor = Executors.newSingleThreadExecutor();
         executor.submit(() -> {
-            for (String folderName : folderNames) {
-                String folderPath = "/data/data/" + folderName + MMKV_PATH;
-                rootExecCmd("rm -rf " + folderPath);
-                folderPath = "/data/user_de/0/" + folderName + MMKV_PATH;
-                rootExecCmd("rm -rf " + folderPath);
+            // 所有删除命令一次提交
+            String[] commands = new String[folderNames.length * 2];
+            for (int i = 0; i < folderNames.length; i++) {
+                commands[i * 2] = "rm -rf " + "/data/data/" + folderNames[i] + MMKV_PATH;
+                commands[i * 2 + 1] = "rm -rf " + "/data/user_de/0/" + folderNames[i] + MMKV_PATH;
             }
+            rootExecCmds(commands);
         });
+        executor.shutdown();
     }
 
     /**
      * 请勿手动调用。
      */
     public static void close() {
+        if (mColdCount != 0 || mWarmCount != 0) {
+            logD(TAG, mParam == null ? "null" : mParam.packageName, "DexKit resolve: cold " + mColdCount + " in " + mColdTime / 1000000 + "ms, warm " + mWarmCount + " in " + mWarmTime / 1000000 + "ms");
+        }
+        mColdCount = mColdTime = mWarmCount = mWarmTime = 0;
+        mRegistered.clear();
+
+        if (mMMKV != null) {
+            mMMKV.close();
+            mMMKV = null;
+        }
         if (!isInit) return;
 
         if (mDexKitBridge != null) {
             mDexKitBridge.close();
             mDexKitBridge = null;
         }
-        if (mMMKV != null) {
-            mMMKV.close();
-            mMMKV = null;
-        }
         mParam = null;
-        mGson = null;
         isInit = false;
     }
-
-    private static final class MemberData {
-        public String type;
-        public String serialize = "";
-
-        public ArrayList<String> serializeList = new ArrayList<>();
-
-        public MemberData(String type, String serialize) {
-            this.type = type;
-            this.serialize = serialize;
-        }
-
-        public MemberData(String type, ArrayList<String> serializeList) {
-            this.type = type;
-            this.serializeList = serializeList;
-        }
-
-        @NonNull
-        @Override
-        public String toString() {
-            return "Type: " + type + ", Serialize: " + serialize + ", SerializeList: " + serializeList;
-        }
-
-        @Override
-        public boolean equals(@Nullable Object obj) {
-            return obj instanceof MemberData memberData
-                    && memberData.type.equals(type)
-                    && memberData.serialize.equals(serialize)
-                    && memberData.serializeList.equals(serializeList);
-        }
-    }
 }
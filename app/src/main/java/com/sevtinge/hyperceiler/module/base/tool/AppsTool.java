@@ -210,29 +210,11 @@ public class AppsTool {
     }
 
     public static String getPackageVersionName(XC_LoadPackage.LoadPackageParam lpparam) {
-        try {
-            Class<?> parserCls = XposedHelpers.findClass("android.content.pm.PackageParser", lpparam.classLoader);
-            Object parser = parserCls.getDeclaredConstructor().newInstance();
-            File apkPath = new File(lpparam.appInfo.sourceDir);
-            Object pkg = XposedHelpers.callMethod(parser, "parsePackage", apkPath, 0);
-            return (String) XposedHelpers.getObjectField(pkg, "mVersionName");
-        } catch (Throwable e) {
-            logE("getPackageVersionCode", e);
-            return "null";
-        }
+        return PackageVersionCache.getVersionName(lpparam);
     }
 
     public static int getPackageVersionCode(XC_LoadPackage.LoadPackageParam lpparam) {
-        try {
-            Class<?> parserCls = XposedHelpers.findClass("android.content.pm.PackageParser", lpparam.classLoader);
-            Object parser = parserCls.getDeclaredConstructor().newInstance();
-            File apkPath = new File(lpparam.appInfo.sourceDir);
-            Object pkg = XposedHelpers.callMethod(parser, "parsePackage", apkPath, 0);
-            return XposedHelpers.getIntField(pkg, "mVersionCode");
-        } catch (Throwable e) {
-            logE("getPackageVersionCode", e);
-            return -1;
-        }
+        return PackageVersionCache.getVersionCode(lpparam);
     }
 
     public static void checkXposedActivateState(Context context) {
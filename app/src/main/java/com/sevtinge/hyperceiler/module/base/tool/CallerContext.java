@@ -0,0 +1,98 @@
+/*
+ * This file is part of HyperCeiler.
+
+ * HyperCeiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ * Copyright (C) 2023-2025 HyperCeiler Contributions
+ */
+package com.sevtinge.hyperceiler.module.base.tool;
+
+import de.robv.android.xposed.XC_MethodHook;
+import de.robv.android.xposed.XposedBridge;
+
+/**
+ * 判断当前线程是否处于某个方法的调用过程中，用于替代每次获取完整调用栈。
+ * <p>
+ * 通过在外层方法前后挂钩维护一个线程内的计数；外层方法无法挂钩时，
+ * 退回到扫描调用栈（ART 不提供 StackWalker，只能获取完整调用栈）。
+ */
+public final class CallerContext {
+    private final String mMethodName;
+    private final ThreadLocal<int[]> mDepth = ThreadLocal.withInitial(() -> new int[1]);
+    private volatile boolean isTracking;
+
+    private final XC_MethodHook mHook = new XC_MethodHook() {
+        @Override
+        protected void beforeHookedMethod(MethodHookParam param) {
+            enter();
+        }
+
+        @Override
+        protected void afterHookedMethod(MethodHookParam param) {
+            // 原方法抛出异常时 after 同样会被调用
+            exit();
+        }
+    };
+
+    public CallerContext(String methodName) {
+        this(methodName, false);
+    }
+
+    // 供测试直接启用计数方式
+    CallerContext(String methodName, boolean isTracking) {
+        mMethodName = methodName;
+        this.isTracking = isTracking;
+    }
+
+    void enter() {
+        mDepth.get()[0]++;
+    }
+
+    void exit() {
+        int[] depth = mDepth.get();
+        if (depth[0] > 0) depth[0]--;
+    }
+
+    /**
+     * 挂钩给定类中所有同名方法，任意一个成功即启用计数方式。
+     * 传入 null 的类会被忽略。
+     */
+    public CallerContext track(Class<?>... classes) {
+        for (Class<?> clazz : classes) {
+            if (clazz == null) continue;
+            try {
+                if (!XposedBridge.hookAllMethods(clazz, mMethodName, mHook).isEmpty()) {
+                    isTracking = true;
+                }
+            } catch (Throwable ignore) {
+            }
+        }
+        return this;
+    }
+
+    public boolean isTracking() {
+        return isTracking;
+    }
+
+    /**
+     * 当前线程是否在目标方法内。
+     */
+    public boolean isInside() {
+        if (isTracking) return mDepth.get()[0] > 0;
+        for (StackTraceElement element : Thread.currentThread().getStackTrace()) {
+            if (mMethodName.equals(element.getMethodName())) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * This file is part of HyperCeiler.
+
+ * HyperCeiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ * Copyright (C) 2023-2025 HyperCeiler Contributions
+ */
+package com.sevtinge.hyperceiler.module.base.tool;
+
+import static com.sevtinge.hyperceiler.utils.log.XposedLogUtils.logD;
+import static com.sevtinge.hyperceiler.utils.log.XposedLogUtils.logE;
+
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import de.robv.android.xposed.XposedHelpers;
+import de.robv.android.xposed.callbacks.XC_LoadPackage;
+
+/**
+ * 宿主版本缓存。
+ * <p>
+ * 以 (sourceDir, 文件大小, 修改时间) 为键，每个进程最多解析一次 APK，解析失败同样只尝试一次；
+ * 解析结果同时写入宿主数据目录下的索引文件，重启后的冷启动可直接命中，无需再解析。
+ */
+public final class PackageVersionCache {
+    private static final String TAG = "PackageVersionCache";
+    private static final String INDEX_PATH = "/files/hyperceiler/version_index";
+    private static final String SEPARATOR = "\t";
+    // 解析失败的记录，只保存在内存中，下次启动重新尝试
+    private static final Entry FAILED = new Entry(0, 0, -1, "null");
+
+    private static final HashMap<String, Entry> mCache = new HashMap<>();
+
+    private PackageVersionCache() {
+    }
+
+    interface Parser {
+        /**
+         * @return 解析失败时返回 null
+         */
+        Entry parse(File apk, long size, long mtime);
+    }
+
+    public static int getVersionCode(XC_LoadPackage.LoadPackageParam lpparam) {
+        return get(lpparam).versionCode;
+    }
+
+    public static String getVersionName(XC_LoadPackage.LoadPackageParam lpparam) {
+        return get(lpparam).versionName;
+    }
+
+    private static Entry get(XC_LoadPackage.LoadPackageParam lpparam) {
+        return get(lpparam.appInfo.sourceDir, getIndexFile(lpparam), (apk, size, mtime) -> parse(lpparam, apk, size, mtime));
+    }
+
+    static synchronized Entry get(String sourceDir, File index, Parser parser) {
+        File apk = new File(sourceDir);
+        long size = apk.length();
+        long mtime = apk.lastModified();
+
+        Entry entry = mCache.get(sourceDir);
+        if (entry != null && entry.matches(size, mtime)) return entry;
+
+        // 冷启动：先查磁盘索引
+        Map<String, Entry> persisted = readIndex(index);
+        entry = persisted.get(sourceDir);
+        if (entry != null && entry.matches(size, mtime)) {
+            mCache.put(sourceDir, entry);
+            return entry;
+        }
+
+        entry = parser.parse(apk, size, mtime);
+        if (entry == null) {
+            // APK 未变化前不再重复解析
+            mCache.put(sourceDir, FAILED.withKey(size, mtime));
+            return FAILED;
+        }
+        mCache.put(sourceDir, entry);
+        persisted.put(sourceDir, entry);
+        writeIndex(index, persisted);
+        return entry;
+    }
+
+    // 只清空内存缓存，供测试模拟新进程
+    static synchronized void clearMemory() {
+        mCache.clear();
+    }
+
+    private static Entry parse(XC_LoadPackage.LoadPackageParam lpparam, File apk, long size, long mtime) {
+        long start = SystemClock.elapsedRealtime();
+        try {
+            Class<?> parserCls = XposedHelpers.findClass("android.content.pm.PackageParser", lpparam.classLoader);
+            Object parser = parserCls.getDeclaredConstructor().newInstance();
+            Object pkg = XposedHelpers.callMethod(parser, "parsePackage", apk, 0);
+            Entry entry = new Entry(size, mtime,
+                    XposedHelpers.getIntField(pkg, "mVersionCode"),
+                    (String) XposedHelpers.getObjectField(pkg, "mVersionName"));
+            logD(TAG, lpparam.packageName, "parsed " + apk.getName() + " in " + (SystemClock.elapsedRealtime() - start) + "ms");
+            return entry;
+        } catch (Throwable e) {
+            logE(TAG, lpparam.packageName, e);
+            return null;
+        }
+    }
+
+    private static File getIndexFile(XC_LoadPackage.LoadPackageParam lpparam) {
+        String dataDir = lpparam.appInfo.dataDir;
+        return dataDir == null ? null : new File(dataDir + INDEX_PATH);
+    }
+
+    private static Map<String, Entry> readIndex(File index) {
+        HashMap<String, Entry> map = new HashMap<>();
+        if (index == null || !index.isFile()) return map;
+        try (BufferedReader reader = new BufferedReader(new FileReader(index))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                // sourceDir \t size \t mtime \t versionCode [\t versionName]，versionName 为 null 时省略
+                String[] parts = line.split(SEPARATOR, 5);
+                if (parts.length < 4) continue;
+                try {
+                    map.put(parts[0], new Entry(Long.parseLong(parts[1]), Long.parseLong(parts[2]),
+                            Integer.parseInt(parts[3]), parts.length == 5 ? parts[4] : null));
+                } catch (NumberFormatException ignore) {
+                }
+            }
+        } catch (IOException ignore) {
+        }
+        return map;
+    }
+
+    private static void writeIndex(File index, Map<String, Entry> map) {
+        if (index == null) return;
+        File parent = index.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) return;
+        File tmp = new File(index.getPath() + ".tmp");
+        try (FileWriter writer = new FileWriter(tmp)) {
+            for (Map.Entry<String, Entry> e : map.entrySet()) {
+                Entry entry = e.getValue();
+                writer.write(e.getKey() + SEPARATOR + entry.size + SEPARATOR + entry.mtime + SEPARATOR + entry.versionCode);
+                // 索引文件按行、按制表符分隔
+                if (entry.versionName != null) {
+                    writer.write(SEPARATOR + entry.versionName.replace('\n', ' ').replace('\t', ' '));
+                }
+                writer.write("\n");
+            }
+        } catch (IOException e) {
+            tmp.delete();
+            return;
+        }
+        if (!tmp.renameTo(index)) tmp.delete();
+    }
+
+    static final class Entry {
+        final long size;
+        final long mtime;
+        final int versionCode;
+        final String versionName;
+
+        Entry(long size, long mtime, int versionCode, String versionName) {
+            this.size = size;
+            this.mtime = mtime;
+            this.versionCode = versionCode;
+            this.versionName = versionName;
+        }
+
+        Entry withKey(long size, long mtime) {
+            return new Entry(size, mtime, versionCode, versionName);
+        }
+
+        boolean matches(long size, long mtime) {
+            return this.size == size && this.mtime == mtime;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return versionName + "(" + versionCode + ")";
+        }
+    }
+}
@@ -34,6 +34,7 @@ import android.os.Handler;
 import android.os.Looper;
 import android.os.ParcelFileDescriptor;
 import android.util.Pair;
+import android.util.SparseArray;
 import android.util.TypedValue;
 
 import com.sevtinge.hyperceiler.utils.ContextUtils;
@@ -41,12 +42,15 @@ import com.sevtinge.hyperceiler.utils.log.XposedLogUtils;
 
 import java.io.File;
 import java.io.IOException;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 import de.robv.android.xposed.XC_MethodHook;
+import de.robv.android.xposed.XposedBridge;
 import de.robv.android.xposed.XposedHelpers;
 
 /**
@@ -72,6 +76,36 @@ public class ResourcesTool {
 
     private final ConcurrentHashMap<String, Pair<ReplacementType, Object>> replacements = new ConcurrentHashMap<>();
 
+    /**
+     * 资源 ID -> 替换项 的解析缓存，{@link #NO_REPLACEMENT} 表示该 ID 没有替换。
+     * 按 AssetManager 分开缓存：宿主、插件与模块自身的资源表都使用 0x7f 包 ID，
+     * 同一 ID 在不同资源表中对应不同的资源。替换表或配置变化时清空。
+     * <p>
+     * 每个被 hook 的 getter 都会查询此缓存，读取不加锁：资源表列表与每张表的内容都是写时复制，
+     * 只有未命中（每个 ID 只有一次）与新增 AssetManager 时才加锁。
+     */
+    private static final Pair<ReplacementType, Object> NO_REPLACEMENT = new Pair<>(null, null);
+    private static final ResolvedTable[] NO_TABLES = new ResolvedTable[0];
+    private volatile ResolvedTable[] resolvedCache = NO_TABLES;
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+
+    private static final class ResolvedTable {
+        final WeakReference<AssetManager> assets;
+        // 发布后不再修改，写入时复制一份
+        volatile SparseArray<Pair<ReplacementType, Object>> entries = new SparseArray<>();
+
+        ResolvedTable(AssetManager assets) {
+            this.assets = new WeakReference<>(assets);
+        }
+
+        synchronized void put(int id, Pair<ReplacementType, Object> value) {
+            SparseArray<Pair<ReplacementType, Object>> copy = entries.clone();
+            copy.put(id, value);
+            entries = copy;
+        }
+    }
+
     public ResourcesTool(String modulePath) {
         mModulePath = modulePath;
         resourcesArrayList.clear();
@@ -225,6 +259,14 @@ public class ResourcesTool {
                 hookTypedMethod(method.getName(), int.class, int.class, hookTypedBefore);
             }
         }
+
+        unhooks.addAll(XposedBridge.hookAllMethods(Resources.class, "updateConfiguration", new HookTool.MethodHook() {
+            @Override
+            protected void after(MethodHookParam param) {
+                XposedLogUtils.logD(TAG, "Configuration changed, resolved cache: " + getResolvedCacheStats());
+                clearResolvedCache();
+            }
+        }));
     }
 
     private void hookResMethod(String name, Object... args) {
@@ -259,6 +301,7 @@ public class ResourcesTool {
 
             if (id != 0 && (type != TypedValue.TYPE_NULL)) {
                 Resources mResources = (Resources) XposedHelpers.getObjectField(param.thisObject, "mResources");
+                if (mResources == null || isResolvedAsNoReplacement(mResources, id)) return;
                 Object value = getTypedArrayReplacement(mResources, id);
                 if (value != null) {
                     param.setResult(value);
@@ -274,15 +317,20 @@ public class ResourcesTool {
                 Resources resources = loadModuleRes(ContextUtils.getContextNoError(ContextUtils.FLAG_CURRENT_APP));
                 resourcesArrayList.add(resources); // 重新加载 res
             }
-            if (Boolean.TRUE.equals(resMap.get((int) param.args[0]))) {
+            int id = (int) param.args[0];
+            // 绝大多数资源没有替换，此处命中缓存直接返回，不产生任何分配
+            if (isResolvedAsNoReplacement((Resources) param.thisObject, id)) return;
+            if (Boolean.TRUE.equals(resMap.get(id))) {
                 return;
             }
+            Pair<ReplacementType, Object> replacement = resolveReplacement((Resources) param.thisObject, id);
+            if (replacement == null) return;
             for (Resources resources : resourcesArrayList) {
                 if (resources == null) return;
                 String method = param.method.getName();
                 Object value;
                 try {
-                    value = getResourceReplacement(resources, (Resources) param.thisObject, method, param.args);
+                    value = getResourceReplacement(resources, (Resources) param.thisObject, replacement, method, param.args);
                 } catch (Resources.NotFoundException e) {
                     continue;
                 }
@@ -303,6 +351,7 @@ public class ResourcesTool {
     public void setResReplacement(String pkg, String type, String name, int replacementResId) {
         try {
             applyHooks();
+            clearResolvedCache();
             replacements.put(pkg + ":" + type + "/" + name, new Pair<>(ID, replacementResId));
         } catch (Throwable t) {
             XposedLogUtils.logE(TAG, "setResReplacement: " + t);
@@ -315,6 +364,7 @@ public class ResourcesTool {
     public void setDensityReplacement(String pkg, String type, String name, float replacementResValue) {
         try {
             applyHooks();
+            clearResolvedCache();
             replacements.put(pkg + ":" + type + "/" + name, new Pair<>(DENSITY, replacementResValue));
         } catch (Throwable t) {
             XposedLogUtils.logE(TAG, "setDensityReplacement: " + t);
@@ -327,36 +377,17 @@ public class ResourcesTool {
     public void setObjectReplacement(String pkg, String type, String name, Object replacementResValue) {
         try {
             applyHooks();
+            clearResolvedCache();
             replacements.put(pkg + ":" + type + "/" + name, new Pair<>(OBJECT, replacementResValue));
         } catch (Throwable t) {
             XposedLogUtils.logE(TAG, "setObjectReplacement: " + t);
         }
     }
 
-    private Object getResourceReplacement(Resources resources, Resources res, String method, Object[] args) throws Resources.NotFoundException {
+    private Object getResourceReplacement(Resources resources, Resources res, Pair<ReplacementType, Object> replacement, String method, Object[] args) throws Resources.NotFoundException {
         if (resources == null) return null;
-        String pkgName = null;
-        String resType = null;
-        String resName = null;
-        try {
-            pkgName = res.getResourcePackageName((int) args[0]);
-            resType = res.getResourceTypeName((int) args[0]);
-            resName = res.getResourceEntryName((int) args[0]);
-        } catch (Throwable ignore) {
-        }
-        if (pkgName == null || resType == null || resName == null) return null;
-
-        String resFullName = pkgName + ":" + resType + "/" + resName;
-        String resAnyPkgName = "*:" + resType + "/" + resName;
-
         Object value;
         Integer modResId;
-        Pair<ReplacementType, Object> replacement = null;
-        if (replacements.containsKey(resFullName)) {
-            replacement = replacements.get(resFullName);
-        } else if (replacements.containsKey(resAnyPkgName)) {
-            replacement = replacements.get(resAnyPkgName);
-        }
         if (replacement != null) {
             switch (replacement.first) {
                 case OBJECT -> {
@@ -391,27 +422,8 @@ public class ResourcesTool {
 
     private Object getTypedArrayReplacement(Resources resources, int id) {
         if (id != 0) {
-            String pkgName = null;
-            String resType = null;
-            String resName = null;
-            try {
-                pkgName = resources.getResourcePackageName(id);
-                resType = resources.getResourceTypeName(id);
-                resName = resources.getResourceEntryName(id);
-            } catch (Throwable ignore) {
-            }
-            if (pkgName == null || resType == null || resName == null) return null;
-
             try {
-                String resFullName = pkgName + ":" + resType + "/" + resName;
-                String resAnyPkgName = "*:" + resType + "/" + resName;
-
-                Pair<ReplacementType, Object> replacement = null;
-                if (replacements.containsKey(resFullName)) {
-                    replacement = replacements.get(resFullName);
-                } else if (replacements.containsKey(resAnyPkgName)) {
-                    replacement = replacements.get(resAnyPkgName);
-                }
+                Pair<ReplacementType, Object> replacement = resolveReplacement(resources, id);
                 if (replacement != null && (Objects.requireNonNull(replacement.first) == ReplacementType.OBJECT)) {
                     return replacement.second;
                 }
@@ -421,4 +433,85 @@ public class ResourcesTool {
         }
         return null;
     }
+
+    private boolean isResolvedAsNoReplacement(Resources res, int id) {
+        if (tableOf(res).entries.get(id) == NO_REPLACEMENT) {
+            cacheHits.increment();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 按资源 ID 解析替换项，结果写入缓存，仅在首次遇到该 ID 时进行名称查询。
+     */
+    private Pair<ReplacementType, Object> resolveReplacement(Resources res, int id) {
+        ResolvedTable table = tableOf(res);
+        Pair<ReplacementType, Object> cached = table.entries.get(id);
+        if (cached != null) {
+            cacheHits.increment();
+            return cached == NO_REPLACEMENT ? null : cached;
+        }
+
+        Pair<ReplacementType, Object> replacement = null;
+        String pkgName = null;
+        String resType = null;
+        String resName = null;
+        try {
+            pkgName = res.getResourcePackageName(id);
+            resType = res.getResourceTypeName(id);
+            resName = res.getResourceEntryName(id);
+        } catch (Throwable ignore) {
+        }
+        if (pkgName != null && resType != null && resName != null) {
+            replacement = replacements.get(pkgName + ":" + resType + "/" + resName);
+            if (replacement == null)
+                replacement = replacements.get("*:" + resType + "/" + resName);
+        }
+
+        table.put(id, replacement == null ? NO_REPLACEMENT : replacement);
+        cacheMisses.increment();
+        return replacement;
+    }
+
+    // 一个进程中的 AssetManager 很少，线性查找即可
+    private ResolvedTable tableOf(Resources res) {
+        AssetManager assets = res.getAssets();
+        for (ResolvedTable table : resolvedCache) {
+            if (table.assets.get() == assets) return table;
+        }
+        synchronized (this) {
+            ResolvedTable[] tables = resolvedCache;
+            for (ResolvedTable table : tables) {
+                if (table.assets.get() == assets) return table;
+            }
+            // 顺便移除已被回收的 AssetManager
+            ArrayList<ResolvedTable> alive = new ArrayList<>(tables.length + 1);
+            for (ResolvedTable table : tables) {
+                if (table.assets.get() != null) alive.add(table);
+            }
+            ResolvedTable table = new ResolvedTable(assets);
+            alive.add(table);
+            resolvedCache = alive.toArray(NO_TABLES);
+            return table;
+        }
+    }
+
+    private void clearResolvedCache() {
+        synchronized (this) {
+            resolvedCache = NO_TABLES;
+        }
+    }
+
+    /**
+     * 返回解析缓存的命中情况，用于调试。
+     */
+    public String getResolvedCacheStats() {
+        ResolvedTable[] tables = resolvedCache;
+        int size = 0;
+        for (ResolvedTable table : tables) {
+            size += table.entries.size();
+        }
+        return "tables=" + tables.length + ", size=" + size + ", hits=" + cacheHits.sum() + ", misses=" + cacheMisses.sum();
+    }
 }
@@ -36,11 +36,33 @@ import java.lang.reflect.Method;
 import de.robv.android.xposed.XposedHelpers;
 
 public class DeviceModify extends BaseHook {
+    private static final IDexKit SYSTEM_PROPERTIES_GET = new IDexKit() {
+        @Override
+        public BaseData dexkit(DexKitBridge bridge) throws ReflectiveOperationException {
+            MethodData methodData = bridge.findMethod(FindMethod.create()
+                    .matcher(MethodMatcher.create()
+                            .declaredClass("com.xiaomi.vipbase.utils.SystemProperties")
+                            .paramCount(1)
+                            .returnType(String.class)
+                    )).singleOrNull();
+            return methodData;
+        }
+    };
+    private static final IDexKit GET_DEVICE = DexKit.methodUsingStrings("ro.product.device");
+    private static final IDexKit GET_MODEL = DexKit.methodUsingStrings("ro.product.model");
+    private static final IDexKit GET_MANUFACTURER = DexKit.methodUsingStrings("ro.product.manufacturer");
 
     String mDevice;
     String mModel;
     String mManufacturer;
 
+    public static void initDexKit() {
+        DexKit.register("SystemPropertiesGetStringWithNull", SYSTEM_PROPERTIES_GET);
+        DexKit.register("GetDevice", GET_DEVICE);
+        DexKit.register("GetModel", GET_MODEL);
+        DexKit.register("GetManufacturer", GET_MANUFACTURER);
+    }
+
     @Override
     public void init() throws NoSuchMethodException {
 
@@ -52,48 +74,10 @@ public class DeviceModify extends BaseHook {
         XposedHelpers.setStaticObjectField(Build.class, "MODEL", mModel);
         XposedHelpers.setStaticObjectField(Build.class, "MANUFACTURER", mManufacturer);
 
-        Method method1 = DexKit.findMember("SystemPropertiesGetStringWithNull", new IDexKit() {
-            @Override
-            public BaseData dexkit(DexKitBridge bridge) throws ReflectiveOperationException {
-                MethodData methodData = bridge.findMethod(FindMethod.create()
-                        .matcher(MethodMatcher.create()
-                                .declaredClass("com.xiaomi.vipbase.utils.SystemProperties")
-                                .paramCount(1)
-                                .returnType(String.class)
-                        )).singleOrNull();
-                return methodData;
-            }
-        });
-        Method method2 = DexKit.findMember("GetDevice", new IDexKit() {
-            @Override
-            public BaseData dexkit(DexKitBridge bridge) throws ReflectiveOperationException {
-                MethodData methodData = bridge.findMethod(FindMethod.create()
-                        .matcher(MethodMatcher.create()
-                                .usingStrings("ro.product.device")
-                        )).singleOrNull();
-                return methodData;
-            }
-        });
-        Method method3 = DexKit.findMember("GetModel", new IDexKit() {
-            @Override
-            public BaseData dexkit(DexKitBridge bridge) throws ReflectiveOperationException {
-                MethodData methodData = bridge.findMethod(FindMethod.create()
-                        .matcher(MethodMatcher.create()
-                                .usingStrings("ro.product.model")
-                        )).singleOrNull();
-                return methodData;
-            }
-        });
-        Method method4 = DexKit.findMember("GetManufacturer", new IDexKit() {
-            @Override
-            public BaseData dexkit(DexKitBridge bridge) throws ReflectiveOperationException {
-                MethodData methodData = bridge.findMethod(FindMethod.create()
-                        .matcher(MethodMatcher.create()
-                                .usingStrings("ro.product.manufacturer")
-                        )).singleOrNull();
-                return methodData;
-            }
-        });
+        Method method1 = DexKit.findMember("SystemPropertiesGetStringWithNull", SYSTEM_PROPERTIES_GET);
+        Method method2 = DexKit.findMember("GetDevice", GET_DEVICE);
+        Method method3 = DexKit.findMember("GetModel", GET_MODEL);
+        Method method4 = DexKit.findMember("GetManufacturer", GET_MANUFACTURER);
 
         hookMethod(method1, new MethodHook() {
             @Override
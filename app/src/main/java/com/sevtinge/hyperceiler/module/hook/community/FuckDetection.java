@@ -25,27 +25,19 @@ import com.sevtinge.hyperceiler.module.base.BaseHook;
 import com.sevtinge.hyperceiler.module.base.dexkit.DexKit;
 import com.sevtinge.hyperceiler.module.base.dexkit.IDexKit;
 
-import org.luckypray.dexkit.DexKitBridge;
-import org.luckypray.dexkit.query.FindMethod;
-import org.luckypray.dexkit.query.matchers.MethodMatcher;
-import org.luckypray.dexkit.result.MethodData;
-import org.luckypray.dexkit.result.base.BaseData;
-
 import java.lang.reflect.Method;
 
 public class FuckDetection extends BaseHook {
+    private static final IDexKit GET_PACKAGE_VERSION_NAME =
+            DexKit.methodUsingStrings("5577218", "binding.editContactInformation.text");
+
+    public static void initDexKit() {
+        DexKit.register("GetPackageVersionName", GET_PACKAGE_VERSION_NAME);
+    }
+
     @Override
     public void init() throws NoSuchMethodException {
-        Method method = DexKit.findMember("GetPackageVersionName", new IDexKit() {
-            @Override
-            public BaseData dexkit(DexKitBridge bridge) throws ReflectiveOperationException {
-                MethodData methodData = bridge.findMethod(FindMethod.create()
-                        .matcher(MethodMatcher.create()
-                                .usingStrings("5577218", "binding.editContactInformation.text")
-                        )).singleOrNull();
-                return methodData;
-            }
-        });
+        Method method = DexKit.findMember("GetPackageVersionName", GET_PACKAGE_VERSION_NAME);
         hookMethod(method,  new MethodHook() {
             @Override
             protected void before(MethodHookParam param) throws Throwable {
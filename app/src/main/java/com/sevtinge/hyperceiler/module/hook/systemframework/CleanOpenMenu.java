@@ -22,7 +22,6 @@ import static com.sevtinge.hyperceiler.utils.devicesdk.SystemSDKKt.isMoreAndroid
 
 import android.content.Context;
 import android.content.Intent;
-import android.content.pm.PackageManager;
 import android.content.pm.ResolveInfo;
 import android.net.Uri;
 import android.os.BadParcelableException;
@@ -36,7 +35,6 @@ import com.sevtinge.hyperceiler.utils.prefs.PrefType;
 import com.sevtinge.hyperceiler.utils.prefs.PrefsChangeObserver;
 import com.sevtinge.hyperceiler.utils.prefs.PrefsUtils;
 
-import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 
@@ -46,6 +44,7 @@ import de.robv.android.xposed.XposedHelpers;
 public class CleanOpenMenu extends BaseHook {
 
     Class<?> mPackageManagerService;
+    private final MenuAppFilter mFilter = new MenuAppFilter("system_framework_clean_open_apps", true);
 
     @Override
     public void init() {
@@ -75,6 +74,7 @@ public class CleanOpenMenu extends BaseHook {
                         }
                     }
                 };
+                MenuAppFilter.registerPackageReceiver(mContext, mHandler);
             }
         });
 
@@ -83,41 +83,23 @@ public class CleanOpenMenu extends BaseHook {
             @SuppressWarnings("unchecked")
             protected void after(MethodHookParam param) {
                 try {
-                    if (param.args[0] == null) return;
+                    if (!(param.args[0] instanceof Intent intent)) return;
+                    // 先判断 action，不匹配时不做任何分配
+                    if (!Intent.ACTION_VIEW.equals(intent.getAction())) return;
                     if (param.args.length < 6) return;
-                    Intent origIntent = (Intent) param.args[0];
-                    Intent intent = (Intent) origIntent.clone();
-                    String action = intent.getAction();
                     // XposedBridge.log(action + ": " + intent.getType() + " | " + intent.getDataString());
-                    if (!Intent.ACTION_VIEW.equals(action)) return;
-                    if (intent.hasExtra("HyperCeiler") && intent.getBooleanExtra("HyperCeiler", false))
-                        return;
                     String scheme = intent.getScheme();
                     boolean validSchemes = "http".equals(scheme) || "https".equals(scheme) || "vnd.youtube".equals(scheme);
                     if (intent.getType() == null && !validSchemes) return;
+                    if (intent.getBooleanExtra("HyperCeiler", false))
+                        return;
 
                     Context mContext = (Context) XposedHelpers.getObjectField(param.thisObject, "mContext");
                     String mimeType = getContentType(mContext, intent);
                     // XposedBridge.log("mimeType: " + mimeType);
 
-                    String key = "system_framework_clean_open_apps";
-                    Set<String> selectedApps = mPrefsMap.getStringSet(key);
                     List<ResolveInfo> resolved = (List<ResolveInfo>) param.getResult();
-                    ResolveInfo resolveInfo;
-                    PackageManager pm = mContext.getPackageManager();
-                    Iterator<ResolveInfo> itr = resolved.iterator();
-                    while (itr.hasNext()) {
-                        resolveInfo = itr.next();
-                        Pair<Boolean, Boolean> isRemove = isRemoveApp(false, mContext, resolveInfo.activityInfo.packageName, selectedApps, mimeType);
-                        boolean hasDual = false;
-                        try {
-                            hasDual = XposedHelpers.callMethod(pm, "getPackageInfoAsUser", resolveInfo.activityInfo.packageName, 0, 999) != null;
-                        } catch (Throwable ignore) {
-                        }
-                        if ((isRemove.first && !hasDual) || isRemove.first && hasDual && isRemove.second)
-                            itr.remove();
-                    }
-
+                    mFilter.filter(resolved, mContext.getPackageManager(), MenuAppFilter.getDataType(mimeType));
                     param.setResult(resolved);
                 } catch (Throwable t) {
                     if (!(t instanceof BadParcelableException)) XposedBridge.log(t);
@@ -137,19 +119,13 @@ public class CleanOpenMenu extends BaseHook {
 
 
     // 存在问题
-    private static Pair<Boolean, Boolean> isRemoveApp(boolean dynamic, Context context, String pkgName, Set<String> selectedApps, String mimeType) {
+    private static Pair<Boolean, Boolean> isRemoveApp(Context context, String pkgName, Set<String> selectedApps, String mimeType) {
         String key = "system_framework_clean_open_apps";
-        int mimeFlags0;
-        int mimeFlags999;
-        if (dynamic) {
-            mimeFlags0 = PrefsUtils.getSharedIntPrefs(context, "pref_key_" + key + "_" + pkgName + "|0", AppsTool.MimeType.ALL);
-            mimeFlags999 = PrefsUtils.getSharedIntPrefs(context, "pref_key_" + key + "_" + pkgName + "|999", AppsTool.MimeType.ALL);
-        } else {
-            mimeFlags0 = mPrefsMap.getInt(key + "_" + pkgName + "|0", AppsTool.MimeType.ALL);
-            mimeFlags999 = mPrefsMap.getInt(key + "_" + pkgName + "|999", AppsTool.MimeType.ALL);
-        }
-        boolean removeOriginal = (selectedApps.contains(pkgName) || selectedApps.contains(pkgName + "|0")) && hideMimeType(mimeFlags0, mimeType);
-        boolean removeDual = selectedApps.contains(pkgName + "|999") && hideMimeType(mimeFlags999, mimeType);
+        int mimeFlags0 = PrefsUtils.getSharedIntPrefs(context, "pref_key_" + key + "_" + pkgName + "|0", AppsTool.MimeType.ALL);
+        int mimeFlags999 = PrefsUtils.getSharedIntPrefs(context, "pref_key_" + key + "_" + pkgName + "|999", AppsTool.MimeType.ALL);
+        int dataType = MenuAppFilter.getDataType(mimeType);
+        boolean removeOriginal = (selectedApps.contains(pkgName) || selectedApps.contains(pkgName + "|0")) && (mimeFlags0 & dataType) == dataType;
+        boolean removeDual = selectedApps.contains(pkgName + "|999") && (mimeFlags999 & dataType) == dataType;
         return new Pair<>(removeOriginal, removeDual);
     }
 
@@ -165,36 +141,6 @@ public class CleanOpenMenu extends BaseHook {
         return mimeType;
     }
 
-    private static boolean hideMimeType(int mimeFlags, String mimeType) {
-        int dataType = AppsTool.MimeType.OTHERS;
-        if (mimeType != null)
-            if (mimeType.startsWith("image/")) dataType = AppsTool.MimeType.IMAGE;
-            else if (mimeType.startsWith("audio/")) dataType = AppsTool.MimeType.AUDIO;
-            else if (mimeType.startsWith("video/")) dataType = AppsTool.MimeType.VIDEO;
-            else if (mimeType.startsWith("text/") ||
-                    mimeType.startsWith("application/pdf") ||
-                    mimeType.startsWith("application/msword") ||
-                    mimeType.startsWith("application/vnd.ms-") ||
-                    mimeType.startsWith("application/vnd.openxmlformats-"))
-                dataType = AppsTool.MimeType.DOCUMENT;
-            else if (mimeType.startsWith("application/vnd.android.package-archive") ||
-                    mimeType.startsWith("application/zip") ||
-                    mimeType.startsWith("application/x-zip") ||
-                    mimeType.startsWith("application/octet-stream") ||
-                    mimeType.startsWith("application/rar") ||
-                    mimeType.startsWith("application/x-rar") ||
-                    mimeType.startsWith("application/x-tar") ||
-                    mimeType.startsWith("application/x-bzip") ||
-                    mimeType.startsWith("application/gzip") ||
-                    mimeType.startsWith("application/x-lz") ||
-                    mimeType.startsWith("application/x-compress") ||
-                    mimeType.startsWith("application/x-7z") ||
-                    mimeType.startsWith("application/java-archive"))
-                dataType = AppsTool.MimeType.ARCHIVE;
-            else if (mimeType.startsWith("link/")) dataType = AppsTool.MimeType.LINK;
-        return (mimeFlags & dataType) == dataType;
-    }
-
     public static void initRes() {
         hookAllMethods("miui.securityspace.XSpaceResolverActivityHelper.ResolverActivityRunner", null, "run", new MethodHook() {
             @Override
@@ -210,7 +156,7 @@ public class CleanOpenMenu extends BaseHook {
                 if (mContext == null || mAimPackageName == null) return;
                 Set<String> selectedApps = PrefsUtils.getSharedStringSetPrefs(mContext, "system_framework_clean_open_apps");
                 String mimeType = getContentType(mContext, mOriginalIntent);
-                Pair<Boolean, Boolean> isRemove = isRemoveApp(true, mContext, mAimPackageName, selectedApps, mimeType);
+                Pair<Boolean, Boolean> isRemove = isRemoveApp(mContext, mAimPackageName, selectedApps, mimeType);
 
                 View mRootView = (View) XposedHelpers.getObjectField(param.thisObject, "mRootView");
                 int appResId1 = mContext.getResources().getIdentifier("app1", "id", "android.miui");
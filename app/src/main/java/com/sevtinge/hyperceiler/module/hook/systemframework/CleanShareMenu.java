@@ -22,7 +22,6 @@ import static com.sevtinge.hyperceiler.utils.devicesdk.SystemSDKKt.isMoreAndroid
 
 import android.content.Context;
 import android.content.Intent;
-import android.content.pm.PackageManager;
 import android.content.pm.ResolveInfo;
 import android.os.BadParcelableException;
 import android.os.Handler;
@@ -31,7 +30,6 @@ import android.view.View;
 import com.sevtinge.hyperceiler.module.base.BaseHook;
 import com.sevtinge.hyperceiler.utils.prefs.PrefsChangeObserver;
 
-import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 
@@ -40,6 +38,7 @@ import de.robv.android.xposed.XposedHelpers;
 public class CleanShareMenu extends BaseHook {
 
     Class<?> mPackageManagerService;
+    private final MenuAppFilter mFilter = new MenuAppFilter("system_framework_clean_share_apps", false);
 
     @Override
     public void init() {
@@ -53,6 +52,7 @@ public class CleanShareMenu extends BaseHook {
                 Handler mHandler = (Handler) XposedHelpers.getObjectField(param.thisObject, "mHandler");
 
                 new PrefsChangeObserver(mContext, mHandler, true, "prefs_key_system_framework_clean_share_apps");
+                MenuAppFilter.registerPackageReceiver(mContext, mHandler);
             }
         });
 
@@ -61,35 +61,20 @@ public class CleanShareMenu extends BaseHook {
             @SuppressWarnings("unchecked")
             protected void after(MethodHookParam param) throws Throwable {
                 try {
-                    if (param.args[0] == null) return;
-                    Intent origIntent = (Intent) param.args[0];
-                    String action = origIntent.getAction();
+                    if (!(param.args[0] instanceof Intent intent)) return;
+                    // 先判断 action，不匹配时不做任何分配
+                    String action = intent.getAction();
                     if (action == null) return;
                     if (!action.equals(Intent.ACTION_SEND) && !action.equals(Intent.ACTION_SENDTO) && !action.equals(Intent.ACTION_SEND_MULTIPLE))
                         return;
-                    Intent intent = (Intent) origIntent.clone();
-                    if (intent.getDataString() != null && intent.getDataString().contains(":"))
+                    String dataString = intent.getDataString();
+                    if (dataString != null && dataString.contains(":"))
                         return;
-                    if (intent.hasExtra("HyperCeiler") && intent.getBooleanExtra("HyperCeiler", false))
+                    if (intent.getBooleanExtra("HyperCeiler", false))
                         return;
-                    Set<String> selectedApps = mPrefsMap.getStringSet("system_framework_clean_share_apps");
                     List<ResolveInfo> resolved = (List<ResolveInfo>) param.getResult();
-                    ResolveInfo resolveInfo;
                     Context mContext = (Context) XposedHelpers.getObjectField(param.thisObject, "mContext");
-                    PackageManager pm = mContext.getPackageManager();
-                    Iterator<ResolveInfo> itr = resolved.iterator();
-                    while (itr.hasNext()) {
-                        resolveInfo = itr.next();
-                        boolean removeOriginal = selectedApps.contains(resolveInfo.activityInfo.packageName) || selectedApps.contains(resolveInfo.activityInfo.packageName + "|0");
-                        boolean removeDual = selectedApps.contains(resolveInfo.activityInfo.packageName + "|999");
-                        boolean hasDual = false;
-                        try {
-                            hasDual = XposedHelpers.callMethod(pm, "getPackageInfoAsUser", resolveInfo.activityInfo.packageName, 0, 999) != null;
-                        } catch (Throwable ignore) {
-                        }
-                        if ((removeOriginal && !hasDual) || removeOriginal && hasDual && removeDual)
-                            itr.remove();
-                    }
+                    mFilter.filter(resolved, mContext.getPackageManager(), MenuAppFilter.DATA_TYPE_ANY);
                     param.setResult(resolved);
                 } catch (Throwable t) {
                     if (!(t instanceof BadParcelableException))
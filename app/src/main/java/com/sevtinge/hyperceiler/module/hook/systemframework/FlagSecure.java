@@ -24,6 +24,7 @@ import android.util.Log;
 import android.view.SurfaceControl;
 
 import com.sevtinge.hyperceiler.module.base.BaseHook;
+import com.sevtinge.hyperceiler.module.base.tool.CallerContext;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
@@ -216,6 +217,10 @@ public class FlagSecure extends BaseHook {
 
             // WifiDisplay (S~V) / OverlayDisplay (S~V) / VirtualDisplay (U~V)
             try {
+                var virtualDisplay = Build.VERSION.SDK_INT < Build.VERSION_CODES.UPSIDE_DOWN_CAKE ?
+                        new CallerContext("createVirtualDisplayLocked").track(
+                                XposedHelpers.findClassIfExists("com.android.server.display.VirtualDisplayAdapter", lpparam.classLoader)) :
+                        null;
                 var displayControlClazz = Build.VERSION.SDK_INT >= Build.VERSION_CODES.UPSIDE_DOWN_CAKE ?
                         XposedHelpers.findClass("com.android.server.display.DisplayControl", lpparam.classLoader) :
                         SurfaceControl.class;
@@ -226,11 +231,8 @@ public class FlagSecure extends BaseHook {
                 hookMethod(method, new MethodHook() {
                     @Override
                     protected void before(MethodHookParam param) throws Throwable {
-                        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.UPSIDE_DOWN_CAKE) {
-                            String stack = Log.getStackTraceString(new Throwable());
-                            if (stack.contains("createVirtualDisplayLocked")) {
-                                return;
-                            }
+                        if (virtualDisplay != null && virtualDisplay.isInside()) {
+                            return;
                         }
                         param.args[1] = true;
                     }
@@ -0,0 +1,223 @@
+/*
+ * This file is part of HyperCeiler.
+
+ * HyperCeiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ * Copyright (C) 2023-2025 HyperCeiler Contributions
+ */
+package com.sevtinge.hyperceiler.module.hook.systemframework;
+
+import static com.sevtinge.hyperceiler.utils.prefs.PrefsUtils.mPrefsMap;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.pm.PackageManager;
+import android.content.pm.ResolveInfo;
+import android.net.Uri;
+import android.os.Handler;
+
+import com.sevtinge.hyperceiler.module.base.tool.AppsTool;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import de.robv.android.xposed.XposedHelpers;
+
+/**
+ * 分享/打开方式菜单的应用过滤器，由 CleanShareMenu 与 CleanOpenMenu 共用。
+ * <p>
+ * 选中的应用列表在偏好变化时才重新编译为原应用/分身两个集合，查询时不再拼接字符串；
+ * 分身应用是否存在按包名缓存，在应用安装/卸载时失效。
+ */
+public final class MenuAppFilter {
+    public static final int DATA_TYPE_ANY = 0;
+    private static final int DUAL_USER_ID = 999;
+    private static final String SUFFIX_ORIGINAL = "|0";
+    private static final String SUFFIX_DUAL = "|999";
+
+    // 包名 -> 分身用户下是否安装
+    private static final ConcurrentHashMap<String, Boolean> sDualApps = new ConcurrentHashMap<>();
+    private static boolean isReceiverRegistered;
+
+    private final String mKey;
+    private final boolean isMimeAware;
+
+    private volatile Compiled mCompiled;
+
+    /**
+     * @param key         选中应用的 StringSet 偏好
+     * @param isMimeAware 是否按 "key_包名|用户" 读取每个应用的文件类型设置
+     */
+    public MenuAppFilter(String key, boolean isMimeAware) {
+        mKey = key;
+        this.isMimeAware = isMimeAware;
+    }
+
+    /**
+     * 在 PackageManagerService 就绪后调用，注册分身缓存的失效监听。
+     */
+    public static synchronized void registerPackageReceiver(Context context, Handler handler) {
+        if (isReceiverRegistered) return;
+        IntentFilter filter = new IntentFilter();
+        filter.addAction(Intent.ACTION_PACKAGE_ADDED);
+        filter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+        filter.addAction(Intent.ACTION_PACKAGE_REPLACED);
+        filter.addDataScheme("package");
+        BroadcastReceiver receiver = new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                Uri data = intent.getData();
+                if (data == null) {
+                    sDualApps.clear();
+                } else {
+                    sDualApps.remove(data.getSchemeSpecificPart());
+                }
+            }
+        };
+        try {
+            XposedHelpers.callMethod(context, "registerReceiverForAllUsers", receiver, filter, null, handler);
+            isReceiverRegistered = true;
+        } catch (Throwable ignore) {
+            // 无法监听时不缓存，退回每次查询
+        }
+    }
+
+    /**
+     * 从查询结果中移除被隐藏的应用。
+     *
+     * @param dataType {@link AppsTool.MimeType} 中的类型，不区分类型时传 {@link #DATA_TYPE_ANY}
+     */
+    public void filter(List<ResolveInfo> resolved, PackageManager pm, int dataType) {
+        if (resolved == null || resolved.isEmpty()) return;
+        Compiled compiled = getCompiled();
+        // 未选择任何应用时不做任何事
+        if (compiled.mOriginal.isEmpty()) return;
+
+        for (int i = resolved.size() - 1; i >= 0; i--) {
+            ResolveInfo info = resolved.get(i);
+            if (info.activityInfo == null) continue;
+            String pkg = info.activityInfo.packageName;
+            if (!compiled.mOriginal.contains(pkg)) continue;
+
+            int[] flags = compiled.mMimeFlags.get(pkg);
+            if (flags != null && !hideMimeType(flags[0], dataType)) continue;
+
+            boolean removeDual = compiled.mDual.contains(pkg) && (flags == null || hideMimeType(flags[1], dataType));
+            if (removeDual || !hasDualApp(pm, pkg)) resolved.remove(i);
+        }
+    }
+
+    private Compiled getCompiled() {
+        int version = mPrefsMap.getVersion();
+        Compiled compiled = mCompiled;
+        if (compiled == null || compiled.mVersion != version) {
+            compiled = compile(version);
+            mCompiled = compiled;
+        }
+        return compiled;
+    }
+
+    private Compiled compile(int version) {
+        HashSet<String> original = new HashSet<>();
+        HashSet<String> dual = new HashSet<>();
+        for (String item : mPrefsMap.getStringSet(mKey)) {
+            if (item.endsWith(SUFFIX_DUAL)) {
+                dual.add(item.substring(0, item.length() - SUFFIX_DUAL.length()));
+            } else if (item.endsWith(SUFFIX_ORIGINAL)) {
+                original.add(item.substring(0, item.length() - SUFFIX_ORIGINAL.length()));
+            } else {
+                original.add(item);
+            }
+        }
+        HashMap<String, int[]> mimeFlags = new HashMap<>();
+        if (isMimeAware) {
+            HashSet<String> all = new HashSet<>(original);
+            all.addAll(dual);
+            for (String pkg : all) {
+                mimeFlags.put(pkg, new int[]{
+                        mPrefsMap.getInt(mKey + "_" + pkg + SUFFIX_ORIGINAL, AppsTool.MimeType.ALL),
+                        mPrefsMap.getInt(mKey + "_" + pkg + SUFFIX_DUAL, AppsTool.MimeType.ALL)
+                });
+            }
+        }
+        return new Compiled(version, original, dual, mimeFlags);
+    }
+
+    private static boolean hasDualApp(PackageManager pm, String pkg) {
+        Boolean cached = sDualApps.get(pkg);
+        if (cached != null) return cached;
+        boolean hasDual = false;
+        try {
+            hasDual = XposedHelpers.callMethod(pm, "getPackageInfoAsUser", pkg, 0, DUAL_USER_ID) != null;
+        } catch (Throwable ignore) {
+        }
+        if (isReceiverRegistered) sDualApps.put(pkg, hasDual);
+        return hasDual;
+    }
+
+    private static boolean hideMimeType(int mimeFlags, int dataType) {
+        return dataType == DATA_TYPE_ANY || (mimeFlags & dataType) == dataType;
+    }
+
+    /**
+     * 将 MIME 类型归类为 {@link AppsTool.MimeType} 中的类型。
+     */
+    public static int getDataType(String mimeType) {
+        if (mimeType == null) return AppsTool.MimeType.OTHERS;
+        if (mimeType.startsWith("image/")) return AppsTool.MimeType.IMAGE;
+        if (mimeType.startsWith("audio/")) return AppsTool.MimeType.AUDIO;
+        if (mimeType.startsWith("video/")) return AppsTool.MimeType.VIDEO;
+        if (mimeType.startsWith("text/") ||
+                mimeType.startsWith("application/pdf") ||
+                mimeType.startsWith("application/msword") ||
+                mimeType.startsWith("application/vnd.ms-") ||
+                mimeType.startsWith("application/vnd.openxmlformats-"))
+            return AppsTool.MimeType.DOCUMENT;
+        if (mimeType.startsWith("application/vnd.android.package-archive") ||
+                mimeType.startsWith("application/zip") ||
+                mimeType.startsWith("application/x-zip") ||
+                mimeType.startsWith("application/octet-stream") ||
+                mimeType.startsWith("application/rar") ||
+                mimeType.startsWith("application/x-rar") ||
+                mimeType.startsWith("application/x-tar") ||
+                mimeType.startsWith("application/x-bzip") ||
+                mimeType.startsWith("application/gzip") ||
+                mimeType.startsWith("application/x-lz") ||
+                mimeType.startsWith("application/x-compress") ||
+                mimeType.startsWith("application/x-7z") ||
+                mimeType.startsWith("application/java-archive"))
+            return AppsTool.MimeType.ARCHIVE;
+        if (mimeType.startsWith("link/")) return AppsTool.MimeType.LINK;
+        return AppsTool.MimeType.OTHERS;
+    }
+
+    private static final class Compiled {
+        final int mVersion;
+        final Set<String> mOriginal;
+        final Set<String> mDual;
+        final HashMap<String, int[]> mMimeFlags;
+
+        Compiled(int version, Set<String> original, Set<String> dual, HashMap<String, int[]> mimeFlags) {
+            mVersion = version;
+            mOriginal = original;
+            mDual = dual;
+            mMimeFlags = mimeFlags;
+        }
+    }
+}
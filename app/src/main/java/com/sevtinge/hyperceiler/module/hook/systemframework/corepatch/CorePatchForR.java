@@ -29,6 +29,7 @@ import android.content.pm.PackageManager;
 import android.content.pm.Signature;
 import android.util.Log;
 
+import com.sevtinge.hyperceiler.module.base.tool.CallerContext;
 import com.sevtinge.hyperceiler.utils.api.ProjectApi;
 import com.sevtinge.hyperceiler.utils.prefs.PrefsUtils;
 
@@ -40,7 +41,6 @@ import java.lang.reflect.Member;
 import java.lang.reflect.Method;
 import java.security.cert.Certificate;
 import java.security.cert.X509Certificate;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -276,10 +276,14 @@ public class CorePatchForR extends XposedHelper implements IXposedHookLoadPackag
         var keySetManagerClass = findClass("com.android.server.pm.KeySetManagerService", loadPackageParam.classLoader);
         if (keySetManagerClass != null) {
             var shouldBypass = new ThreadLocal<Boolean>();
+            // R~S 在 PackageManagerService 中，T 起移至 InstallPackageHelper
+            var preparePackage = new CallerContext("preparePackageLI").track(
+                findClassIfExists("com.android.server.pm.PackageManagerService", loadPackageParam.classLoader),
+                findClassIfExists("com.android.server.pm.InstallPackageHelper", loadPackageParam.classLoader));
             hookAllMethods(keySetManagerClass, "shouldCheckUpgradeKeySetLocked", new XC_MethodHook() {
                 @Override
                 protected void afterHookedMethod(MethodHookParam param) {
-                    if (prefs.getBoolean("prefs_key_system_framework_core_patch_digest_creak", true) && Arrays.stream(Thread.currentThread().getStackTrace()).anyMatch((o) -> "preparePackageLI".equals(o.getMethodName()))) {
+                    if (prefs.getBoolean("prefs_key_system_framework_core_patch_digest_creak", true) && preparePackage.isInside()) {
                         shouldBypass.set(true);
                         param.setResult(true);
                     } else {
@@ -300,13 +304,14 @@ public class CorePatchForR extends XposedHelper implements IXposedHookLoadPackag
         // for SharedUser
         // "Package " + packageName + " has a signing lineage " + "that diverges from the lineage of the sharedUserId"
         // https://cs.android.com/android/platform/superproject/+/android-11.0.0_r21:frameworks/base/services/core/java/com/android/server/pm/PackageManagerServiceUtils.java;l=728;drc=02a58171a9d41ad0048d6a1a48d79dee585c22a5
+        // because of LSPosed's bug, we can't hook verifySignatures while deoptimize it, so this one stays on stack walking
+        var verifySignatures = new CallerContext("verifySignatures");
         hookAllMethods(signingDetails, "hasCommonAncestor", new XC_MethodHook() {
             @Override
             protected void beforeHookedMethod(MethodHookParam param) throws Throwable {
                 if (prefs.getBoolean("prefs_key_system_framework_core_patch_digest_creak", true)
                     && prefs.getBoolean("prefs_key_system_framework_core_patch_shared_user", false)
-                    // because of LSPosed's bug, we can't hook verifySignatures while deoptimize it
-                    && Arrays.stream(Thread.currentThread().getStackTrace()).anyMatch((o) -> "verifySignatures".equals(o.getMethodName()))
+                    && verifySignatures.isInside()
                 )
                     param.setResult(true);
             }
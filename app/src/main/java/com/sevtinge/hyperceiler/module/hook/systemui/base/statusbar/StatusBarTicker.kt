@@ -0,0 +1,127 @@
+/*
+ * This file is part of HyperCeiler.
+
+ * HyperCeiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ * Copyright (C) 2023-2025 HyperCeiler Contributions
+ */
+package com.sevtinge.hyperceiler.module.hook.systemui.base.statusbar
+
+import android.content.BroadcastReceiver
+import android.content.Context
+import android.content.Intent
+import android.content.IntentFilter
+import android.os.Handler
+import android.os.Looper
+import android.os.PowerManager
+import android.os.SystemClock
+import android.view.View
+
+/**
+ * SystemUI 内共用的秒级计时器。
+ *
+ * 所有订阅者共用主线程上的同一个 Runnable，对齐到整秒触发；
+ * 没有订阅者或屏幕熄灭时自动暂停，单次 tick 不产生分配。
+ * 只应在主线程调用。
+ */
+object StatusBarTicker {
+    private val handler by lazy { Handler(Looper.getMainLooper()) }
+    private val listeners = ArrayList<Runnable>()
+    private var screenOn = true
+    private var receiverRegistered = false
+    private var scheduled = false
+
+    private val tick = object : Runnable {
+        override fun run() {
+            scheduled = false
+            // 倒序遍历，允许回调中取消订阅
+            var i = listeners.size - 1
+            while (i >= 0) {
+                if (i < listeners.size) listeners[i].run()
+                i--
+            }
+            schedule()
+        }
+    }
+
+    private val screenReceiver = object : BroadcastReceiver() {
+        override fun onReceive(context: Context, intent: Intent) {
+            when (intent.action) {
+                Intent.ACTION_SCREEN_ON -> {
+                    screenOn = true
+                    schedule()
+                }
+
+                Intent.ACTION_SCREEN_OFF -> {
+                    screenOn = false
+                    cancel()
+                }
+            }
+        }
+    }
+
+    /**
+     * 在视图附加到窗口期间订阅，分离时自动取消。
+     */
+    @JvmStatic
+    fun subscribeWhileAttached(view: View, listener: Runnable) {
+        view.addOnAttachStateChangeListener(object : View.OnAttachStateChangeListener {
+            override fun onViewAttachedToWindow(v: View) {
+                subscribe(v.context, listener)
+            }
+
+            override fun onViewDetachedFromWindow(v: View) {
+                unsubscribe(listener)
+            }
+        })
+        if (view.isAttachedToWindow) subscribe(view.context, listener)
+    }
+
+    @JvmStatic
+    fun subscribe(context: Context, listener: Runnable) {
+        if (listeners.contains(listener)) return
+        listeners.add(listener)
+        registerScreenReceiver(context)
+        schedule()
+    }
+
+    @JvmStatic
+    fun unsubscribe(listener: Runnable) {
+        listeners.remove(listener)
+        if (listeners.isEmpty()) cancel()
+    }
+
+    private fun registerScreenReceiver(context: Context) {
+        if (receiverRegistered) return
+        val appContext = context.applicationContext ?: context
+        screenOn = appContext.getSystemService(PowerManager::class.java)?.isInteractive ?: true
+        appContext.registerReceiver(screenReceiver, IntentFilter().apply {
+            addAction(Intent.ACTION_SCREEN_ON)
+            addAction(Intent.ACTION_SCREEN_OFF)
+        })
+        receiverRegistered = true
+    }
+
+    private fun schedule() {
+        if (scheduled || !screenOn || listeners.isEmpty()) return
+        scheduled = true
+        val delay = 1000 - System.currentTimeMillis() % 1000
+        handler.postAtTime(tick, SystemClock.uptimeMillis() + delay)
+    }
+
+    private fun cancel() {
+        handler.removeCallbacks(tick)
+        scheduled = false
+    }
+}
@@ -31,15 +31,12 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 import com.sevtinge.hyperceiler.utils.MathUtils;
+import com.sevtinge.hyperceiler.utils.SysfsNode;
 import com.sevtinge.hyperceiler.utils.TileUtils;
 
 import org.json.JSONException;
 import org.json.JSONObject;
 
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -289,40 +286,14 @@ public class FlashLight extends TileUtils {
     }
 
     private int maxBrightness() {
-        String line;
-        BufferedReader reader = null;
-        StringBuilder builder = null;
-        File file = new File(maxBrightness);
-        if (file.exists()) {
-            try {
-                reader = new BufferedReader(new FileReader(maxBrightness));
-                builder = new StringBuilder();
-                while ((line = reader.readLine()) != null) {
-                    builder.append(line);
-                }
-            } catch (IOException e) {
-                logE(TAG, this.lpparam.packageName, "Error to read: " + maxBrightness, e);
-            } finally {
-                try {
-                    if (reader != null) {
-                        reader.close();
-                    }
-                } catch (IOException e) {
-                    logE(TAG, this.lpparam.packageName, "Close reader error: ", e);
-                }
-            }
-        } else {
+        SysfsNode node = SysfsNode.of(maxBrightness);
+        if (!node.exists()) {
             logE(TAG, this.lpparam.packageName, "Not Found FlashLight File: " + maxBrightness);
+            return -1;
         }
-
-        if (builder != null) {
-            try {
-                return Integer.parseInt(builder.toString());
-            } catch (NumberFormatException e) {
-                logE(TAG, lpparam.packageName, "To int E: " + e);
-            }
-        }
-        return -1;
+        int max = node.readInt(-1);
+        if (max == -1) logE(TAG, this.lpparam.packageName, "Error to read: " + maxBrightness);
+        return max;
     }
 
     private void writeFile(int flash) {
@@ -371,16 +342,13 @@ public class FlashLight extends TileUtils {
     }
 
     private boolean exists(String path) {
-        File file = new File(path);
-        return file.exists();
+        return SysfsNode.of(path).exists();
     }
 
+    // 拖动亮度条时写入频繁，节点保持打开
     private void write(String path, int flash) {
-        try (FileWriter writer = new FileWriter(path, false)) {
-            writer.write(Integer.toString(flash));
-            writer.flush();
-        } catch (IOException e) {
-            logE(TAG, lpparam.packageName, "write " + path + " E: " + e);
+        if (!SysfsNode.of(path).writeInt(flash)) {
+            logE(TAG, lpparam.packageName, "write " + path + " failed");
         }
     }
 
@@ -32,7 +32,6 @@ import com.sevtinge.hyperceiler.utils.*
 import com.sevtinge.hyperceiler.utils.shell.*
 import de.robv.android.xposed.*
 import de.robv.android.xposed.XC_MethodHook.MethodHookParam
-import java.io.*
 
 
 object NewFlashLight : TileUtils() {
@@ -277,38 +276,14 @@ object NewFlashLight : TileUtils() {
     }
 
     private fun maxBrightness(): Int {
-        var line: String?
-        var reader: BufferedReader? = null
-        var builder: StringBuilder? = null
-        val file = File(maxBrightness)
-        if (file.exists()) {
-            try {
-                reader = BufferedReader(FileReader(maxBrightness))
-                builder = StringBuilder()
-                while ((reader.readLine().also { line = it }) != null) {
-                    builder.append(line)
-                }
-            } catch (e: IOException) {
-                logE(TAG, lpparam.packageName, "Error to read: $maxBrightness", e)
-            } finally {
-                try {
-                    reader?.close()
-                } catch (e: IOException) {
-                    logE(TAG, lpparam.packageName, "Close reader error: ", e)
-                }
-            }
-        } else {
+        val node = SysfsNode.of(maxBrightness)
+        if (!node.exists()) {
             logE(TAG, lpparam.packageName, "Not Found FlashLight File: $maxBrightness")
+            return -1
         }
-
-        if (builder != null) {
-            try {
-                return builder.toString().toInt()
-            } catch (e: NumberFormatException) {
-                logE(TAG, lpparam.packageName, "To int E: $e")
-            }
-        }
-        return -1
+        val max = node.readInt(-1)
+        if (max == -1) logE(TAG, lpparam.packageName, "Error to read: $maxBrightness")
+        return max
     }
 
     private fun writeFile(flash: Int) {
@@ -353,18 +328,13 @@ object NewFlashLight : TileUtils() {
     }
 
     private fun exists(path: String): Boolean {
-        val file = File(path)
-        return file.exists()
+        return SysfsNode.of(path).exists()
     }
 
+    // 拖动亮度条时写入频繁，节点保持打开
     private fun write(path: String, flash: Int) {
-        try {
-            FileWriter(path, false).use { writer ->
-                writer.write(flash.toString())
-                writer.flush()
-            }
-        } catch (e: IOException) {
-            logE(TAG, lpparam.packageName, "write $path E: $e")
+        if (!SysfsNode.of(path).writeInt(flash.toLong())) {
+            logE(TAG, lpparam.packageName, "write $path failed")
         }
     }
 
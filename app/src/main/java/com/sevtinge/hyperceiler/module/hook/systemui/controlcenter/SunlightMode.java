@@ -31,16 +31,12 @@ import android.util.ArrayMap;
 import androidx.annotation.Nullable;
 
 import com.sevtinge.hyperceiler.R;
+import com.sevtinge.hyperceiler.utils.SysfsNode;
 import com.sevtinge.hyperceiler.utils.TileUtils;
 import com.sevtinge.hyperceiler.utils.log.AndroidLogUtils;
 import com.sevtinge.hyperceiler.utils.shell.ShellUtils;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
-import java.io.IOException;
 import java.util.Objects;
 
 import de.robv.android.xposed.XC_MethodHook.MethodHookParam;
@@ -376,24 +372,17 @@ public class SunlightMode extends TileUtils {
         } catch (InterruptedException e) {
             logE("sleep error: " + e);
         }*/
+        SysfsNode node = SysfsNode.of(path);
         if (writ != null) {
-            try {
-                try (BufferedWriter writer = new BufferedWriter(new FileWriter(path, false))) {
-                    writer.write(writ);
-                } // try-with-resources 会自动关闭 writer
-            } catch (IOException e) {
-                AndroidLogUtils.logE("SunlightMode", "error to writer: " + path + " ", e);
+            if (!node.writeString(writ)) {
+                AndroidLogUtils.logE("SunlightMode", "error to writer: " + path);
             }
         }
-        try {
-            try (BufferedReader reader = new BufferedReader(new FileReader(path))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    builder.append(line);
-                }
-            } // try-with-resources 会自动关闭 reader
-        } catch (IOException e) {
-            AndroidLogUtils.logE("SunlightMode", "error to read: " + path + " ", e);
+        String read = node.readString();
+        if (read != null) {
+            builder.append(read);
+        } else {
+            AndroidLogUtils.logE("SunlightMode", "error to read: " + path);
         }
         if (builder != null) {
             // logE("get string: " + builder);
@@ -33,16 +33,12 @@ import android.util.ArrayMap;
 import androidx.annotation.Nullable;
 
 import com.sevtinge.hyperceiler.R;
+import com.sevtinge.hyperceiler.utils.SysfsNode;
 import com.sevtinge.hyperceiler.utils.TileUtils;
 import com.sevtinge.hyperceiler.utils.log.AndroidLogUtils;
 import com.sevtinge.hyperceiler.utils.shell.ShellUtils;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
-import java.io.IOException;
 import java.util.Objects;
 
 import de.robv.android.xposed.XC_MethodHook.MethodHookParam;
@@ -416,32 +412,24 @@ public class SunlightModeHigh extends TileUtils {
         } catch (InterruptedException e) {
             logE("sleep error: " + e);
         }*/
-        if (writ != null) {
-            try {
-                if (shell) {
-                    rootExecCmd("echo " + writ + " > /sys/class/backlight/panel0-backlight/brightness");
-                } else {
-                    try (BufferedWriter writer = new BufferedWriter(new FileWriter(path, false))) {
-                        writer.write(writ);
-                    } // try-with-resources 会自动关闭 writer
+        if (shell) {
+            // 节点无权限直接访问，写入与读取合并为一次 root 调用
+            String cmd = "cat /sys/class/backlight/panel0-backlight/brightness";
+            if (writ != null) cmd = "echo " + writ + " > /sys/class/backlight/panel0-backlight/brightness; " + cmd;
+            builder.append(rootExecCmd(cmd));
+        } else {
+            SysfsNode node = SysfsNode.of(path);
+            if (writ != null) {
+                if (!node.writeString(writ)) {
+                    AndroidLogUtils.logE("SunlightMode", "error to writer: " + path);
                 }
-            } catch (IOException e) {
-                AndroidLogUtils.logE("SunlightMode", "error to writer: " + path + " ", e);
             }
-        }
-        try {
-            if (shell) {
-                builder.append(rootExecCmd("cat /sys/class/backlight/panel0-backlight/brightness"));
+            String read = node.readString();
+            if (read != null) {
+                builder.append(read);
             } else {
-                try (BufferedReader reader = new BufferedReader(new FileReader(path))) {
-                    String line;
-                    while ((line = reader.readLine()) != null) {
-                        builder.append(line);
-                    }
-                } // try-with-resources 会自动关闭 reader
+                AndroidLogUtils.logE("SunlightMode", "error to read: " + path);
             }
-        } catch (IOException e) {
-            AndroidLogUtils.logE("SunlightMode", "error to read: " + path + " ", e);
         }
         if (builder != null) {
             // logE("get string: " + builder);
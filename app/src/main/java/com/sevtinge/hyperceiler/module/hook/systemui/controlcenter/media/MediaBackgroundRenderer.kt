@@ -0,0 +1,197 @@
+/*
+ * This file is part of HyperCeiler.
+
+ * HyperCeiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ * Copyright (C) 2023-2025 HyperCeiler Contributions
+ */
+package com.sevtinge.hyperceiler.module.hook.systemui.controlcenter.media
+
+import android.graphics.*
+import android.graphics.drawable.*
+import android.util.LruCache
+import android.widget.*
+import com.sevtinge.hyperceiler.utils.blur.StackBlur
+import java.util.WeakHashMap
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+import kotlin.math.*
+import kotlin.random.*
+
+/**
+ * 媒体控件的专辑图背景。
+ *
+ * 专辑图直接绘制为 132px 的缩略图再拼接，亮度由 getPixels 得到的数组计算，
+ * 模糊使用 CPU 上的 [StackBlur]，不再依赖 HardwareRenderer。
+ * 渲染在后台线程进行，同一 ImageView 有新请求时取消旧的；
+ * 结果按专辑图与渲染参数缓存，同一首歌重复绑定时直接复用。
+ */
+class MediaBackgroundRenderer(private val radius: Int, private val overlay: Int) {
+    private val cache = LruCache<Key, Bitmap>(CACHE_SIZE)
+    private val pending = WeakHashMap<ImageView, Request>()
+
+    private data class Key(
+        val artwork: Any,
+        val tint: Int,
+        val darkMode: Boolean
+    )
+
+    private class Request(val key: Key) {
+        var future: Future<*>? = null
+    }
+
+    /**
+     * 在主线程调用。命中缓存时立即设置，否则在后台渲染完成后设置。
+     */
+    fun render(imageView: ImageView, artwork: Icon, backgroundColors: IntArray, darkMode: Boolean) {
+        val key = Key(artworkIdentity(artwork), backgroundColors[0], darkMode)
+        pending[imageView]?.let {
+            if (it.key == key) return
+            it.future?.cancel(true)
+            pending.remove(imageView)
+        }
+        cache[key]?.let {
+            imageView.setImageDrawable(BitmapDrawable(imageView.resources, it))
+            return
+        }
+
+        val context = imageView.context
+        val request = Request(key)
+        pending[imageView] = request
+        request.future = executor.submit {
+            var bitmap: Bitmap? = null
+            try {
+                val drawable = artwork.loadDrawable(context) ?: return@submit
+                if (Thread.currentThread().isInterrupted) return@submit
+                bitmap = draw(drawable, key.tint, darkMode)
+            } finally {
+                // 加载失败、被中断或绘制抛出异常时同样清除请求，否则同一专辑图不会再次渲染
+                val result = bitmap
+                imageView.post {
+                    if (pending[imageView] !== request) return@post
+                    pending.remove(imageView)
+                    if (result == null) return@post
+                    cache.put(key, result)
+                    imageView.setImageDrawable(BitmapDrawable(imageView.resources, result))
+                }
+            }
+        }
+    }
+
+    // 返回 null 表示已被取消
+    private fun draw(artwork: Drawable, tint: Int, darkMode: Boolean): Bitmap? {
+        // 缩小图片
+        val tmpBitmap = artwork.toThumbnail(TILE_SIZE)
+        val tmpBitmapXS = artwork.toThumbnail(TILE_SIZE / 2)
+
+        // 创建混合图
+        val size = TILE_SIZE * 2
+        val bigBitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888)
+        val canvas = Canvas(bigBitmap)
+        val tilePaint = Paint(Paint.FILTER_BITMAP_FLAG)
+
+        // 四角与中心各放一张随机旋转、翻转的图
+        val offsets = floatArrayOf(
+            0f, 0f,
+            TILE_SIZE.toFloat(), 0f,
+            0f, TILE_SIZE.toFloat(),
+            TILE_SIZE.toFloat(), TILE_SIZE.toFloat(),
+            TILE_SIZE / 4f * 3f, TILE_SIZE / 4f * 3f
+        )
+        val matrix = Matrix()
+        for (i in 0 until 5) {
+            val tile = if (i < 4) tmpBitmap else tmpBitmapXS
+            val pivot = tile.width / 2f
+            matrix.setRotate(Random.nextInt(4) * 90f, pivot, pivot)
+            matrix.postScale(
+                if (Random.nextBoolean()) -1f else 1f,
+                if (Random.nextBoolean()) -1f else 1f,
+                pivot,
+                pivot
+            )
+            matrix.postTranslate(offsets[i * 2], offsets[i * 2 + 1])
+            canvas.drawBitmap(tile, matrix, tilePaint)
+        }
+        if (Thread.currentThread().isInterrupted) return null
+
+        // 颜色处理
+        val pixels = IntArray(size * size)
+        bigBitmap.getPixels(pixels, 0, size, 0, 0, size, size)
+        val paint = Paint()
+        paint.colorFilter = ColorMatrixColorFilter(luminance(pixels).colorMatrix())
+        canvas.drawBitmap(bigBitmap, 0f, 0f, paint)
+        canvas.drawColor(tint and 0x6FFFFFFF)
+
+        // 叠加颜色
+        val backgroundColorMode = if (darkMode) 0 else 248
+        canvas.drawColor(Color.argb(overlay, backgroundColorMode, backgroundColorMode, backgroundColorMode))
+        if (Thread.currentThread().isInterrupted) return null
+
+        // 模糊处理
+        bigBitmap.getPixels(pixels, 0, size, 0, 0, size, size)
+        StackBlur.blur(pixels, size, size, StackBlur.fromRenderEffectRadius(radius.toFloat()))
+        bigBitmap.setPixels(pixels, 0, size, 0, 0, size, size)
+        return bigBitmap
+    }
+
+    private fun Drawable.toThumbnail(size: Int): Bitmap {
+        val bitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888)
+        val oldBounds = copyBounds()
+        setBounds(0, 0, size, size)
+        draw(Canvas(bitmap))
+        bounds = oldBounds
+        return bitmap
+    }
+
+    companion object {
+        private const val TILE_SIZE = 132
+        private const val CACHE_SIZE = 4
+
+        private val executor = Executors.newSingleThreadExecutor {
+            Thread(it, "MediaBackgroundRenderer").apply { isDaemon = true }
+        }
+
+        /**
+         * 专辑图的标识：位图按对象与 generationId，其余类型按来源。
+         */
+        private fun artworkIdentity(icon: Icon): Any {
+            return when (icon.type) {
+                Icon.TYPE_BITMAP, Icon.TYPE_ADAPTIVE_BITMAP -> runCatching {
+                    val bitmap = icon.javaClass.getMethod("getBitmap").invoke(icon) as Bitmap
+                    (System.identityHashCode(bitmap).toLong() shl 32) or (bitmap.generationId.toLong() and 0xffffffffL)
+                }.getOrElse { System.identityHashCode(icon).toLong() }
+
+                Icon.TYPE_URI, Icon.TYPE_URI_ADAPTIVE_BITMAP -> icon.uri.toString()
+                Icon.TYPE_RESOURCE -> "${icon.resPackage}:${icon.resId}"
+                else -> System.identityHashCode(icon)
+            }
+        }
+
+        /**
+         * 平均亮度，与原先逐像素 getPixel 的算法一致。
+         */
+        @JvmStatic
+        fun luminance(pixels: IntArray): Float {
+            if (pixels.isEmpty()) return 0f
+            var total = 0f
+            for (pixel in pixels) {
+                val red = (pixel shr 16) and 0xff
+                val green = (pixel shr 8) and 0xff
+                val blue = pixel and 0xff
+                total += sqrt(0.299f * red * red + 0.587f * green * green + 0.114f * blue * blue)
+            }
+            return total / pixels.size
+        }
+    }
+}
@@ -23,6 +23,7 @@ import android.app.*
 import android.content.*
 import android.os.*
 import android.util.*
+import android.view.*
 import android.widget.*
 import com.github.kyuubiran.ezxhelper.ClassUtils.getStaticObjectOrNull
 import com.github.kyuubiran.ezxhelper.ClassUtils.invokeStaticMethodBestMatch
@@ -39,8 +40,6 @@ import com.sevtinge.hyperceiler.module.base.*
 import com.sevtinge.hyperceiler.utils.*
 import com.sevtinge.hyperceiler.utils.devicesdk.*
 import de.robv.android.xposed.*
-import java.io.*
-import java.math.*
 import kotlin.math.*
 
 object ChargingCVP : BaseHook() {
@@ -54,22 +53,154 @@ object ChargingCVP : BaseHook() {
         mPrefsMap.getBoolean("system_ui_show_charging_c_more")
     }
 
+    // 间隔设置以 0.5s 为单位
+    private val updateInterval: Long
+        get() = mPrefsMap.getInt("system_ui_statusbar_lock_screen_show_spacing", 6) * 500L
+
+    private lateinit var handler: Handler
+    private lateinit var powerManager: PowerManager
+    private val attachedViews = ArrayList<View>()
+    private var isRegistered = false
+    private var isScheduled = false
+    private var lastUpdate = 0L
+    private var lastText: String? = null
+
+    private val keyguardIndicationController by lazy {
+        runCatching {
+            invokeStaticMethodBestMatch(
+                loadClass("com.android.systemui.Dependency"), "get", null,
+                loadClass("com.android.systemui.statusbar.KeyguardIndicationController")
+            )!!
+        }.getOrElse {
+            val clazzMiuiStub = loadClass("miui.stub.MiuiStub")
+            val instanceMiuiStub =
+                getStaticObjectOrNull(clazzMiuiStub, "INSTANCE")!!
+            val mSysUIProvider =
+                getObjectOrNull(instanceMiuiStub, "mSysUIProvider")!!
+            val mKeyguardIndicationController =
+                getObjectOrNull(
+                    mSysUIProvider,
+                    "mKeyguardIndicationController"
+                )!!
+            invokeMethodBestMatch(mKeyguardIndicationController, "get")!!
+        }
+    }
+
+    private val instanceMiuiChargeController by lazy {
+        val clazzMiuiDependency =
+            loadClass("com.miui.systemui.MiuiDependency")
+        val clazzMiuiChargeController =
+            loadClass("com.miui.charge.MiuiChargeController")
+        val sDependency =
+            getStaticObjectOrNull(clazzMiuiDependency, "sDependency")!!
+        val mProviders =
+            getObjectOrNull(sDependency, "mProviders") as ArrayMap<*, *>
+        val mMiuiChargeControllerProvider =
+            mProviders[clazzMiuiChargeController]!!
+        if (isMoreHyperOSVersion(2f)) {
+            mMiuiChargeControllerProvider
+                .getObjectFieldOrNull("f$0")!!
+                .callMethod("get")!!
+        } else {
+            invokeMethodBestMatch(
+                mMiuiChargeControllerProvider, "createDependency"
+            )!!
+        }
+    }
+
+    private val clazzChargeUtils by lazy {
+        loadClass("com.miui.charge.ChargeUtils", lpparam.classLoader)
+    }
+
+    /**
+     * 锁屏充电信息刷新。
+     *
+     * 只在指示文字附加到窗口、可见且亮屏时工作：按设置的间隔采样电流，
+     * ACTION_BATTERY_CHANGED 触发的刷新与定时刷新合并，文本未变化时不重绘。
+     * 暂停后由亮屏或电池状态变化重新唤起。
+     */
+    private val updater = object : BroadcastReceiver(), View.OnAttachStateChangeListener, Runnable {
+        override fun onViewAttachedToWindow(v: View) {
+            if (!attachedViews.contains(v)) attachedViews.add(v)
+            if (!isRegistered) {
+                val filter = IntentFilter().apply {
+                    addAction(Intent.ACTION_SCREEN_ON)
+                    addAction(Intent.ACTION_SCREEN_OFF)
+                    addAction(Intent.ACTION_BATTERY_CHANGED)
+                }
+                v.context.applicationContext.registerReceiver(this, filter)
+                isRegistered = true
+            }
+            schedule(0L, true)
+        }
+
+        override fun onViewDetachedFromWindow(v: View) {
+            attachedViews.remove(v)
+            if (attachedViews.isNotEmpty()) return
+            if (isRegistered) {
+                v.context.applicationContext.unregisterReceiver(this)
+                isRegistered = false
+            }
+            handler.removeCallbacks(this)
+            isScheduled = false
+            lastText = null
+        }
+
+        override fun onReceive(context: Context, intent: Intent) {
+            when (intent.action) {
+                Intent.ACTION_SCREEN_ON -> schedule(0L, true)
+                Intent.ACTION_SCREEN_OFF -> {
+                    handler.removeCallbacks(this)
+                    isScheduled = false
+                }
+                // 已有待执行的刷新时直接合并
+                Intent.ACTION_BATTERY_CHANGED -> schedule(
+                    (lastUpdate + updateInterval - SystemClock.uptimeMillis()).coerceAtLeast(0L), false
+                )
+            }
+        }
+
+        override fun run() {
+            isScheduled = false
+            if (!powerManager.isInteractive || attachedViews.none { it.isShown }) return
+            lastUpdate = SystemClock.uptimeMillis()
+            runCatching {
+                doUpdateForHyperOS()
+            }.onFailure {
+                logE(TAG, lpparam.packageName, "update charging info failed: $it")
+                return
+            }
+            schedule(updateInterval, false)
+        }
+
+        private fun schedule(delay: Long, now: Boolean) {
+            if (isScheduled) {
+                if (!now) return
+                handler.removeCallbacks(this)
+            }
+            isScheduled = true
+            handler.postDelayed(this, delay)
+        }
+    }
+
     @SuppressLint("SetTextI18n")
     override fun init() {
         // 去除单行限制
-        val clazzDependency = loadClass("com.android.systemui.Dependency")
-        val clazzKeyguardIndicationController =
-            loadClass("com.android.systemui.statusbar.KeyguardIndicationController")
-
         loadClassOrNull("com.android.systemui.statusbar.phone.KeyguardIndicationTextView")?.constructors?.createHooks {
             after { param ->
-                (param.thisObject as TextView).let {
+                val view = param.thisObject as TextView
+                view.let {
                     it.isSingleLine = false
                     it.textSize = 8.2f
                 }
                 if (showSpacingValue) {
                     // 是否更改刷新频率
-                    setShowSpacing(clazzDependency, clazzKeyguardIndicationController, param)
+                    if (!::handler.isInitialized) {
+                        handler = Handler(view.context.mainLooper)
+                        powerManager = view.context.getSystemService(PowerManager::class.java)
+                    }
+                    view.addOnAttachStateChangeListener(updater)
+                    if (view.isAttachedToWindow) updater.onViewAttachedToWindow(view)
                 }
             }
         }
@@ -89,135 +220,55 @@ object ChargingCVP : BaseHook() {
 
     }
 
-    private fun setShowSpacing(
-        clazzDependency: Class<*>,
-        clazzKeyguardIndicationController: Class<*>,
-        param: XC_MethodHook.MethodHookParam
-    ) {
-        val screenOnOffReceiver = object : BroadcastReceiver() {
-            val keyguardIndicationController = runCatching {
-                invokeStaticMethodBestMatch(
-                    clazzDependency, "get", null, clazzKeyguardIndicationController
-                )!!
-            }.getOrElse {
-                val clazzMiuiStub = loadClass("miui.stub.MiuiStub")
-                val instanceMiuiStub =
-                    getStaticObjectOrNull(clazzMiuiStub, "INSTANCE")!!
-                val mSysUIProvider =
-                    getObjectOrNull(instanceMiuiStub, "mSysUIProvider")!!
-                val mKeyguardIndicationController =
-                    getObjectOrNull(
-                        mSysUIProvider,
-                        "mKeyguardIndicationController"
-                    )!!
-                invokeMethodBestMatch(mKeyguardIndicationController, "get")!!
-            }
-            val handler = Handler((param.thisObject as TextView).context.mainLooper)
-            val runnable = object : Runnable {
-                val clazzMiuiDependency =
-                    loadClass("com.miui.systemui.MiuiDependency")
-                val clazzMiuiChargeController =
-                    loadClass("com.miui.charge.MiuiChargeController")
-                val sDependency =
-                    getStaticObjectOrNull(clazzMiuiDependency, "sDependency")!!
-                val mProviders =
-                    getObjectOrNull(sDependency, "mProviders") as ArrayMap<*, *>
-                val mMiuiChargeControllerProvider =
-                    mProviders[clazzMiuiChargeController]!!
-                val instanceMiuiChargeController = if (isMoreHyperOSVersion(2f)) {
-                    mMiuiChargeControllerProvider
-                        .getObjectFieldOrNull("f$0")!!
-                        .callMethod("get")!!
-                } else {
-                    invokeMethodBestMatch(
-                        mMiuiChargeControllerProvider, "createDependency"
-                    )!!
-                }
-
-                override fun run() {
-                    doUpdateForHyperOS()
-
-                    handler.postDelayed(
-                        this,
-                        mPrefsMap.getInt("system_ui_statusbar_lock_screen_show_spacing", 6) / 2 * 1000L
-                    )
-                }
-
-                fun doUpdateForHyperOS() {
-                    val mBatteryStatus =
-                        getObjectOrNull(instanceMiuiChargeController, "mBatteryStatus")!!
-                    val level = getObjectOrNull(mBatteryStatus, "level")
-                    val plugged = getObjectOrNull(mBatteryStatus, "plugged") as Int
-                    val isPluggedIn = if (isMoreHyperOSVersion(2f)) {
-                        mBatteryStatus.callMethod("isPluggedIn", plugged)
-                    } else {
-                        invokeMethodBestMatch(mBatteryStatus, "isPluggedIn")
-                    }
-                    val mContext =
-                        getObjectOrNull(instanceMiuiChargeController, "mContext")
-                    val clazzChargeUtils =
-                        loadClass("com.miui.charge.ChargeUtils", lpparam.classLoader)
-                    val chargingHintText =
-                        invokeStaticMethodBestMatch(
-                            clazzChargeUtils,
-                            "getChargingHintText",
-                            null,
-                            level,
-                            isPluggedIn,
-                            mContext
-                        )
-                    setObject(
-                        keyguardIndicationController,
-                        "mComputePowerIndication",
-                        chargingHintText
-                    )
-                    invokeMethodBestMatch(
-                        keyguardIndicationController,
-                        "updateDeviceEntryIndication",
-                        null,
-                        false
-                    )
-                }
-            }
-
-            init {
-                if (((param.thisObject as TextView).context.getSystemService(Context.POWER_SERVICE) as PowerManager).isInteractive) {
-                    handler.post(runnable)
-                }
-            }
-
-            override fun onReceive(context: Context, intent: Intent) {
-                when (intent.action) {
-                    Intent.ACTION_SCREEN_ON -> {
-                        handler.post(runnable)
-                    }
-
-                    Intent.ACTION_SCREEN_OFF -> {
-                        handler.removeCallbacks(runnable)
-                    }
-                }
-            }
-        }
-
-        val filter = IntentFilter().apply {
-            addAction(Intent.ACTION_SCREEN_ON)
-            addAction(Intent.ACTION_SCREEN_OFF)
+    private fun doUpdateForHyperOS() {
+        val mBatteryStatus =
+            getObjectOrNull(instanceMiuiChargeController, "mBatteryStatus")!!
+        val level = getObjectOrNull(mBatteryStatus, "level")
+        val plugged = getObjectOrNull(mBatteryStatus, "plugged") as Int
+        val isPluggedIn = if (isMoreHyperOSVersion(2f)) {
+            mBatteryStatus.callMethod("isPluggedIn", plugged)
+        } else {
+            invokeMethodBestMatch(mBatteryStatus, "isPluggedIn")
         }
-        (param.thisObject as TextView).context.registerReceiver(
-            screenOnOffReceiver, filter
+        val mContext =
+            getObjectOrNull(instanceMiuiChargeController, "mContext")
+        val chargingHintText =
+            invokeStaticMethodBestMatch(
+                clazzChargeUtils,
+                "getChargingHintText",
+                null,
+                level,
+                isPluggedIn,
+                mContext
+            )
+        // 文本未变化时不重绘
+        val text = chargingHintText?.toString()
+        if (text == lastText) return
+        lastText = text
+        setObject(
+            keyguardIndicationController,
+            "mComputePowerIndication",
+            chargingHintText
+        )
+        invokeMethodBestMatch(
+            keyguardIndicationController,
+            "updateDeviceEntryIndication",
+            null,
+            false
         )
     }
 
-    private fun getTemp(): String {
-        var temp = 0.0
+    // 刷新间隔最短 1s，节点读取间隔与之对齐
+    private val tempNode by lazy {
+        SysfsNode.of("/sys/class/power_supply/battery/temp", 1000L)
+    }
+    private val voltageNode by lazy {
+        SysfsNode.of("/sys/class/power_supply/battery/voltage_now", 1000L)
+    }
 
-        runCatching {
-            // 获取电池温度信息
-            val temNow =
-                BufferedReader(FileReader("/sys/class/power_supply/battery/temp"))
-            temp =
-                BigDecimal(temNow.readLine().toDouble() / 10.0).setScale(1, RoundingMode.HALF_UP).toDouble()
-        }
+    private fun getTemp(): String {
+        // 获取电池温度信息，单位 0.1℃
+        val temp = tempNode.readInt(0) / 10.0
 
         // 电池温度是否展示
         val mTemp = if (isShowTemp) "$temp ℃ · " else ""
@@ -233,15 +284,8 @@ object ChargingCVP : BaseHook() {
                 .getSystemService(Context.BATTERY_SERVICE) as BatteryManager
         val current =
             abs(batteryManager.getIntProperty(BatteryManager.BATTERY_PROPERTY_CURRENT_NOW) / 1000)
-        var voltage = 0.0
-
-        runCatching {
-            // 获取电压信息
-            val voltageNow =
-                BufferedReader(FileReader("/sys/class/power_supply/battery/voltage_now"))
-            voltage =
-                BigDecimal(voltageNow.readLine().toDouble() / 1000.0).setScale(1, RoundingMode.HALF_UP).toDouble()
-        }
+        // 获取电压信息，μV 转为保留一位小数的 mV
+        val voltage = (voltageNode.readLong(0L) / 100.0).roundToLong() / 10.0
 
         // 计算功率信息
         val powerAll = abs((current * voltage) / 1000f / 1000f)
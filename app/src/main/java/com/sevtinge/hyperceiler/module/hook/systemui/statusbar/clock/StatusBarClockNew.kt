@@ -32,6 +32,7 @@ import com.github.kyuubiran.ezxhelper.HookFactory.`-Static`.createHook
 import com.github.kyuubiran.ezxhelper.finders.ConstructorFinder.`-Static`.constructorFinder
 import com.github.kyuubiran.ezxhelper.finders.MethodFinder.`-Static`.methodFinder
 import com.sevtinge.hyperceiler.module.base.*
+import com.sevtinge.hyperceiler.module.hook.systemui.base.statusbar.StatusBarTicker
 import com.sevtinge.hyperceiler.utils.*
 import com.sevtinge.hyperceiler.utils.api.LazyClass.mNewClockClass
 import com.sevtinge.hyperceiler.utils.devicesdk.*
@@ -103,6 +104,9 @@ object StatusBarClockNew : BaseHook() {
     private val isShowSec by lazy {
         mPrefsMap.getBoolean("system_ui_clock_is_show_sec")
     }
+    private val updateTimeMethod: Method by lazy {
+        statusBarClass.getDeclaredMethod("updateTime").apply { isAccessible = true }
+    }
 
     // 时钟格式
     private val getFormatS by lazy {
@@ -166,19 +170,9 @@ object StatusBarClockNew : BaseHook() {
                         miuiClock.isSingleLine = false
 
                     if (isSec && isShowSec) {
-                        val updateTimeMethod: Method = miuiClock.javaClass.getDeclaredMethod("updateTime")
-                        val runnable = Runnable {
-                            updateTimeMethod.isAccessible = true
+                        StatusBarTicker.subscribeWhileAttached(miuiClock) {
                             updateTimeMethod.invoke(miuiClock)
                         }
-
-                        val timerTask = object : TimerTask() {
-                            override fun run() {
-                                Handler(miuiClock.context.mainLooper).post(runnable)
-                            }
-                        }
-
-                        Timer().schedule(timerTask, 1000 - System.currentTimeMillis() % 1000, 1000)
                     }
                 }
             }
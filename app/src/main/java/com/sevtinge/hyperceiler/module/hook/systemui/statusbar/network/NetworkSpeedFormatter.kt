@@ -0,0 +1,118 @@
+/*
+ * This file is part of HyperCeiler.
+
+ * HyperCeiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ * Copyright (C) 2023-2025 HyperCeiler Contributions
+ */
+package com.sevtinge.hyperceiler.module.hook.systemui.statusbar.network
+
+import java.text.DecimalFormatSymbols
+import java.util.Locale
+import kotlin.math.floor
+
+/**
+ * 网速计算与格式化，不依赖 Android，可在 JVM 上直接运行。
+ *
+ * 单位字符串在构造时预先拼好，格式化复用同一个 StringBuilder，
+ * 不再经过 String.format。
+ */
+class NetworkSpeedFormatter(
+    unitSuffix: String,
+    private val speedUnits: String,
+    private val decimalSeparator: Char = DecimalFormatSymbols.getInstance(Locale.getDefault(Locale.Category.FORMAT)).decimalSeparator,
+    private val alpha: Double = 0.5
+) {
+    private var units = buildUnits(unitSuffix)
+    private val builder = StringBuilder(16)
+
+    private var lastTx = -1L
+    private var lastRx = -1L
+    private var lastTime = 0L
+
+    var txSpeed = 0L
+        private set
+    var rxSpeed = 0L
+        private set
+
+    /**
+     * 传入累计字节数与采样时间（纳秒），以 EWMA 平滑后更新上下行速度。
+     */
+    fun sample(txBytes: Long, rxBytes: Long, nanoTime: Long) {
+        if (lastTime == 0L || lastTx < 0 || lastRx < 0) {
+            txSpeed = 0
+            rxSpeed = 0
+        } else {
+            var elapsed = nanoTime - lastTime
+            if (elapsed <= 0L) elapsed = 4_000_000_000L
+            txSpeed = smooth(txSpeed, rate(txBytes - lastTx, elapsed))
+            rxSpeed = smooth(rxSpeed, rate(rxBytes - lastRx, elapsed))
+        }
+        lastTx = txBytes
+        lastRx = rxBytes
+        lastTime = nanoTime
+    }
+
+    /**
+     * 只替换单位后缀（如隐藏 /s），保留已有的速度状态。
+     */
+    fun setUnitSuffix(unitSuffix: String) {
+        units = buildUnits(unitSuffix)
+    }
+
+    private fun buildUnits(unitSuffix: String) = Array(speedUnits.length) { speedUnits[it] + unitSuffix }
+
+    fun reset() {
+        lastTx = -1L
+        lastRx = -1L
+        lastTime = 0L
+        txSpeed = 0
+        rxSpeed = 0
+    }
+
+    internal fun rate(delta: Long, elapsedNanos: Long): Long {
+        if (delta <= 0L) return 0L
+        return Math.round(delta * 1_000_000_000.0 / elapsedNanos)
+    }
+
+    /**
+     * 无流量时直接归零，不等平滑衰减；其余情况向下取整，避免停在 1 B/s。
+     */
+    internal fun smooth(old: Long, new: Long): Long {
+        if (old == 0L || new == 0L) return new
+        return floor(alpha * new + (1 - alpha) * old).toLong()
+    }
+
+    /**
+     * 与原先 "%.1f"/"%.0f" + 单位 的输出保持一致。
+     */
+    fun format(bytes: Long, twoLines: Boolean): String {
+        var f = bytes / 1024.0f
+        var expIndex = 0
+        if (f > 999.0f) {
+            expIndex = 1
+            f /= 1024.0f
+        }
+        builder.setLength(0)
+        if (f < 100.0f) {
+            val tenths = Math.round(f * 10.0)
+            builder.append(tenths / 10).append(decimalSeparator).append(tenths % 10)
+        } else {
+            builder.append(Math.round(f.toDouble()))
+        }
+        if (twoLines) builder.append('\n')
+        builder.append(units[expIndex])
+        return builder.toString()
+    }
+}
@@ -30,19 +30,28 @@ import com.sevtinge.hyperceiler.module.base.tool.OtherTool.*
 import com.sevtinge.hyperceiler.utils.devicesdk.*
 import de.robv.android.xposed.*
 import java.net.*
-import kotlin.math.*
 
 object NewNetworkSpeed : BaseHook() {
-    private var measureTime: Long = 0
+    private val txSpeed get() = sampler?.txSpeed ?: 0L
+    private val rxSpeed get() = sampler?.rxSpeed ?: 0L
 
-    private var newTxBytesFixed: Long = 0
-    private var newRxBytesFixed: Long = 0
+    private var sampler: NetworkSpeedFormatter? = null
+    private var samplerHideSecUnit = false
 
-    private var txBytesTotal: Long = 0
-    private var rxBytesTotal: Long = 0
+    // 参与统计的网卡，仅在网络变化回调后重新枚举
+    @Volatile
+    private var interfacesDirty = true
+    private var interfaceNames: Array<String> = emptyArray()
+    private var networkCallbackRegistered = false
+    @Volatile
+    private var isConnected = false
 
-    private var txSpeed: Long = 0
-    private var rxSpeed: Long = 0
+    private val getTxBytesMethod by lazy {
+        XposedHelpers.findMethodExact(TrafficStats::class.java, "getTxBytes", String::class.java)
+    }
+    private val getRxBytesMethod by lazy {
+        XposedHelpers.findMethodExact(TrafficStats::class.java, "getRxBytes", String::class.java)
+    }
 
     private var txArrow = ""
     private var rxArrow = ""
@@ -71,55 +80,92 @@ object NewNetworkSpeed : BaseHook() {
     private val networkStyle by lazy {
         mPrefsMap.getStringAsInt("system_ui_statusbar_network_speed_style", 0)
     }
+    // 隐藏 /s 单位
+    private val hideSecUnitPref by lazy {
+        mPrefsMap.pref("system_ui_statusbar_network_speed_sec_unit")
+    }
 
-    private fun getTrafficBytes(): Pair<Long, Long> {
-        var tx = -1L
-        var rx = -1L
+    private fun refreshInterfaces() {
+        val names = ArrayList<String>()
+        val list = NetworkInterface.getNetworkInterfaces()
+        while (list.hasMoreElements()) {
+            val iFace = list.nextElement()
+            if (iFace.isUp && !iFace.isVirtual && !iFace.isLoopback && !iFace.isPointToPoint && "" != iFace.name) {
+                names.add(iFace.name)
+            }
+        }
+        interfaceNames = names.toTypedArray()
+    }
+
+    private fun sampleTrafficBytes(sampler: NetworkSpeedFormatter) {
+        var tx = 0L
+        var rx = 0L
         try {
-            val list = NetworkInterface.getNetworkInterfaces()
-            while (list.hasMoreElements()) {
-                val iFace = list.nextElement()
-                if (iFace.isUp && !iFace.isVirtual && !iFace.isLoopback && !iFace.isPointToPoint && "" != iFace.name) {
-                    tx +=
-                        XposedHelpers.callStaticMethod(TrafficStats::class.java, "getTxBytes", iFace.name) as Long
-                    rx +=
-                        XposedHelpers.callStaticMethod(TrafficStats::class.java, "getRxBytes", iFace.name) as Long
-                }
+            if (interfacesDirty) {
+                interfacesDirty = false
+                refreshInterfaces()
+            }
+            for (name in interfaceNames) {
+                tx += getTxBytesMethod.invoke(null, name) as Long
+                rx += getRxBytesMethod.invoke(null, name) as Long
             }
         } catch (t: Throwable) {
             logE(TAG, this.lpparam.packageName, t)
             tx = TrafficStats.getTotalTxBytes()
             rx = TrafficStats.getTotalRxBytes()
         }
-        return Pair(tx, rx)
+        sampler.sample(tx, rx, System.nanoTime())
     }
 
     //  网速计算与隐藏相关
-    @SuppressLint("DefaultLocale")
     private fun humanReadableByteCount(ctx: Context, bytes: Long): String {
         return try {
-            val modRes = getModuleRes(ctx)
-            val hideSecUnit = mPrefsMap.getBoolean("system_ui_statusbar_network_speed_sec_unit")
-            var unitSuffix = modRes.getString(R.string.system_ui_statusbar_network_speed_Bs)
-            if (hideSecUnit) unitSuffix = ""
-            var f = bytes / 1024.0f
-            var expIndex = 0
-            if (f > 999.0f) {
-                expIndex = 1
-                f /= 1024.0f
-            }
-            val pre = modRes.getString(R.string.system_ui_statusbar_network_speed_speedunits)[expIndex]
-            if (networkStyle == 2) {
-                (if (f < 100.0f) String.format("%.1f", f) else String.format("%.0f", f)) + "\n" + String.format("%s$unitSuffix", pre)
-            } else {
-                (if (f < 100.0f) String.format("%.1f", f) else String.format("%.0f", f)) + String.format("%s$unitSuffix", pre)
-            }
+            getSampler(ctx).format(bytes, networkStyle == 2)
         } catch (t: Throwable) {
             logE(TAG, this.lpparam.packageName, t)
             ""
         }
     }
 
+    private fun getSampler(ctx: Context): NetworkSpeedFormatter {
+        val hideSecUnit = hideSecUnitPref.getBoolean()
+        val current = sampler
+        if (current != null && samplerHideSecUnit == hideSecUnit) return current
+        // 单位字符串只在首次或设置变化时从模块资源中读取
+        val modRes = getModuleRes(ctx)
+        val unitSuffix = if (hideSecUnit) "" else modRes.getString(R.string.system_ui_statusbar_network_speed_Bs)
+        samplerHideSecUnit = hideSecUnit
+        // 设置变化时只替换单位，保留速度状态
+        current?.let {
+            it.setUnitSuffix(unitSuffix)
+            return it
+        }
+        val newSampler = NetworkSpeedFormatter(unitSuffix, modRes.getString(R.string.system_ui_statusbar_network_speed_speedunits))
+        sampler = newSampler
+        return newSampler
+    }
+
+    private fun registerNetworkCallback(mConnectivityManager: ConnectivityManager) {
+        if (networkCallbackRegistered) return
+        networkCallbackRegistered = true
+        mConnectivityManager.registerDefaultNetworkCallback(object : ConnectivityManager.NetworkCallback() {
+            override fun onCapabilitiesChanged(network: Network, capabilities: NetworkCapabilities) {
+                isConnected = capabilities.hasTransport(NetworkCapabilities.TRANSPORT_WIFI) ||
+                    capabilities.hasTransport(NetworkCapabilities.TRANSPORT_CELLULAR)
+                interfacesDirty = true
+            }
+
+            override fun onLinkPropertiesChanged(network: Network, linkProperties: LinkProperties) {
+                interfacesDirty = true
+            }
+
+            override fun onLost(network: Network) {
+                isConnected = false
+                interfacesDirty = true
+            }
+        })
+    }
+
     private val nscCls by lazy {
         findClassIfExists("com.android.systemui.statusbar.policy.NetworkSpeedController", lpparam.classLoader)
     }
@@ -262,55 +308,21 @@ object NewNetworkSpeed : BaseHook() {
     }
 
     private fun updateNetworkSpeed(mContext: Context) {
-        // 声明一个布尔变量，表示网络是否连接
-        var isConnected = false
-        // 通过 mContext 获取一个 ConnectivityManager 对象，用来管理网络连接状态
-        val mConnectivityManager =
-            mContext.getSystemService(Context.CONNECTIVITY_SERVICE) as ConnectivityManager
-        // 通过 ConnectivityManager 获取当前活跃的网络对象
-        val nw = mConnectivityManager.activeNetwork
-        // 如果 nw 不为空，说明有网络连接
-        if (nw != null) {
-            // 获取网络的能力对象
-            val capabilities = mConnectivityManager.getNetworkCapabilities(nw)
-            // 如果能力对象不为空，并且支持无线或者蜂窝网络，那么将 isConnected 设为 true
-            if (capabilities != null && (!(!
-                capabilities.hasTransport(NetworkCapabilities.TRANSPORT_WIFI) &&
-                    !capabilities.hasTransport(NetworkCapabilities.TRANSPORT_CELLULAR)))
-            ) {
-                isConnected = true
-            }
+        val sampler = getSampler(mContext)
+        if (!networkCallbackRegistered) {
+            val mConnectivityManager =
+                mContext.getSystemService(Context.CONNECTIVITY_SERVICE) as ConnectivityManager
+            // 首次调用时主动查询一次，之后由回调维护连接状态与网卡列表
+            val capabilities = mConnectivityManager.activeNetwork?.let { mConnectivityManager.getNetworkCapabilities(it) }
+            isConnected = capabilities != null && (capabilities.hasTransport(NetworkCapabilities.TRANSPORT_WIFI) ||
+                capabilities.hasTransport(NetworkCapabilities.TRANSPORT_CELLULAR))
+            registerNetworkCallback(mConnectivityManager)
         }
-        // 如果 isConnected 为 true，说明网络已连接
         if (isConnected) {
-            // 获取系统的纳秒时间
-            val nanoTime = System.nanoTime()
-            // 计算两次获取时间的差值
-            var newTime = nanoTime - measureTime
-            measureTime = nanoTime
-            // 如果 newTime 为 0，说明时间间隔太短，那么将 newTime 设为 4 秒
-            if (newTime == 0L) newTime = (4 * 10.0.pow(9.0)).roundToLong()
-            // 调用一个函数，返回一个包含两个元素的列表，第一个元素是发送的字节数，第二个元素是接收的字节数
-            val bytes = getTrafficBytes()
-            val newTxBytes = bytes.first
-            val newRxBytes = bytes.second
-            // 计算两次获取字节数的差值
-            newTxBytesFixed = newTxBytes - txBytesTotal
-            newRxBytesFixed = newRxBytes - rxBytesTotal
-            // 如果 newTxBytesFixed 小于 0 或者 txBytesTotal 等于 0，说明发送的字节数有误，那么将 newTxBytesFixed 设为 0
-            if (newTxBytesFixed < 0 || txBytesTotal == 0L) newTxBytesFixed = 0
-            // 如果 newRxBytesFixed 小于 0 或者 rxBytesTotal 等于 0，说明接收的字节数有误，那么将 newRxBytesFixed 设为 0
-            if (newRxBytesFixed < 0 || rxBytesTotal == 0L) newRxBytesFixed = 0
-            // 计算发送和接收的速度，单位是字节每秒，用差值除以时间再取整数
-            txSpeed = (newTxBytesFixed / (newTime / 10.0.pow(9.0))).roundToLong()
-            rxSpeed = (newRxBytesFixed / (newTime / 10.0.pow(9.0))).roundToLong()
-            // 更新总的发送和接收的字节数
-            txBytesTotal = newTxBytes
-            rxBytesTotal = newRxBytes
+            sampleTrafficBytes(sampler)
         } else {
-            // 如果 isConnected 为 false，说明网络未连接，那么将发送和接收的速度设为 0
-            txSpeed = 0
-            rxSpeed = 0
+            // 网络未连接，上下行速度归零
+            sampler.reset()
         }
     }
- }
+}
@@ -29,6 +29,7 @@ import android.os.Bundle;
 import android.text.TextUtils;
 
 import com.sevtinge.hyperceiler.module.base.BaseHook;
+import com.sevtinge.hyperceiler.utils.ContentModel;
 
 import org.json.JSONArray;
 import org.json.JSONException;
@@ -55,7 +56,7 @@ public class ClipboardList extends BaseHook {
     public static String lastFilePath;
     public ArrayList<?> mClipboardList;
 
-    public static String filePath;
+    private ClipboardStore mStore;
 
     private boolean isNew = getPackageVersionCode(lpparam) > 10080;
 
@@ -67,7 +68,7 @@ public class ClipboardList extends BaseHook {
                 @Override
                 protected void after(MethodHookParam param) {
                     // logE(TAG, "get class: " + param.args[0]);
-                    filePath = lpparam.appInfo.dataDir + "/files/clipboard_data.dat";
+                    mStore = ClipboardStore.get(lpparam.appInfo.dataDir + "/files");
                     lastFilePath = lpparam.appInfo.dataDir + "/files/last_clipboard_data_list.dat";
                     // logE(TAG, "run: " + param.args[0]);
                     getNoExpiredData((ClassLoader) param.args[0]);
@@ -122,7 +123,7 @@ public class ClipboardList extends BaseHook {
                         @Override
                         protected void after(MethodHookParam param) throws Throwable {
                             writeFile(lastFilePath, new JSONArray());
-                            writeFile(filePath, new JSONArray());
+                            mStore.clear();
                         }
                     });
         } catch (Exception ignore) {}
@@ -134,48 +135,35 @@ public class ClipboardList extends BaseHook {
                         protected void before(MethodHookParam param) {
                             ArrayList mArray = new ArrayList<>();
                             try {
-                                checkFile(filePath);
                                 checkFile(lastFilePath);
                                 /*获取原始list数据内容*/
                                 ArrayList<?> jsonToBean = jsonToBean((String) param.args[1], classLoader);
                                 // logE(TAG, "get: " + listToJson(jsonToBean));
                                 if (jsonToBean.isEmpty()) {
                                     /*防止在数据为空时误删数据库数据*/
-                                    // resetFile();
                                     lastArray = new ArrayList<>();
-                                    if (!isEmptyFile(filePath)) {
-                                        mArray = jsonToLIst(filePath, classLoader);
-                                        if (!mArray.isEmpty()) {
-                                            param.setResult(mArray);
-                                            return;
-                                        }
+                                    if (!mStore.isEmpty()) {
+                                        param.setResult(getSavedList(classLoader));
+                                        return;
                                     }
                                     param.setResult(new ArrayList<>());
                                     logD(TAG + ": get saved clipboard list size is 0.");
                                     return;
                                 }
-                                if (!isEmptyFile(lastFilePath)) {
+                                /*上次的列表已在内存中，只在进程启动后读取一次*/
+                                if (lastArray.isEmpty() && !isEmptyFile(lastFilePath)) {
                                     lastArray = jsonToLIst(lastFilePath, classLoader);
                                 }
-                                /*文件不为空说明有数据*/
-                                if (!isEmptyFile(filePath)) {
-                                    /*数据库数据*/
-                                    mArray = jsonToLIst(filePath, classLoader);
-                                    // logE(TAG, "mArray: " + listToJson(mArray));
+                                /*数据库不为空说明有数据*/
+                                if (!mStore.isEmpty()) {
                                     if (!lastArray.isEmpty()) {
-                                        /*虽说不太可能为空但还是检查一下*/
-                                        if (mArray.isEmpty()) {
-                                            logE(TAG, "mArray is empty it's bad");
-                                            param.setResult(new ArrayList<>());
-                                            return;
-                                        }
                                         Object oneLast = getContent(lastArray, 0);
                                         /*防止在只复制一个元素时重复开关界面引发的未知问题*/
                                         if (jsonToBean.size() < 2) {
-                                            if (!getContent(jsonToBean, 0).equals(getContent(mArray, 0))) {
-                                                mArray = addOrHw(mArray, getContent(jsonToBean, 0), jsonToBean);
+                                            if (!getContent(jsonToBean, 0).equals(mStore.newest())) {
+                                                addOrHw(jsonToBean.get(0));
                                             }
-                                            param.setResult(mArray);
+                                            param.setResult(getSavedList(classLoader));
                                             return;
                                         }
                                         /*读取第一第二个数据判断操作*/
@@ -183,7 +171,7 @@ public class ClipboardList extends BaseHook {
                                         Object twoArray = getContent(jsonToBean, 1);
                                         if (!oneArray.equals(oneLast) && twoArray.equals(oneLast)) {
                                             /*第一个不同第二个相同说明可能换位或新增*/
-                                            mArray = addOrHw(mArray, oneArray, jsonToBean);
+                                            addOrHw(jsonToBean.get(0));
                                         } else if (!oneArray.equals(oneLast) && !twoArray.equals(oneLast)) {
                                             /*两个不同为新增*/
                                             int have = -1;
@@ -193,28 +181,22 @@ public class ClipboardList extends BaseHook {
                                                     break;
                                                 }
                                             }
-                                            for (int i = 0; i < have; i++) {
-                                                mArray.add(i, jsonToBean.get(i));
+                                            /*倒序写入，保证第一个在最前*/
+                                            for (int i = have - 1; i >= 0; i--) {
+                                                addOrHw(jsonToBean.get(i));
                                             }
                                         }
-                                        /*else if (jsonToBean.hashCode() != lastArray.hashCode()) {
-                                         *//*很极端的情况，应该不会发生*//*
-                                    mArray.addAll(0, jsonToBean);
-                                }*/
                                         // logE(TAG, "last: " + listToJson(lastArray));
                                     }
                                     /*置旧*/
                                     lastArray = jsonToBean;
                                     writeFile(lastFilePath, listToJson(lastArray));
-                                    writeFile(filePath, listToJson(mArray));
-                                    // logE(TAG, "after: " + listToJson(lastArray) + " mArray: " + listToJson(mArray));
-                                    param.setResult(mArray);
+                                    param.setResult(getSavedList(classLoader));
                                 } else {
                                     /*置旧*/
                                     lastArray = jsonToBean;
                                     writeFile(lastFilePath, listToJson(lastArray));
-                                    writeFile(filePath, listToJson(jsonToBean));
-                                    // logE(TAG, "before: " + listToJson(lastArray) + " mArray: " + listToJson(mArray));
+                                    mStore.replaceAll(toEntryList(jsonToBean));
                                     param.setResult(jsonToBean);
                                 }
                             } catch (Throwable throwable) {
@@ -276,7 +258,7 @@ public class ClipboardList extends BaseHook {
                                 lastArray = arrayList;
                                 writeFile(lastFilePath, listToJson(arrayList));
                             }
-                            writeFile(filePath, listToJson(arrayList));
+                            mStore.replaceAll(toEntryList(arrayList));
                         }
                     }
             );
@@ -345,32 +327,42 @@ public class ClipboardList extends BaseHook {
         } catch (Exception ignore) {}
     }
 
-    /*添加或换位*/
-    public ArrayList addOrHw(ArrayList mArray, Object oneArray, ArrayList<?> jsonToBean) throws Throwable {
-        if (oneArray == null) {
-            logE(TAG, "oneArray is null, mArray: " + mArray + " jsonToBean: " + jsonToBean);
-            return mArray;
+    /*添加或换位，已存在的内容会移动到最前*/
+    private void addOrHw(Object model) {
+        if (model == null) {
+            logE(TAG, "model is null");
+            return;
         }
-        boolean needAdd = false;
-        boolean needHw = false;
-        int run = -1;
-        for (int i = 0; i < mArray.size(); i++) {
-            run++;
-            needAdd = true;
-            /*如果数据库存在重复数据*/
-            if (oneArray.equals(getContent(mArray, i))) {
-                needHw = true;
-                needAdd = false;
-                break;
+        String content = ContentModel.getContent(model);
+        if (content == null) return;
+        mStore.add(content, ContentModel.getType(model), ContentModel.getTime(model));
+    }
+
+    /*数据库中的数据，最新在前*/
+    private ArrayList<Object> getSavedList(ClassLoader classLoader) {
+        Class<?> modelClass = XposedHelpers.findClassIfExists("com.miui.inputmethod.ClipboardContentModel", classLoader);
+        return mStore.snapshot(entry -> {
+            try {
+                JSONObject jsonObject = new JSONObject();
+                jsonObject.put("content", entry.content);
+                jsonObject.put("type", entry.type);
+                jsonObject.put("time", entry.time);
+                return XposedHelpers.callStaticMethod(modelClass, "fromJSONObject", jsonObject);
+            } catch (Throwable e) {
+                logE(TAG, "getSavedList: " + e);
+                return null;
             }
+        });
+    }
+
+    private ArrayList<ClipboardStore.Entry> toEntryList(ArrayList<?> arrayList) {
+        ArrayList<ClipboardStore.Entry> entries = new ArrayList<>(arrayList.size());
+        for (Object model : arrayList) {
+            String content = ContentModel.getContent(model);
+            if (content == null) continue;
+            entries.add(new ClipboardStore.Entry(content, ContentModel.getType(model), ContentModel.getTime(model)));
         }
-        if (needHw) {
-            mArray.add(0, mArray.get(run));
-            mArray.remove(run + 1);
-        }
-        if (needAdd)
-            mArray.add(0, jsonToBean.get(0));
-        return mArray;
+        return entries;
     }
 
     public void checkFile(String path) {
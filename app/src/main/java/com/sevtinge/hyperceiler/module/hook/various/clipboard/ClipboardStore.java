@@ -0,0 +1,356 @@
+/*
+ * This file is part of HyperCeiler.
+
+ * HyperCeiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ * Copyright (C) 2023-2025 HyperCeiler Contributions
+ */
+package com.sevtinge.hyperceiler.module.hook.various.clipboard;
+
+import static com.sevtinge.hyperceiler.utils.log.XposedLogUtils.logD;
+import static com.sevtinge.hyperceiler.utils.log.XposedLogUtils.logE;
+import static com.sevtinge.hyperceiler.utils.log.XposedLogUtils.logI;
+
+import android.os.SystemClock;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 剪贴板历史存储。
+ * <p>
+ * 数据以追加日志的形式保存，每次新增/删除只写入一行；日志中的冗余记录过多时整体压缩，
+ * 压缩通过临时文件 + rename 原子替换。内存中按内容去重，面板打开时不读文件，
+ * 只按缓存的顺序创建宿主对象。
+ * <p>
+ * 首次加载时会导入旧版的 clipboard_data.dat。
+ */
+public final class ClipboardStore {
+    private static final String TAG = "ClipboardStore";
+    private static final String LOG_NAME = "clipboard_history.log";
+    private static final String LEGACY_NAME = "clipboard_data.dat";
+    private static final int COMPACT_SLACK = 64;
+
+    private static final String OP = "o";
+    private static final String OP_ADD = "a";
+    private static final String OP_DELETE = "d";
+    private static final String OP_CLEAR = "c";
+
+    private static final HashMap<String, ClipboardStore> sStores = new HashMap<>();
+
+    private final File mLogFile;
+    private final File mLegacyFile;
+    // 按插入顺序保存，最后一个为最新条目
+    private final LinkedHashMap<String, Entry> mEntries = new LinkedHashMap<>();
+    // 最新在前的条目列表，数据变化时置空
+    private ArrayList<Entry> mSnapshot;
+    private boolean isLoaded;
+    private int mLogLines;
+
+    private ClipboardStore(String dir) {
+        mLogFile = new File(dir, LOG_NAME);
+        mLegacyFile = new File(dir, LEGACY_NAME);
+    }
+
+    public static synchronized ClipboardStore get(String dir) {
+        ClipboardStore store = sStores.get(dir);
+        if (store == null) {
+            store = new ClipboardStore(dir);
+            sStores.put(dir, store);
+        }
+        return store;
+    }
+
+    public synchronized boolean isEmpty() {
+        load();
+        return mEntries.isEmpty();
+    }
+
+    public synchronized int size() {
+        load();
+        return mEntries.size();
+    }
+
+    public synchronized boolean contains(String content) {
+        load();
+        return content != null && mEntries.containsKey(content);
+    }
+
+    /**
+     * 最新一条的内容，没有数据时返回 null。
+     */
+    public synchronized String newest() {
+        load();
+        String newest = null;
+        for (String content : mEntries.keySet()) newest = content;
+        return newest;
+    }
+
+    /**
+     * 新增条目；内容已存在时移动到最前。
+     */
+    public synchronized void add(String content, int type, long time) {
+        if (content == null) return;
+        load();
+        Entry old = mEntries.remove(content);
+        mEntries.put(content, new Entry(content, type, time));
+        mSnapshot = null;
+        append(toRecord(OP_ADD, content, type, time));
+    }
+
+    public synchronized void remove(String content) {
+        load();
+        if (content == null || mEntries.remove(content) == null) return;
+        mSnapshot = null;
+        append(toRecord(OP_DELETE, content, 0, 0));
+    }
+
+    public synchronized void clear() {
+        load();
+        if (mEntries.isEmpty()) return;
+        mEntries.clear();
+        mSnapshot = null;
+        append(toRecord(OP_CLEAR, null, 0, 0));
+    }
+
+    /**
+     * 用宿主保存的列表（最新在前）替换当前数据。
+     * 只是删除了部分条目时以删除记录追加，否则直接压缩写入。
+     */
+    public synchronized void replaceAll(List<Entry> newest) {
+        load();
+        if (newest.isEmpty()) {
+            clear();
+            return;
+        }
+        if (isSubsequence(newest)) {
+            if (newest.size() == mEntries.size()) return;
+            HashMap<String, Entry> keep = new HashMap<>();
+            for (Entry entry : newest) keep.put(entry.content, entry);
+            ArrayList<String> removed = new ArrayList<>();
+            for (String content : mEntries.keySet()) {
+                if (!keep.containsKey(content)) removed.add(content);
+            }
+            for (String content : removed) remove(content);
+            return;
+        }
+        mEntries.clear();
+        for (int i = newest.size() - 1; i >= 0; i--) {
+            Entry entry = newest.get(i);
+            if (entry.content == null) continue;
+            mEntries.remove(entry.content);
+            mEntries.put(entry.content, entry);
+        }
+        mSnapshot = null;
+        compact();
+    }
+
+    /**
+     * 返回最新在前的宿主对象列表，排序结果在数据未变化时复用。
+     * 宿主对象每次都重新创建：输入法可能修改这些对象，复用会把修改带到下一次打开面板。
+     */
+    public synchronized ArrayList<Object> snapshot(Function<Entry, Object> creator) {
+        load();
+        if (mSnapshot == null) {
+            ArrayList<Entry> entries = new ArrayList<>(mEntries.values());
+            Collections.reverse(entries);
+            mSnapshot = entries;
+        }
+        ArrayList<Object> list = new ArrayList<>(mSnapshot.size());
+        for (Entry entry : mSnapshot) {
+            Object host = creator.apply(entry);
+            if (host != null) list.add(host);
+        }
+        return list;
+    }
+
+    private boolean isSubsequence(List<Entry> newest) {
+        if (newest.size() > mEntries.size()) return false;
+        ArrayList<Entry> current = new ArrayList<>(mEntries.values());
+        int j = current.size() - 1;
+        for (Entry entry : newest) {
+            while (j >= 0 && !current.get(j).content.equals(entry.content)) j--;
+            if (j < 0) return false;
+            j--;
+        }
+        return true;
+    }
+
+    private void load() {
+        if (isLoaded) return;
+        isLoaded = true;
+        long start = SystemClock.elapsedRealtime();
+        if (mLogFile.isFile()) {
+            try (BufferedReader reader = new BufferedReader(new FileReader(mLogFile))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    mLogLines++;
+                    replay(line);
+                }
+            } catch (IOException e) {
+                logE(TAG, "load: " + e);
+            }
+            terminateLastLine();
+        } else if (mLegacyFile.isFile()) {
+            importLegacy();
+        }
+        logD(TAG, "loaded " + mEntries.size() + " clips from " + mLogLines + " records in "
+                + (SystemClock.elapsedRealtime() - start) + "ms");
+        if (needCompact()) compact();
+    }
+
+    // 上次写入中断时最后一行可能没有换行符，补上后新记录才不会接在残缺行后面
+    private void terminateLastLine() {
+        try (RandomAccessFile file = new RandomAccessFile(mLogFile, "rw")) {
+            long length = file.length();
+            if (length == 0) return;
+            file.seek(length - 1);
+            if (file.read() != '\n') file.write('\n');
+        } catch (IOException e) {
+            logE(TAG, "terminateLastLine: " + e);
+        }
+    }
+
+    private void replay(String line) {
+        try {
+            JSONObject record = new JSONObject(line);
+            switch (record.optString(OP)) {
+                case OP_ADD -> {
+                    String content = record.getString("content");
+                    mEntries.remove(content);
+                    mEntries.put(content, new Entry(content, record.optInt("type"), record.optLong("time")));
+                }
+                case OP_DELETE -> mEntries.remove(record.getString("content"));
+                case OP_CLEAR -> mEntries.clear();
+            }
+        } catch (JSONException ignore) {
+            // 写入中断导致的残缺行，直接跳过
+        }
+    }
+
+    private void importLegacy() {
+        try (BufferedReader reader = new BufferedReader(new FileReader(mLegacyFile))) {
+            StringBuilder builder = new StringBuilder();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                builder.append(line);
+            }
+            if (builder.length() == 0) return;
+            JSONArray array = new JSONArray(builder.toString());
+            // 旧文件最新在前
+            for (int i = array.length() - 1; i >= 0; i--) {
+                JSONObject object = array.optJSONObject(i);
+                if (object == null || !object.has("content")) continue;
+                String content = object.getString("content");
+                mEntries.remove(content);
+                mEntries.put(content, new Entry(content, object.optInt("type"), object.optLong("time")));
+            }
+            compact();
+            logI(TAG, "imported " + mEntries.size() + " clips from " + mLegacyFile);
+        } catch (IOException | JSONException e) {
+            logE(TAG, "importLegacy: " + e);
+        }
+    }
+
+    private boolean needCompact() {
+        return mLogLines > mEntries.size() * 2 + COMPACT_SLACK;
+    }
+
+    private void append(String record) {
+        if (record == null) return;
+        if (!ensureParent()) return;
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(mLogFile, true))) {
+            writer.write(record);
+            writer.write('\n');
+            mLogLines++;
+        } catch (IOException e) {
+            logE(TAG, "append: " + e);
+        }
+        if (needCompact()) compact();
+    }
+
+    private void compact() {
+        if (!ensureParent()) return;
+        File tmp = new File(mLogFile.getPath() + ".tmp");
+        int lines = 0;
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(tmp, false))) {
+            for (Entry entry : mEntries.values()) {
+                String record = toRecord(OP_ADD, entry.content, entry.type, entry.time);
+                if (record == null) continue;
+                writer.write(record);
+                writer.write('\n');
+                lines++;
+            }
+        } catch (IOException e) {
+            logE(TAG, "compact: " + e);
+            tmp.delete();
+            return;
+        }
+        if (tmp.renameTo(mLogFile)) {
+            mLogLines = lines;
+        } else {
+            logE(TAG, "compact: rename failed");
+            tmp.delete();
+        }
+    }
+
+    private boolean ensureParent() {
+        File parent = mLogFile.getParentFile();
+        return parent != null && (parent.exists() || parent.mkdirs());
+    }
+
+    private static String toRecord(String op, String content, int type, long time) {
+        try {
+            JSONObject record = new JSONObject();
+            record.put(OP, op);
+            if (content != null) record.put("content", content);
+            if (OP_ADD.equals(op)) {
+                record.put("type", type);
+                record.put("time", time);
+            }
+            // JSONObject 会转义换行，保证一条记录只占一行
+            return record.toString();
+        } catch (JSONException e) {
+            logE(TAG, "toRecord: " + e);
+            return null;
+        }
+    }
+
+    public static final class Entry {
+        public final String content;
+        public final int type;
+        public final long time;
+
+        public Entry(String content, int type, long time) {
+            this.content = content;
+            this.type = type;
+            this.time = time;
+        }
+    }
+}
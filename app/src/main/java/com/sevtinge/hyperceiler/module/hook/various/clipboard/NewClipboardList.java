@@ -25,20 +25,17 @@ import android.net.Uri;
 import android.os.Bundle;
 import android.text.TextUtils;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.reflect.TypeToken;
 import com.hchen.hooktool.BaseHC;
 import com.hchen.hooktool.hook.IHook;
 import com.hchen.hooktool.tool.ParamTool;
 import com.sevtinge.hyperceiler.utils.ContentModel;
-import com.sevtinge.hyperceiler.utils.FileHelper;
 import com.sevtinge.hyperceiler.utils.log.XposedLogUtils;
 
 import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
 
 import java.util.ArrayList;
-import java.util.stream.Collectors;
 
 import de.robv.android.xposed.XC_MethodHook;
 import de.robv.android.xposed.XposedHelpers;
@@ -50,8 +47,7 @@ import de.robv.android.xposed.XposedHelpers;
  * @author 焕晨HChen
  */
 public class NewClipboardList extends BaseHC implements LoadInputMethodDex.OnInputMethodDexLoad {
-    private Gson mGson;
-    private static String mDataPath;
+    private ClipboardStore mStore;
     private boolean isNewMode = false;
     private String content = null;
 
@@ -60,16 +56,9 @@ public class NewClipboardList extends BaseHC implements LoadInputMethodDex.OnInp
 
     @Override
     public void load(ClassLoader classLoader) {
-        mGson = new GsonBuilder().setPrettyPrinting().create();
-        mDataPath = lpparam.appInfo.dataDir + "/files/clipboard_data.dat";
+        mStore = ClipboardStore.get(lpparam.appInfo.dataDir + "/files");
         XposedLogUtils.logI(TAG, "class loader: " + classLoader);
 
-        FileHelper.TAG = TAG;
-        if (!FileHelper.exists(mDataPath)) {
-            XposedLogUtils.logE(TAG, "file create failed!");
-            return;
-        }
-
         ContentModel.classLoader = classLoader;
         if (isNewMethod(classLoader))
             newMethod(classLoader);
@@ -109,7 +98,7 @@ public class NewClipboardList extends BaseHC implements LoadInputMethodDex.OnInp
                             @Override
                             public void before() {
                                 ArrayList<?> dataList = (ArrayList<?>) getArgs(1);
-                                FileHelper.write(mDataPath, mGson.toJson(dataList));
+                                mStore.replaceAll(toEntryList(dataList));
                                 if (!dataList.isEmpty()) returnNull();
                             }
                         })
@@ -149,7 +138,7 @@ public class NewClipboardList extends BaseHC implements LoadInputMethodDex.OnInp
                             @Override
                             public void before() {
                                 ArrayList<?> dataList = (ArrayList<?>) getArgs(1);
-                                FileHelper.write(mDataPath, mGson.toJson(dataList));
+                                mStore.replaceAll(toEntryList(dataList));
                                 if (!dataList.isEmpty()) returnNull();
                             }
                         })
@@ -221,39 +210,20 @@ public class NewClipboardList extends BaseHC implements LoadInputMethodDex.OnInp
     }
 
     private void getClipboardData(ParamTool param) {
-        ArrayList<ContentModel> readData = toContentModelList(FileHelper.read(mDataPath));
-        if (readData.isEmpty()) {
-            String data = getData((Context) param.getArgs(0));
-            if (data.isEmpty()) param.setResult(new ArrayList<>());
-            ArrayList<ContentModel> contentModels = toContentModelList(data);
-            FileHelper.write(mDataPath, mGson.toJson(contentModels));
-            param.setResult(toClipboardList(contentModels));
-            return;
+        if (mStore.isEmpty()) {
+            // 首次使用时导入输入法自身保存的数据
+            importData(getData((Context) param.getArgs(0)));
         }
-        ArrayList<?> clipboardList = toClipboardList(readData);
-        param.setResult(clipboardList);
+        param.setResult(mStore.snapshot(entry ->
+                ContentModel.createContentModel(entry.content, entry.type, entry.time)));
     }
 
     private void addClipboard(String add, int type, Context context) {
-        if (FileHelper.empty(mDataPath)) {
+        if (mStore.isEmpty()) {
             // 数据库为空时写入数据
-            String string = getData(context);
-            ArrayList<ContentModel> dataList;
-            dataList = toContentModelList(string);
-            dataList.add(0, new ContentModel(add, type, System.currentTimeMillis()));
-            FileHelper.write(mDataPath, mGson.toJson(dataList));
-            return;
-        }
-        ArrayList<ContentModel> readData = toContentModelList(FileHelper.read(mDataPath));
-        if (readData.isEmpty()) {
-            XposedLogUtils.logW(TAG, "can't read any data!");
-        } else {
-            if (readData.stream().anyMatch(contentModel -> contentModel.content.equals(add))) {
-                readData.removeIf(contentModel -> contentModel.content.equals(add));
-            }
-            readData.add(0, new ContentModel(add, type, System.currentTimeMillis()));
-            FileHelper.write(mDataPath, mGson.toJson(readData));
+            importData(getData(context));
         }
+        mStore.add(add, type, System.currentTimeMillis());
     }
 
     private String getData(Context context) {
@@ -263,19 +233,28 @@ public class NewClipboardList extends BaseHC implements LoadInputMethodDex.OnInp
         return call != null ? call.getString("savedClipboard") : "";
     }
 
-    private ArrayList<ContentModel> toContentModelList(String str) {
-        if (str.isEmpty()) return new ArrayList<>();
-        ArrayList<ContentModel> contentModels = mGson.fromJson(str,
-                new TypeToken<ArrayList<ContentModel>>() {
-                }.getType());
-        if (contentModels == null) return new ArrayList<>();
-        return contentModels;
+    // 输入法数据最新在前，倒序写入以保持顺序
+    private void importData(String str) {
+        if (str == null || str.isEmpty()) return;
+        try {
+            JSONArray array = new JSONArray(str);
+            for (int i = array.length() - 1; i >= 0; i--) {
+                JSONObject object = array.optJSONObject(i);
+                if (object == null || !object.has("content")) continue;
+                mStore.add(object.getString("content"), object.optInt("type"), object.optLong("time"));
+            }
+        } catch (JSONException e) {
+            XposedLogUtils.logE(TAG, "importData: " + e);
+        }
     }
 
-    private ArrayList<?> toClipboardList(ArrayList<ContentModel> dataList) {
-        return dataList.stream().map(list ->
-                ContentModel.createContentModel(list.content, list.type, list.time)
-        ).collect(Collectors.toCollection(ArrayList::new));
+    private ArrayList<ClipboardStore.Entry> toEntryList(ArrayList<?> dataList) {
+        ArrayList<ClipboardStore.Entry> entries = new ArrayList<>(dataList.size());
+        for (Object data : dataList) {
+            String content = ContentModel.getContent(data);
+            if (content == null) continue;
+            entries.add(new ClipboardStore.Entry(content, ContentModel.getType(data), ContentModel.getTime(data)));
+        }
+        return entries;
     }
-
 }
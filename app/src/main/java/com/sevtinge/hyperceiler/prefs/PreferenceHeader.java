@@ -18,17 +18,9 @@
  */
 package com.sevtinge.hyperceiler.prefs;
 
-import static com.sevtinge.hyperceiler.BuildConfig.APPLICATION_ID;
-import static com.sevtinge.hyperceiler.utils.SQLiteDatabaseHelper.isDatabaseLocked;
-import static com.sevtinge.hyperceiler.utils.SQLiteDatabaseHelper.queryList;
-import static com.sevtinge.hyperceiler.utils.devicesdk.SystemSDKKt.getCurrentUserId;
-import static com.sevtinge.hyperceiler.utils.devicesdk.SystemSDKKt.getWhoAmI;
-import static com.sevtinge.hyperceiler.utils.shell.ShellUtils.rootExecCmd;
-
-import android.annotation.SuppressLint;
 import android.content.Context;
-import android.database.Cursor;
-import android.database.sqlite.SQLiteDatabase;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageManager;
 import android.util.AttributeSet;
 
 import androidx.annotation.NonNull;
@@ -36,7 +28,6 @@ import androidx.annotation.Nullable;
 
 import com.sevtinge.hyperceiler.R;
 import com.sevtinge.hyperceiler.utils.PackagesUtils;
-import com.sevtinge.hyperceiler.utils.log.AndroidLogUtils;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -47,11 +38,14 @@ public class PreferenceHeader extends XmlPreference {
     public static ArrayList<String> mDisableOrHiddenApp = new ArrayList<>();
     public static ArrayList<String> mNoScoped = new ArrayList<>();
 
-    public static List<String> scope = new ArrayList<>();
     public static List<String> notInSelectedScope = new ArrayList<>();
 
-    private static boolean isScopeGet = false;
-    private static boolean isScopeGetFailed = false;
+    private final ScopeSnapshot.OnScopeChangedListener mScopeListener = this::applyScope;
+
+    private int mAppState = APP_NORMAL;
+    // 布局或其他设置（如首页入口开关）要求的可见性，与应用状态、作用域共同决定是否显示
+    private boolean isRequestedVisible = true;
+    private boolean isOutOfScope;
 
     public PreferenceHeader(@NonNull Context context) {
         super(context);
@@ -71,87 +65,74 @@ public class PreferenceHeader extends XmlPreference {
 
     private void init(Context context) {
         setLayoutResource(R.layout.preference_header);
-        if (!isScopeGet && !isScopeGetFailed) if (getWhoAmI().equals("root")) getScope();
-        if (isUninstall(context)) {
-            mUninstallApp.add(" - " + getTitle() + " (" + getSummary() + ")");
-            setVisible(false);
-        } else if (isDisable(context) || isHidden(context)) {
-            mDisableOrHiddenApp.add(" - " + getTitle() + " (" + getSummary() + ")");
-            setVisible(false);
-        }
-        if (!scope.contains(getSummary()) && (getSummary() != null) && isScopeGet && !isScopeGetFailed) {
-            notInSelectedScope.add((String) getSummary());
-            String string = " - " + getTitle() + " (" + getSummary() + ")";
-            if (!mDisableOrHiddenApp.contains(string) && !mUninstallApp.contains(string) && !mNoScoped.contains(string)) mNoScoped.add(string);
-            setVisible(false);
+        isRequestedVisible = isVisible();
+        String string = " - " + getTitle() + " (" + getSummary() + ")";
+        mAppState = getAppState(context);
+        switch (mAppState) {
+            case APP_UNINSTALL -> mUninstallApp.add(string);
+            case APP_DISABLE_OR_HIDDEN -> mDisableOrHiddenApp.add(string);
         }
+        // 作用域只从快照读取，快照在后台更新后再次检查
+        applyScope(ScopeSnapshot.get());
     }
 
-    private boolean isUninstall(Context context) {
-        if (getSummary() == null || "android".contentEquals(getSummary())) return false;
-        return PackagesUtils.isUninstall(context, (String) getSummary());
+    /**
+     * 设置外部要求的可见性。应用已卸载、被停用或不在作用域内时仍保持隐藏，
+     * 作用域恢复后按此值重新显示，因此不要直接调用 setVisible。
+     */
+    public void setRequestedVisible(boolean visible) {
+        isRequestedVisible = visible;
+        updateVisible();
     }
 
-    private boolean isDisable(Context context) {
-        if (getSummary() == null || "android".contentEquals(getSummary())) return false;
-        return PackagesUtils.isDisable(context, (String) getSummary());
+    private void updateVisible() {
+        setVisible(isRequestedVisible && mAppState == APP_NORMAL && !isOutOfScope);
     }
 
-    private boolean isHidden(Context context) {
-        if (getSummary() == null || "android".contentEquals(getSummary())) return false;
-        return PackagesUtils.isHidden(context, (String) getSummary());
+    @Override
+    public void onAttached() {
+        super.onAttached();
+        ScopeSnapshot.addListener(mScopeListener);
     }
 
-    @SuppressLint("Range")
-    private void getScope() {
-        int userId = getCurrentUserId();
-        SQLiteDatabase db = null;
-        Cursor cursor = null;
-
-        try {
-            rootExecCmd("mkdir -p /data/local/tmp/HyperCeiler/cache/ && cp -r /data/adb/lspd/config /data/local/tmp/HyperCeiler/cache/ && chmod -R 777 /data/local/tmp/HyperCeiler/cache/config");
-
-            String dbPath = "/data/local/tmp/HyperCeiler/cache/config/modules_config.db";
-            db = SQLiteDatabase.openDatabase(dbPath, null, SQLiteDatabase.OPEN_READWRITE);
-
-            if (isDatabaseLocked(db)) {
-                AndroidLogUtils.logW("PreferenceHeader", "Database locked, skip get scope.");
-                isScopeGetFailed = true;
-                return;
-            }
-
-            String tableName = "modules";
-            String[] columns = {"mid"};
-            String selection = "module_pkg_name = ?";
-            String[] selectionArgs = {APPLICATION_ID};
-
-            cursor = db.query(tableName, columns, selection, selectionArgs, null, null, null);
-
-            if (cursor.moveToFirst()) {
-                List<String> scopeMid;
-                List<String> scopeUid;
-
-                do {
-                    String mid = cursor.getString(cursor.getColumnIndex("mid"));
-
-                    scopeMid = queryList(db, "app_pkg_name", "scope", "mid = ?", new String[]{mid}, true);
-                    scopeUid = queryList(db, "app_pkg_name", "scope", "user_id = ?", new String[]{String.valueOf(userId)}, true);
+    @Override
+    public void onDetached() {
+        super.onDetached();
+        ScopeSnapshot.removeListener(mScopeListener);
+    }
 
-                    scope = new ArrayList<>(scopeMid);
-                    scope.retainAll(scopeUid);
+    // 作用域可能增加也可能减少，两个方向都要更新可见性与提示列表
+    private void applyScope(ScopeSnapshot snapshot) {
+        if (getSummary() == null || !snapshot.isLoaded()) return;
+        String pkg = getSummary().toString();
+        String string = " - " + getTitle() + " (" + pkg + ")";
+        isOutOfScope = !snapshot.contains(pkg);
+        if (isOutOfScope) {
+            if (!notInSelectedScope.contains(pkg)) notInSelectedScope.add(pkg);
+            if (!mDisableOrHiddenApp.contains(string) && !mUninstallApp.contains(string) && !mNoScoped.contains(string)) mNoScoped.add(string);
+        } else {
+            notInSelectedScope.remove(pkg);
+            mNoScoped.remove(string);
+        }
+        updateVisible();
+    }
 
-                } while (cursor.moveToNext());
-            }
+    private static final int APP_NORMAL = 0;
+    private static final int APP_UNINSTALL = 1;
+    private static final int APP_DISABLE_OR_HIDDEN = 2;
 
-        } catch (Exception e) {
-            isScopeGetFailed = true;
-            AndroidLogUtils.logW("PreferenceHeader", "Database error: ", e);
-        } finally {
-            if (cursor != null) cursor.close();
-            if (db != null) db.close();
+    // 合并原先的 isUninstall/isDisable/isHidden，每个设置项最多两次 PackageManager 调用
+    private int getAppState(Context context) {
+        if (getSummary() == null || "android".contentEquals(getSummary())) return APP_NORMAL;
+        String pkg = (String) getSummary();
+        if (PackagesUtils.isUninstall(context, pkg)) return APP_UNINSTALL;
+        try {
+            ApplicationInfo info = context.getPackageManager().getApplicationInfo(pkg, 0);
+            return info.enabled ? APP_NORMAL : APP_DISABLE_OR_HIDDEN;
+        } catch (PackageManager.NameNotFoundException e) {
+            // 已安装但查不到，视为隐藏
+            return APP_DISABLE_OR_HIDDEN;
         }
-
-        isScopeGet = true;
     }
 
 }
@@ -0,0 +1,180 @@
+/*
+ * This file is part of HyperCeiler.
+
+ * HyperCeiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ * Copyright (C) 2023-2025 HyperCeiler Contributions
+ */
+package com.sevtinge.hyperceiler.prefs;
+
+import static com.sevtinge.hyperceiler.BuildConfig.APPLICATION_ID;
+import static com.sevtinge.hyperceiler.utils.SQLiteDatabaseHelper.isDatabaseLocked;
+import static com.sevtinge.hyperceiler.utils.SQLiteDatabaseHelper.queryList;
+import static com.sevtinge.hyperceiler.utils.devicesdk.SystemSDKKt.getCurrentUserId;
+import static com.sevtinge.hyperceiler.utils.shell.ShellUtils.rootExecCmd;
+import static com.sevtinge.hyperceiler.utils.shell.ShellUtils.rootExecCmds;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteException;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.sevtinge.hyperceiler.utils.ThreadPoolManager;
+import com.sevtinge.hyperceiler.utils.log.AndroidLogUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * LSPosed 中本模块作用域的只读快照。
+ * <p>
+ * 快照在后台读取：先以 root 查询 modules_config.db（及其 -wal）的修改时间，
+ * 与当前快照一致时不做任何事，否则复制数据库并重新读取。
+ * 设置项只从 {@link #get()} 取值，不会因 root 操作阻塞主线程；
+ * 快照更新后在主线程通知监听者。
+ */
+public final class ScopeSnapshot {
+    private static final String TAG = "ScopeSnapshot";
+    private static final String LSPD_CONFIG = "/data/adb/lspd/config";
+    private static final String CACHE_DIR = "/data/local/tmp/HyperCeiler/cache/";
+    private static final String CACHE_DB = CACHE_DIR + "config/modules_config.db";
+
+    /** 尚未读取或读取失败 */
+    public static final ScopeSnapshot EMPTY = new ScopeSnapshot(null, Collections.emptySet(), false);
+
+    private static volatile ScopeSnapshot sCurrent = EMPTY;
+    private static final AtomicBoolean isRefreshing = new AtomicBoolean();
+    private static final CopyOnWriteArraySet<OnScopeChangedListener> sListeners = new CopyOnWriteArraySet<>();
+    private static final Handler sMainHandler = new Handler(Looper.getMainLooper());
+
+    private final String mVersion;
+    private final Set<String> mScope;
+    private final boolean isLoaded;
+
+    private ScopeSnapshot(String version, Set<String> scope, boolean loaded) {
+        mVersion = version;
+        mScope = scope;
+        isLoaded = loaded;
+    }
+
+    public interface OnScopeChangedListener {
+        /** 在主线程调用 */
+        void onScopeChanged(@NonNull ScopeSnapshot snapshot);
+    }
+
+    @NonNull
+    public static ScopeSnapshot get() {
+        return sCurrent;
+    }
+
+    public boolean isLoaded() {
+        return isLoaded;
+    }
+
+    public boolean contains(@Nullable CharSequence pkg) {
+        return pkg != null && mScope.contains(pkg.toString());
+    }
+
+    public static void addListener(OnScopeChangedListener listener) {
+        sListeners.add(listener);
+    }
+
+    public static void removeListener(OnScopeChangedListener listener) {
+        sListeners.remove(listener);
+    }
+
+    /**
+     * 在后台检查数据库是否变化，有变化时重新读取。正在读取时忽略。
+     */
+    public static void refresh() {
+        if (!isRefreshing.compareAndSet(false, true)) return;
+        ThreadPoolManager.getInstance().submit(() -> {
+            try {
+                ScopeSnapshot snapshot = loadIfChanged(sCurrent);
+                if (snapshot != null) {
+                    sCurrent = snapshot;
+                    sMainHandler.post(() -> {
+                        for (OnScopeChangedListener listener : sListeners) {
+                            listener.onScopeChanged(snapshot);
+                        }
+                    });
+                }
+            } catch (Throwable t) {
+                AndroidLogUtils.logW(TAG, "refresh scope failed: ", t);
+            } finally {
+                isRefreshing.set(false);
+            }
+        });
+    }
+
+    // 没有变化或没有 root 时返回 null
+    private static ScopeSnapshot loadIfChanged(ScopeSnapshot current) {
+        String[] results = rootExecCmds(
+            "whoami",
+            "stat -c %n:%Y:%s " + LSPD_CONFIG + "/modules_config.db " + LSPD_CONFIG + "/modules_config.db-wal"
+        );
+        if (!"root".equals(results[0])) return null;
+        String version = results[1];
+        if (current.isLoaded && version.equals(current.mVersion)) return null;
+
+        rootExecCmd("mkdir -p " + CACHE_DIR + " && cp -r " + LSPD_CONFIG + " " + CACHE_DIR + " && chmod -R 777 " + CACHE_DIR + "config");
+        try {
+            return load(CACHE_DB, APPLICATION_ID, getCurrentUserId(), version);
+        } catch (SQLiteException e) {
+            AndroidLogUtils.logW(TAG, "Database error: ", e);
+            return null;
+        }
+    }
+
+    /**
+     * 从 LSPosed 的 modules_config.db 读取指定模块在指定用户下的作用域。
+     * 只涉及 SQLite，可直接对测试用的数据库文件调用。
+     *
+     * @param version 数据库版本标识，用于判断之后是否需要重新读取
+     * @throws SQLiteException 数据库无法打开或被锁定
+     */
+    @NonNull
+    public static ScopeSnapshot load(String dbPath, String modulePkg, int userId, String version) {
+        try (SQLiteDatabase db = SQLiteDatabase.openDatabase(dbPath, null, SQLiteDatabase.OPEN_READWRITE)) {
+            if (isDatabaseLocked(db)) {
+                throw new SQLiteException("Database locked, skip get scope.");
+            }
+            List<String> scope = new ArrayList<>();
+            try (Cursor cursor = db.query("modules", new String[]{"mid"}, "module_pkg_name = ?",
+                new String[]{modulePkg}, null, null, null)) {
+                int midIndex = cursor.getColumnIndexOrThrow("mid");
+                List<String> scopeUid = null;
+                while (cursor.moveToNext()) {
+                    String mid = cursor.getString(midIndex);
+                    if (scopeUid == null) {
+                        scopeUid = queryList(db, "app_pkg_name", "scope", "user_id = ?", new String[]{String.valueOf(userId)}, true);
+                    }
+                    // 与之前一致，以最后一条记录为准
+                    scope = queryList(db, "app_pkg_name", "scope", "mid = ?", new String[]{mid}, true);
+                    scope.retainAll(scopeUid);
+                }
+            }
+            return new ScopeSnapshot(version, Collections.unmodifiableSet(new LinkedHashSet<>(scope)), true);
+        }
+    }
+}
@@ -19,6 +19,8 @@
 
 package com.sevtinge.hyperceiler.receiver;
 
+import static com.sevtinge.hyperceiler.utils.shell.ShellUtils.rootExecCmd;
+
 import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
@@ -27,8 +29,8 @@ import android.widget.Toast;
 import androidx.annotation.NonNull;
 
 import com.sevtinge.hyperceiler.ui.app.safe.CrashActivity;
+import com.sevtinge.hyperceiler.utils.ThreadPoolManager;
 import com.sevtinge.hyperceiler.utils.log.AndroidLogUtils;
-import com.sevtinge.hyperceiler.utils.shell.ShellInit;
 
 public class CrashReceiver extends BroadcastReceiver {
 
@@ -50,7 +52,16 @@ public class CrashReceiver extends BroadcastReceiver {
             throwFileName = intent.getStringExtra("key_throwFileName");
             throwLineNumber = intent.getIntExtra("key_throwLineNumber", -1);
             throwMethodName = intent.getStringExtra("key_throwMethodName");
-            ShellInit.getShell().run("setprop persist.hyperceiler.crash.report " + "\"" + report + "\"").sync();
+            // 广播可能冷启动本进程，此时 ShellInit 尚未初始化，改用常驻的 root shell 在后台写入
+            PendingResult result = goAsync();
+            ThreadPoolManager.getInstance().submit(() -> {
+                try {
+                    // report 只含简称与逗号，无需引号
+                    rootExecCmd("setprop persist.hyperceiler.crash.report " + report);
+                } finally {
+                    result.finish();
+                }
+            });
 
 
             Intent intent1 = getIntent(context, abbr);
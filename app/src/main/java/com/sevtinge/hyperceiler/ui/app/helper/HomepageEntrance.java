@@ -19,8 +19,6 @@
 
 package com.sevtinge.hyperceiler.ui.app.helper;
 
-import static com.sevtinge.hyperceiler.prefs.PreferenceHeader.scope;
-
 import android.content.pm.PackageManager;
 import android.content.res.Resources;
 import android.content.res.XmlResourceParser;
@@ -31,6 +29,7 @@ import androidx.preference.Preference;
 import androidx.preference.SwitchPreference;
 
 import com.sevtinge.hyperceiler.R;
+import com.sevtinge.hyperceiler.prefs.ScopeSnapshot;
 import com.sevtinge.hyperceiler.ui.hooker.dashboard.DashboardFragment;
 import com.sevtinge.hyperceiler.utils.PackagesUtils;
 import com.sevtinge.hyperceiler.utils.ToastHelper;
@@ -99,7 +98,7 @@ public class HomepageEntrance extends DashboardFragment implements Preference.On
         String summary = xml.getAttributeValue(ANDROID_NS, "summary");
         if (key != null && summary != null) {
             SwitchPreference preferenceHeader = findPreference(key);
-            if (!scope.contains(summary)) {
+            if (!ScopeSnapshot.get().contains(summary)) {
                 if (preferenceHeader != null) {
                     preferenceHeader.setVisible(false);
                 }
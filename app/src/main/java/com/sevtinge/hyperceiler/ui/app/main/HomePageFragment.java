@@ -4,7 +4,6 @@ import static com.sevtinge.hyperceiler.prefs.PreferenceHeader.notInSelectedScope
 import static com.sevtinge.hyperceiler.utils.devicesdk.SystemSDKKt.getBaseOs;
 import static com.sevtinge.hyperceiler.utils.devicesdk.SystemSDKKt.getRomAuthor;
 import static com.sevtinge.hyperceiler.utils.devicesdk.SystemSDKKt.isFullSupport;
-import static com.sevtinge.hyperceiler.utils.log.LogManager.IS_LOGGER_ALIVE;
 
 import android.content.pm.PackageManager;
 import android.content.res.XmlResourceParser;
@@ -30,6 +29,7 @@ import com.sevtinge.hyperceiler.data.ModData;
 import com.sevtinge.hyperceiler.data.adapter.ModSearchAdapter;
 import com.sevtinge.hyperceiler.expansion.utils.SignUtils;
 import com.sevtinge.hyperceiler.prefs.PreferenceHeader;
+import com.sevtinge.hyperceiler.prefs.ScopeSnapshot;
 import com.sevtinge.hyperceiler.ui.app.helper.HomepageEntrance;
 import com.sevtinge.hyperceiler.ui.app.main.ContentFragment.IFragmentChange;
 import com.sevtinge.hyperceiler.ui.app.main.utils.MainActivityContextHelper;
@@ -38,6 +38,7 @@ import com.sevtinge.hyperceiler.ui.hooker.dashboard.DashboardFragment;
 import com.sevtinge.hyperceiler.utils.SettingLauncherHelper;
 import com.sevtinge.hyperceiler.utils.devicesdk.SystemSDKKt;
 import com.sevtinge.hyperceiler.utils.log.AndroidLogUtils;
+import com.sevtinge.hyperceiler.utils.log.LoggerHealthCheck;
 
 import org.xmlpull.v1.XmlPullParser;
 import org.xmlpull.v1.XmlPullParserException;
@@ -197,6 +198,29 @@ public class HomePageFragment extends DashboardFragment
         return R.xml.prefs_main;
     }
 
+    private final ScopeSnapshot.OnScopeChangedListener mScopeListener = snapshot -> {
+        // 作用域在后台读取完成后更新提示
+        if (mHeadtipTip != null && snapshot.isLoaded()) {
+            mHeadtipTip.setTitle(R.string.headtip_tip_auto_safe_mode);
+            mHeadtipTip.setVisible(!snapshot.contains("android"));
+        }
+    };
+
+    @Override
+    public void onCreate(@Nullable Bundle savedInstanceState) {
+        // 每次进入页面时在后台检查作用域是否变化
+        ScopeSnapshot.refresh();
+        ScopeSnapshot.addListener(mScopeListener);
+        super.onCreate(savedInstanceState);
+    }
+
+    @Override
+    public void onDestroy() {
+        ScopeSnapshot.removeListener(mScopeListener);
+        LoggerHealthCheck.removeObserver(mLoggerCallback);
+        super.onDestroy();
+    }
+
     @Override
     public void initPrefs() {
         HomepageEntrance.setEntranceStateListen(this);
@@ -260,8 +284,8 @@ public class HomePageFragment extends DashboardFragment
             boolean state = getSharedPreferences().getBoolean(key, true);
             if (!state) {
                 PreferenceHeader preferenceHeader = findPreference(checkKey);
-                if (preferenceHeader != null && preferenceHeader.isVisible()) {
-                    preferenceHeader.setVisible(false);
+                if (preferenceHeader != null) {
+                    preferenceHeader.setRequestedVisible(false);
                 }
             }
         }
@@ -322,12 +346,18 @@ public class HomePageFragment extends DashboardFragment
 
     public void isLoggerAlive() {
         if (mNoticeTipVisible) return;
-        if (!IS_LOGGER_ALIVE && !Objects.equals(BuildConfig.BUILD_TYPE, "release")) {
+        // 检查在后台进行，结果返回后再显示
+        LoggerHealthCheck.observe(mLoggerCallback);
+    }
+
+    private final LoggerHealthCheck.Callback mLoggerCallback = alive -> {
+        if (mNoticeTipVisible || !isAdded()) return;
+        if (!alive && !Objects.equals(BuildConfig.BUILD_TYPE, "release")) {
             mHeadtipNotice.setTitle(R.string.headtip_notice_dead_logger);
             mHeadtipNotice.setVisible(true);
             mNoticeTipVisible = true;
         }
-    }
+    };
 
     public void checkWarnings() {
         if (mWarnTipVisible) return;
@@ -381,10 +411,8 @@ public class HomePageFragment extends DashboardFragment
     public void onEntranceStateChange(String key, boolean state) {
         String mainKey = key.replace("_state", "");
         PreferenceHeader preferenceHeader = findPreference(mainKey);
-        if (preferenceHeader != null) {
-            boolean last = preferenceHeader.isVisible();
-            if (!last || state) return;
-            preferenceHeader.setVisible(false);
+        if (preferenceHeader != null && !state) {
+            preferenceHeader.setRequestedVisible(false);
         }
     }
 
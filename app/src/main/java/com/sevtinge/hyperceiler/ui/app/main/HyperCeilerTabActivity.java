@@ -5,8 +5,6 @@ import static com.sevtinge.hyperceiler.ui.app.crash.CrashHandlerDialog.CrashHand
 import static com.sevtinge.hyperceiler.ui.app.main.utils.PersistConfig.isLunarNewYearThemeView;
 import static com.sevtinge.hyperceiler.ui.app.main.utils.PersistConfig.isNeedGrayView;
 import static com.sevtinge.hyperceiler.utils.devicesdk.DeviceSDKKt.isTablet;
-import static com.sevtinge.hyperceiler.utils.log.LogManager.IS_LOGGER_ALIVE;
-import static com.sevtinge.hyperceiler.utils.log.LogManager.isLoggerAlive;
 
 import android.Manifest;
 import android.annotation.SuppressLint;
@@ -45,6 +43,7 @@ import com.sevtinge.hyperceiler.utils.PermissionUtils;
 import com.sevtinge.hyperceiler.utils.PropUtils;
 import com.sevtinge.hyperceiler.utils.ThreadPoolManager;
 import com.sevtinge.hyperceiler.utils.api.ProjectApi;
+import com.sevtinge.hyperceiler.utils.log.LoggerHealthCheck;
 import com.sevtinge.hyperceiler.utils.prefs.PrefsUtils;
 import com.sevtinge.hyperceiler.utils.search.SearchHelper;
 import com.sevtinge.hyperceiler.utils.shell.ShellInit;
@@ -69,7 +68,7 @@ public class HyperCeilerTabActivity extends NaviBaseActivity
 
     @Override
     protected void onCreate(@Nullable Bundle savedInstanceState) {
-        IS_LOGGER_ALIVE = isLoggerAlive();
+        LoggerHealthCheck.start(this);
         if (isNeedGrayView) {
             applyGrayScaleFilter();
         }
@@ -98,9 +97,7 @@ public class HyperCeilerTabActivity extends NaviBaseActivity
 
         AppsTool.checkXposedActivateState(this);
 
-        if (shouldShowLogServiceWarnDialog()) {
-            handler.post(() -> DialogHelper.showLogServiceWarnDialog(context));
-        }
+        LoggerHealthCheck.observe(mLoggerCallback);
 
         ShellInit.init(this);
         int effectiveLogLevel = ProjectApi.isCanary() ? (logLevel != 3 && logLevel != 4 ? 3 : logLevel) : logLevel;
@@ -119,8 +116,14 @@ public class HyperCeilerTabActivity extends NaviBaseActivity
         decorView.setLayerType(View.LAYER_TYPE_HARDWARE, paint);
     }
 
-    private boolean shouldShowLogServiceWarnDialog() {
-        return !IS_LOGGER_ALIVE && isModuleActive && BuildConfig.BUILD_TYPE != "release" && !PrefsUtils.mSharedPreferences.getBoolean("prefs_key_development_close_log_alert_dialog", false);
+    private final LoggerHealthCheck.Callback mLoggerCallback = alive -> {
+        if (!isFinishing() && !isDestroyed() && shouldShowLogServiceWarnDialog(alive)) {
+            handler.post(() -> DialogHelper.showLogServiceWarnDialog(context));
+        }
+    };
+
+    private boolean shouldShowLogServiceWarnDialog(boolean alive) {
+        return !alive && isModuleActive && BuildConfig.BUILD_TYPE != "release" && !PrefsUtils.mSharedPreferences.getBoolean("prefs_key_development_close_log_alert_dialog", false);
     }
 
     @SuppressLint("StringFormatInvalid")
@@ -290,6 +293,7 @@ public class HyperCeilerTabActivity extends NaviBaseActivity
     @Override
     public void onDestroy() {
         super.onDestroy();
+        LoggerHealthCheck.removeObserver(mLoggerCallback);
         unregisterReceiver(mCrashHandlerBroadcastReceiver);
         ShellInit.destroy();
         ThreadPoolManager.shutdown();
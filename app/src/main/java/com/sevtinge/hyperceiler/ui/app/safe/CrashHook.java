@@ -25,16 +25,16 @@ import android.app.ApplicationErrorReport;
 import android.content.Context;
 import android.content.Intent;
 import android.content.pm.ApplicationInfo;
-import android.provider.Settings;
+import android.os.Handler;
+import android.os.HandlerThread;
 
 import com.sevtinge.hyperceiler.callback.ITAG;
 import com.sevtinge.hyperceiler.module.base.tool.HookTool;
 import com.sevtinge.hyperceiler.utils.api.ProjectApi;
-import com.sevtinge.hyperceiler.utils.shell.ShellInit;
-
-import org.json.JSONObject;
 
+import java.io.IOException;
 import java.lang.reflect.Method;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -49,14 +49,24 @@ import de.robv.android.xposed.callbacks.XC_LoadPackage;
 public class CrashHook extends HookTool {
     private static final String TAG = ITAG.TAG + ": CrashHook";
     private static HashMap<String, String> scopeMap = new HashMap<>();
-    private static HashMap<String, String> swappedMap = new HashMap<>();
     private final String ACTION_APP_CRASH = "hyperceiler.intent.action.APP_CRASH";
+    // 同一应用相邻两次崩溃间隔小于 CRASH_INTERVAL 视为连续崩溃，连续第 CRASH_THRESHOLD 次时报告
+    private static final long CRASH_INTERVAL = 10240;
+    private static final int CRASH_THRESHOLD = 4;
+    private static final long RECORD_EXPIRE = 60000;
+
+    private final Handler mHandler;
+    // 最近 RECORD_EXPIRE 内的崩溃记录，按序号升序，只在 mHandler 线程访问
+    private final ArrayDeque<CrashStore.Record> mRecent = new ArrayDeque<>();
+    private long mLastSeq;
 
     public CrashHook(XC_LoadPackage.LoadPackageParam loadPackageParam) throws Exception {
+        HandlerThread thread = new HandlerThread("HyperCeiler-crash");
+        thread.start();
+        mHandler = new Handler(thread.getLooper());
         backgroundActivity(loadPackageParam.classLoader);
         init(loadPackageParam.classLoader);
         scopeMap = CrashData.scopeData();
-        swappedMap = CrashData.swappedData();
     }
 
     public void init(ClassLoader classLoader) throws Exception {
@@ -90,7 +100,7 @@ public class CrashHook extends HookTool {
                         int callingUid = (int) param.args[7];
                         logE("CrashHook", "context: " + mContext + " pkg: " + mContext.getPackageName() + " proc: " + proc + " crash: " + crashInfo + " short: " + shortMsg
                                 + " long: " + longMsg + " stack: " + stackTrace + " time: " + timeMillis + " pid: " + callingPid + " uid: " + callingUid);
-                        recordCrash(mContext, proc, crashInfo, shortMsg, longMsg, stackTrace, timeMillis, callingPid, callingUid);
+                        recordCrash(mContext, proc, crashInfo, longMsg, stackTrace, timeMillis, callingPid);
                     }
                 }
         );
@@ -176,159 +186,80 @@ public class CrashHook extends HookTool {
         );
     }
 
-    private String mPkg;
-    private String longMsg;
-    private String stackTrace;
-    private String throwClassName;
-    private String throwFileName;
-    private int throwLineNumber;
-    private String throwMethodName;
-    private long timeMillis;
-    private Context mContext;
-    private ArrayList<JSONObject> data = new ArrayList<>();
-    private final ArrayList<JSONObject> updateCount = new ArrayList<>();
-    private final ArrayList<JSONObject> reportData = new ArrayList<>();
-
-    private void recordCrash(Context mContext, Object proc, ApplicationErrorReport.CrashInfo crashInfo,
-                             String shortMsg, String longMsg, String stackTrace, long timeMillis, int pid, int uid) {
+    private void recordCrash(Context context, Object proc, ApplicationErrorReport.CrashInfo crashInfo,
+                             String longMsg, String stackTrace, long timeMillis, int pid) {
         ApplicationInfo info = (ApplicationInfo) XposedHelpers.getObjectField(proc, "info");
-        mPkg = info.packageName;
-        this.mContext = mContext;
-        this.timeMillis = timeMillis;
-        this.longMsg = longMsg;
-        this.stackTrace = stackTrace;
-        throwClassName = crashInfo.throwClassName;
-        throwFileName = crashInfo.throwFileName;
-        throwLineNumber = crashInfo.throwLineNumber;
-        throwMethodName = crashInfo.throwMethodName;
-        if (!isScopeApp()) return;
-        ArrayList<JSONObject> arrayList = new ArrayList<>();
-        ArrayList<JSONObject> report = getReportCrash();
-        arrayList.add(new CrashRecord(mPkg, timeMillis, 0).toJSON());
-        data = getCrashRecord();
-        longTimeRemove();
-        if (!data.isEmpty()) {
-            Iterator<JSONObject> iterator = data.iterator();
-            while (iterator.hasNext()) {
-                JSONObject oldData = iterator.next();
-                boolean isReport = false;
-                for (JSONObject next : report) {
-                    if (compare(next)) {
-                        isReport = true;
-                        break;
-                    }
-                }
-                if (isReport) break;
-                if (compare(oldData)) {
-                    long time = CrashRecord.getTime(oldData);
-                    if ((timeMillis - time) < 10240) {
-                        int count = CrashRecord.getCount(oldData);
-                        if (count >= 2) {
-                            reportData.add(oldData);
-                        } else {
-                            updateCount.add(CrashRecord.putParam(oldData, timeMillis, count + 1));
-                        }
-                        iterator.remove();
-                    } else {
-                        iterator.remove();
-                    }
-                }
-            }
-            setCrashRecord(data);
-            if (!updateCount.isEmpty()) {
-                data.addAll(updateCount);
-                setCrashRecord(data);
-                updateCount.clear();
-            }
-            if (!reportData.isEmpty()) {
-                reportData.addAll(report);
-                reportCrashByIntent(reportData);
-                reportData.clear();
-            }
-        } else {
-            setCrashRecord(arrayList);
-        }
+        String pkg = info.packageName;
+        if (!isScopeApp(pkg)) return;
+        int uid = info.uid;
+        // 文件读写与报告不占用 AppErrors 的调用线程
+        mHandler.post(() -> handleCrash(context, pkg, uid, pid, timeMillis, longMsg, stackTrace, crashInfo));
     }
 
-    private boolean isScopeApp() {
+    private void handleCrash(Context context, String pkg, int uid, int pid, long timeMillis,
+                             String longMsg, String stackTrace, ApplicationErrorReport.CrashInfo crashInfo) {
+        try {
+            long seq = CrashStore.getInstance().append(timeMillis, uid, pid, pkg, crashInfo.throwClassName);
+            // 文件损坏被重建后序号从 1 重新开始，游标随之归零，否则会漏读之后的记录
+            if (seq <= mLastSeq) mLastSeq = 0;
+        } catch (IOException e) {
+            logE(TAG, "Failed to record crash!" + e);
+            mRecent.addLast(new CrashStore.Record(0, timeMillis, uid, pid, pkg, crashInfo.throwClassName));
+        }
+        // 只读取新增的记录，首次调用时会读到重启前留下的记录
+        for (CrashStore.Record record : CrashData.readCrashRecords(mLastSeq)) {
+            mRecent.addLast(record);
+            mLastSeq = record.seq;
+        }
+        while (!mRecent.isEmpty() && timeMillis - mRecent.peekFirst().time > RECORD_EXPIRE) {
+            mRecent.pollFirst();
+        }
+        if (countContinuousCrash(pkg, timeMillis) < CRASH_THRESHOLD) return;
+
         if (scopeMap.isEmpty()) scopeMap = CrashData.scopeData();
-        return scopeMap.get(mPkg) != null;
+        String abbr = scopeMap.get(pkg);
+        ArrayList<String> report = CrashData.getReportCrashProp();
+        if (report.contains(abbr)) return;
+        report.add(abbr);
+        mRecent.removeIf(record -> record.pkg.equals(pkg));
+        reportCrash(context, String.join(",", report), abbr, longMsg, stackTrace, crashInfo);
     }
 
-    private void longTimeRemove() {
-        Iterator<JSONObject> it = data.iterator();
-        while (it.hasNext()) {
-            JSONObject jsonObject = it.next();
-            long time = CrashRecord.getTime(jsonObject);
-            if ((timeMillis - time) > 60000) {
-                it.remove();
-            }
+    // 从最新的记录往前数，相邻两次间隔都小于 CRASH_INTERVAL 的崩溃次数
+    private int countContinuousCrash(String pkg, long timeMillis) {
+        int count = 0;
+        long previous = timeMillis;
+        Iterator<CrashStore.Record> iterator = mRecent.descendingIterator();
+        while (iterator.hasNext()) {
+            CrashStore.Record record = iterator.next();
+            if (!record.pkg.equals(pkg)) continue;
+            if (previous - record.time >= CRASH_INTERVAL) break;
+            count++;
+            previous = record.time;
         }
+        return count;
     }
 
-    private boolean compare(JSONObject object) {
-        // String mLabel = CrashRecord.getLabel(object);
-        String mPkg = CrashRecord.getPkg(object);
-        return mPkg.equals(this.mPkg);
-    }
-
-    private void reportCrashByIntent(ArrayList<JSONObject> report) {
+    private boolean isScopeApp(String pkg) {
         if (scopeMap.isEmpty()) scopeMap = CrashData.scopeData();
-        StringBuilder stringBuilder = new StringBuilder();
-        for (JSONObject j : report) {
-            String b = scopeMap.get(CrashRecord.getPkg(j));
-            if (stringBuilder.length() == 0) stringBuilder.append(b);
-            else stringBuilder.append(",").append(b);
-        }
-
-        String abbr = scopeMap.get(CrashRecord.getPkg(report.get(0)));
-
-        ShellInit.init();
-        ShellInit.getShell().run("setprop persist.hyperceiler.crash.report " + "\"" + stringBuilder + "\"").sync();
-
-        Intent intent = getIntent(abbr);
-        intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
-        mContext.startActivity(intent);
-
-        /*Intent intent = getIntent(abbr, stringBuilder);
-        mContext.startService(intent);*/
+        return scopeMap.get(pkg) != null;
     }
 
-    private Intent getIntent(String abbr) {
-        Intent intent = new Intent();
-        intent.setPackage("com.sevtinge.hyperceiler");
-        intent.setClassName("com.sevtinge.hyperceiler", "com.sevtinge.hyperceiler.safe.CrashActivity");
-        intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP | Intent.FLAG_ACTIVITY_SINGLE_TOP);
+    private void reportCrash(Context context, String report, String abbr, String longMsg, String stackTrace,
+                             ApplicationErrorReport.CrashInfo crashInfo) {
+        // 由模块应用写入属性并弹出界面，system_server 中不再启动 shell
+        Intent intent = new Intent(ACTION_APP_CRASH);
+        intent.setPackage(ProjectApi.mAppModulePkg);
+        intent.addFlags(Intent.FLAG_INCLUDE_STOPPED_PACKAGES | Intent.FLAG_RECEIVER_FOREGROUND);
+        intent.putExtra("key_all", report);
+        intent.putExtra("key_pkg", abbr);
+        intent.putExtra("key_seq", mLastSeq);
         intent.putExtra("key_longMsg", longMsg);
         intent.putExtra("key_stackTrace", stackTrace);
-        intent.putExtra("key_throwClassName", throwClassName);
-        intent.putExtra("key_throwFileName", throwFileName);
-        intent.putExtra("key_throwLineNumber", throwLineNumber);
-        intent.putExtra("key_throwMethodName", throwMethodName);
-        intent.putExtra("key_pkg", abbr);
-        return intent;
-    }
-
-    private ArrayList<JSONObject> getReportCrash() {
-        ArrayList<String> stringData = CrashData.getReportCrashProp();
-        ArrayList<JSONObject> objects = new ArrayList<>();
-        if (swappedMap.isEmpty()) swappedMap = CrashData.swappedData();
-        for (String s : stringData) {
-            String pkg = swappedMap.get(s);
-            objects.add(new CrashRecord(pkg, -1, -1).toJSON());
-        }
-        return objects;
-    }
-
-    private void setCrashRecord(ArrayList<JSONObject> data) {
-        Settings.System.putString(mContext.getContentResolver(), "hyperceiler_crash_record_data", data.toString());
-    }
-
-    private ArrayList<JSONObject> getCrashRecord() {
-        String data = Settings.System.getString(mContext.getContentResolver(), "hyperceiler_crash_record_data");
-        if (data == null || data.isEmpty() || data.equals("[]")) {
-            return new ArrayList<>();
-        }
-        return CrashRecord.toArray(data);
+        intent.putExtra("key_throwClassName", crashInfo.throwClassName);
+        intent.putExtra("key_throwFileName", crashInfo.throwFileName);
+        intent.putExtra("key_throwLineNumber", crashInfo.throwLineNumber);
+        intent.putExtra("key_throwMethodName", crashInfo.throwMethodName);
+        context.sendBroadcast(intent);
     }
 }
@@ -0,0 +1,248 @@
+/*
+  * This file is part of HyperCeiler.
+
+  * HyperCeiler is free software: you can redistribute it and/or modify
+  * it under the terms of the GNU Affero General Public License as
+  * published by the Free Software Foundation, either version 3 of the
+  * License.
+
+  * This program is distributed in the hope that it will be useful,
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  * GNU Affero General Public License for more details.
+
+  * You should have received a copy of the GNU Affero General Public License
+  * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+  * Copyright (C) 2023-2025 HyperCeiler Contributions
+*/
+package com.sevtinge.hyperceiler.ui.app.safe;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * 崩溃记录的环形存储。
+ * <p>
+ * 文件由固定大小的文件头和固定数量、固定大小的槽组成，第 n 条记录写入第 n % capacity 个槽，
+ * 写满后覆盖最旧的记录，文件大小不会增长。每个槽自带序号与 CRC32，
+ * 写入中途被打断（重启、system_server 崩溃）留下的残缺槽在读取时直接丢弃，不影响其他记录。
+ * 文件只由 system_server 写入。
+ */
+public final class CrashStore {
+    public static final File DEFAULT_FILE = new File("/data/system/hyperceiler/crash_ring");
+    static final int CAPACITY = 64;
+    static final int SLOT_SIZE = 256;
+
+    // "HCCR"
+    private static final int MAGIC = 0x48434352;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    // seq(8) + time(8) + uid(4) + pid(4) + pkgLen(2) + clsLen(2)
+    private static final int FIELDS_SIZE = 28;
+    private static final int CRC_SIZE = 4;
+    private static final int MAX_TEXT = SLOT_SIZE - FIELDS_SIZE - CRC_SIZE;
+
+    private static volatile CrashStore sInstance;
+
+    private final File mFile;
+    private final int mCapacity;
+    // 已写入的最大序号，-1 表示尚未扫描
+    private long mLastSeq = -1;
+
+    CrashStore(File file, int capacity) {
+        mFile = file;
+        mCapacity = capacity;
+    }
+
+    public static CrashStore getInstance() {
+        if (sInstance == null) {
+            synchronized (CrashStore.class) {
+                if (sInstance == null) sInstance = new CrashStore(DEFAULT_FILE, CAPACITY);
+            }
+        }
+        return sInstance;
+    }
+
+    public static final class Record {
+        public final long seq;
+        public final long time;
+        public final int uid;
+        public final int pid;
+        public final String pkg;
+        public final String throwClassName;
+
+        Record(long seq, long time, int uid, int pid, String pkg, String throwClassName) {
+            this.seq = seq;
+            this.time = time;
+            this.uid = uid;
+            this.pid = pid;
+            this.pkg = pkg;
+            this.throwClassName = throwClassName;
+        }
+    }
+
+    /**
+     * 追加一条记录，返回其序号。包名与异常类名过长时截断异常类名。
+     */
+    public synchronized long append(long time, int uid, int pid, String pkg, String throwClassName) throws IOException {
+        byte[] pkgBytes = pkg.getBytes(StandardCharsets.UTF_8);
+        if (pkgBytes.length > MAX_TEXT) throw new IOException("Package name too long: " + pkg);
+        byte[] clsBytes = throwClassName == null ? new byte[0] : throwClassName.getBytes(StandardCharsets.UTF_8);
+        int clsLen = Math.min(clsBytes.length, MAX_TEXT - pkgBytes.length);
+
+        try (RandomAccessFile file = openForWrite()) {
+            FileChannel channel = file.getChannel();
+            if (mLastSeq < 0) mLastSeq = scan(channel, 0).seq;
+            long seq = mLastSeq + 1;
+
+            ByteBuffer slot = ByteBuffer.allocate(SLOT_SIZE);
+            slot.putLong(seq).putLong(time).putInt(uid).putInt(pid)
+                .putShort((short) pkgBytes.length).putShort((short) clsLen)
+                .put(pkgBytes).put(clsBytes, 0, clsLen);
+            slot.putInt(SLOT_SIZE - CRC_SIZE, crc(slot.array()));
+            slot.rewind();
+            writeFully(channel, slot, slotPosition(seq));
+            channel.force(false);
+
+            mLastSeq = seq;
+            return seq;
+        }
+    }
+
+    /**
+     * 读取序号大于 afterSeq 的记录，按序号升序。
+     * afterSeq 对应的记录仍在文件中时只读取其后的槽，否则（已被覆盖或为 0）或遇到残缺的槽时扫描全部槽。
+     */
+    public synchronized List<Record> readSince(long afterSeq) throws IOException {
+        ArrayList<Record> records = new ArrayList<>();
+        if (!mFile.exists()) return records;
+        try (RandomAccessFile file = new RandomAccessFile(mFile, "r")) {
+            FileChannel channel = file.getChannel();
+            if (!checkHeader(channel)) return records;
+            ByteBuffer slot = ByteBuffer.allocate(SLOT_SIZE);
+
+            Record last = afterSeq > 0 ? readSlot(channel, slot, slotPosition(afterSeq)) : null;
+            if (last != null && last.seq == afterSeq) {
+                for (long seq = afterSeq + 1; ; seq++) {
+                    Record record = readSlot(channel, slot, slotPosition(seq));
+                    // 读到未写过的空槽或上一圈的旧记录即为末尾
+                    if (record == null ? slot.getLong(0) == 0 : record.seq < seq) return records;
+                    if (record == null || record.seq != seq) {
+                        // 残缺的槽之后可能仍有记录，扫描全部槽
+                        afterSeq = seq - 1;
+                        break;
+                    }
+                    records.add(record);
+                }
+            }
+
+            scan(channel, afterSeq, records);
+            records.sort(Comparator.comparingLong(r -> r.seq));
+            return records;
+        }
+    }
+
+    private Record scan(FileChannel channel, long afterSeq) throws IOException {
+        ArrayList<Record> records = new ArrayList<>();
+        scan(channel, afterSeq, records);
+        Record newest = new Record(0, 0, 0, 0, "", "");
+        for (Record record : records) {
+            if (record.seq > newest.seq) newest = record;
+        }
+        return newest;
+    }
+
+    private void scan(FileChannel channel, long afterSeq, List<Record> out) throws IOException {
+        ByteBuffer slot = ByteBuffer.allocate(SLOT_SIZE);
+        for (int i = 0; i < mCapacity; i++) {
+            long position = HEADER_SIZE + (long) i * SLOT_SIZE;
+            Record record = readSlot(channel, slot, position);
+            // 序号与所在槽不符的视为损坏
+            if (record != null && record.seq > afterSeq && slotPosition(record.seq) == position) out.add(record);
+        }
+    }
+
+    // 槽不完整、为空或校验失败时返回 null
+    private static Record readSlot(FileChannel channel, ByteBuffer slot, long position) throws IOException {
+        slot.clear();
+        while (slot.hasRemaining()) {
+            if (channel.read(slot, position + slot.position()) < 0) return null;
+        }
+        byte[] bytes = slot.array();
+        if (slot.getInt(SLOT_SIZE - CRC_SIZE) != crc(bytes)) return null;
+
+        slot.rewind();
+        long seq = slot.getLong();
+        long time = slot.getLong();
+        int uid = slot.getInt();
+        int pid = slot.getInt();
+        int pkgLen = slot.getShort();
+        int clsLen = slot.getShort();
+        if (seq <= 0 || pkgLen <= 0 || clsLen < 0 || pkgLen + clsLen > MAX_TEXT) return null;
+        String pkg = new String(bytes, FIELDS_SIZE, pkgLen, StandardCharsets.UTF_8);
+        String cls = new String(bytes, FIELDS_SIZE + pkgLen, clsLen, StandardCharsets.UTF_8);
+        return new Record(seq, time, uid, pid, pkg, cls);
+    }
+
+    // 文件不存在或文件头不符时重建
+    private RandomAccessFile openForWrite() throws IOException {
+        File parent = mFile.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Failed to create " + parent);
+        }
+        RandomAccessFile file = new RandomAccessFile(mFile, "rw");
+        try {
+            FileChannel channel = file.getChannel();
+            if (!checkHeader(channel)) {
+                channel.truncate(0);
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putInt(MAGIC).putInt(VERSION).putInt(mCapacity).putInt(SLOT_SIZE);
+                header.rewind();
+                writeFully(channel, header, 0);
+                file.setLength(HEADER_SIZE + (long) mCapacity * SLOT_SIZE);
+                channel.force(true);
+                mLastSeq = 0;
+            }
+            return file;
+        } catch (IOException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    private boolean checkHeader(FileChannel channel) throws IOException {
+        if (channel.size() != HEADER_SIZE + (long) mCapacity * SLOT_SIZE) return false;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) return false;
+        }
+        header.rewind();
+        return header.getInt() == MAGIC && header.getInt() == VERSION
+            && header.getInt() == mCapacity && header.getInt() == SLOT_SIZE;
+    }
+
+    private long slotPosition(long seq) {
+        return HEADER_SIZE + (seq % mCapacity) * SLOT_SIZE;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    private static int crc(byte[] slot) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(slot, 0, SLOT_SIZE - CRC_SIZE);
+        return (int) crc32.getValue();
+    }
+}
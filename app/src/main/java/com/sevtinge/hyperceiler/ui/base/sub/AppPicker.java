@@ -41,13 +41,18 @@ import com.sevtinge.hyperceiler.callback.IAppSelectCallback;
 import com.sevtinge.hyperceiler.callback.IEditCallback;
 import com.sevtinge.hyperceiler.data.AppData;
 import com.sevtinge.hyperceiler.data.adapter.AppDataAdapter;
+import com.sevtinge.hyperceiler.utils.AppIconLoader;
 import com.sevtinge.hyperceiler.utils.BitmapUtils;
 import com.sevtinge.hyperceiler.utils.PackagesUtils;
+import com.sevtinge.hyperceiler.utils.ThreadPoolManager;
 import com.sevtinge.hyperceiler.utils.prefs.PrefsUtils;
 
+import java.text.CollationKey;
 import java.text.Collator;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
@@ -70,6 +75,7 @@ public class AppPicker extends Fragment {
     private List<AppData> appDataList = new ArrayList<>();
     private final HashMap<String, Integer> hashMap = new HashMap<>();
     private IAppSelectCallback mAppSelectCallback;
+    private boolean isSelecting = false;
 
     public static IEditCallback iEditCallback;
 
@@ -150,12 +156,22 @@ public class AppPicker extends Fragment {
                 // Log.e(TAG, "onItemClick: " + appData.packageName, null);
                 switch (modeSelection) {
                     case CALLBACK_MODE -> {
-                        mAppSelectCallback.sendMsgToActivity(BitmapUtils.Bitmap2Bytes(appData.icon),
-                                appData.label,
-                                appData.packageName,
-                                appData.versionName + "(" + appData.versionCode + ")",
-                                appData.activityName);
-                        requireActivity().finish();
+                        if (isSelecting) return;
+                        isSelecting = true;
+                        // 完整图标在后台解码，完成后再回传并关闭
+                        AppIconLoader loader = AppIconLoader.getInstance(requireContext());
+                        ThreadPoolManager.getInstance().submit(() -> {
+                            byte[] icon = BitmapUtils.Bitmap2Bytes(loader.loadFullSize(appData));
+                            mHandler.post(() -> {
+                                if (!isAdded()) return;
+                                mAppSelectCallback.sendMsgToActivity(icon,
+                                        appData.label,
+                                        appData.packageName,
+                                        appData.versionName + "(" + appData.versionCode + ")",
+                                        appData.activityName);
+                                requireActivity().finish();
+                            });
+                        });
                     }
                     case LAUNCHER_MODE, APP_OPEN_MODE, PROCESS_TEXT_MODE -> {
                         CheckBox checkBox = view.findViewById(android.R.id.checkbox);
@@ -201,53 +217,65 @@ public class AppPicker extends Fragment {
     }
 
     private void initData() {
-        new Thread(new Runnable() {
-            @Override
-            public void run() {
-                mHandler.postDelayed(new Runnable() {
-                    @Override
-                    public void run() {
-                        appDataList = getAppInfo();
-
-                        Collator collator = Collator.getInstance(Locale.getDefault());
-                        appDataList.sort((app1, app2) -> collator.compare(app1.label, app2.label));
-
-                        AppData tagApp = null;
-                        for (AppData app : appDataList) {
-                            if ("com.android.apps.tag".equals(app.packageName)) {
-                                tagApp = app;
-                                break;
-                            }
-                        }
-                        if (tagApp != null) {
-                            appDataList.remove(tagApp);
-                            appDataList.add(0, tagApp);
-                        }
+        // 应用信息在后台加载，图标由 AppIconLoader 在显示时加载
+        ThreadPoolManager.getInstance().submit(() -> {
+            List<AppData> list = sortAppList(getAppInfo());
+            mHandler.post(() -> {
+                if (!isAdded() || mAppListRv == null) return;
+                appDataList = list;
+                mAppListAdapter = new AppDataAdapter(requireActivity(),
+                        R.layout.item_app_list, appDataList, key, modeSelection);
+                mAppListRv.setAdapter(mAppListAdapter);
+
+                mAmProgress.setVisibility(View.GONE);
+                mSearchBar.setVisibility(View.VISIBLE);
+                mAppListRv.setVisibility(View.VISIBLE);
+            });
+        });
+    }
 
-                        selectedApps = new LinkedHashSet<>(PrefsUtils.mSharedPreferences.getStringSet(key, new LinkedHashSet<>()));
-                        List<AppData> selectedAppList = new ArrayList<>();
-                        for (String packageName : selectedApps) {
-                            for (AppData appData : appDataList) {
-                                if (packageName.equals(appData.packageName)) {
-                                    selectedAppList.add(appData);
-                                    appDataList.remove(appData);
-                                    break;
-                                }
-                            }
-                        }
-                        appDataList.addAll(0, selectedAppList);
+    /**
+     * 按名称排序，NFC 标签应用置顶，已选择的应用按选择顺序排在最前。
+     */
+    private List<AppData> sortAppList(List<AppData> list) {
+        // 每个名称只生成一次 CollationKey，比较时不再重复计算
+        Collator collator = Collator.getInstance(Locale.getDefault());
+        HashMap<AppData, CollationKey> keys = new HashMap<>();
+        for (AppData app : list) {
+            keys.put(app, collator.getCollationKey(app.label));
+        }
+        list.sort((app1, app2) -> keys.get(app1).compareTo(keys.get(app2)));
 
-                        mAppListAdapter = new AppDataAdapter(requireActivity(),
-                                R.layout.item_app_list, appDataList, key, modeSelection);
-                        mAppListRv.setAdapter(mAppListAdapter);
+        AppData tagApp = null;
+        for (AppData app : list) {
+            if ("com.android.apps.tag".equals(app.packageName)) {
+                tagApp = app;
+                break;
+            }
+        }
+        if (tagApp != null) {
+            list.remove(tagApp);
+            list.add(0, tagApp);
+        }
 
-                        mAmProgress.setVisibility(View.GONE);
-                        mSearchBar.setVisibility(View.VISIBLE);
-                        mAppListRv.setVisibility(View.VISIBLE);
-                    }
-                }, 120);
+        selectedApps = new LinkedHashSet<>(PrefsUtils.mSharedPreferences.getStringSet(key, new LinkedHashSet<>()));
+        HashMap<String, AppData> byPackage = new HashMap<>();
+        for (AppData app : list) {
+            byPackage.putIfAbsent(app.packageName, app);
+        }
+        List<AppData> result = new ArrayList<>(list.size());
+        Set<AppData> selected = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (String packageName : selectedApps) {
+            AppData app = byPackage.remove(packageName);
+            if (app != null) {
+                result.add(app);
+                selected.add(app);
             }
-        }).start();
+        }
+        for (AppData app : list) {
+            if (!selected.contains(app)) result.add(app);
+        }
+        return result;
     }
 
     public List<AppData> getAppInfo() {
@@ -274,13 +302,6 @@ public class AppPicker extends Fragment {
                                 resolveInfoList.add(resolveInfo);
                             }
 
-                            Collator collator = Collator.getInstance(Locale.getDefault());
-                            resolveInfoList.sort((r1, r2) -> {
-                                CharSequence label1 = r1.loadLabel(pm);
-                                CharSequence label2 = r2.loadLabel(pm);
-                                return collator.compare(label1.toString(), label2.toString());
-                            });
-
                             return new ArrayList<>(resolveInfoList);
                         }
                     });
@@ -0,0 +1,248 @@
+/*
+ * This file is part of HyperCeiler.
+
+ * HyperCeiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ * Copyright (C) 2023-2025 HyperCeiler Contributions
+ */
+package com.sevtinge.hyperceiler.utils;
+
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.drawable.Drawable;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.LruCache;
+import android.widget.ImageView;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.sevtinge.hyperceiler.data.AppData;
+import com.sevtinge.hyperceiler.utils.log.AndroidLogUtils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 应用列表的图标按需加载。
+ * <p>
+ * 列表只加载应用信息，图标在行显示时才解码为缩略图。
+ * 缩略图先查内存 LRU，再查磁盘缓存（按包名与 lastUpdateTime 命名，应用更新后自然失效），
+ * 都没有时才通过 PackageManager 加载并写入缓存。
+ * 解码在最多 {@link #MAX_THREADS} 个线程中进行，后提交的先执行，
+ * 排队过多时丢弃最早的请求；行被复用时取消旧的请求。
+ * 被丢弃或取消的请求会移出队列并清除 ImageView 上的标记，再次绑定时重新加载。
+ */
+public final class AppIconLoader {
+    private static final String TAG = "AppIconLoader";
+    private static final int MAX_THREADS = 2;
+    private static final int MAX_PENDING = 48;
+    private static final String CACHE_DIR = "app_icons";
+
+    private static volatile AppIconLoader sInstance;
+
+    private final Context mContext;
+    private final PackageManager mPackageManager;
+    private final int mIconSize;
+    private final File mCacheDir;
+    private final LruCache<String, Bitmap> mMemoryCache;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final ThreadPoolExecutor mExecutor;
+
+    private AppIconLoader(Context context) {
+        mContext = context.getApplicationContext();
+        mPackageManager = mContext.getPackageManager();
+        mIconSize = Math.round(50 * mContext.getResources().getDisplayMetrics().density);
+        mCacheDir = new File(mContext.getCacheDir(), CACHE_DIR);
+
+        // 内存缓存最多占用可用内存的 1/16
+        int maxKb = (int) Math.min(Runtime.getRuntime().maxMemory() / 1024 / 16, 16 * 1024);
+        mMemoryCache = new LruCache<>(maxKb) {
+            @Override
+            protected int sizeOf(String key, Bitmap value) {
+                return value.getAllocationByteCount() / 1024;
+            }
+        };
+
+        AtomicInteger count = new AtomicInteger();
+        LinkedBlockingDeque<Runnable> queue = new LinkedBlockingDeque<>() {
+            // 后进先出，优先加载刚滑入屏幕的行
+            @Override
+            public boolean offer(Runnable runnable) {
+                if (size() >= MAX_PENDING && pollLast() instanceof Request evicted) evicted.cancel();
+                return offerFirst(runnable);
+            }
+        };
+        mExecutor = new ThreadPoolExecutor(MAX_THREADS, MAX_THREADS, 10, TimeUnit.SECONDS, queue, r -> {
+            Thread thread = new Thread(r, TAG + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        mExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    public static AppIconLoader getInstance(Context context) {
+        if (sInstance == null) {
+            synchronized (AppIconLoader.class) {
+                if (sInstance == null) sInstance = new AppIconLoader(context);
+            }
+        }
+        return sInstance;
+    }
+
+    /**
+     * 为 ImageView 加载图标，必须在主线程调用。
+     */
+    public void load(ImageView imageView, AppData appData) {
+        Object tag = imageView.getTag();
+        if (tag instanceof Request request) {
+            if (request.mAppData == appData && !request.isCancelled) return;
+            request.cancel();
+        }
+        String key = memoryKey(appData);
+        Bitmap cached = mMemoryCache.get(key);
+        if (cached != null) {
+            imageView.setTag(null);
+            imageView.setImageBitmap(cached);
+            return;
+        }
+        imageView.setImageDrawable(null);
+        Request request = new Request(imageView, appData, key);
+        imageView.setTag(request);
+        mExecutor.execute(request);
+    }
+
+    /**
+     * 同步获取原始尺寸的图标，用于需要完整图标的场景，会解码图标，不要在主线程调用。
+     * 加载失败时依次退回缩略图和系统默认图标。
+     */
+    @NonNull
+    public Bitmap loadFullSize(AppData appData) {
+        Drawable drawable = loadDrawable(appData);
+        if (drawable != null && drawable.getIntrinsicWidth() > 0 && drawable.getIntrinsicHeight() > 0) {
+            return BitmapUtils.drawableToBitmap(drawable);
+        }
+        Bitmap thumbnail = mMemoryCache.get(memoryKey(appData));
+        if (thumbnail == null) thumbnail = loadThumbnail(appData);
+        if (thumbnail != null) return thumbnail;
+        return BitmapUtils.drawableToBitmap(mPackageManager.getDefaultActivityIcon());
+    }
+
+    private final class Request implements Runnable {
+        private final ImageView mImageView;
+        private final AppData mAppData;
+        private final String mKey;
+        private volatile boolean isCancelled;
+
+        Request(ImageView imageView, AppData appData, String key) {
+            mImageView = imageView;
+            mAppData = appData;
+            mKey = key;
+        }
+
+        // 在主线程调用
+        void cancel() {
+            isCancelled = true;
+            mExecutor.remove(this);
+            if (mImageView.getTag() == this) mImageView.setTag(null);
+        }
+
+        @Override
+        public void run() {
+            if (isCancelled) return;
+            Bitmap bitmap = loadThumbnail(mAppData);
+            if (bitmap != null) mMemoryCache.put(mKey, bitmap);
+            mMainHandler.post(() -> {
+                if (isCancelled || mImageView.getTag() != this) return;
+                mImageView.setTag(null);
+                if (bitmap != null) mImageView.setImageBitmap(bitmap);
+            });
+        }
+    }
+
+    private Bitmap loadThumbnail(AppData appData) {
+        long lastUpdateTime = appData.lastUpdateTime;
+        if (lastUpdateTime == 0 && appData.packageName != null) {
+            try {
+                lastUpdateTime = mPackageManager.getPackageInfo(appData.packageName, 0).lastUpdateTime;
+                appData.lastUpdateTime = lastUpdateTime;
+            } catch (PackageManager.NameNotFoundException ignore) {
+            }
+        }
+
+        // 磁盘缓存
+        File file = null;
+        if (lastUpdateTime != 0) {
+            file = new File(mCacheDir, appData.packageName + "_" + memoryKey(appData).hashCode() + "_" + lastUpdateTime + ".png");
+            if (file.exists()) {
+                Bitmap bitmap = BitmapFactory.decodeFile(file.getPath());
+                if (bitmap != null) return bitmap;
+            }
+        }
+
+        Drawable drawable = loadDrawable(appData);
+        if (drawable == null) return null;
+        Bitmap bitmap = Bitmap.createBitmap(mIconSize, mIconSize, Bitmap.Config.ARGB_8888);
+        drawable.setBounds(0, 0, mIconSize, mIconSize);
+        drawable.draw(new Canvas(bitmap));
+
+        if (file != null) writeCache(file, bitmap);
+        return bitmap;
+    }
+
+    @Nullable
+    private Drawable loadDrawable(AppData appData) {
+        try {
+            if (appData.iconInfo != null) return appData.iconInfo.loadIcon(mPackageManager);
+            if (appData.packageName != null) return mPackageManager.getApplicationIcon(appData.packageName);
+        } catch (Throwable t) {
+            AndroidLogUtils.logW(TAG, "load icon failed: " + appData.packageName, t);
+        }
+        return null;
+    }
+
+    private void writeCache(File file, Bitmap bitmap) {
+        if (!mCacheDir.exists() && !mCacheDir.mkdirs()) return;
+        // 先删除同一应用的旧缓存
+        String prefix = file.getName().substring(0, file.getName().lastIndexOf('_') + 1);
+        File[] old = mCacheDir.listFiles((dir, name) -> name.startsWith(prefix));
+        if (old != null) {
+            for (File f : old) f.delete();
+        }
+        File tmp = new File(mCacheDir, file.getName() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            bitmap.compress(Bitmap.CompressFormat.PNG, 100, out);
+        } catch (IOException e) {
+            tmp.delete();
+            return;
+        }
+        if (!tmp.renameTo(file)) tmp.delete();
+    }
+
+    // 同一应用可能以不同组件（如 PermissionInfo）出现，图标来源不同
+    private static String memoryKey(AppData appData) {
+        String source = appData.iconInfo == null ? "" : appData.iconInfo.getClass().getSimpleName() + ":" + appData.iconInfo.name;
+        return appData.packageName + "/" + source;
+    }
+}
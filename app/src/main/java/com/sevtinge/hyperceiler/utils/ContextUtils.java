@@ -30,6 +30,14 @@ import com.sevtinge.hyperceiler.utils.log.AndroidLogUtils;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import de.robv.android.xposed.XC_MethodHook;
+import de.robv.android.xposed.XposedBridge;
 
 @SuppressLint({"PrivateApi", "SoonBlockedPrivateApi", "DiscouragedPrivateApi"})
 public class ContextUtils {
@@ -50,6 +58,22 @@ public class ContextUtils {
     // 获取 Android 系统
     public static final int FlAG_ONLY_ANDROID = 2;
 
+    // 挂钩前 attach/systemMain 可能已执行，此时钩子不会触发，改为定时重新获取，超时后按当前结果回调
+    private static final long WAIT_RECHECK_MS = 500;
+    private static final long WAIT_TIMEOUT_MS = 10000;
+
+    private static volatile Methods sMethods;
+    private static ScheduledExecutorService sWaitChecker;
+    private static final Object sWaitLock = new Object();
+    private static final ArrayList<IContext> sAppCallbacks = new ArrayList<>();
+    private static final ArrayList<IContext> sSystemCallbacks = new ArrayList<>();
+    private static Context sAppContext;
+    private static Context sSystemContext;
+    private static boolean isAppDispatched;
+    private static boolean isSystemDispatched;
+    private static Set<XC_MethodHook.Unhook> sAppUnhook;
+    private static Set<XC_MethodHook.Unhook> sSystemUnhook;
+
     public static Context getContext(@Duration int flag) {
         try {
             return invokeMethod(flag);
@@ -69,7 +93,9 @@ public class ContextUtils {
     }
 
     /**
-     * 循环获取当前应用的 Context 为了防止过早获取导致的 null.
+     * 获取当前应用的 Context，在 Context 尚未创建时等待其创建后再回调，防止过早获取导致的 null.
+     * 等待通过挂钩 Application.attach（系统框架为 ActivityThread.systemMain）实现，不再轮询；
+     * 每个回调只会被调用一次，回调在共享线程池中执行。
      * 使用方法:
      * <pre> {@code
      * handler = new Handler();
@@ -86,27 +112,119 @@ public class ContextUtils {
      * }, true/false);
      * }
      * 当然 Handler 是可选项, 适用于 Toast 显示等场景。
-     * @param iContext 回调获取 Context
+     * 钩子未能在 10 秒内触发时以届时能获取到的 Context 回调，可能为 null。
+     * @param iContext 回调获取 Context，无法挂钩或超时时回调 null
      * @author 焕晨HChen
      */
     public static void getWaitContext(IContext iContext, boolean isSystem) {
-        ThreadPoolManager.getInstance().submit(() -> {
-            Context context = getContextNoError(isSystem ? FlAG_ONLY_ANDROID : FLAG_CURRENT_APP);
-            if (context == null) {
-                long time = System.currentTimeMillis();
-                long timeout = 10000; // 10秒
-                while (true) {
-                    long nowTime = System.currentTimeMillis();
-                    context = getContextNoError(isSystem ? FlAG_ONLY_ANDROID : FLAG_CURRENT_APP);
-                    // AndroidLogUtils.LogI(TAG, "getWaitContext: " + context);
-                    if (context != null || nowTime - time > timeout) {
-                        break;
+        Context context;
+        synchronized (sWaitLock) {
+            context = isSystem ? sSystemContext : sAppContext;
+            if (context == null && !(isSystem ? isSystemDispatched : isAppDispatched)) {
+                context = getContextNoError(isSystem ? FlAG_ONLY_ANDROID : FLAG_CURRENT_APP);
+                if (context == null && hookContextReady(isSystem)) {
+                    ArrayList<IContext> callbacks = isSystem ? sSystemCallbacks : sAppCallbacks;
+                    if (callbacks.isEmpty()) {
+                        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(WAIT_TIMEOUT_MS);
+                        scheduleRecheck(isSystem, deadline);
                     }
+                    callbacks.add(iContext);
+                    return;
                 }
             }
-            iContext.hadContext(context);
-        });
-        ThreadPoolManager.shutdown();
+        }
+        Context finalContext = context;
+        ThreadPoolManager.getInstance().submit(() -> iContext.hadContext(finalContext));
+    }
+
+    // 调用时已持有 sWaitLock
+    private static boolean hookContextReady(boolean isSystem) {
+        if ((isSystem ? sSystemUnhook : sAppUnhook) != null) return true;
+        try {
+            if (isSystem) {
+                sSystemUnhook = XposedBridge.hookAllMethods(Class.forName("android.app.ActivityThread"), "systemMain",
+                    new XC_MethodHook() {
+                        @Override
+                        protected void afterHookedMethod(MethodHookParam param) {
+                            Context context = null;
+                            try {
+                                context = (Context) getMethods().mGetSystemContext.invoke(param.getResult());
+                            } catch (Throwable e) {
+                                AndroidLogUtils.logE(TAG, "systemMain: ", e);
+                            }
+                            dispatch(true, context);
+                        }
+                    });
+            } else {
+                sAppUnhook = XposedBridge.hookAllMethods(Application.class, "attach", new XC_MethodHook() {
+                    @Override
+                    protected void afterHookedMethod(MethodHookParam param) {
+                        // 此时 ActivityThread.currentApplication 可能仍为 null，直接使用 Application 本身
+                        dispatch(false, (Context) param.thisObject);
+                    }
+                });
+            }
+            return true;
+        } catch (Throwable e) {
+            AndroidLogUtils.logE(TAG, "hookContextReady: ", e);
+            return false;
+        }
+    }
+
+    // 调用时已持有 sWaitLock
+    private static void scheduleRecheck(boolean isSystem, long deadline) {
+        if (sWaitChecker == null) {
+            sWaitChecker = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "HyperCeiler-context");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        sWaitChecker.schedule(() -> recheck(isSystem, deadline), WAIT_RECHECK_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private static void recheck(boolean isSystem, long deadline) {
+        Context context = getContextNoError(isSystem ? FlAG_ONLY_ANDROID : FLAG_CURRENT_APP);
+        synchronized (sWaitLock) {
+            if (isSystem ? isSystemDispatched : isAppDispatched) return;
+            if (context == null && System.nanoTime() < deadline) {
+                scheduleRecheck(isSystem, deadline);
+                return;
+            }
+        }
+        if (context == null) AndroidLogUtils.logW(TAG, "getWaitContext: timed out, isSystem: " + isSystem);
+        dispatch(isSystem, context);
+    }
+
+    private static void dispatch(boolean isSystem, Context context) {
+        ArrayList<IContext> callbacks;
+        synchronized (sWaitLock) {
+            if (isSystem) {
+                if (isSystemDispatched) return;
+                isSystemDispatched = true;
+                sSystemContext = context;
+                callbacks = new ArrayList<>(sSystemCallbacks);
+                sSystemCallbacks.clear();
+                unhookAll(sSystemUnhook);
+            } else {
+                if (isAppDispatched) return;
+                isAppDispatched = true;
+                sAppContext = context;
+                callbacks = new ArrayList<>(sAppCallbacks);
+                sAppCallbacks.clear();
+                unhookAll(sAppUnhook);
+            }
+        }
+        for (IContext callback : callbacks) {
+            ThreadPoolManager.getInstance().submit(() -> callback.hadContext(context));
+        }
+    }
+
+    private static void unhookAll(Set<XC_MethodHook.Unhook> unhooks) {
+        if (unhooks == null) return;
+        for (XC_MethodHook.Unhook unhook : unhooks) {
+            unhook.unhook();
+        }
     }
 
     public interface IContext {
@@ -115,43 +233,63 @@ public class ContextUtils {
 
     private static Context invokeMethod(int flag) throws Throwable {
         Context context;
-        Class<?> clz = Class.forName("android.app.ActivityThread");
         switch (flag) {
             case 0 -> {
-                if ((context = currentApp(clz)) == null) {
-                    context = android(clz);
+                if ((context = currentApp()) == null) {
+                    context = android();
                 }
             }
-            case 1 -> context = currentApp(clz);
-            case 2 -> context = android(clz);
+            case 1 -> context = currentApp();
+            case 2 -> context = android();
             default -> throw new Throwable("Unexpected flag");
         }
         if (context == null) throw new Throwable("Context is null");
         return context;
     }
 
-    private static Context currentApp(Class<?> clz) throws Throwable {
+    private static Context currentApp() throws Throwable {
         // 获取当前界面应用 Context
-        Method currentApplication = clz.getDeclaredMethod("currentApplication");
-        currentApplication.setAccessible(true);
-        return (Application) currentApplication.invoke(null);
+        return (Application) getMethods().mCurrentApplication.invoke(null);
     }
 
-    private static Context android(Class<?> clz) throws Throwable {
+    private static Context android() throws Throwable {
         // 获取 Android
-        Context context;
-        Method currentActivityThread = clz.getDeclaredMethod("currentActivityThread");
-        currentActivityThread.setAccessible(true);
-        Object o = currentActivityThread.invoke(null);
-        Method getSystemContext = clz.getDeclaredMethod("getSystemContext");
-        getSystemContext.setAccessible(true);
-        context = (Context) getSystemContext.invoke(o);
+        Methods methods = getMethods();
+        Object o = methods.mCurrentActivityThread.invoke(null);
+        if (o == null) return null;
+        Context context = (Context) methods.mGetSystemContext.invoke(o);
         if (context == null) {
-            Method getSystemUiContext = clz.getDeclaredMethod("getSystemUiContext");
-            getSystemUiContext.setAccessible(true);
-            context = (Context) getSystemContext.invoke(o);
+            context = (Context) methods.mGetSystemUiContext.invoke(o);
         }
         return context;
     }
 
+    private static Methods getMethods() throws Throwable {
+        Methods methods = sMethods;
+        if (methods == null) {
+            methods = new Methods(Class.forName("android.app.ActivityThread"));
+            sMethods = methods;
+        }
+        return methods;
+    }
+
+    // ActivityThread 中用到的方法，只反射一次
+    private static final class Methods {
+        final Method mCurrentApplication;
+        final Method mCurrentActivityThread;
+        final Method mGetSystemContext;
+        final Method mGetSystemUiContext;
+
+        Methods(Class<?> clz) throws NoSuchMethodException {
+            mCurrentApplication = clz.getDeclaredMethod("currentApplication");
+            mCurrentApplication.setAccessible(true);
+            mCurrentActivityThread = clz.getDeclaredMethod("currentActivityThread");
+            mCurrentActivityThread.setAccessible(true);
+            mGetSystemContext = clz.getDeclaredMethod("getSystemContext");
+            mGetSystemContext.setAccessible(true);
+            mGetSystemUiContext = clz.getDeclaredMethod("getSystemUiContext");
+            mGetSystemUiContext.setAccessible(true);
+        }
+    }
+
 }
@@ -20,20 +20,20 @@ package com.sevtinge.hyperceiler.utils;
 
 import com.sevtinge.hyperceiler.utils.log.AndroidLogUtils;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author 焕晨HChen
  * @noinspection unused
  */
 public class InvokeUtils {
-    private static final HashMap<String, Method> methodCache = new HashMap<>();
-    private static final HashMap<String, Field> fieldCache = new HashMap<>();
-
     private final static String TAG = "invokeUtils";
 
     // ----------------------------设置字段--------------------------------
@@ -134,23 +134,8 @@ public class InvokeUtils {
      * @noinspection unchecked
      */
     private static <T> T baseInvokeMethod(Class<?> clz, Object instance, String method, Class<?>[] param, Object... value) {
-        Method declaredMethod;
         try {
-            declaredMethod = methodCache.get(clz.getName() + "." + method + Arrays.toString(param));
-            if (declaredMethod == null) {
-                try {
-                    declaredMethod = clz.getMethod(method, param);
-                } catch (NoSuchMethodException e) {
-                    try {
-                        declaredMethod = clz.getDeclaredMethod(method, param);
-                    } catch (NoSuchMethodException ex) {
-                        throw new NoSuchMethodException("getMethod: " + e + " getDeclaredMethod: " + ex);
-                    }
-                }
-                methodCache.put(clz.getName() + "." + declaredMethod.getName() + Arrays.toString(declaredMethod.getParameterTypes()), declaredMethod);
-            }
-            declaredMethod.setAccessible(true);
-            return (T) declaredMethod.invoke(instance, value);
+            return (T) MEMBERS.get(clz).method(method, param).get().invoke(instance, value);
         } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
             AndroidLogUtils.logE(TAG, "Reflection call method failed! class: " + clz.getName() + " method: " + method, e);
             return null;
@@ -175,22 +160,8 @@ public class InvokeUtils {
      * @noinspection unchecked
      */
     private static <T> T baseInvokeField(Class<?> clz, Object instance, String field, boolean set, Object value) {
-        Field declaredField = null;
         try {
-            declaredField = fieldCache.get(clz.getName() + "." + field);
-            if (declaredField == null) {
-                try {
-                    declaredField = clz.getField(field);
-                } catch (NoSuchFieldException e) {
-                    try {
-                        declaredField = clz.getDeclaredField(field);
-                    } catch (NoSuchFieldException ex) {
-                        throw new NoSuchFieldException("getField: " + e + " getDeclaredField: " + ex);
-                    }
-                }
-                fieldCache.put(clz.getName() + "." + declaredField.getName(), declaredField);
-            }
-            declaredField.setAccessible(true);
+            Field declaredField = MEMBERS.get(clz).field(field).get();
             if (set) {
                 declaredField.set(instance, value);
                 return null;
@@ -202,6 +173,167 @@ public class InvokeUtils {
         }
     }
 
+    // ----------------------------MethodHandle / VarHandle--------------------------------
+
+    /**
+     * 获取方法对应的 MethodHandle，结果会缓存，方法不存在时返回 null。
+     */
+    public static MethodHandle getMethodHandle(Class<?> clz, String method, Class<?>... param) {
+        try {
+            return MEMBERS.get(clz).method(method, param).handle();
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            AndroidLogUtils.logE(TAG, "Get method handle failed! class: " + clz.getName() + " method: " + method, e);
+            return null;
+        }
+    }
+
+    /**
+     * 获取字段对应的 VarHandle，结果会缓存，字段不存在时返回 null。
+     */
+    public static VarHandle getVarHandle(Class<?> clz, String field) {
+        try {
+            return MEMBERS.get(clz).field(field).handle();
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            AndroidLogUtils.logE(TAG, "Get var handle failed! class: " + clz.getName() + " field: " + field, e);
+            return null;
+        }
+    }
+
+    // ----------------------------缓存--------------------------------
+    // 按 Class 分开缓存，类被卸载时随之释放；找不到的成员同样缓存，不再重复查找
+
+    private static final ClassValue<Members> MEMBERS = new ClassValue<>() {
+        @Override
+        protected Members computeValue(Class<?> type) {
+            return new Members(type);
+        }
+    };
+
+    private static final class Members {
+        private final Class<?> mClass;
+        // 同名方法按参数区分，数组只追加不修改
+        private final ConcurrentHashMap<String, MethodEntry[]> mMethods = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<String, FieldEntry> mFields = new ConcurrentHashMap<>();
+
+        Members(Class<?> clz) {
+            mClass = clz;
+        }
+
+        MethodEntry method(String name, Class<?>[] param) {
+            if (param == null) param = EMPTY_PARAMS;
+            MethodEntry[] entries = mMethods.get(name);
+            if (entries != null) {
+                for (MethodEntry entry : entries) {
+                    if (Arrays.equals(entry.mParams, param)) return entry;
+                }
+            }
+            MethodEntry created = new MethodEntry(mClass, name, param.clone());
+            MethodEntry[] result = new MethodEntry[1];
+            mMethods.compute(name, (k, old) -> {
+                if (old != null) {
+                    for (MethodEntry entry : old) {
+                        if (Arrays.equals(entry.mParams, created.mParams)) {
+                            result[0] = entry;
+                            return old;
+                        }
+                    }
+                }
+                result[0] = created;
+                if (old == null) return new MethodEntry[]{created};
+                MethodEntry[] grown = Arrays.copyOf(old, old.length + 1);
+                grown[old.length] = created;
+                return grown;
+            });
+            return result[0];
+        }
+
+        FieldEntry field(String name) {
+            FieldEntry entry = mFields.get(name);
+            if (entry != null) return entry;
+            return mFields.computeIfAbsent(name, k -> new FieldEntry(mClass, k));
+        }
+    }
+
+    private static final Class<?>[] EMPTY_PARAMS = new Class<?>[0];
+
+    private static final class MethodEntry {
+        private final Class<?>[] mParams;
+        private final Method mMethod;
+        private final NoSuchMethodException mError;
+        private volatile MethodHandle mHandle;
+
+        MethodEntry(Class<?> clz, String method, Class<?>[] param) {
+            mParams = param;
+            Method declaredMethod = null;
+            NoSuchMethodException error = null;
+            try {
+                declaredMethod = clz.getMethod(method, param);
+            } catch (NoSuchMethodException e) {
+                try {
+                    declaredMethod = clz.getDeclaredMethod(method, param);
+                } catch (NoSuchMethodException ex) {
+                    error = new NoSuchMethodException("getMethod: " + e + " getDeclaredMethod: " + ex);
+                }
+            }
+            if (declaredMethod != null) declaredMethod.setAccessible(true);
+            mMethod = declaredMethod;
+            mError = error;
+        }
+
+        Method get() throws NoSuchMethodException {
+            if (mMethod == null) throw mError;
+            return mMethod;
+        }
+
+        MethodHandle handle() throws NoSuchMethodException, IllegalAccessException {
+            MethodHandle handle = mHandle;
+            if (handle == null) {
+                // 已 setAccessible，unreflect 不再做访问检查
+                handle = MethodHandles.lookup().unreflect(get());
+                mHandle = handle;
+            }
+            return handle;
+        }
+    }
+
+    private static final class FieldEntry {
+        private final Field mField;
+        private final NoSuchFieldException mError;
+        private volatile VarHandle mHandle;
+
+        FieldEntry(Class<?> clz, String field) {
+            Field declaredField = null;
+            NoSuchFieldException error = null;
+            try {
+                declaredField = clz.getField(field);
+            } catch (NoSuchFieldException e) {
+                try {
+                    declaredField = clz.getDeclaredField(field);
+                } catch (NoSuchFieldException ex) {
+                    error = new NoSuchFieldException("getField: " + e + " getDeclaredField: " + ex);
+                }
+            }
+            if (declaredField != null) declaredField.setAccessible(true);
+            mField = declaredField;
+            mError = error;
+        }
+
+        Field get() throws NoSuchFieldException {
+            if (mField == null) throw mError;
+            return mField;
+        }
+
+        VarHandle handle() throws NoSuchFieldException, IllegalAccessException {
+            VarHandle handle = mHandle;
+            if (handle == null) {
+                Field field = get();
+                handle = MethodHandles.privateLookupIn(field.getDeclaringClass(), MethodHandles.lookup()).unreflectVarHandle(field);
+                mHandle = handle;
+            }
+            return handle;
+        }
+    }
+
     private static Class<?> baseClass(ClassLoader classLoader, String className) throws ClassNotFoundException {
         if (classLoader == null) {
             try {
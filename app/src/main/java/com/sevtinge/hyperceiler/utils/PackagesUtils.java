@@ -309,11 +309,13 @@ public class PackagesUtils {
         return appDataList;
     }
 
+    // 只读取应用信息，图标由 AppIconLoader 在显示时加载
     private static AppData addAppData(Parcelable parcelable, PackageManager pm) throws Throwable {
         AppData appData = new AppData();
         try {
             if (parcelable instanceof PackageInfo) {
-                appData.icon = BitmapUtils.drawableToBitmap(((PackageInfo) parcelable).applicationInfo.loadIcon(pm));
+                appData.iconInfo = ((PackageInfo) parcelable).applicationInfo;
+                appData.lastUpdateTime = ((PackageInfo) parcelable).lastUpdateTime;
                 appData.label = ((PackageInfo) parcelable).applicationInfo.loadLabel(pm).toString();
                 appData.packageName = ((PackageInfo) parcelable).applicationInfo.packageName;
                 appData.versionName = ((PackageInfo) parcelable).versionName;
@@ -322,7 +324,7 @@ public class PackagesUtils {
                 appData.enabled = ((PackageInfo) parcelable).applicationInfo.enabled;
                 // AndroidLogUtils.LogE(TAG, "PackageInfo", null);
             } else if (parcelable instanceof ResolveInfo) {
-                appData.icon = BitmapUtils.drawableToBitmap(((ResolveInfo) parcelable).activityInfo.applicationInfo.loadIcon(pm));
+                appData.iconInfo = ((ResolveInfo) parcelable).activityInfo.applicationInfo;
                 appData.label = ((ResolveInfo) parcelable).activityInfo.applicationInfo.loadLabel(pm).toString();
                 appData.packageName = ((ResolveInfo) parcelable).activityInfo.applicationInfo.packageName;
                 appData.activityName = ((ResolveInfo) parcelable).activityInfo.name;
@@ -330,12 +332,12 @@ public class PackagesUtils {
                 appData.enabled = ((ResolveInfo) parcelable).activityInfo.applicationInfo.enabled;
                 // AndroidLogUtils.LogE(TAG, "ResolveInfo", null);
             } else if (parcelable instanceof PermissionGroupInfo) {
-                appData.icon = BitmapUtils.drawableToBitmap(((PermissionGroupInfo) parcelable).loadIcon(pm));
+                appData.iconInfo = ((PermissionGroupInfo) parcelable);
                 appData.label = ((PermissionGroupInfo) parcelable).loadLabel(pm).toString();
                 appData.packageName = ((PermissionGroupInfo) parcelable).packageName;
                 // AndroidLogUtils.LogE(TAG, "PermissionGroupInfo", null);
             } else if (parcelable instanceof ActivityInfo) {
-                appData.icon = BitmapUtils.drawableToBitmap(((ActivityInfo) parcelable).applicationInfo.loadIcon(pm));
+                appData.iconInfo = ((ActivityInfo) parcelable).applicationInfo;
                 appData.label = ((ActivityInfo) parcelable).applicationInfo.loadLabel(pm).toString();
                 appData.packageName = ((ActivityInfo) parcelable).applicationInfo.packageName;
                 appData.isSystemApp = isSystem(((ActivityInfo) parcelable).applicationInfo);
@@ -343,21 +345,21 @@ public class PackagesUtils {
                 appData.enabled = ((ActivityInfo) parcelable).applicationInfo.enabled;
                 // AndroidLogUtils.LogE(TAG, "ActivityInfo", null);
             } else if (parcelable instanceof ApplicationInfo) {
-                appData.icon = BitmapUtils.drawableToBitmap(((ApplicationInfo) parcelable).loadIcon(pm));
+                appData.iconInfo = ((ApplicationInfo) parcelable);
                 appData.label = ((ApplicationInfo) parcelable).loadLabel(pm).toString();
                 appData.packageName = ((ApplicationInfo) parcelable).packageName;
                 appData.isSystemApp = isSystem(((ApplicationInfo) parcelable));
                 appData.enabled = ((ApplicationInfo) parcelable).enabled;
                 // AndroidLogUtils.LogE(TAG, "ApplicationInfo", null);
             } else if (parcelable instanceof ProviderInfo) {
-                appData.icon = BitmapUtils.drawableToBitmap(((ProviderInfo) parcelable).applicationInfo.loadIcon(pm));
+                appData.iconInfo = ((ProviderInfo) parcelable).applicationInfo;
                 appData.label = ((ProviderInfo) parcelable).applicationInfo.loadLabel(pm).toString();
                 appData.packageName = ((ProviderInfo) parcelable).applicationInfo.packageName;
                 appData.isSystemApp = isSystem(((ProviderInfo) parcelable).applicationInfo);
                 appData.enabled = ((ProviderInfo) parcelable).applicationInfo.enabled;
                 // AndroidLogUtils.LogE(TAG, "ProviderInfo", null);
             } else if (parcelable instanceof PermissionInfo) {
-                appData.icon = BitmapUtils.drawableToBitmap(((PermissionInfo) parcelable).loadIcon(pm));
+                appData.iconInfo = ((PermissionInfo) parcelable);
                 appData.label = ((PermissionInfo) parcelable).loadLabel(pm).toString();
                 appData.packageName = ((PermissionInfo) parcelable).packageName;
                 // AndroidLogUtils.LogE(TAG, "PermissionInfo", null);
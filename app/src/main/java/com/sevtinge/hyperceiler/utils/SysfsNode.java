@@ -0,0 +1,182 @@
+/*
+ * This file is part of HyperCeiler.
+
+ * HyperCeiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ * Copyright (C) 2023-2025 HyperCeiler Contributions
+ */
+package com.sevtinge.hyperceiler.utils;
+
+import android.os.SystemClock;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * sysfs 节点读写。
+ * <p>
+ * 同一路径共用一个实例，文件保持打开，每次从偏移 0 重新读取（sysfs 会重新生成内容），
+ * 数据读入复用的缓冲区并直接解析为整数，不再每次创建 Reader 和字符串。
+ * 可以为节点设置最短读取间隔，间隔内直接返回上次的值。
+ * 读写失败时关闭文件，下次使用时重新打开。
+ */
+public final class SysfsNode {
+    private static final int BUFFER_SIZE = 64;
+    private static final ConcurrentHashMap<String, SysfsNode> sNodes = new ConcurrentHashMap<>();
+
+    private final String mPath;
+    private final ByteBuffer mBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private FileChannel mReadChannel;
+    private FileChannel mWriteChannel;
+    private Boolean isExists;
+
+    private long mMinIntervalMs;
+    private long mLastReadAt;
+    private boolean isCached;
+    private long mLastValue;
+
+    private SysfsNode(String path) {
+        mPath = path;
+    }
+
+    public static SysfsNode of(String path) {
+        return sNodes.computeIfAbsent(path, SysfsNode::new);
+    }
+
+    /**
+     * @param minIntervalMs 最短读取间隔，间隔内 {@link #readInt}/{@link #readLong} 返回缓存值
+     */
+    public static SysfsNode of(String path, long minIntervalMs) {
+        SysfsNode node = of(path);
+        synchronized (node) {
+            node.mMinIntervalMs = Math.max(node.mMinIntervalMs, minIntervalMs);
+        }
+        return node;
+    }
+
+    public String getPath() {
+        return mPath;
+    }
+
+    /**
+     * 节点是否存在，结果只判断一次。
+     */
+    public synchronized boolean exists() {
+        if (isExists == null) isExists = new File(mPath).exists();
+        return isExists;
+    }
+
+    public int readInt(int defValue) {
+        return (int) readLong(defValue);
+    }
+
+    public synchronized long readLong(long defValue) {
+        long now = SystemClock.elapsedRealtime();
+        if (isCached && now - mLastReadAt < mMinIntervalMs) return mLastValue;
+        if (!fill()) return defValue;
+        long value = parseLong(mBuffer, defValue);
+        mLastValue = value;
+        mLastReadAt = now;
+        isCached = true;
+        return value;
+    }
+
+    /**
+     * 读取完整内容并去掉末尾空白，失败时返回 null。不受读取间隔限制。
+     */
+    public synchronized String readString() {
+        if (!fill()) return null;
+        int end = mBuffer.limit();
+        while (end > 0 && mBuffer.get(end - 1) <= ' ') end--;
+        return new String(mBuffer.array(), 0, end, StandardCharsets.UTF_8);
+    }
+
+    public boolean writeInt(long value) {
+        return writeString(Long.toString(value));
+    }
+
+    public synchronized boolean writeString(String value) {
+        isCached = false;
+        try {
+            if (mWriteChannel == null) mWriteChannel = new FileOutputStream(mPath).getChannel();
+            // sysfs 的写入需要一次完成
+            mWriteChannel.write(ByteBuffer.wrap(value.getBytes(StandardCharsets.UTF_8)), 0);
+            return true;
+        } catch (IOException e) {
+            closeQuietly(mWriteChannel);
+            mWriteChannel = null;
+            return false;
+        }
+    }
+
+    public synchronized void close() {
+        closeQuietly(mReadChannel);
+        closeQuietly(mWriteChannel);
+        mReadChannel = null;
+        mWriteChannel = null;
+        isCached = false;
+    }
+
+    // 内容读入 mBuffer，读完后 mBuffer 为 [0, limit)
+    private boolean fill() {
+        try {
+            if (mReadChannel == null) mReadChannel = new RandomAccessFile(mPath, "r").getChannel();
+            mBuffer.clear();
+            while (mBuffer.hasRemaining()) {
+                if (mReadChannel.read(mBuffer, mBuffer.position()) <= 0) break;
+            }
+            mBuffer.flip();
+            return true;
+        } catch (IOException e) {
+            closeQuietly(mReadChannel);
+            mReadChannel = null;
+            return false;
+        }
+    }
+
+    private static long parseLong(ByteBuffer buffer, long defValue) {
+        int i = 0;
+        int limit = buffer.limit();
+        while (i < limit && buffer.get(i) <= ' ') i++;
+        boolean negative = false;
+        if (i < limit && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+            negative = buffer.get(i) == '-';
+            i++;
+        }
+        int start = i;
+        long value = 0;
+        while (i < limit) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) break;
+            value = value * 10 + digit;
+            i++;
+        }
+        if (i == start) return defValue;
+        return negative ? -value : value;
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel == null) return;
+        try {
+            channel.close();
+        } catch (IOException ignore) {
+        }
+    }
+}
@@ -20,9 +20,14 @@ package com.sevtinge.hyperceiler.utils;
 
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * 共享线程池。Hook 进程内长期复用，不要在单次使用后关闭。
+ */
 public class ThreadPoolManager {
     private static final int NUM_THREADS = 5; // 定义线程池中线程的数量
+    private static final AtomicInteger sThreadCount = new AtomicInteger();
     private static volatile ExecutorService executor;
 
     // 获取线程池实例
@@ -31,14 +36,19 @@ public class ThreadPoolManager {
             synchronized (ThreadPoolManager.class) {
                 if (executor == null || executor.isShutdown()) {
                     // 创建一个具有固定数量线程的线程池, 如果已经关机则重新创建
-                    executor = Executors.newFixedThreadPool(NUM_THREADS);
+                    // 守护线程，不阻止宿主进程退出
+                    executor = Executors.newFixedThreadPool(NUM_THREADS, r -> {
+                        Thread thread = new Thread(r, "HyperCeiler-pool-" + sThreadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
                 }
             }
         }
         return executor;
     }
 
-    // 关闭线程池
+    // 关闭线程池，仅用于模块自身界面退出时
     public static synchronized void shutdown() {
         if (executor != null && !executor.isShutdown()) {
             executor.shutdown();
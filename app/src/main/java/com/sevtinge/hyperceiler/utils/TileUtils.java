@@ -26,6 +26,7 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.res.Resources;
 import android.util.ArrayMap;
+import android.util.SparseArray;
 import android.view.View;
 import android.widget.Switch;
 
@@ -35,15 +36,34 @@ import com.sevtinge.hyperceiler.R;
 import com.sevtinge.hyperceiler.module.base.BaseHook;
 import com.sevtinge.hyperceiler.module.base.tool.ResourcesTool;
 
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+
 import de.robv.android.xposed.XC_MethodHook.MethodHookParam;
 import de.robv.android.xposed.XposedHelpers;
 
+/*
+ * 所有磁贴共用一张注册表：每个 (类, 方法) 只安装一次钩子，
+ * 回调中按磁贴名称（或被覆写的磁贴类）查表分发给对应的 TileUtils。
+ */
 public abstract class TileUtils extends BaseHook {
     private static final String mQSFactoryClsName = "com.android.systemui.qs.tileimpl.MiuiQSFactory";
-    private final boolean[] isListened = {false};
+    // 自定义磁贴：名称 -> 磁贴
+    private static final LinkedHashMap<String, TileUtils> sCustomTiles = new LinkedHashMap<>();
+    // 覆写原有磁贴：磁贴类 -> 磁贴
+    private static final HashMap<Class<?>, TileUtils> sOverrideTiles = new HashMap<>();
+    // 已安装的钩子：类名#方法名
+    private static final HashSet<String> sHooked = new HashSet<>();
+    private static boolean isListened = false;
+    private static Class<?> mResourceIcon;
+
     private final String[] mTileProvider = new String[4];
-    private Class<?> mResourceIcon;
-    private Class<?> mQSFactory;
+    // 资源 id -> ResourceIcon，避免每次刷新都重新获取
+    private final SparseArray<Object> mIconCache = new SparseArray<>();
+    private String mEnableKey;
+    private String mOnKey;
+    private String mOffKey;
 
     /* 固定语法，必须调用。
      * 调用方法：
@@ -55,13 +75,23 @@ public abstract class TileUtils extends BaseHook {
     @Override
     @CallSuper
     public void init() {
-        mQSFactory = findClassIfExists(mQSFactoryClsName);
+        Class<?> mQSFactory = findClassIfExists(mQSFactoryClsName);
         if (mQSFactory == null) {
             logE(TAG, "mQSFactory can't is null");
             return;
         }
         Class<?> myTile = customClass();
-        mResourceIcon = findClass("com.android.systemui.qs.tileimpl.QSTileImpl$ResourceIcon");
+        if (mResourceIcon == null)
+            mResourceIcon = findClass("com.android.systemui.qs.tileimpl.QSTileImpl$ResourceIcon");
+        String custom = customName();
+        mEnableKey = custom + "_Enable";
+        mOnKey = custom + "_ON";
+        mOffKey = custom + "_OFF";
+        if (needOverride()) {
+            sOverrideTiles.put(myTile, this);
+        } else {
+            sCustomTiles.put(custom, this);
+        }
         SystemUiHook();
         customTileProvider();
         showStateMessage(myTile);
@@ -69,65 +99,55 @@ public abstract class TileUtils extends BaseHook {
 
         try {
             myTile.getDeclaredMethod("isAvailable");
-            findAndHookMethod(myTile, "isAvailable", new MethodHook() {
-                @Override
-                protected void before(MethodHookParam param) {
-                    String tileName = (String) XposedHelpers.getAdditionalInstanceField(param.thisObject, "customName");
-                    if (tileName != null) {
-                        if (tileName.equals(customName())) {
-                            tileCheck(param, tileName);
-                        }
-                    } else {
-                        if (needOverride())
-                            tileCheck(param, tileName);
+            if (markHooked(myTile, "isAvailable"))
+                findAndHookMethod(myTile, "isAvailable", new MethodHook() {
+                    @Override
+                    protected void before(MethodHookParam param) {
+                        String tileName = getTileName(param);
+                        TileUtils tile = findOwner(tileName, param);
+                        if (tile != null) tile.tileCheck(param, tileName);
                     }
-                }
-            });
+                });
         } catch (NoSuchMethodException e) {
             logE(TAG, "com.android.systemui", "Don't Have isAvailable: " + e);
         }
         tileName(myTile); // 不需要覆写
         try {
             myTile.getDeclaredMethod("handleSetListening", boolean.class);
-            findAndHookMethod(myTile, "handleSetListening", boolean.class, new MethodHook() {
-                @Override
-                protected void before(MethodHookParam param) {
-                    String tileName = (String) XposedHelpers.getAdditionalInstanceField(param.thisObject, "customName");
-                    if (tileName != null) {
-                        if (tileName.equals(customName())) {
+            if (markHooked(myTile, "handleSetListening"))
+                findAndHookMethod(myTile, "handleSetListening", boolean.class, new MethodHook() {
+                    @Override
+                    protected void before(MethodHookParam param) {
+                        String tileName = getTileName(param);
+                        TileUtils tile = findOwner(tileName, param);
+                        if (tile == null) return;
+                        if (tileName != null) {
                             try {
-                                tileListening(param, tileName);
+                                tile.tileListening(param, tileName);
                                 param.setResult(null);
                             } catch (Throwable e) {
                                 logE(TAG, "com.android.systemui", "handleSetListening have Throwable: " + e);
                                 param.setResult(null);
                             }
+                        } else {
+                            tile.tileListening(param, null);
                         }
-                    } else {
-                        if (needOverride())
-                            tileListening(param, tileName);
                     }
-                }
-            });
+                });
         } catch (NoSuchMethodException e) {
             logE(TAG, "com.android.systemui", "Don't Have handleSetListening: " + e);
         }
         try {
             myTile.getDeclaredMethod("getLongClickIntent");
-            findAndHookMethod(myTile, "getLongClickIntent", new MethodHook() {
-                @Override
-                protected void before(MethodHookParam param) {
-                    String tileName = (String) XposedHelpers.getAdditionalInstanceField(param.thisObject, "customName");
-                    if (tileName != null) {
-                        if (tileName.equals(customName())) {
-                            tileLongClickIntent(param, tileName);
-                        }
-                    } else {
-                        if (needOverride())
-                            tileLongClickIntent(param, tileName);
+            if (markHooked(myTile, "getLongClickIntent"))
+                findAndHookMethod(myTile, "getLongClickIntent", new MethodHook() {
+                    @Override
+                    protected void before(MethodHookParam param) {
+                        String tileName = getTileName(param);
+                        TileUtils tile = findOwner(tileName, param);
+                        if (tile != null) tile.tileLongClickIntent(param, tileName);
                     }
-                }
-            });
+                });
         } catch (NoSuchMethodException e) {
             logE(TAG, "com.android.systemui", "Don't Have getLongClickIntent: " + e);
         }
@@ -137,15 +157,9 @@ public abstract class TileUtils extends BaseHook {
         MethodHook handleLongClickHook = new MethodHook() {
             @Override
             protected void before(MethodHookParam param) {
-                String tileName = (String) XposedHelpers.getAdditionalInstanceField(param.thisObject, "customName");
-                Intent intent = null;
-                if (tileName != null) {
-                    if (tileName.equals(customName())) {
-                        intent = tileHandleLongClick(param, tileName);
-                    }
-                } else if (needOverride()) {
-                    intent = tileHandleLongClick(param, tileName);
-                }
+                String tileName = getTileName(param);
+                TileUtils tile = findOwner(tileName, param);
+                Intent intent = tile == null ? null : tile.tileHandleLongClick(param, tileName);
                 if (intent != null) {
                     Context context = (Context) XposedHelpers.getObjectField(param.thisObject, "mContext");
                     Object o = XposedHelpers.callStaticMethod(findClassIfExists("com.android.systemui.controlcenter.utils.ControlCenterUtils"), "getSettingsSplitIntent", context, intent);
@@ -157,10 +171,12 @@ public abstract class TileUtils extends BaseHook {
         try {
             if (isMoreAndroidVersion(35)) {
                 myTile.getDeclaredMethod("handleLongClick", expandableClz);
-                findAndHookMethod(myTile, "handleLongClick", expandableClz, handleLongClickHook);
+                if (markHooked(myTile, "handleLongClick"))
+                    findAndHookMethod(myTile, "handleLongClick", expandableClz, handleLongClickHook);
             } else {
                 myTile.getDeclaredMethod("handleLongClick", View.class);
-                findAndHookMethod(myTile, "handleLongClick", View.class, handleLongClickHook);
+                if (markHooked(myTile, "handleLongClick"))
+                    findAndHookMethod(myTile, "handleLongClick", View.class, handleLongClickHook);
             }
         } catch (NoSuchMethodException e) {
             logE(TAG, "com.android.systemui", "Don't Have handleLongClick: " + e);
@@ -169,79 +185,109 @@ public abstract class TileUtils extends BaseHook {
         MethodHook handleClickHook = new MethodHook() {
             @Override
             protected void before(MethodHookParam param) {
-                String tileName = (String) XposedHelpers.getAdditionalInstanceField(param.thisObject, "customName");
+                String tileName = getTileName(param);
+                TileUtils tile = findOwner(tileName, param);
+                if (tile == null) return;
                 if (tileName != null) {
-                    if (tileName.equals(customName())) {
-                        try {
-                            tileClick(param, tileName);
-                            param.setResult(null);
-                        } catch (Throwable e) {
-                            logE(TAG, "com.android.systemui", "handleClick have Throwable: " + e);
-                            param.setResult(null);
-                        }
+                    try {
+                        tile.tileClick(param, tileName);
+                        param.setResult(null);
+                    } catch (Throwable e) {
+                        logE(TAG, "com.android.systemui", "handleClick have Throwable: " + e);
+                        param.setResult(null);
                     }
                 } else {
-                    if (needOverride())
-                        tileClick(param, tileName);
+                    tile.tileClick(param, null);
                 }
             }
 
             @Override
             protected void after(MethodHookParam param) {
-                if (needAfter()) {
-                    String tileName = (String) XposedHelpers.getAdditionalInstanceField(param.thisObject, "customName");
-                    tileClickAfter(param, tileName);
+                String tileName = getTileName(param);
+                TileUtils tile = findOwner(tileName, param);
+                if (tile != null && tile.needAfter()) {
+                    tile.tileClickAfter(param, tileName);
                 }
             }
         };
         try {
             if (isMoreAndroidVersion(35)) {
                 getDeclaredMethod(myTile, "handleClick", expandableClz);
-                findAndHookMethod(myTile, "handleClick", expandableClz, handleClickHook);
+                if (markHooked(myTile, "handleClick"))
+                    findAndHookMethod(myTile, "handleClick", expandableClz, handleClickHook);
             } else {
                 getDeclaredMethod(myTile, "handleClick", View.class);
                 // myTile.getDeclaredMethod("handleClick", View.class);
-                findAndHookMethod(myTile, "handleClick", View.class, handleClickHook);
+                if (markHooked(myTile, "handleClick"))
+                    findAndHookMethod(myTile, "handleClick", View.class, handleClickHook);
             }
         } catch (NoSuchMethodException e) {
             logE(TAG, "com.android.systemui", "Don't Have handleClick: " + e);
         }
 
-        hookAllMethods(myTile, "handleUpdateState", new MethodHook() {
-            @Override
-            protected void before(MethodHookParam param) {
-                String tileName = (String) XposedHelpers.getAdditionalInstanceField(param.thisObject, "customName");
-                if (tileName != null) {
-                    if (tileName.equals(customName())) {
-                        boolean isEnable = false;
-                        ArrayMap<String, Integer> tileResMap;
-                        tileResMap = tileUpdateState(param, mResourceIcon, tileName);
-                        if (tileResMap != null) {
-                            int code = tileResMap.get(customName() + "_Enable");
-                            if (code == 1) isEnable = true;
-                            Object booleanState = param.args[0];
-                            XposedHelpers.setObjectField(booleanState, "value", isEnable);
-                            // 测试为开关状态控制，2为开，1为关
-                            XposedHelpers.setObjectField(booleanState, "state", isEnable ? 2 : 1);
-                            String tileLabel = (String) XposedHelpers.callMethod(param.thisObject, "getTileLabel");
-                            XposedHelpers.setObjectField(booleanState, "label", tileLabel);
-                            XposedHelpers.setObjectField(booleanState, "contentDescription", tileLabel);
-                            XposedHelpers.setObjectField(booleanState, "expandedAccessibilityClassName", Switch.class.getName());
-                            Object mIcon = XposedHelpers.callStaticMethod(mResourceIcon, "get", isEnable ? tileResMap.get(customName() + "_ON") : tileResMap.get(customName() + "_OFF"));
-                            XposedHelpers.setObjectField(booleanState, "icon", mIcon);
-                        }
+        if (markHooked(myTile, "handleUpdateState"))
+            hookAllMethods(myTile, "handleUpdateState", new MethodHook() {
+                @Override
+                protected void before(MethodHookParam param) {
+                    String tileName = getTileName(param);
+                    TileUtils tile = findOwner(tileName, param);
+                    if (tile == null) return;
+                    if (tileName != null) {
+                        tile.updateState(param, tileName);
                         param.setResult(null);
-                    }
-                } else {
-                    if (needOverride()) {
-                        tileUpdateState(param, mResourceIcon, tileName);
+                    } else {
+                        tile.tileUpdateState(param, mResourceIcon, null);
                     }
                 }
-            }
-        });
+            });
 
     }
 
+    private static String getTileName(MethodHookParam param) {
+        return (String) XposedHelpers.getAdditionalInstanceField(param.thisObject, "customName");
+    }
+
+    /*有名称的按名称查找自定义磁贴，否则按被 Hook 的类查找覆写的磁贴*/
+    private static TileUtils findOwner(String tileName, MethodHookParam param) {
+        if (tileName != null) return sCustomTiles.get(tileName);
+        return sOverrideTiles.get(param.method.getDeclaringClass());
+    }
+
+    /*同一个类的同一个方法只 Hook 一次*/
+    private static boolean markHooked(Class<?> clazz, String method) {
+        return markHooked(clazz.getName(), method);
+    }
+
+    private static boolean markHooked(String className, String method) {
+        return sHooked.add(className + "#" + method);
+    }
+
+    private void updateState(MethodHookParam param, String tileName) {
+        ArrayMap<String, Integer> tileResMap = tileUpdateState(param, mResourceIcon, tileName);
+        if (tileResMap == null) return;
+        Integer code = tileResMap.get(mEnableKey);
+        boolean isEnable = code != null && code == 1;
+        Object booleanState = param.args[0];
+        XposedHelpers.setObjectField(booleanState, "value", isEnable);
+        // 测试为开关状态控制，2为开，1为关
+        XposedHelpers.setObjectField(booleanState, "state", isEnable ? 2 : 1);
+        String tileLabel = (String) XposedHelpers.callMethod(param.thisObject, "getTileLabel");
+        XposedHelpers.setObjectField(booleanState, "label", tileLabel);
+        XposedHelpers.setObjectField(booleanState, "contentDescription", tileLabel);
+        XposedHelpers.setObjectField(booleanState, "expandedAccessibilityClassName", Switch.class.getName());
+        Integer resId = tileResMap.get(isEnable ? mOnKey : mOffKey);
+        if (resId != null) XposedHelpers.setObjectField(booleanState, "icon", getIcon(resId));
+    }
+
+    private Object getIcon(int resId) {
+        Object icon = mIconCache.get(resId);
+        if (icon == null) {
+            icon = XposedHelpers.callStaticMethod(mResourceIcon, "get", resId);
+            mIconCache.put(resId, icon);
+        }
+        return icon;
+    }
+
     /*用于指定磁贴工厂函数
      * 折旧*/
     // public Class<?> customQSFactory() {
@@ -297,8 +343,7 @@ public abstract class TileUtils extends BaseHook {
      * 在第一次 Hook 时把新的快捷方式加载进快捷方式列表中。
      * */
     private void SystemUiHook() {
-        String custom = customName();
-        if (!needOverride()) {
+        if (!needOverride() && markHooked("com.android.systemui.SystemUIApplication", "onCreate")) {
             /*if ("".equals(custom)) {
                 logE(TAG, "com.android.systemui", "Error custom:" + custom);
                 return;
@@ -308,13 +353,13 @@ public abstract class TileUtils extends BaseHook {
                 findAndHookMethod("com.android.systemui.SystemUIApplication", "onCreate", new MethodHook() {
                     @Override
                     protected void after(MethodHookParam param) {
-                        if (!isListened[0]) {
-                            isListened[0] = true;
+                        if (!isListened) {
+                            isListened = true;
                             // 获取 Context
                             Context mContext = (Context) XposedHelpers.callMethod(param.thisObject, "getApplicationContext");
                             // 获取 miui_quick_settings_tiles_stock 字符串的值
                             @SuppressLint("DiscouragedApi") int stockTilesResId = mContext.getResources().getIdentifier("miui_quick_settings_tiles_stock", "string", lpparam.packageName);
-                            String stockTiles = mContext.getString(stockTilesResId) + "," + custom; // 追加自定义的磁贴
+                            String stockTiles = mContext.getString(stockTilesResId) + "," + String.join(",", sCustomTiles.keySet()); // 追加所有自定义的磁贴
                             // 将拼接后的字符串分别替换下面原有的字符串。
                             if (isPad()) {
                                 mResHook.setObjectReplacement(lpparam.packageName, "string", "miui_quick_settings_tiles_stock_pad", stockTiles);
@@ -353,7 +398,7 @@ public abstract class TileUtils extends BaseHook {
 
     /*Android 14 磁贴逻辑被修改，此是解决方法*/
     private void tileAllName14(Class<?> QSFactory) {
-        if (!needOverride()) {
+        if (!needOverride() && markHooked(QSFactory, getCustomTileProvider()[3])) {
             try {
                 QSFactory.getDeclaredMethod(getCustomTileProvider()[3], String.class);
                 findAndHookMethod(QSFactory, getCustomTileProvider()[3], String.class,
@@ -361,8 +406,9 @@ public abstract class TileUtils extends BaseHook {
                         @Override
                         protected void before(MethodHookParam param) {
                             String tileName = (String) param.args[0];
-                            if (tileName.equals(customName())) {
-                                String myTileProvider = getCustomTileProvider()[0];
+                            TileUtils owner = sCustomTiles.get(tileName);
+                            if (owner != null) {
+                                String myTileProvider = owner.getCustomTileProvider()[0];
                                 Object provider;
                                 Object tile;
                                 try {
@@ -398,6 +444,7 @@ public abstract class TileUtils extends BaseHook {
         try {
             if (!needOverride()) {
                 myTile.getDeclaredMethod("handleShowStateMessage");
+                if (!markHooked(myTile, "handleShowStateMessage")) return;
                 findAndHookMethod(myTile, "handleShowStateMessage", new MethodHook() {
                         @Override
                         protected void before(MethodHookParam param) {
@@ -453,16 +500,16 @@ public abstract class TileUtils extends BaseHook {
             }
             try {
                 myTile.getDeclaredMethod("getTileLabel");
+                if (!markHooked(myTile, "getTileLabel")) return;
                 findAndHookMethod(myTile, "getTileLabel", new MethodHook() {
                     @Override
                     protected void before(MethodHookParam param) throws Throwable {
-                        String tileName = (String) XposedHelpers.getAdditionalInstanceField(param.thisObject, "customName");
-                        if (tileName != null) {
-                            if (tileName.equals(custom)) {
-                                Context mContext = (Context) XposedHelpers.getObjectField(param.thisObject, "mContext");
-                                Resources modRes = ResourcesTool.loadModuleRes(mContext);
-                                param.setResult(modRes.getString(customValue));
-                            }
+                        String tileName = getTileName(param);
+                        TileUtils owner = tileName == null ? null : sCustomTiles.get(tileName);
+                        if (owner != null) {
+                            Context mContext = (Context) XposedHelpers.getObjectField(param.thisObject, "mContext");
+                            Resources modRes = ResourcesTool.loadModuleRes(mContext);
+                            param.setResult(modRes.getString(owner.customRes()));
                         }
                     }
                 });
@@ -0,0 +1,145 @@
+/*
+ * This file is part of HyperCeiler.
+
+ * HyperCeiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ * Copyright (C) 2023-2025 HyperCeiler Contributions
+ */
+package com.sevtinge.hyperceiler.utils.blur;
+
+/**
+ * CPU 上的 Stack Blur，直接处理 ARGB int 数组，不依赖 GPU 或 Android 图形 API。
+ * <p>
+ * 算法来自 Mario Klingemann 的 Stack Blur：水平、垂直各一次三角权重的滑动窗口，
+ * 耗时与半径无关。边缘按最近像素延伸。
+ */
+public final class StackBlur {
+    public static final int MAX_RADIUS = 254;
+
+    private StackBlur() {
+    }
+
+    /**
+     * 将 RenderEffect 的模糊半径换算为效果接近的 Stack Blur 半径。
+     */
+    public static int fromRenderEffectRadius(float radius) {
+        // RenderEffect: sigma = 0.57735 * radius + 0.5；Stack Blur: sigma ≈ r / 2.45
+        return Math.min(MAX_RADIUS, Math.max(1, Math.round((0.57735f * radius + 0.5f) * 2.45f)));
+    }
+
+    /**
+     * 原地模糊。
+     *
+     * @param pixels ARGB 像素，按行存储
+     * @param radius 模糊半径，范围 1 ~ {@link #MAX_RADIUS}，小于 1 时不做处理
+     */
+    public static void blur(int[] pixels, int width, int height, int radius) {
+        if (radius < 1 || width <= 0 || height <= 0) return;
+        if (pixels.length < width * height) {
+            throw new IllegalArgumentException("pixels.length < width * height");
+        }
+        radius = Math.min(radius, MAX_RADIUS);
+        int[] temp = new int[width * height];
+        int[] stack = new int[radius * 2 + 1];
+        pass(pixels, temp, width, height, 1, width, radius, stack);
+        pass(temp, pixels, height, width, width, 1, radius, stack);
+    }
+
+    /**
+     * 一个方向的滑动窗口。
+     *
+     * @param length     每条线的像素数
+     * @param lines      线的数量
+     * @param step       同一条线上相邻像素的下标间隔
+     * @param lineStride 相邻两条线起点的下标间隔
+     */
+    private static void pass(int[] src, int[] dst, int length, int lines, int step, int lineStride, int radius, int[] stack) {
+        int div = radius * 2 + 1;
+        int last = length - 1;
+        long weight = (long) (radius + 1) * (radius + 1);
+
+        for (int line = 0; line < lines; line++) {
+            int base = line * lineStride;
+            long sumA = 0, sumR = 0, sumG = 0, sumB = 0;
+            long inA = 0, inR = 0, inG = 0, inB = 0;
+            long outA = 0, outR = 0, outG = 0, outB = 0;
+
+            for (int i = -radius; i <= radius; i++) {
+                int p = src[base + Math.min(last, Math.max(i, 0)) * step];
+                stack[i + radius] = p;
+                int w = radius + 1 - Math.abs(i);
+                int a = p >>> 24, r = (p >> 16) & 0xff, g = (p >> 8) & 0xff, b = p & 0xff;
+                sumA += (long) a * w;
+                sumR += (long) r * w;
+                sumG += (long) g * w;
+                sumB += (long) b * w;
+                if (i > 0) {
+                    inA += a;
+                    inR += r;
+                    inG += g;
+                    inB += b;
+                } else {
+                    outA += a;
+                    outR += r;
+                    outG += g;
+                    outB += b;
+                }
+            }
+
+            int pointer = radius;
+            for (int x = 0; x < length; x++) {
+                dst[base + x * step] = (int) (sumA / weight) << 24 | (int) (sumR / weight) << 16
+                    | (int) (sumG / weight) << 8 | (int) (sumB / weight);
+
+                sumA -= outA;
+                sumR -= outR;
+                sumG -= outG;
+                sumB -= outB;
+
+                // 窗口最左侧的像素移出，替换为右侧新进入的像素
+                int start = (pointer + radius + 1) % div;
+                int p = stack[start];
+                outA -= p >>> 24;
+                outR -= (p >> 16) & 0xff;
+                outG -= (p >> 8) & 0xff;
+                outB -= p & 0xff;
+
+                p = src[base + Math.min(x + radius + 1, last) * step];
+                stack[start] = p;
+                inA += p >>> 24;
+                inR += (p >> 16) & 0xff;
+                inG += (p >> 8) & 0xff;
+                inB += p & 0xff;
+
+                sumA += inA;
+                sumR += inR;
+                sumG += inG;
+                sumB += inB;
+
+                // 中心右移一位
+                pointer = (pointer + 1) % div;
+                p = stack[pointer];
+                int a = p >>> 24, r = (p >> 16) & 0xff, g = (p >> 8) & 0xff, b = p & 0xff;
+                outA += a;
+                outR += r;
+                outG += g;
+                outB += b;
+                inA -= a;
+                inR -= r;
+                inG -= g;
+                inB -= b;
+            }
+        }
+    }
+}
@@ -22,6 +22,7 @@ package com.sevtinge.hyperceiler.utils.log;
 import static com.sevtinge.hyperceiler.utils.devicesdk.DeviceSDKKt.getSerial;
 import static com.sevtinge.hyperceiler.utils.prefs.PrefsUtils.mPrefsMap;
 import static com.sevtinge.hyperceiler.utils.shell.ShellUtils.rootExecCmd;
+import static com.sevtinge.hyperceiler.utils.shell.ShellUtils.rootExecCmds;
 
 import android.util.Log;
 
@@ -61,7 +62,9 @@ public class LogManager {
 
     public static boolean isLoggerAlive() {
         try {
-            String modulesOutput = rootExecCmd("ls /data/adb/modules/");
+            // 两次 ls 一起提交
+            String[] outputs = rootExecCmds("ls /data/adb/modules/", "ls /data/adb/lspd/log/");
+            String modulesOutput = outputs[0];
             String[] moduleLines = modulesOutput.split("\n");
             boolean lsposedFound = false;
             for (String line : moduleLines) {
@@ -71,7 +74,7 @@ public class LogManager {
                 }
             }
             if (lsposedFound) {
-                String output = rootExecCmd("ls /data/adb/lspd/log/");
+                String output = outputs[1];
                 String[] lines = output.split("\n");
                 List<String> logFiles = new ArrayList<>();
                 for (String line : lines) {
@@ -141,8 +144,7 @@ public class LogManager {
 
     public static String fixLsposedLogService() {
         try {
-            rootExecCmd("resetprop -n persist.log.tag.LSPosed V");
-            rootExecCmd("resetprop -n persist.log.tag.LSPosed-Bridge V");
+            rootExecCmds("resetprop -n persist.log.tag.LSPosed V", "resetprop -n persist.log.tag.LSPosed-Bridge V");
             return "SUCCESS";
         } catch (Exception e) {
             return e.toString();
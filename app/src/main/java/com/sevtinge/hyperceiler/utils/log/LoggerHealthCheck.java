@@ -0,0 +1,148 @@
+/*
+ * This file is part of HyperCeiler.
+
+ * HyperCeiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ * Copyright (C) 2023-2025 HyperCeiler Contributions
+ */
+package com.sevtinge.hyperceiler.utils.log;
+
+import static com.sevtinge.hyperceiler.utils.shell.ShellUtils.rootExecCmd;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import com.sevtinge.hyperceiler.utils.ThreadPoolManager;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * 日志服务状态检查。
+ * <p>
+ * 检查在后台线程执行，结果按 (boot_id, LSPosed 模块日志修改时间) 缓存：
+ * 本次开机已确认正常时直接使用缓存，不再申请 root；日志文件未变化时也复用上次的结果。
+ * 结果通过 {@link Callback} 在主线程回调。
+ */
+public final class LoggerHealthCheck {
+    private static final String TAG = "LoggerHealthCheck";
+    private static final String PREFS_NAME = "logger_health_check";
+    private static final String KEY_BOOT_ID = "boot_id";
+    private static final String KEY_LOG_MTIME = "log_mtime";
+    private static final String KEY_ALIVE = "alive";
+    private static final String KEY_ERR_CODE = "err_code";
+
+    private static final Handler mHandler = new Handler(Looper.getMainLooper());
+    private static final ArrayList<Callback> mCallbacks = new ArrayList<>();
+    private static boolean isRunning;
+    private static boolean isDone;
+
+    public interface Callback {
+        void onResult(boolean alive);
+    }
+
+    private LoggerHealthCheck() {
+    }
+
+    /**
+     * 开始检查，同一进程内只会执行一次。
+     */
+    public static void start(Context context) {
+        Context appContext = context.getApplicationContext();
+        synchronized (LoggerHealthCheck.class) {
+            if (isRunning || isDone) return;
+            isRunning = true;
+        }
+        ThreadPoolManager.getInstance().submit(() -> {
+            long start = SystemClock.elapsedRealtime();
+            boolean alive = check(appContext);
+            AndroidLogUtils.logI(TAG, "alive: " + alive + ", code: " + LogManager.LOGGER_CHECKER_ERR_CODE
+                    + ", cost: " + (SystemClock.elapsedRealtime() - start) + "ms");
+            mHandler.post(() -> deliver(alive));
+        });
+    }
+
+    /**
+     * 在主线程获取结果，已有结果时立即回调。
+     */
+    public static void observe(Callback callback) {
+        if (isDone) {
+            callback.onResult(LogManager.IS_LOGGER_ALIVE);
+            return;
+        }
+        if (!mCallbacks.contains(callback)) mCallbacks.add(callback);
+    }
+
+    public static void removeObserver(Callback callback) {
+        mCallbacks.remove(callback);
+    }
+
+    private static void deliver(boolean alive) {
+        LogManager.IS_LOGGER_ALIVE = alive;
+        synchronized (LoggerHealthCheck.class) {
+            isRunning = false;
+            isDone = true;
+        }
+        ArrayList<Callback> callbacks = new ArrayList<>(mCallbacks);
+        mCallbacks.clear();
+        for (Callback callback : callbacks) {
+            callback.onResult(alive);
+        }
+    }
+
+    private static boolean check(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        String bootId = readBootId();
+        boolean sameBoot = bootId != null && bootId.equals(prefs.getString(KEY_BOOT_ID, null));
+
+        // 本次开机已确认正常，无需 root
+        if (sameBoot && prefs.getBoolean(KEY_ALIVE, false)) {
+            LogManager.LOGGER_CHECKER_ERR_CODE = prefs.getString(KEY_ERR_CODE, "SUCCESS");
+            return true;
+        }
+
+        String logMtime = readLogMtime();
+        if (sameBoot && logMtime.equals(prefs.getString(KEY_LOG_MTIME, null))) {
+            LogManager.LOGGER_CHECKER_ERR_CODE = prefs.getString(KEY_ERR_CODE, "WITHOUT_CODE");
+            return prefs.getBoolean(KEY_ALIVE, false);
+        }
+
+        boolean alive = LogManager.isLoggerAlive();
+        prefs.edit()
+                .putString(KEY_BOOT_ID, bootId)
+                .putString(KEY_LOG_MTIME, logMtime)
+                .putBoolean(KEY_ALIVE, alive)
+                .putString(KEY_ERR_CODE, LogManager.LOGGER_CHECKER_ERR_CODE)
+                .apply();
+        return alive;
+    }
+
+    private static String readBootId() {
+        try (BufferedReader reader = new BufferedReader(new FileReader("/proc/sys/kernel/random/boot_id"))) {
+            return reader.readLine();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    // 一次 root 调用取得所有模块日志的修改时间
+    private static String readLogMtime() {
+        return rootExecCmd("stat -c %Y /data/adb/lspd/log/modules_*.log").trim();
+    }
+}
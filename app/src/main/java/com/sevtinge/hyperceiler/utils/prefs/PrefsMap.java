@@ -20,38 +20,236 @@ package com.sevtinge.hyperceiler.utils.prefs;
 
 import java.util.HashMap;
 import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 public class PrefsMap<K, V> extends HashMap<K, V> {
+    private static final String PREFIX = "prefs_key_";
+
+    // 短 key -> 完整 key，避免每次读取都拼接字符串
+    private final ConcurrentHashMap<String, String> mKeys = new ConcurrentHashMap<>();
+    // 完整 key -> 解析后的 int，供 getStringAsInt 复用
+    private final ConcurrentHashMap<String, Integer> mParsedInts = new ConcurrentHashMap<>();
+    // 每次写入递增，Pref 句柄据此判断缓存是否过期
+    private volatile int mVersion = 0;
+
+    private String fullKey(String key) {
+        String full = mKeys.get(key);
+        if (full == null) {
+            full = PREFIX + key;
+            mKeys.put(key, full);
+        }
+        return full;
+    }
+
+    // 先递增版本再清空，读取方据此发现并撤销与写入交错的旧值
+    private void onChanged() {
+        mVersion++;
+        mParsedInts.clear();
+    }
+
+    @Override
+    public V put(K key, V value) {
+        V old = super.put(key, value);
+        onChanged();
+        return old;
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> m) {
+        super.putAll(m);
+        onChanged();
+    }
+
+    @Override
+    public V remove(Object key) {
+        V old = super.remove(key);
+        onChanged();
+        return old;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        onChanged();
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        V old = super.putIfAbsent(key, value);
+        onChanged();
+        return old;
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        boolean removed = super.remove(key, value);
+        if (removed) onChanged();
+        return removed;
+    }
+
+    @Override
+    public V replace(K key, V value) {
+        V old = super.replace(key, value);
+        onChanged();
+        return old;
+    }
+
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        boolean replaced = super.replace(key, oldValue, newValue);
+        if (replaced) onChanged();
+        return replaced;
+    }
+
+    @Override
+    public void replaceAll(BiFunction<? super K, ? super V, ? extends V> function) {
+        super.replaceAll(function);
+        onChanged();
+    }
+
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        V value = super.computeIfAbsent(key, mappingFunction);
+        onChanged();
+        return value;
+    }
+
+    @Override
+    public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        V value = super.computeIfPresent(key, remappingFunction);
+        onChanged();
+        return value;
+    }
+
+    @Override
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        V value = super.compute(key, remappingFunction);
+        onChanged();
+        return value;
+    }
+
+    @Override
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        V merged = super.merge(key, value, remappingFunction);
+        onChanged();
+        return merged;
+    }
+
+    /**
+     * 当前版本号，每次写入后递增，可用于判断基于偏好编译的缓存是否过期。
+     */
+    public int getVersion() {
+        return mVersion;
+    }
 
     public Object getObject(String key, Object defValue) {
         return get(key) == null ? defValue : get(key);
     }
 
     public int getInt(String key, int defValue) {
-        key = "prefs_key_" + key;
-        return get(key) == null ? defValue : (Integer) get(key);
+        Object value = get(fullKey(key));
+        return value == null ? defValue : (Integer) value;
     }
 
     public String getString(String key, String defValue) {
-        key = "prefs_key_" + key;
-        return get(key) == null ? defValue : (String) get(key);
+        Object value = get(fullKey(key));
+        return value == null ? defValue : (String) value;
     }
 
     public int getStringAsInt(String key, int defValue) {
-        key = "prefs_key_" + key;
-        return get(key) == null ? defValue : Integer.parseInt((String) get(key));
+        key = fullKey(key);
+        Integer parsed = mParsedInts.get(key);
+        if (parsed != null) return parsed;
+        int version = mVersion;
+        Object value = get(key);
+        if (value == null) return defValue;
+        parsed = Integer.parseInt((String) value);
+        mParsedInts.put(key, parsed);
+        // 解析期间发生了写入，缓存的可能是旧值
+        if (mVersion != version) mParsedInts.remove(key, parsed);
+        return parsed;
     }
 
     @SuppressWarnings("unchecked")
     public Set<String> getStringSet(String key) {
-        key = "prefs_key_" + key;
-        return get(key) == null ? new LinkedHashSet<>() : (Set<String>) get(key);
+        Object value = get(fullKey(key));
+        return value == null ? new LinkedHashSet<>() : (Set<String>) value;
     }
 
     public boolean getBoolean(String key) {
-        key = "prefs_key_" + key;
-        return get(key) != null && (Boolean) get(key);
+        Object value = get(fullKey(key));
+        return value != null && (Boolean) value;
     }
 
+    /**
+     * 获取一个偏好句柄，适合在钩子回调中反复读取的场景。
+     * <p>
+     * 句柄在首次读取时解析并缓存值，之后的读取不产生分配；
+     * 偏好被修改（如 PrefsChangeObserver 自动应用变更）后会自动重新解析。
+     */
+    public Pref pref(String key) {
+        return new Pref(this, fullKey(key));
+    }
+
+    public static final class Pref {
+        private final PrefsMap<?, ?> mMap;
+        private final String mKey;
+        private volatile int mVersion = -1;
+        private Object mValue;
+        private int mInt;
+        private boolean mHasInt;
+        private boolean mBoolean;
+
+        private Pref(PrefsMap<?, ?> map, String key) {
+            mMap = map;
+            mKey = key;
+        }
+
+        private boolean isStale() {
+            return mVersion != mMap.mVersion;
+        }
+
+        private void refresh() {
+            int version = mMap.mVersion;
+            Object value = mMap.get(mKey);
+            mValue = value;
+            mBoolean = value instanceof Boolean b && b;
+            mHasInt = false;
+            if (value instanceof Integer i) {
+                mInt = i;
+                mHasInt = true;
+            } else if (value instanceof String str) {
+                try {
+                    mInt = Integer.parseInt(str);
+                    mHasInt = true;
+                } catch (NumberFormatException ignore) {
+                }
+            }
+            mVersion = version;
+        }
+
+        public boolean getBoolean() {
+            if (isStale()) refresh();
+            return mBoolean;
+        }
+
+        public int getInt(int defValue) {
+            if (isStale()) refresh();
+            return mValue instanceof Integer && mHasInt ? mInt : defValue;
+        }
+
+        public int getStringAsInt(int defValue) {
+            if (isStale()) refresh();
+            return mValue instanceof String && mHasInt ? mInt : defValue;
+        }
+
+        public String getString(String defValue) {
+            if (isStale()) refresh();
+            return mValue instanceof String str ? str : defValue;
+        }
+    }
 }
@@ -108,10 +108,13 @@ public class SearchHelper {
     public static final String ANDROID_NS = "http://schemas.android.com/apk/res/android";
     public static final String APP_NS = "http://schemas.android.com/apk/res-auto";
 
-    public static void getAllMods(Context context, boolean force) {
+    private static volatile SearchIndex sIndex;
+
+    public static synchronized void getAllMods(Context context, boolean force) {
         if (force) {
             allModsList.clear();
         } else if (!allModsList.isEmpty()) {
+            if (sIndex == null) sIndex = SearchIndex.build(allModsList);
             return;
         }
 
@@ -332,6 +335,20 @@ public class SearchHelper {
         // 实验性
         parsePrefXmlForDashboardFragment(context, R.xml.theme_manager);
         parsePrefXml(context, PersonalAssistantFragment.class, R.xml.personal_assistant);
+
+        sIndex = SearchIndex.build(allModsList);
+    }
+
+    /**
+     * 获取搜索索引，功能列表仍在加载时等待加载完成。
+     */
+    public static SearchIndex getIndex() {
+        SearchIndex index = sIndex;
+        if (index != null) return index;
+        synchronized (SearchHelper.class) {
+            if (sIndex == null) sIndex = SearchIndex.build(allModsList);
+            return sIndex;
+        }
     }
 
     private static void parsePrefXmlForDashboardFragment(Context context, int xmlResId, int... internalId) {
@@ -0,0 +1,301 @@
+/*
+ * This file is part of HyperCeiler.
+
+ * HyperCeiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ * Copyright (C) 2023-2025 HyperCeiler Contributions
+ */
+package com.sevtinge.hyperceiler.utils.search;
+
+import android.icu.text.Transliterator;
+import android.util.SparseArray;
+
+import androidx.annotation.Nullable;
+
+import com.sevtinge.hyperceiler.data.ModData;
+import com.sevtinge.hyperceiler.utils.log.AndroidLogUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * 功能搜索的索引，在 {@link SearchHelper#getAllMods} 完成后构建一次。
+ * <p>
+ * 标题预先转为小写，并为每个字符建立倒排表（按功能下标升序），
+ * 含汉字的标题额外记录拼音首字母。结果的排序依据在构建时预先算好，
+ * 查询只需取倒排表并校验，输入在上次查询基础上追加时只在上次结果中缩小范围。
+ * <p>
+ * 同一个 key 出现在多个页面时只保留第一项，与原先按 key 去重的结果一致。
+ * 与原先一样只匹配标题，面包屑和 key 仅参与排序与新功能判断，不进入倒排表。
+ */
+public final class SearchIndex {
+    private static final String TAG = "SearchIndex";
+
+    // 整串命中与拼音首字母命中的加分，远大于单字命中数
+    private static final int SCORE_SUBSTRING = 1000;
+    private static final int SCORE_INITIALS = 500;
+
+    private final ModData[] mMods;
+    private final String[] mTitles;
+    @Nullable
+    private final String[] mInitials;
+    // 按面包屑、标题排序后的名次
+    private final int[] mAlphaRank;
+    private final SparseArray<int[]> mPostings = new SparseArray<>();
+    private final int[] mNewMods;
+
+    private SearchIndex(List<ModData> mods) {
+        mMods = distinctByKey(mods);
+        int size = mMods.length;
+        mTitles = new String[size];
+        String[] initials = null;
+        Transliterator transliterator = null;
+
+        SparseArray<int[]> counts = new SparseArray<>();
+        ArrayList<Integer> newMods = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            ModData mod = mMods[i];
+            String title = mod.title.toLowerCase();
+            mTitles[i] = title;
+            if (SearchHelper.NEW_MODS.contains(mod.key)) newMods.add(i);
+
+            if (containsHan(title)) {
+                if (transliterator == null) {
+                    transliterator = Transliterator.getInstance("Han-Latin; Latin-ASCII; Lower");
+                    initials = new String[size];
+                }
+                initials[i] = toInitials(transliterator.transliterate(title));
+            }
+
+            for (int j = 0; j < title.length(); j++) {
+                char ch = title.charAt(j);
+                if (title.indexOf(ch) != j) continue;
+                int[] count = counts.get(ch);
+                if (count == null) counts.put(ch, count = new int[1]);
+                count[0]++;
+            }
+        }
+        mInitials = initials;
+
+        // 倒排表
+        for (int i = 0; i < counts.size(); i++) {
+            mPostings.put(counts.keyAt(i), new int[counts.valueAt(i)[0]]);
+            counts.valueAt(i)[0] = 0;
+        }
+        for (int i = 0; i < size; i++) {
+            String title = mTitles[i];
+            for (int j = 0; j < title.length(); j++) {
+                char ch = title.charAt(j);
+                if (title.indexOf(ch) != j) continue;
+                int[] count = counts.get(ch);
+                mPostings.get(ch)[count[0]++] = i;
+            }
+        }
+
+        mNewMods = new int[newMods.size()];
+        for (int i = 0; i < mNewMods.length; i++) mNewMods[i] = newMods.get(i);
+
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) order[i] = i;
+        Arrays.sort(order, Comparator.<Integer, String>comparing(i -> nonNull(mMods[i].breadcrumbs), String.CASE_INSENSITIVE_ORDER)
+            .thenComparing(i -> mMods[i].title, String.CASE_INSENSITIVE_ORDER));
+        mAlphaRank = new int[size];
+        for (int i = 0; i < size; i++) mAlphaRank[order[i]] = i;
+    }
+
+    public static SearchIndex build(List<ModData> mods) {
+        long start = System.nanoTime();
+        SearchIndex index = new SearchIndex(mods);
+        AndroidLogUtils.logI(TAG, "built index for " + index.size() + " mods in "
+            + (System.nanoTime() - start) / 1000000 + "ms, " + index.mPostings.size() + " chars");
+        return index;
+    }
+
+    private static ModData[] distinctByKey(List<ModData> mods) {
+        ArrayList<ModData> distinct = new ArrayList<>(mods.size());
+        HashSet<String> keys = new HashSet<>();
+        for (ModData mod : mods) {
+            if (mod.key == null || keys.add(mod.key)) distinct.add(mod);
+        }
+        return distinct.toArray(new ModData[0]);
+    }
+
+    public int size() {
+        return mMods.length;
+    }
+
+    /**
+     * 查询结果，传回 {@link #search} 用于下一次输入时缩小范围。
+     */
+    public static final class Result {
+        private final SearchIndex mIndex;
+        private final String mQuery;
+        private final boolean isAnyChar;
+        private final int[] mIds;
+        // 拼音首字母命中的功能，追加输入时在其中缩小范围
+        private final int[] mInitialIds;
+        public final List<ModData> mods;
+
+        private Result(SearchIndex index, String query, boolean anyChar, int[] ids, int[] initialIds) {
+            mIndex = index;
+            mQuery = query;
+            isAnyChar = anyChar;
+            mIds = ids;
+            mInitialIds = initialIds;
+            ArrayList<ModData> mods = new ArrayList<>(ids.length);
+            for (int id : ids) mods.add(index.mMods[id]);
+            this.mods = mods;
+        }
+    }
+
+    /**
+     * @param query    已转为小写的输入
+     * @param anyChar  为 true 时命中输入中任意一个字符即可（中文环境），
+     *                 按命中程度排序；否则要求标题包含整个输入，按面包屑、标题排序
+     * @param previous 上一次的结果，可为 null
+     */
+    public Result search(String query, boolean anyChar, @Nullable Result previous) {
+        if (previous != null && (previous.mIndex != this || previous.isAnyChar != anyChar
+            || !query.contains(previous.mQuery))) {
+            previous = null;
+        }
+
+        if (SearchHelper.NEW_MODS_SEARCH_QUERY.equals(query)) {
+            int[] ids = mNewMods.clone();
+            if (!anyChar) sortByAlpha(ids);
+            return new Result(this, query, anyChar, ids, new int[0]);
+        }
+        return anyChar ? searchAnyChar(query, previous) : searchSubstring(query, previous);
+    }
+
+    private Result searchSubstring(String query, @Nullable Result previous) {
+        int[] candidates = null;
+        if (previous != null) candidates = previous.mIds;
+        for (int i = 0; i < query.length(); i++) {
+            int[] posting = mPostings.get(query.charAt(i));
+            if (posting == null) return new Result(this, query, false, new int[0], new int[0]);
+            if (candidates == null || posting.length < candidates.length) candidates = posting;
+        }
+        if (candidates == null) {
+            // 空输入匹配全部
+            candidates = new int[mMods.length];
+            for (int i = 0; i < candidates.length; i++) candidates[i] = i;
+        }
+
+        int[] ids = new int[candidates.length];
+        int count = 0;
+        for (int id : candidates) {
+            if (mTitles[id].contains(query)) ids[count++] = id;
+        }
+        ids = Arrays.copyOf(ids, count);
+        sortByAlpha(ids);
+        return new Result(this, query, false, ids, new int[0]);
+    }
+
+    private Result searchAnyChar(String query, @Nullable Result previous) {
+        int size = mMods.length;
+        int[] scores = new int[size];
+        for (int i = 0; i < query.length(); i++) {
+            char ch = query.charAt(i);
+            if (query.indexOf(ch) != i) continue;
+            int[] posting = mPostings.get(ch);
+            if (posting == null) continue;
+            for (int id : posting) scores[id]++;
+        }
+
+        // 拼音首字母
+        int[] initialIds = new int[0];
+        if (mInitials != null && isAscii(query)) {
+            int[] matched = new int[size];
+            int count = 0;
+            if (previous != null) {
+                for (int id : previous.mInitialIds) {
+                    if (mInitials[id].contains(query)) matched[count++] = id;
+                }
+            } else {
+                for (int id = 0; id < size; id++) {
+                    if (mInitials[id] != null && mInitials[id].contains(query)) matched[count++] = id;
+                }
+            }
+            initialIds = Arrays.copyOf(matched, count);
+            for (int id : initialIds) scores[id] += SCORE_INITIALS;
+        }
+
+        int count = 0;
+        for (int id = 0; id < size; id++) {
+            if (scores[id] == 0) continue;
+            if (query.length() > 1 && mTitles[id].contains(query)) scores[id] += SCORE_SUBSTRING;
+            count++;
+        }
+
+        // 分数高的在前，同分保持原有顺序
+        Integer[] order = new Integer[count];
+        count = 0;
+        for (int id = 0; id < size; id++) {
+            if (scores[id] != 0) order[count++] = id;
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(scores[b], scores[a]));
+        int[] ids = new int[order.length];
+        for (int i = 0; i < ids.length; i++) ids[i] = order[i];
+        return new Result(this, query, true, ids, initialIds);
+    }
+
+    private void sortByAlpha(int[] ids) {
+        // 名次唯一，按名次做计数排序即可
+        int[] byRank = new int[mMods.length];
+        Arrays.fill(byRank, -1);
+        for (int id : ids) byRank[mAlphaRank[id]] = id;
+        int count = 0;
+        for (int id : byRank) {
+            if (id >= 0) ids[count++] = id;
+        }
+    }
+
+    private static boolean containsHan(String str) {
+        for (int i = 0; i < str.length(); i++) {
+            if (Character.UnicodeScript.of(str.charAt(i)) == Character.UnicodeScript.HAN) return true;
+        }
+        return false;
+    }
+
+    private static boolean isAscii(String str) {
+        for (int i = 0; i < str.length(); i++) {
+            if (str.charAt(i) > 0x7f) return false;
+        }
+        return !str.isEmpty();
+    }
+
+    // "kong zhi zhong xin" -> "kzzx"，非字母数字的字符作为分隔
+    private static String toInitials(String latin) {
+        StringBuilder builder = new StringBuilder();
+        boolean isStart = true;
+        for (int i = 0; i < latin.length(); i++) {
+            char ch = latin.charAt(i);
+            if (Character.isLetterOrDigit(ch)) {
+                if (isStart) builder.append(ch);
+                isStart = false;
+            } else {
+                isStart = true;
+            }
+        }
+        return builder.toString();
+    }
+
+    private static String nonNull(String str) {
+        return str == null ? "" : str;
+    }
+}
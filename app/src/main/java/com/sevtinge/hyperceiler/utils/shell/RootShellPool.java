@@ -0,0 +1,401 @@
+/*
+ * This file is part of HyperCeiler.
+
+ * HyperCeiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ * Copyright (C) 2023-2025 HyperCeiler Contributions
+ */
+package com.sevtinge.hyperceiler.utils.shell;
+
+import androidx.annotation.NonNull;
+
+import com.sevtinge.hyperceiler.utils.log.AndroidLogUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 常驻的 root shell 池，替代每条命令都重新启动一次 su。
+ * <p>
+ * 命令进入同一个队列，由最多 {@link #MAX_SESSIONS} 个常驻 su 会话取出执行；
+ * 每个会话一次取出队列中已有的多条命令，一起写入后再依次读取结果。
+ * 每条命令在独立的子 shell 中运行，执行完后输出带有随机标记的结束行，
+ * 据此切分输出与返回值，并发调用之间不会互相串行。
+ * 会话空闲 {@link #IDLE_TIMEOUT_MS} 后自动退出，下次使用时再启动。
+ * 单条命令超过 {@link #COMMAND_TIMEOUT_MS} 仍未结束时，看门狗会结束整个会话，
+ * 该命令与同批中尚未完成的命令均以失败返回。
+ * <p>
+ * 命令会被拼接进会话的输入中，不要提交未经检查的任意输入（如用户手动输入的命令），
+ * 未闭合的引号、heredoc 等会吞掉结束标记，只能等待超时。
+ * <p>
+ * 与 {@link ShellInit} 不同，本类也可以在 Hook 代码内使用。
+ */
+public final class RootShellPool {
+    private static final String TAG = "RootShellPool";
+    private static final int MAX_SESSIONS = 2;
+    private static final int MAX_BATCH = 16;
+    private static final long IDLE_TIMEOUT_MS = 30_000;
+    public static final long COMMAND_TIMEOUT_MS = 30_000;
+
+    private static volatile RootShellPool sInstance;
+
+    private final BlockingQueue<Task> mQueue = new LinkedBlockingQueue<>();
+    private final Object mLock = new Object();
+    private final ScheduledExecutorService mWatchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, TAG + "-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private int mWorkers;
+    private int mIdleWorkers;
+
+    // 统计
+    private final AtomicInteger mSpawnCount = new AtomicInteger();
+    private final AtomicInteger mCommandCount = new AtomicInteger();
+    private final AtomicInteger mBatchCount = new AtomicInteger();
+    private final AtomicLong mTotalLatency = new AtomicLong();
+    private final AtomicLong mMaxLatency = new AtomicLong();
+
+    private RootShellPool() {
+    }
+
+    public static RootShellPool getInstance() {
+        if (sInstance == null) {
+            synchronized (RootShellPool.class) {
+                if (sInstance == null) sInstance = new RootShellPool();
+            }
+        }
+        return sInstance;
+    }
+
+    /**
+     * 提交一条命令。
+     *
+     * @param mergeError 是否将错误输出合并到标准输出
+     */
+    public CompletableFuture<Result> submit(String command, boolean mergeError) {
+        Task task = new Task(command, mergeError);
+        enqueue(List.of(task));
+        return task.mFuture;
+    }
+
+    /**
+     * 一次提交多条互不依赖的命令，它们会尽量在同一次写入中发送。
+     */
+    public List<CompletableFuture<Result>> submitAll(List<String> commands, boolean mergeError) {
+        ArrayList<Task> tasks = new ArrayList<>(commands.size());
+        ArrayList<CompletableFuture<Result>> futures = new ArrayList<>(commands.size());
+        for (String command : commands) {
+            Task task = new Task(command, mergeError);
+            tasks.add(task);
+            futures.add(task.mFuture);
+        }
+        enqueue(tasks);
+        return futures;
+    }
+
+    private void enqueue(List<Task> tasks) {
+        synchronized (mLock) {
+            mQueue.addAll(tasks);
+            // 没有空闲会话时再开一个
+            if (mIdleWorkers < tasks.size() && mWorkers < MAX_SESSIONS) {
+                mWorkers++;
+                Thread thread = new Thread(this::workerLoop, TAG);
+                thread.setDaemon(true);
+                thread.start();
+            }
+        }
+    }
+
+    @NonNull
+    public String getStats() {
+        int commands = mCommandCount.get();
+        return "spawn=" + mSpawnCount.get() +
+            ", commands=" + commands +
+            ", batches=" + mBatchCount.get() +
+            ", avgLatency=" + (commands == 0 ? 0 : mTotalLatency.get() / commands / 1000000) + "ms" +
+            ", maxLatency=" + mMaxLatency.get() / 1000000 + "ms";
+    }
+
+    private void workerLoop() {
+        Session session = null;
+        ArrayList<Task> batch = new ArrayList<>(MAX_BATCH);
+        try {
+            while (true) {
+                Task first;
+                synchronized (mLock) {
+                    mIdleWorkers++;
+                }
+                try {
+                    first = mQueue.poll(IDLE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    first = null;
+                }
+                synchronized (mLock) {
+                    mIdleWorkers--;
+                    if (first == null) {
+                        // 再次确认，避免刚入队的命令无人处理
+                        first = mQueue.poll();
+                        if (first == null) {
+                            mWorkers--;
+                            return;
+                        }
+                    }
+                }
+                batch.clear();
+                batch.add(first);
+                mQueue.drainTo(batch, MAX_BATCH - 1);
+                // 调用方已放弃等待的命令不再执行
+                batch.removeIf(task -> task.mFuture.isDone());
+                if (batch.isEmpty()) continue;
+
+                if (session == null || !session.isAlive()) {
+                    if (session != null) session.close();
+                    session = Session.start(this);
+                }
+                mBatchCount.incrementAndGet();
+                if (session == null) {
+                    for (Task task : batch) task.mFuture.complete(new Result(-1, "", "", new IOException("Unable to start su")));
+                    continue;
+                }
+                if (!session.run(batch, this)) {
+                    session.close();
+                    session = null;
+                }
+            }
+        } finally {
+            if (session != null) session.close();
+            AndroidLogUtils.logI(TAG, "worker exit, " + getStats());
+        }
+    }
+
+    private void record(long latency) {
+        mCommandCount.incrementAndGet();
+        mTotalLatency.addAndGet(latency);
+        long max;
+        do {
+            max = mMaxLatency.get();
+        } while (latency > max && !mMaxLatency.compareAndSet(max, latency));
+    }
+
+    /**
+     * 命令结果。
+     */
+    public static final class Result {
+        public final int result;
+        public final String output;
+        public final String error;
+        public final Throwable exception;
+
+        Result(int result, String output, String error, Throwable exception) {
+            this.result = result;
+            this.output = output;
+            this.error = error;
+            this.exception = exception;
+        }
+    }
+
+    private static final class Task {
+        final String mCommand;
+        final boolean isMergeError;
+        final CompletableFuture<Result> mFuture = new CompletableFuture<>();
+        final long mQueuedAt = System.nanoTime();
+
+        Task(String command, boolean mergeError) {
+            mCommand = command;
+            isMergeError = mergeError;
+        }
+    }
+
+    private static final class Session {
+        private final Process mProcess;
+        private final OutputStream mInput;
+        private final BufferedReader mOutput;
+        // 错误输出由单独线程读取，避免一侧写满管道造成死锁
+        private final BlockingQueue<String> mErrors = new LinkedBlockingQueue<>();
+        private final String mMarker = "__HC_END_" + UUID.randomUUID().toString().replace("-", "");
+        private volatile boolean isErrorClosed;
+        private volatile boolean isKilled;
+
+        private Session(Process process) {
+            mProcess = process;
+            mInput = process.getOutputStream();
+            mOutput = new BufferedReader(new InputStreamReader(process.getInputStream()));
+            Thread errorPump = new Thread(this::pumpError, TAG + "-stderr");
+            errorPump.setDaemon(true);
+            errorPump.start();
+        }
+
+        static Session start(RootShellPool pool) {
+            try {
+                Process process = new ProcessBuilder("su").start();
+                pool.mSpawnCount.incrementAndGet();
+                return new Session(process);
+            } catch (IOException e) {
+                AndroidLogUtils.logE(TAG, "start su failed: ", e);
+                return null;
+            }
+        }
+
+        boolean isAlive() {
+            return mProcess.isAlive();
+        }
+
+        /**
+         * 写入整批命令后依次读取结果，会话不可再用时返回 false。
+         */
+        boolean run(List<Task> batch, RootShellPool pool) {
+            StringBuilder script = new StringBuilder();
+            for (Task task : batch) {
+                // 子 shell 隔离 cd/exit 等副作用，stdin 指向 /dev/null 防止命令读走后续输入
+                script.append("(\n").append(task.mCommand).append("\n) </dev/null");
+                if (task.isMergeError) script.append(" 2>&1");
+                script.append("\necho \"").append(mMarker).append(" $?\"\necho \"")
+                    .append(mMarker).append("\" >&2\n");
+            }
+            try {
+                // 不用 writeBytes，避免中文被截断
+                mInput.write(script.toString().getBytes(StandardCharsets.UTF_8));
+                mInput.flush();
+            } catch (IOException e) {
+                for (Task task : batch) task.mFuture.complete(new Result(-1, "", "", e));
+                return false;
+            }
+
+            for (int i = 0; i < batch.size(); i++) {
+                Task task = batch.get(i);
+                StringBuilder output = new StringBuilder();
+                ScheduledFuture<?> watchdog = pool.mWatchdog.schedule(this::kill, COMMAND_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                int result;
+                try {
+                    result = readUntilMarker(output);
+                } finally {
+                    watchdog.cancel(false);
+                }
+                if (result == Integer.MIN_VALUE) {
+                    // su 提前退出（无权限、命令内 kill 了会话、超时被看门狗结束等），保留已读到的输出
+                    Throwable exception = isKilled ? new TimeoutException("Command timed out after " + COMMAND_TIMEOUT_MS + "ms") : null;
+                    task.mFuture.complete(new Result(-1, output.toString(), drainErrors(), exception));
+                    for (int j = i + 1; j < batch.size(); j++) {
+                        batch.get(j).mFuture.complete(new Result(-1, "", "", new IOException(isKilled ? "su killed by watchdog" : "su exited")));
+                    }
+                    return false;
+                }
+                String error = "";
+                try {
+                    // 错误输出已结束时不再等待
+                    error = isErrorClosed ? mErrors.poll() : mErrors.poll(5, TimeUnit.SECONDS);
+                    if (error == null) error = "";
+                } catch (InterruptedException ignore) {
+                }
+                pool.record(System.nanoTime() - task.mQueuedAt);
+                task.mFuture.complete(new Result(result, output.toString(), error, null));
+            }
+            return true;
+        }
+
+        private int readUntilMarker(StringBuilder output) {
+            try {
+                String line;
+                while ((line = mOutput.readLine()) != null) {
+                    int index = line.indexOf(mMarker);
+                    if (index < 0) {
+                        output.append(line).append("\n");
+                        continue;
+                    }
+                    // 命令最后一行没有换行时标记会接在同一行
+                    if (index > 0) output.append(line, 0, index).append("\n");
+                    try {
+                        return Integer.parseInt(line.substring(index + mMarker.length()).trim());
+                    } catch (NumberFormatException e) {
+                        return -1;
+                    }
+                }
+            } catch (IOException e) {
+                AndroidLogUtils.logW(TAG, "read output failed: ", e);
+            }
+            return Integer.MIN_VALUE;
+        }
+
+        // 由看门狗线程调用，结束进程后阻塞的读取会返回
+        private void kill() {
+            isKilled = true;
+            AndroidLogUtils.logW(TAG, "command timed out, killing su session");
+            mProcess.destroyForcibly();
+        }
+
+        private void pumpError() {
+            StringBuilder error = new StringBuilder();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(mProcess.getErrorStream()))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    int index = line.indexOf(mMarker);
+                    if (index < 0) {
+                        error.append(line).append("\n");
+                        continue;
+                    }
+                    if (index > 0) error.append(line, 0, index).append("\n");
+                    mErrors.add(error.toString());
+                    error.setLength(0);
+                }
+            } catch (IOException ignore) {
+            }
+            if (error.length() > 0) mErrors.add(error.toString());
+            isErrorClosed = true;
+        }
+
+        private String drainErrors() {
+            StringBuilder builder = new StringBuilder();
+            String error;
+            while ((error = mErrors.poll()) != null) builder.append(error);
+            return builder.toString();
+        }
+
+        void close() {
+            try {
+                if (mProcess.isAlive()) {
+                    mInput.write("exit\n".getBytes());
+                    mInput.flush();
+                }
+            } catch (IOException ignore) {
+            }
+            try {
+                if (!mProcess.waitFor(1, TimeUnit.SECONDS)) mProcess.destroy();
+            } catch (InterruptedException e) {
+                mProcess.destroy();
+            }
+            try {
+                mInput.close();
+                mOutput.close();
+            } catch (IOException ignore) {
+            }
+        }
+    }
+}
@@ -25,13 +25,23 @@ import androidx.annotation.NonNull;
 import com.sevtinge.hyperceiler.utils.log.AndroidLogUtils;
 
 import java.io.BufferedReader;
-import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public class ShellUtils {
+    private static final String NSENTER = "nsenter --mount=/proc/1/ns/mnt -- ";
+    // 大于 RootShellPool 单条命令的时限，留出排队的时间
+    private static final long ROOT_TIMEOUT_MS = 2 * RootShellPool.COMMAND_TIMEOUT_MS;
+
     /**
      * check whether has root permission
      *
@@ -153,6 +163,10 @@ public class ShellUtils {
             return new CommandResult(result, null, null);
         }
 
+        if (isRoot) {
+            return execRootCommand(commands, isNeedResultMsg);
+        }
+
         Process process = null;
         BufferedReader successResult = null;
         BufferedReader errorResult = null;
@@ -167,7 +181,7 @@ public class ShellUtils {
             //         return new CommandResult(exitCode, null, null);
             //     }
             // }
-            process = Runtime.getRuntime().exec(isRoot ? "su" : "sh");
+            process = Runtime.getRuntime().exec("sh");
             os = new DataOutputStream(process.getOutputStream());
             for (String command : commands) {
                 if (command == null) {
@@ -223,6 +237,32 @@ public class ShellUtils {
                 : errorMsg.toString());
     }
 
+    // 多条命令在同一个子 shell 中依次执行，返回值与原先 exit 时的退出码一致
+    private static CommandResult execRootCommand(String[] commands, boolean isNeedResultMsg) {
+        StringBuilder script = new StringBuilder();
+        for (String command : commands) {
+            if (command == null) {
+                continue;
+            }
+            script.append(command).append("\n");
+        }
+        CompletableFuture<RootShellPool.Result> future = RootShellPool.getInstance().submit(script.toString(), false);
+        try {
+            RootShellPool.Result result = future.get(ROOT_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            if (result.exception != null) {
+                AndroidLogUtils.logE("execCommand", "Exception: ", result.exception);
+            }
+            if (!isNeedResultMsg) {
+                return new CommandResult(result.result, null, null);
+            }
+            return new CommandResult(result.result, result.output.replace("\n", ""), result.error.replace("\n", ""));
+        } catch (ExecutionException | InterruptedException | TimeoutException e) {
+            AndroidLogUtils.logE("execCommand", "ExecutionException | InterruptedException | TimeoutException: ", e);
+            future.cancel(false);
+            return new CommandResult(-1, null, null);
+        }
+    }
+
     /**
      * result of command
      * <ul>
@@ -270,64 +310,98 @@ public class ShellUtils {
         }
     }
 
+    /**
+     * 在 init 的挂载命名空间中以 root 执行命令，返回合并了错误输出的结果。
+     * 命令由 {@link RootShellPool} 中的常驻 su 执行，不再每次启动新进程。
+     */
     public static String rootExecCmd(String cmd) {
         if (!isSafeCommand(cmd)) return "Cannot exec this command: Dangerous operation";
-        StringBuilder result = new StringBuilder();
-        ProcessBuilder pb = new ProcessBuilder("su");
-        Process p;
-        DataOutputStream dos = null;
-        DataInputStream dis = null;
+        return toRootOutput(cmd, RootShellPool.getInstance().submit(NSENTER + cmd, true));
+    }
+
+    /**
+     * 与 {@link #rootExecCmd(String)} 相同，但每次启动单独的 su 执行，用于用户手动输入的任意命令。
+     * 未闭合的引号、heredoc 等只影响这一个进程，超时后直接结束。
+     */
+    public static String rootExecCmdOnce(String cmd) {
+        if (!isSafeCommand(cmd)) return "Cannot exec this command: Dangerous operation";
+        Process process = null;
+        StringBuilder output = new StringBuilder();
         try {
-            pb.redirectErrorStream(true);
-            p = pb.start();
-            dos = new DataOutputStream(p.getOutputStream());
-            dis = new DataInputStream(p.getInputStream());
-            dos.writeBytes("nsenter --mount=/proc/1/ns/mnt -- " + cmd + "\n");
-            dos.flush();
-            dos.writeBytes("exit\n");
-            dos.flush();
-            String line;
-            while ((line = dis.readLine()) != null) {
-                result.append(line).append("\n");
-            }
-            p.waitFor();
-        } catch (Exception e) {
-            if (!cmd.contains("nsenter") && String.valueOf(e).contains("nsenter: exec ")) {
-                return String.valueOf(e).replace("nsenter: exec ", "");
-            } else {
-                return String.valueOf(e);
-            }
-        } finally {
-            if (dos != null) {
-                try {
-                    dos.close();
-                } catch (IOException e) {
-                    if (!cmd.contains("nsenter") && String.valueOf(e).contains("nsenter: exec ")) {
-                        return String.valueOf(e).replace("nsenter: exec ", "");
-                    } else {
-                        return String.valueOf(e);
+            process = new ProcessBuilder("su").redirectErrorStream(true).start();
+            Process su = process;
+            Thread reader = new Thread(() -> {
+                try (BufferedReader in = new BufferedReader(new InputStreamReader(su.getInputStream()))) {
+                    String line;
+                    while ((line = in.readLine()) != null) {
+                        synchronized (output) {
+                            output.append(line).append("\n");
+                        }
                     }
+                } catch (IOException ignore) {
                 }
+            }, "rootExecCmdOnce");
+            reader.setDaemon(true);
+            reader.start();
+            // 写入后关闭输入，命令不完整时 shell 读到 EOF 即报错退出
+            try (OutputStream os = process.getOutputStream()) {
+                os.write((NSENTER + cmd + "\n").getBytes(StandardCharsets.UTF_8));
             }
-            if (dis != null) {
-                try {
-                    dis.close();
-                } catch (IOException e) {
-                    if (!cmd.contains("nsenter") && String.valueOf(e).contains("nsenter: exec ")) {
-                        return String.valueOf(e).replace("nsenter: exec ", "");
-                    } else {
-                        return String.valueOf(e);
-                    }
-                }
+            boolean isExited = process.waitFor(RootShellPool.COMMAND_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            if (!isExited) process.destroyForcibly();
+            reader.join(1000);
+            synchronized (output) {
+                if (!isExited) output.append("Command timed out after ").append(RootShellPool.COMMAND_TIMEOUT_MS).append("ms\n");
+                return trimRootOutput(cmd, output.toString());
+            }
+        } catch (IOException | InterruptedException e) {
+            if (process != null) process.destroyForcibly();
+            return trimRootOutput(cmd, String.valueOf(e));
+        }
+    }
+
+    /**
+     * 批量执行互不依赖的命令，只需一次往返，返回值与 {@link #rootExecCmd(String)} 一一对应。
+     */
+    public static String[] rootExecCmds(String... cmds) {
+        String[] results = new String[cmds.length];
+        ArrayList<String> safe = new ArrayList<>(cmds.length);
+        for (int i = 0; i < cmds.length; i++) {
+            if (isSafeCommand(cmds[i])) {
+                safe.add(NSENTER + cmds[i]);
+            } else {
+                results[i] = "Cannot exec this command: Dangerous operation";
             }
         }
-        if (result.length() > 0) {
-            result = new StringBuilder(result.substring(0, result.length() - 1));
+        List<CompletableFuture<RootShellPool.Result>> futures = RootShellPool.getInstance().submitAll(safe, true);
+        for (int i = 0, j = 0; i < cmds.length; i++) {
+            if (results[i] == null) results[i] = toRootOutput(cmds[i], futures.get(j++));
+        }
+        return results;
+    }
+
+    private static String toRootOutput(String cmd, CompletableFuture<RootShellPool.Result> future) {
+        String result;
+        try {
+            RootShellPool.Result shell = future.get(ROOT_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            result = shell.exception != null ? String.valueOf(shell.exception) : shell.output;
+        } catch (ExecutionException e) {
+            result = String.valueOf(e.getCause());
+        } catch (InterruptedException | TimeoutException e) {
+            future.cancel(false);
+            result = String.valueOf(e);
+        }
+        return trimRootOutput(cmd, result);
+    }
+
+    private static String trimRootOutput(String cmd, String result) {
+        if (result.endsWith("\n")) {
+            result = result.substring(0, result.length() - 1);
         }
-        if (!cmd.contains("nsenter") && result.toString().contains("nsenter: exec ")) {
-            return result.toString().replace("nsenter: exec ", "");
+        if (!cmd.contains("nsenter") && result.contains("nsenter: exec ")) {
+            return result.replace("nsenter: exec ", "");
         } else {
-            return result.toString();
+            return result;
         }
     }
 
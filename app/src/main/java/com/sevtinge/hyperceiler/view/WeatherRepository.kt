@@ -0,0 +1,155 @@
+/*
+  * This file is part of HyperCeiler.
+
+  * HyperCeiler is free software: you can redistribute it and/or modify
+  * it under the terms of the GNU Affero General Public License as
+  * published by the Free Software Foundation, either version 3 of the
+  * License.
+
+  * This program is distributed in the hope that it will be useful,
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  * GNU Affero General Public License for more details.
+
+  * You should have received a copy of the GNU Affero General Public License
+  * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+  * Copyright (C) 2023-2025 HyperCeiler Contributions
+*/
+package com.sevtinge.hyperceiler.view
+
+import android.content.Context
+import android.database.ContentObserver
+import android.database.Cursor
+import android.os.Handler
+import android.os.HandlerThread
+import android.os.Looper
+import androidx.core.net.toUri
+import com.sevtinge.hyperceiler.utils.log.AndroidLogUtils
+import java.util.concurrent.CopyOnWriteArraySet
+
+/**
+ * 进程内共享的天气数据。
+ *
+ * 所有 [WeatherView] 共用一个 ContentObserver，数据变化时在后台线程合并查询一次，
+ * 解析后的结果缓存起来，在主线程分发给所有已注册的监听者。
+ * 没有监听者时注销 Observer。
+ */
+object WeatherRepository {
+    private const val TAG = "WeatherRepository"
+    private const val QUERY_DELAY = 200L
+
+    private val weatherUri = "content://weather/weather".toUri()
+    private val listeners = CopyOnWriteArraySet<Listener>()
+    private val mainHandler = Handler(Looper.getMainLooper())
+    private val workHandler by lazy {
+        Handler(HandlerThread("HyperCeiler-weather").apply { start() }.looper)
+    }
+
+    @Volatile
+    private var source: CursorSource? = null
+    @Volatile
+    private var resolverSource: CursorSource? = null
+    private var observer: ContentObserver? = null
+    private var appContext: Context? = null
+
+    /** 最近一次解析结果，尚未查询或查询失败时为 null */
+    @Volatile
+    var snapshot: Weather? = null
+        private set
+
+    data class Weather(
+        val city: String?,
+        val description: String?,
+        val temperature: String?
+    ) {
+        fun format(showCity: Boolean): String {
+            return if (showCity) "$city $description $temperature" else "$description $temperature"
+        }
+    }
+
+    fun interface Listener {
+        /** 在主线程调用 */
+        fun onWeatherChanged(weather: Weather?)
+    }
+
+    /** 天气数据来源，便于替换为假数据 */
+    fun interface CursorSource {
+        fun query(): Cursor?
+    }
+
+    private val queryRunnable = Runnable {
+        val weather = runCatching {
+            (source ?: resolverSource)?.query()?.use { parse(it) }
+        }.onFailure {
+            AndroidLogUtils.logE(TAG, "query weather failed: ", it)
+        }.getOrNull()
+        snapshot = weather
+        mainHandler.post {
+            listeners.forEach { it.onWeatherChanged(weather) }
+        }
+    }
+
+    /**
+     * 注册监听，立即回调一次缓存的结果（如果有），并在首次注册时开始监听。
+     */
+    fun register(context: Context, listener: Listener) {
+        if (!listeners.add(listener)) return
+        synchronized(this) {
+            if (observer == null) {
+                val appContext = context.applicationContext ?: context
+                val resolver = appContext.contentResolver
+                resolverSource = CursorSource { resolver.query(weatherUri, null, null, null, null) }
+                observer = object : ContentObserver(workHandler) {
+                    override fun onChange(selfChange: Boolean) {
+                        requestUpdate()
+                    }
+                }.also { resolver.registerContentObserver(weatherUri, true, it) }
+                this.appContext = appContext
+                requestUpdate()
+                return
+            }
+        }
+        snapshot?.let { listener.onWeatherChanged(it) }
+    }
+
+    fun unregister(listener: Listener) {
+        if (!listeners.remove(listener)) return
+        synchronized(this) {
+            if (listeners.isEmpty()) {
+                observer?.let { appContext?.contentResolver?.unregisterContentObserver(it) }
+                observer = null
+                appContext = null
+                workHandler.removeCallbacks(queryRunnable)
+                // 停止监听后缓存可能过期
+                snapshot = null
+            }
+        }
+    }
+
+    /** 合并短时间内的多次变化，只查询一次 */
+    private fun requestUpdate() {
+        workHandler.removeCallbacks(queryRunnable)
+        workHandler.postDelayed(queryRunnable, QUERY_DELAY)
+    }
+
+    /**
+     * 替换数据来源，传入 null 恢复为 ContentResolver 查询。
+     */
+    fun setSource(cursorSource: CursorSource?) {
+        source = cursorSource
+    }
+
+    /**
+     * 解析天气数据，没有数据时返回 null。只依赖 [Cursor] 接口。
+     */
+    @JvmStatic
+    fun parse(cursor: Cursor): Weather? {
+        if (!cursor.moveToFirst()) return null
+        return Weather(
+            cursor.getString(cursor.getColumnIndexOrThrow("city_name")),
+            cursor.getString(cursor.getColumnIndexOrThrow("description")),
+            cursor.getString(cursor.getColumnIndexOrThrow("temperature"))
+        )
+    }
+}
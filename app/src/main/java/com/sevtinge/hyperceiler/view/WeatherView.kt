@@ -22,12 +22,7 @@ import android.annotation.SuppressLint
 import android.content.ComponentName
 import android.content.Context
 import android.content.Intent
-import android.database.ContentObserver
-import android.os.Handler
-import android.os.Message
-import android.text.TextUtils
 import android.widget.TextView
-import androidx.core.net.toUri
 import com.sevtinge.hyperceiler.module.hook.systemui.base.api.Dependency
 import com.sevtinge.hyperceiler.module.hook.systemui.base.api.MiuiStub
 import com.sevtinge.hyperceiler.utils.devicesdk.isMoreHyperOSVersion
@@ -36,60 +31,19 @@ import com.sevtinge.hyperceiler.utils.devicesdk.isMoreHyperOSVersion
 class WeatherView(context: Context?, private val showCity: Boolean) : TextView(context) {
 
     private val mContext: Context = context!!
-    private val weatherUri = "content://weather/weather".toUri()
-    private val mHandler: Handler = object : Handler(mContext.mainLooper) {
-        override fun handleMessage(message: Message) {
-            val str = message.obj as String
-            this@WeatherView.text = if (TextUtils.isEmpty(str)) " " else str
-        }
-    }
-    private val mWeatherObserver = WeatherContentObserver(mHandler)
-    private val mWeatherRunnable: WeatherRunnable
-
-    init {
-        mWeatherRunnable = WeatherRunnable()
-        context?.contentResolver?.registerContentObserver(weatherUri, true, mWeatherObserver)
-        updateWeatherInfo()
-    }
-
-    private inner class WeatherContentObserver(handler: Handler?) : ContentObserver(handler) {
-        override fun onChange(z: Boolean) {
-            updateWeatherInfo()
-        }
-    }
-
-    inner class WeatherRunnable : Runnable {
-        override fun run() {
-            var str = ""
-            mContext.contentResolver.query(weatherUri, null, null, null, null)?.use { query ->
-                if (query.moveToFirst()) {
-                    val city = query.getString(query.getColumnIndexOrThrow("city_name"))
-                    val description = query.getString(query.getColumnIndexOrThrow("description"))
-                    val temperature = query.getString(query.getColumnIndexOrThrow("temperature"))
-                    str = if (showCity) {
-                        "$city $description $temperature"
-                    } else {
-                        "$description $temperature"
-                    }
-                }
-            }
-
-            mHandler.obtainMessage().apply {
-                what = 100
-                obj = str
-                mHandler.sendMessage(this)
-            }
-        }
+    private val mWeatherListener = WeatherRepository.Listener { weather ->
+        text = weather?.format(showCity) ?: " "
     }
 
-    private fun updateWeatherInfo() {
-        mHandler.removeCallbacks(mWeatherRunnable)
-        mHandler.postDelayed(mWeatherRunnable, 200)
+    // 天气数据由 WeatherRepository 统一查询，这里只在显示时监听
+    public override fun onAttachedToWindow() {
+        super.onAttachedToWindow()
+        WeatherRepository.register(mContext, mWeatherListener)
     }
 
     public override fun onDetachedFromWindow() {
         super.onDetachedFromWindow()
-        mContext.contentResolver.unregisterContentObserver(mWeatherObserver)
+        WeatherRepository.unregister(mWeatherListener)
     }
 
     fun startWeatherApp() {
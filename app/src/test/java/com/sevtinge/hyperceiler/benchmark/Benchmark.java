@@ -0,0 +1,63 @@
+/*
+  * This file is part of HyperCeiler.
+
+  * HyperCeiler is free software: you can redistribute it and/or modify
+  * it under the terms of the GNU Affero General Public License as
+  * published by the Free Software Foundation, either version 3 of the
+  * License.
+
+  * This program is distributed in the hope that it will be useful,
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  * GNU Affero General Public License for more details.
+
+  * You should have received a copy of the GNU Affero General Public License
+  * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+  * Copyright (C) 2023-2025 HyperCeiler Contributions
+*/
+package com.sevtinge.hyperceiler.benchmark;
+
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * 简单的基准测试工具，供 test 源集中的 *Benchmark 使用。
+ * <p>
+ * 默认跳过，使用 ./gradlew testDebugUnitTest -Pbenchmark 运行；
+ * 先预热，再取多轮中最快的一轮计算每次操作的平均耗时。
+ */
+public final class Benchmark {
+    private static final int ROUNDS = 5;
+    private static volatile int sBlackhole;
+
+    private Benchmark() {
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.getBoolean("hyperceiler.benchmark");
+    }
+
+    /**
+     * @return 每次操作的平均耗时（纳秒）
+     */
+    public static double measure(String name, int iterations, Supplier<?> op) {
+        int sink = 0;
+        for (int i = 0; i < iterations; i++) {
+            if (op.get() != null) sink++;
+        }
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                // 使用返回值，防止被优化掉
+                if (op.get() != null) sink++;
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        sBlackhole = sink;
+        double nanosPerOp = (double) best / iterations;
+        System.out.printf(Locale.ROOT, "%-48s %12.1f ns/op%n", name, nanosPerOp);
+        return nanosPerOp;
+    }
+}
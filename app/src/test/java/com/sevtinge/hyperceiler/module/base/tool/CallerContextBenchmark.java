@@ -0,0 +1,99 @@
+/*
+  * This file is part of HyperCeiler.
+
+  * HyperCeiler is free software: you can redistribute it and/or modify
+  * it under the terms of the GNU Affero General Public License as
+  * published by the Free Software Foundation, either version 3 of the
+  * License.
+
+  * This program is distributed in the hope that it will be useful,
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  * GNU Affero General Public License for more details.
+
+  * You should have received a copy of the GNU Affero General Public License
+  * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+  * Copyright (C) 2023-2025 HyperCeiler Contributions
+*/
+package com.sevtinge.hyperceiler.module.base.tool;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import com.sevtinge.hyperceiler.benchmark.Benchmark;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * 对比之前每次获取完整调用栈的判断方式与 {@link CallerContext#isInside()}。
+ * 安装流程中 shouldCheckUpgradeKeySetLocked 所在的调用栈较深，这里在固定深度下测量。
+ * <p>
+ * 单元测试中无法运行 PackageManagerService 批量安装 APK；每次安装的开销差异只取决于每次判断的耗时
+ * 与调用栈深度，因此以单次判断的耗时乘以安装数量（及每次安装的判断次数）估算即可。
+ */
+public class CallerContextBenchmark {
+    private static final String METHOD = "preparePackageLI";
+    private static final int ITERATIONS = 20_000;
+    private static final int STACK_DEPTH = 60;
+
+    @Before
+    public void setUp() {
+        assumeTrue(Benchmark.isEnabled());
+    }
+
+    @Test
+    public void isInside() {
+        CallerContext tracked = new CallerContext(METHOD, true);
+        CallerContext untracked = new CallerContext(METHOD);
+        assertFalse(tracked.isInside());
+        assertFalse(untracked.isInside());
+
+        preparePackageLI(STACK_DEPTH, () -> {
+            tracked.enter();
+            try {
+                assertTrue(tracked.isInside());
+                assertTrue(untracked.isInside());
+                assertTrue(legacyStream());
+                assertTrue(legacyStackString());
+
+                Benchmark.measure("legacy getStackTrace() stream", ITERATIONS, CallerContextBenchmark::legacyStream);
+                Benchmark.measure("legacy Log.getStackTraceString", ITERATIONS, CallerContextBenchmark::legacyStackString);
+                Benchmark.measure("CallerContext.isInside (stack scan)", ITERATIONS, untracked::isInside);
+                Benchmark.measure("CallerContext.isInside (tracked)", ITERATIONS, tracked::isInside);
+            } finally {
+                tracked.exit();
+            }
+            return null;
+        });
+        assertFalse(tracked.isInside());
+    }
+
+    // 模拟目标方法及其下方的调用栈
+    private static Object preparePackageLI(int depth, Supplier<?> body) {
+        return descend(depth, body);
+    }
+
+    private static Object descend(int depth, Supplier<?> body) {
+        return depth == 0 ? body.get() : descend(depth - 1, body);
+    }
+
+    // 之前 CorePatchForR 中的实现
+    private static boolean legacyStream() {
+        return Arrays.stream(Thread.currentThread().getStackTrace()).anyMatch((o) -> METHOD.equals(o.getMethodName()));
+    }
+
+    // 之前 FlagSecure 中的实现，Log.getStackTraceString 即将异常打印为字符串
+    private static boolean legacyStackString() {
+        StringWriter writer = new StringWriter();
+        new Throwable().printStackTrace(new PrintWriter(writer));
+        return writer.toString().contains(METHOD);
+    }
+}
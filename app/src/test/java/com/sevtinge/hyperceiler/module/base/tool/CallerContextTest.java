@@ -0,0 +1,92 @@
+/*
+  * This file is part of HyperCeiler.
+
+  * HyperCeiler is free software: you can redistribute it and/or modify
+  * it under the terms of the GNU Affero General Public License as
+  * published by the Free Software Foundation, either version 3 of the
+  * License.
+
+  * This program is distributed in the hope that it will be useful,
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  * GNU Affero General Public License for more details.
+
+  * You should have received a copy of the GNU Affero General Public License
+  * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+  * Copyright (C) 2023-2025 HyperCeiler Contributions
+*/
+package com.sevtinge.hyperceiler.module.base.tool;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class CallerContextTest {
+    private static final String METHOD = "preparePackageLI";
+
+    @Test
+    public void nestedEnterExit() {
+        CallerContext context = new CallerContext(METHOD, true);
+        assertFalse(context.isInside());
+        context.enter();
+        context.enter();
+        assertTrue(context.isInside());
+        context.exit();
+        assertTrue(context.isInside());
+        context.exit();
+        assertFalse(context.isInside());
+    }
+
+    @Test
+    public void exitWithoutEnter() {
+        CallerContext context = new CallerContext(METHOD, true);
+        context.exit();
+        assertFalse(context.isInside());
+        // 多余的 exit 不能让计数变为负数，否则下一次 enter 后仍判断为不在方法内
+        context.enter();
+        assertTrue(context.isInside());
+        context.exit();
+        assertFalse(context.isInside());
+    }
+
+    @Test
+    public void depthIsPerThread() throws InterruptedException {
+        CallerContext context = new CallerContext(METHOD, true);
+        context.enter();
+        AtomicBoolean other = new AtomicBoolean(true);
+        Thread thread = new Thread(() -> other.set(context.isInside()));
+        thread.start();
+        thread.join();
+        assertFalse(other.get());
+        assertTrue(context.isInside());
+        context.exit();
+    }
+
+    @Test
+    public void untrackedFallsBackToStackScan() {
+        CallerContext context = new CallerContext(METHOD);
+        assertFalse(context.isTracking());
+        assertFalse(context.isInside());
+        assertTrue(preparePackageLI(context));
+        // 未挂钩时 enter 不影响判断
+        context.enter();
+        assertFalse(context.isInside());
+        context.exit();
+    }
+
+    @Test
+    public void trackWithoutClassesKeepsFallback() {
+        CallerContext context = new CallerContext(METHOD).track((Class<?>) null);
+        assertFalse(context.isTracking());
+        assertTrue(preparePackageLI(context));
+    }
+
+    // 名称与目标方法相同，用于在调用栈中出现
+    private static boolean preparePackageLI(CallerContext context) {
+        return context.isInside();
+    }
+}
@@ -0,0 +1,109 @@
+/*
+  * This file is part of HyperCeiler.
+
+  * HyperCeiler is free software: you can redistribute it and/or modify
+  * it under the terms of the GNU Affero General Public License as
+  * published by the Free Software Foundation, either version 3 of the
+  * License.
+
+  * This program is distributed in the hope that it will be useful,
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  * GNU Affero General Public License for more details.
+
+  * You should have received a copy of the GNU Affero General Public License
+  * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+  * Copyright (C) 2023-2025 HyperCeiler Contributions
+*/
+package com.sevtinge.hyperceiler.module.base.tool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+import com.sevtinge.hyperceiler.benchmark.Benchmark;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 每个作用域应用启动时获取宿主版本的耗时：冷解析、命中磁盘索引、命中内存缓存。
+ * <p>
+ * 单元测试中无法调用 PackageParser，冷解析以打开一个含数千条目的 APK 大小的 zip
+ * 并读取其中的 AndroidManifest.xml 近似，实际设备上的解析只会更慢。
+ */
+public class PackageVersionCacheBenchmark {
+    private static final int ENTRIES = 4_000;
+    private static final int ENTRY_SIZE = 16 * 1024;
+
+    @Rule
+    public TemporaryFolder mTemp = new TemporaryFolder();
+
+    private File mApk;
+    private File mIndex;
+    private int mParseCount;
+
+    private final PackageVersionCache.Parser mParser = (apk, size, mtime) -> {
+        mParseCount++;
+        try (ZipFile zip = new ZipFile(apk);
+             InputStream in = zip.getInputStream(zip.getEntry("AndroidManifest.xml"))) {
+            String[] manifest = new String(in.readAllBytes(), StandardCharsets.UTF_8).split("\n");
+            return new PackageVersionCache.Entry(size, mtime, Integer.parseInt(manifest[0]), manifest[1]);
+        } catch (IOException e) {
+            return null;
+        }
+    };
+
+    @Before
+    public void setUp() throws IOException {
+        assumeTrue(Benchmark.isEnabled());
+        mApk = mTemp.newFile("base.apk");
+        mIndex = new File(mTemp.getRoot(), "data/files/hyperceiler/version_index");
+        Random random = new Random(0);
+        byte[] data = new byte[ENTRY_SIZE];
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(mApk))) {
+            out.setLevel(0);
+            out.putNextEntry(new ZipEntry("AndroidManifest.xml"));
+            out.write("1500\n15.0.0".getBytes(StandardCharsets.UTF_8));
+            for (int i = 0; i < ENTRIES; i++) {
+                random.nextBytes(data);
+                out.putNextEntry(new ZipEntry("res/raw/r" + i));
+                out.write(data);
+            }
+        }
+        PackageVersionCache.clearMemory();
+    }
+
+    @After
+    public void tearDown() {
+        PackageVersionCache.clearMemory();
+    }
+
+    @Test
+    public void lookup() {
+        String sourceDir = mApk.getPath();
+        assertEquals("15.0.0", PackageVersionCache.get(sourceDir, mIndex, mParser).versionName);
+        assertEquals(1, mParseCount);
+
+        Benchmark.measure("cold parse", 20, () -> mParser.parse(mApk, mApk.length(), mApk.lastModified()));
+        Benchmark.measure("disk index hit", 2_000, () -> {
+            PackageVersionCache.clearMemory();
+            return PackageVersionCache.get(sourceDir, mIndex, mParser);
+        });
+        Benchmark.measure("memory hit", 200_000, () -> PackageVersionCache.get(sourceDir, mIndex, mParser));
+        assertEquals(1 + 20 * 6, mParseCount);
+    }
+}
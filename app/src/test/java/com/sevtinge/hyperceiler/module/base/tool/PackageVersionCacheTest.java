@@ -0,0 +1,121 @@
+/*
+  * This file is part of HyperCeiler.
+
+  * HyperCeiler is free software: you can redistribute it and/or modify
+  * it under the terms of the GNU Affero General Public License as
+  * published by the Free Software Foundation, either version 3 of the
+  * License.
+
+  * This program is distributed in the hope that it will be useful,
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  * GNU Affero General Public License for more details.
+
+  * You should have received a copy of the GNU Affero General Public License
+  * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+  * Copyright (C) 2023-2025 HyperCeiler Contributions
+*/
+package com.sevtinge.hyperceiler.module.base.tool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+public class PackageVersionCacheTest {
+    @Rule
+    public TemporaryFolder mTemp = new TemporaryFolder();
+
+    private File mApk;
+    private File mIndex;
+    private int mParseCount;
+
+    @Before
+    public void setUp() throws IOException {
+        mApk = mTemp.newFile("base.apk");
+        Files.write(mApk.toPath(), new byte[]{1, 2, 3});
+        mIndex = new File(mTemp.getRoot(), "data/files/hyperceiler/version_index");
+        PackageVersionCache.clearMemory();
+    }
+
+    @After
+    public void tearDown() {
+        PackageVersionCache.clearMemory();
+    }
+
+    private PackageVersionCache.Parser parser(int versionCode, String versionName) {
+        return (apk, size, mtime) -> {
+            mParseCount++;
+            return new PackageVersionCache.Entry(size, mtime, versionCode, versionName);
+        };
+    }
+
+    @Test
+    public void parsesOncePerProcessAndPerBoot() {
+        String sourceDir = mApk.getPath();
+        assertEquals(100, PackageVersionCache.get(sourceDir, mIndex, parser(100, "1.0")).versionCode);
+        assertEquals(100, PackageVersionCache.get(sourceDir, mIndex, parser(100, "1.0")).versionCode);
+        assertEquals(1, mParseCount);
+
+        // 新进程从磁盘索引读取
+        PackageVersionCache.clearMemory();
+        assertEquals("1.0", PackageVersionCache.get(sourceDir, mIndex, parser(100, "1.0")).versionName);
+        assertEquals(1, mParseCount);
+    }
+
+    @Test
+    public void reparsesWhenApkChanges() throws IOException {
+        String sourceDir = mApk.getPath();
+        PackageVersionCache.get(sourceDir, mIndex, parser(100, "1.0"));
+        Files.write(mApk.toPath(), new byte[]{1, 2, 3, 4});
+        assertEquals(200, PackageVersionCache.get(sourceDir, mIndex, parser(200, "2.0")).versionCode);
+        assertEquals(2, mParseCount);
+    }
+
+    @Test
+    public void failureIsCachedUntilApkChanges() throws IOException {
+        String sourceDir = mApk.getPath();
+        PackageVersionCache.Parser failing = (apk, size, mtime) -> {
+            mParseCount++;
+            return null;
+        };
+        for (int i = 0; i < 3; i++) {
+            PackageVersionCache.Entry entry = PackageVersionCache.get(sourceDir, mIndex, failing);
+            assertEquals(-1, entry.versionCode);
+            assertEquals("null", entry.versionName);
+        }
+        assertEquals(1, mParseCount);
+
+        Files.write(mApk.toPath(), new byte[]{1, 2, 3, 4});
+        assertEquals(200, PackageVersionCache.get(sourceDir, mIndex, parser(200, "2.0")).versionCode);
+        assertEquals(2, mParseCount);
+    }
+
+    @Test
+    public void nullVersionNameSurvivesIndex() {
+        String sourceDir = mApk.getPath();
+        assertNull(PackageVersionCache.get(sourceDir, mIndex, parser(7, null)).versionName);
+        PackageVersionCache.clearMemory();
+        PackageVersionCache.Entry entry = PackageVersionCache.get(sourceDir, mIndex, parser(7, "unexpected"));
+        assertNull(entry.versionName);
+        assertEquals(7, entry.versionCode);
+        assertEquals(1, mParseCount);
+    }
+
+    @Test
+    public void versionNameWithSeparatorsIsSanitizedOnlyOnDisk() {
+        String sourceDir = mApk.getPath();
+        assertEquals("1.0\tbeta", PackageVersionCache.get(sourceDir, mIndex, parser(1, "1.0\tbeta")).versionName);
+        PackageVersionCache.clearMemory();
+        assertEquals("1.0 beta", PackageVersionCache.get(sourceDir, mIndex, parser(1, "x")).versionName);
+    }
+}
@@ -0,0 +1,131 @@
+/*
+  * This file is part of HyperCeiler.
+
+  * HyperCeiler is free software: you can redistribute it and/or modify
+  * it under the terms of the GNU Affero General Public License as
+  * published by the Free Software Foundation, either version 3 of the
+  * License.
+
+  * This program is distributed in the hope that it will be useful,
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  * GNU Affero General Public License for more details.
+
+  * You should have received a copy of the GNU Affero General Public License
+  * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+  * Copyright (C) 2023-2025 HyperCeiler Contributions
+*/
+package com.sevtinge.hyperceiler.module.hook.systemframework;
+
+import static com.sevtinge.hyperceiler.utils.prefs.PrefsUtils.mPrefsMap;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.ActivityInfo;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.content.pm.ResolveInfo;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.sevtinge.hyperceiler.benchmark.Benchmark;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import de.robv.android.xposed.XposedHelpers;
+
+/**
+ * 对比之前 CleanShareMenu 每次查询拼接字符串、反射查询分身的过滤方式与 {@link MenuAppFilter#filter}。
+ * <p>
+ * 所有应用都装入 Robolectric 的 PackageManager，两种方式的 getPackageInfoAsUser 都能查到结果，
+ * 比较的是真实查询的开销而不是抛出 NameNotFoundException 的开销。
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class MenuAppFilterBenchmark {
+    private static final String KEY = "system_framework_clean_share_apps";
+    private static final int ITERATIONS = 500;
+    // 一次分享查询的结果数量
+    private static final int RESOLVED = 200;
+
+    private final Intent mIntent = new Intent(Intent.ACTION_SEND).setType("image/*");
+    private final List<ResolveInfo> mResolved = new ArrayList<>();
+    private PackageManager mPm;
+
+    @Before
+    public void setUp() {
+        assumeTrue(Benchmark.isEnabled());
+        Context context = RuntimeEnvironment.getApplication();
+        mPm = context.getPackageManager();
+
+        HashSet<String> selected = new HashSet<>();
+        for (int i = 0; i < RESOLVED; i++) {
+            String pkg = "com.example.app" + i;
+            ResolveInfo info = new ResolveInfo();
+            info.activityInfo = new ActivityInfo();
+            info.activityInfo.packageName = pkg;
+            info.activityInfo.name = pkg + ".ShareActivity";
+            mResolved.add(info);
+            PackageInfo packageInfo = new PackageInfo();
+            packageInfo.packageName = pkg;
+            shadowOf(mPm).installPackage(packageInfo);
+            // 隐藏四分之一的应用，其中一半同时隐藏分身
+            if (i % 4 == 0) selected.add(i % 8 == 0 ? pkg : pkg + "|0");
+            if (i % 8 == 0) selected.add(pkg + "|999");
+        }
+        mPrefsMap.put("prefs_key_" + KEY, selected);
+        MenuAppFilter.registerPackageReceiver(context, new Handler(Looper.getMainLooper()));
+    }
+
+    @Test
+    public void filter() {
+        MenuAppFilter filter = new MenuAppFilter(KEY, false);
+        assertEquals(legacyFilter().size(), newFilter(filter).size());
+
+        Benchmark.measure("legacy per-result strings + reflection", ITERATIONS, this::legacyFilter);
+        Benchmark.measure("MenuAppFilter.filter", ITERATIONS, () -> newFilter(filter));
+    }
+
+    private List<ResolveInfo> newFilter(MenuAppFilter filter) {
+        List<ResolveInfo> resolved = new ArrayList<>(mResolved);
+        filter.filter(resolved, mPm, MenuAppFilter.DATA_TYPE_ANY);
+        return resolved;
+    }
+
+    // 之前 CleanShareMenu 中的实现
+    private List<ResolveInfo> legacyFilter() {
+        Intent intent = (Intent) mIntent.clone();
+        if (intent.getDataString() != null && intent.getDataString().contains(":")) return null;
+        Set<String> selectedApps = mPrefsMap.getStringSet(KEY);
+        List<ResolveInfo> resolved = new ArrayList<>(mResolved);
+        Iterator<ResolveInfo> itr = resolved.iterator();
+        while (itr.hasNext()) {
+            ResolveInfo resolveInfo = itr.next();
+            boolean removeOriginal = selectedApps.contains(resolveInfo.activityInfo.packageName) || selectedApps.contains(resolveInfo.activityInfo.packageName + "|0");
+            boolean removeDual = selectedApps.contains(resolveInfo.activityInfo.packageName + "|999");
+            boolean hasDual = false;
+            try {
+                hasDual = XposedHelpers.callMethod(mPm, "getPackageInfoAsUser", resolveInfo.activityInfo.packageName, 0, 999) != null;
+            } catch (Throwable ignore) {
+            }
+            if ((removeOriginal && !hasDual) || removeOriginal && hasDual && removeDual)
+                itr.remove();
+        }
+        return resolved;
+    }
+}
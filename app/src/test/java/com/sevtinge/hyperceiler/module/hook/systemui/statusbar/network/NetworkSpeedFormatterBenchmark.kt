@@ -0,0 +1,71 @@
+/*
+ * This file is part of HyperCeiler.
+
+ * HyperCeiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ * Copyright (C) 2023-2025 HyperCeiler Contributions
+ */
+package com.sevtinge.hyperceiler.module.hook.systemui.statusbar.network
+
+import com.sevtinge.hyperceiler.benchmark.Benchmark
+import org.junit.Assume.assumeTrue
+import org.junit.Before
+import org.junit.Test
+
+/**
+ * 对比之前基于 String.format 的格式化与 [NetworkSpeedFormatter.format]，
+ * 以及每个刷新周期的完整采样与格式化开销。
+ */
+class NetworkSpeedFormatterBenchmark {
+    private val formatter = NetworkSpeedFormatter("B/s", "KM", '.')
+    private var bytes = 0L
+
+    @Before
+    fun setUp() {
+        assumeTrue(Benchmark.isEnabled())
+    }
+
+    private fun nextBytes(): Long {
+        bytes = (bytes * 31 + 12_345) and 0x3fff_ffffL
+        return bytes
+    }
+
+    @Test
+    fun format() {
+        Benchmark.measure("legacy String.format", ITERATIONS) {
+            NetworkSpeedFormatterTest.legacyFormat(nextBytes(), false)
+        }
+        Benchmark.measure("NetworkSpeedFormatter.format", ITERATIONS) {
+            formatter.format(nextBytes(), false)
+        }
+    }
+
+    @Test
+    fun sampleAndFormat() {
+        var time = 0L
+        var tx = 0L
+        var rx = 0L
+        Benchmark.measure("sample + format tx/rx", ITERATIONS) {
+            time += 4_000_000_000L
+            tx += nextBytes()
+            rx += nextBytes()
+            formatter.sample(tx, rx, time)
+            formatter.format(formatter.txSpeed, false) + formatter.format(formatter.rxSpeed, false)
+        }
+    }
+
+    companion object {
+        private const val ITERATIONS = 200_000
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * This file is part of HyperCeiler.
+
+ * HyperCeiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ * Copyright (C) 2023-2025 HyperCeiler Contributions
+ */
+package com.sevtinge.hyperceiler.module.hook.systemui.statusbar.network
+
+import org.junit.Assert.assertEquals
+import org.junit.Test
+import java.util.Locale
+
+class NetworkSpeedFormatterTest {
+    private fun formatter() = NetworkSpeedFormatter("B/s", "KM", '.')
+
+    @Test
+    fun rateScalesToOneSecond() {
+        val formatter = formatter()
+        assertEquals(1024L, formatter.rate(1024, 1_000_000_000L))
+        assertEquals(2048L, formatter.rate(1024, 500_000_000L))
+        assertEquals(512L, formatter.rate(1024, 2_000_000_000L))
+    }
+
+    @Test
+    fun rateIgnoresCounterReset() {
+        assertEquals(0L, formatter().rate(-4096, 1_000_000_000L))
+        assertEquals(0L, formatter().rate(0, 1_000_000_000L))
+    }
+
+    @Test
+    fun smoothTakesFirstSampleDirectly() {
+        assertEquals(500L, formatter().smooth(0, 500))
+    }
+
+    @Test
+    fun smoothSnapsToZeroWhenIdle() {
+        val formatter = formatter()
+        assertEquals(0L, formatter.smooth(1, 0))
+        assertEquals(0L, formatter.smooth(1_000_000, 0))
+    }
+
+    @Test
+    fun smoothAveragesAndFloors() {
+        val formatter = formatter()
+        assertEquals(150L, formatter.smooth(100, 200))
+        // 1.5 向下取整，不会卡在旧值上
+        assertEquals(1L, formatter.smooth(1, 2))
+        assertEquals(1L, formatter.smooth(2, 1))
+    }
+
+    @Test
+    fun sampleDropsToZeroOnceTrafficStops() {
+        val formatter = formatter()
+        formatter.sample(0, 0, SECOND)
+        assertEquals(0L, formatter.txSpeed)
+        formatter.sample(1000, 3000, 2 * SECOND)
+        assertEquals(1000L, formatter.txSpeed)
+        assertEquals(3000L, formatter.rxSpeed)
+        formatter.sample(1000, 3000, 3 * SECOND)
+        assertEquals(0L, formatter.txSpeed)
+        assertEquals(0L, formatter.rxSpeed)
+    }
+
+    @Test
+    fun setUnitSuffixKeepsSpeed() {
+        val formatter = formatter()
+        formatter.sample(0, 0, SECOND)
+        formatter.sample(2048, 2048, 2 * SECOND)
+        formatter.setUnitSuffix("")
+        assertEquals(2048L, formatter.txSpeed)
+        assertEquals("2.0K", formatter.format(formatter.txSpeed, false))
+    }
+
+    @Test
+    fun formatMatchesStringFormat() {
+        val formatter = formatter()
+        var bytes = 0L
+        while (bytes < 1024L * 1024 * 1024) {
+            assertEquals("bytes=$bytes", legacyFormat(bytes, false), formatter.format(bytes, false))
+            bytes = bytes * 5 / 4 + 7
+        }
+        assertEquals("1.5\nKB/s", formatter.format(1536, true))
+    }
+
+    companion object {
+        private const val SECOND = 1_000_000_000L
+
+        // 之前 NewNetworkSpeed 中的实现
+        fun legacyFormat(bytes: Long, twoLines: Boolean): String {
+            var f = bytes / 1024.0f
+            var expIndex = 0
+            if (f > 999.0f) {
+                expIndex = 1
+                f /= 1024.0f
+            }
+            val number = if (f < 100.0f) String.format(Locale.US, "%.1f", f) else String.format(Locale.US, "%.0f", f)
+            return number + (if (twoLines) "\n" else "") + String.format(Locale.US, "%sB/s", "KM"[expIndex])
+        }
+    }
+}
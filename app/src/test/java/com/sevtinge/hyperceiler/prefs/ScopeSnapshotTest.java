@@ -0,0 +1,114 @@
+/*
+  * This file is part of HyperCeiler.
+
+  * HyperCeiler is free software: you can redistribute it and/or modify
+  * it under the terms of the GNU Affero General Public License as
+  * published by the Free Software Foundation, either version 3 of the
+  * License.
+
+  * This program is distributed in the hope that it will be useful,
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  * GNU Affero General Public License for more details.
+
+  * You should have received a copy of the GNU Affero General Public License
+  * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+  * Copyright (C) 2023-2025 HyperCeiler Contributions
+*/
+package com.sevtinge.hyperceiler.prefs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteException;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+
+/**
+ * 使用与 LSPosed modules_config.db 结构相同的测试数据库验证 {@link ScopeSnapshot#load}。
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class ScopeSnapshotTest {
+    private static final String MODULE = "com.sevtinge.hyperceiler";
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+    private String mDbPath;
+
+    @Before
+    public void setUp() {
+        mDbPath = new File(mFolder.getRoot(), "modules_config.db").getPath();
+        try (SQLiteDatabase db = SQLiteDatabase.openOrCreateDatabase(mDbPath, null)) {
+            db.execSQL("CREATE TABLE modules (mid integer PRIMARY KEY AUTOINCREMENT, module_pkg_name text NOT NULL UNIQUE, apk_path text NOT NULL, enabled BOOLEAN DEFAULT 0)");
+            db.execSQL("CREATE TABLE scope (mid integer, app_pkg_name text NOT NULL, user_id integer NOT NULL, PRIMARY KEY (mid, app_pkg_name, user_id))");
+            db.execSQL("INSERT INTO modules (mid, module_pkg_name, apk_path, enabled) VALUES (1, 'org.example.other', '/data/app/other.apk', 1)");
+            db.execSQL("INSERT INTO modules (mid, module_pkg_name, apk_path, enabled) VALUES (2, '" + MODULE + "', '/data/app/base.apk', 1)");
+            // 本模块：用户 0 下 system、systemui，用户 10 下 home
+            scope(db, 2, "system", 0);
+            scope(db, 2, "com.android.systemui", 0);
+            scope(db, 2, "com.miui.home", 10);
+            // 其他模块的作用域不应混入
+            scope(db, 1, "com.android.settings", 0);
+            scope(db, 1, "com.android.phone", 10);
+        }
+    }
+
+    @Test
+    public void loadIntersectsModuleAndUserScope() {
+        ScopeSnapshot user0 = ScopeSnapshot.load(mDbPath, MODULE, 0, "v1");
+        assertTrue(user0.isLoaded());
+        // system 记为 android
+        assertTrue(user0.contains("android"));
+        assertFalse(user0.contains("system"));
+        assertTrue(user0.contains("com.android.systemui"));
+        assertFalse(user0.contains("com.miui.home"));
+        assertFalse(user0.contains("com.android.settings"));
+        assertFalse(user0.contains(null));
+
+        ScopeSnapshot user10 = ScopeSnapshot.load(mDbPath, MODULE, 10, "v1");
+        assertTrue(user10.contains("com.miui.home"));
+        assertFalse(user10.contains("com.android.systemui"));
+        assertFalse(user10.contains("com.android.phone"));
+    }
+
+    @Test
+    public void unknownModuleLoadsEmptyScope() {
+        ScopeSnapshot snapshot = ScopeSnapshot.load(mDbPath, "org.example.missing", 0, "v1");
+        assertTrue(snapshot.isLoaded());
+        assertFalse(snapshot.contains("android"));
+        assertFalse(ScopeSnapshot.EMPTY.isLoaded());
+    }
+
+    @Test
+    public void scopeChangesAreVisibleToNextLoad() {
+        assertFalse(ScopeSnapshot.load(mDbPath, MODULE, 0, "v1").contains("com.android.settings"));
+        try (SQLiteDatabase db = SQLiteDatabase.openDatabase(mDbPath, null, SQLiteDatabase.OPEN_READWRITE)) {
+            scope(db, 2, "com.android.settings", 0);
+            db.execSQL("DELETE FROM scope WHERE mid = 2 AND app_pkg_name = 'com.android.systemui'");
+        }
+        ScopeSnapshot snapshot = ScopeSnapshot.load(mDbPath, MODULE, 0, "v2");
+        assertTrue(snapshot.contains("com.android.settings"));
+        assertFalse(snapshot.contains("com.android.systemui"));
+    }
+
+    @Test(expected = SQLiteException.class)
+    public void missingDatabaseThrows() {
+        ScopeSnapshot.load(new File(mFolder.getRoot(), "missing.db").getPath(), MODULE, 0, "v1");
+    }
+
+    private static void scope(SQLiteDatabase db, int mid, String pkg, int userId) {
+        db.execSQL("INSERT INTO scope (mid, app_pkg_name, user_id) VALUES (?, ?, ?)", new Object[]{mid, pkg, userId});
+    }
+}
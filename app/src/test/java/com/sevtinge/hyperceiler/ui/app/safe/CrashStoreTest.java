@@ -0,0 +1,142 @@
+/*
+  * This file is part of HyperCeiler.
+
+  * HyperCeiler is free software: you can redistribute it and/or modify
+  * it under the terms of the GNU Affero General Public License as
+  * published by the Free Software Foundation, either version 3 of the
+  * License.
+
+  * This program is distributed in the hope that it will be useful,
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  * GNU Affero General Public License for more details.
+
+  * You should have received a copy of the GNU Affero General Public License
+  * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+  * Copyright (C) 2023-2025 HyperCeiler Contributions
+*/
+package com.sevtinge.hyperceiler.ui.app.safe;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+
+public class CrashStoreTest {
+    // 与 CrashStore 中的文件头大小一致
+    private static final int HEADER_SIZE = 16;
+
+    @Rule
+    public TemporaryFolder mTemp = new TemporaryFolder();
+
+    private File mFile;
+
+    @Before
+    public void setUp() throws IOException {
+        mFile = new File(mTemp.getRoot(), "crash_ring");
+    }
+
+    @Test
+    public void appendPastCapacityKeepsNewestRecords() throws IOException {
+        CrashStore store = new CrashStore(mFile, CrashStore.CAPACITY);
+        int total = CrashStore.CAPACITY + 20;
+        for (int i = 1; i <= total; i++) {
+            assertEquals(i, store.append(i * 1000L, 10000 + i, i, "com.example.app" + i, "java.lang.RuntimeException"));
+        }
+        assertEquals(HEADER_SIZE + (long) CrashStore.CAPACITY * CrashStore.SLOT_SIZE, mFile.length());
+
+        List<CrashStore.Record> records = new CrashStore(mFile, CrashStore.CAPACITY).readSince(0);
+        assertEquals(CrashStore.CAPACITY, records.size());
+        for (int i = 0; i < records.size(); i++) {
+            CrashStore.Record record = records.get(i);
+            long seq = total - CrashStore.CAPACITY + 1 + i;
+            assertEquals(seq, record.seq);
+            assertEquals(seq * 1000L, record.time);
+            assertEquals(10000 + seq, record.uid);
+            assertEquals(seq, record.pid);
+            assertEquals("com.example.app" + seq, record.pkg);
+            assertEquals("java.lang.RuntimeException", record.throwClassName);
+        }
+    }
+
+    @Test
+    public void corruptedSlotIsSkipped() throws IOException {
+        CrashStore store = new CrashStore(mFile, 8);
+        for (int i = 1; i <= 5; i++) store.append(i, 0, i, "pkg" + i, "cls");
+
+        // 翻转第 3 条记录中包名的一个字节，模拟写入中途被打断
+        try (RandomAccessFile file = new RandomAccessFile(mFile, "rw")) {
+            long position = HEADER_SIZE + 3L * CrashStore.SLOT_SIZE + 28;
+            file.seek(position);
+            int b = file.read();
+            file.seek(position);
+            file.write(b ^ 0xFF);
+        }
+
+        List<CrashStore.Record> records = new CrashStore(mFile, 8).readSince(0);
+        assertEquals(4, records.size());
+        for (CrashStore.Record record : records) {
+            assertTrue(record.seq != 3);
+        }
+        // 从损坏记录之前的游标读取时改为全量扫描，仍能读到之后的记录
+        List<CrashStore.Record> since = store.readSince(2);
+        assertEquals(2, since.size());
+        assertEquals(4, since.get(0).seq);
+        assertEquals(5, since.get(1).seq);
+    }
+
+    @Test
+    public void headerMismatchRebuildsFile() throws IOException {
+        CrashStore store = new CrashStore(mFile, 8);
+        for (int i = 1; i <= 3; i++) store.append(i, 0, i, "pkg" + i, "cls");
+
+        try (RandomAccessFile file = new RandomAccessFile(mFile, "rw")) {
+            file.writeInt(0xDEADBEEF);
+        }
+        assertTrue(store.readSince(0).isEmpty());
+        assertEquals(1, store.append(10, 0, 10, "pkg10", "cls"));
+        assertEquals(1, store.readSince(0).size());
+
+        // 容量不同的文件同样视为不符
+        CrashStore resized = new CrashStore(mFile, 4);
+        assertTrue(resized.readSince(0).isEmpty());
+        assertEquals(1, resized.append(20, 0, 20, "pkg20", "cls"));
+        assertEquals(HEADER_SIZE + 4L * CrashStore.SLOT_SIZE, mFile.length());
+        List<CrashStore.Record> records = resized.readSince(0);
+        assertEquals(1, records.size());
+        assertEquals("pkg20", records.get(0).pkg);
+    }
+
+    @Test
+    public void readSinceAcrossWraparound() throws IOException {
+        CrashStore store = new CrashStore(mFile, 8);
+        for (int i = 1; i <= 6; i++) store.append(i, 0, i, "pkg" + i, "cls");
+        long cursor = store.readSince(0).get(5).seq;
+        assertEquals(6, cursor);
+
+        // 写入跨过环尾，游标所在槽仍未被覆盖
+        for (int i = 7; i <= 11; i++) store.append(i, 0, i, "pkg" + i, "cls");
+        List<CrashStore.Record> records = store.readSince(cursor);
+        assertEquals(5, records.size());
+        for (int i = 0; i < records.size(); i++) {
+            assertEquals(7 + i, records.get(i).seq);
+        }
+
+        // 游标所在槽已被覆盖时回退为全量扫描，只返回仍在文件中的记录
+        for (int i = 12; i <= 20; i++) store.append(i, 0, i, "pkg" + i, "cls");
+        records = store.readSince(11);
+        assertEquals(8, records.size());
+        for (int i = 0; i < records.size(); i++) {
+            assertEquals(13 + i, records.get(i).seq);
+        }
+    }
+}
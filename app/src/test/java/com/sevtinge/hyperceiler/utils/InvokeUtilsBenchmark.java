@@ -0,0 +1,135 @@
+/*
+  * This file is part of HyperCeiler.
+
+  * HyperCeiler is free software: you can redistribute it and/or modify
+  * it under the terms of the GNU Affero General Public License as
+  * published by the Free Software Foundation, either version 3 of the
+  * License.
+
+  * This program is distributed in the hope that it will be useful,
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  * GNU Affero General Public License for more details.
+
+  * You should have received a copy of the GNU Affero General Public License
+  * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+  * Copyright (C) 2023-2025 HyperCeiler Contributions
+*/
+package com.sevtinge.hyperceiler.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+import com.sevtinge.hyperceiler.benchmark.Benchmark;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * 对比之前以拼接字符串为键的全局 HashMap 缓存与按 Class 缓存的 {@link InvokeUtils}，
+ * 以及 MethodHandle / VarHandle 的调用开销。
+ */
+public class InvokeUtilsBenchmark {
+    private static final int ITERATIONS = 500_000;
+    private static final Class<?>[] PARAMS = {int.class, int.class};
+
+    private static final HashMap<String, Method> sLegacyMethods = new HashMap<>();
+    private static final HashMap<String, Field> sLegacyFields = new HashMap<>();
+
+    private final Target mTarget = new Target();
+    private int mCounter;
+
+    @SuppressWarnings("unused")
+    private static final class Target {
+        private int mValue = 42;
+
+        private int add(int a, int b) {
+            return a + b;
+        }
+    }
+
+    @Before
+    public void setUp() {
+        assumeTrue(Benchmark.isEnabled());
+    }
+
+    @Test
+    public void callMethod() throws Throwable {
+        MethodHandle handle = InvokeUtils.getMethodHandle(Target.class, "add", PARAMS);
+        assertEquals(3, (int) legacyCallMethod(Target.class, mTarget, "add", PARAMS, 1, 2));
+        assertEquals(3, (int) InvokeUtils.<Integer>callMethod(Target.class, mTarget, "add", PARAMS, 1, 2));
+        assertEquals(3, (int) handle.invokeExact(mTarget, 1, 2));
+
+        Benchmark.measure("legacy callMethod (string key)", ITERATIONS,
+            () -> legacyCallMethod(Target.class, mTarget, "add", PARAMS, mCounter++, 1));
+        Benchmark.measure("InvokeUtils.callMethod", ITERATIONS,
+            () -> InvokeUtils.callMethod(Target.class, mTarget, "add", PARAMS, mCounter++, 1));
+        Benchmark.measure("MethodHandle.invokeExact", ITERATIONS, () -> {
+            try {
+                return (int) handle.invokeExact(mTarget, mCounter++, 1);
+            } catch (Throwable t) {
+                throw new RuntimeException(t);
+            }
+        });
+    }
+
+    @Test
+    public void getField() {
+        VarHandle handle = InvokeUtils.getVarHandle(Target.class, "mValue");
+        assertEquals(42, (int) legacyGetField(Target.class, mTarget, "mValue"));
+        assertEquals(42, (int) InvokeUtils.<Integer>getField(Target.class, mTarget, "mValue"));
+        assertEquals(42, (int) handle.get(mTarget));
+
+        Benchmark.measure("legacy getField (string key)", ITERATIONS, () -> legacyGetField(Target.class, mTarget, "mValue"));
+        Benchmark.measure("InvokeUtils.getField", ITERATIONS, () -> InvokeUtils.getField(Target.class, mTarget, "mValue"));
+        Benchmark.measure("VarHandle.get", ITERATIONS, () -> (int) handle.get(mTarget));
+    }
+
+    // 之前 InvokeUtils.baseInvokeMethod 的实现
+    @SuppressWarnings("unchecked")
+    private static <T> T legacyCallMethod(Class<?> clz, Object instance, String method, Class<?>[] param, Object... value) {
+        try {
+            Method declaredMethod = sLegacyMethods.get(clz.getName() + "." + method + Arrays.toString(param));
+            if (declaredMethod == null) {
+                try {
+                    declaredMethod = clz.getMethod(method, param);
+                } catch (NoSuchMethodException e) {
+                    declaredMethod = clz.getDeclaredMethod(method, param);
+                }
+                sLegacyMethods.put(clz.getName() + "." + declaredMethod.getName() + Arrays.toString(declaredMethod.getParameterTypes()), declaredMethod);
+            }
+            declaredMethod.setAccessible(true);
+            return (T) declaredMethod.invoke(instance, value);
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // 之前 InvokeUtils.baseInvokeField 的实现
+    @SuppressWarnings("unchecked")
+    private static <T> T legacyGetField(Class<?> clz, Object instance, String field) {
+        try {
+            Field declaredField = sLegacyFields.get(clz.getName() + "." + field);
+            if (declaredField == null) {
+                try {
+                    declaredField = clz.getField(field);
+                } catch (NoSuchFieldException e) {
+                    declaredField = clz.getDeclaredField(field);
+                }
+                sLegacyFields.put(clz.getName() + "." + declaredField.getName(), declaredField);
+            }
+            declaredField.setAccessible(true);
+            return (T) declaredField.get(instance);
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+  * This file is part of HyperCeiler.
+
+  * HyperCeiler is free software: you can redistribute it and/or modify
+  * it under the terms of the GNU Affero General Public License as
+  * published by the Free Software Foundation, either version 3 of the
+  * License.
+
+  * This program is distributed in the hope that it will be useful,
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  * GNU Affero General Public License for more details.
+
+  * You should have received a copy of the GNU Affero General Public License
+  * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+  * Copyright (C) 2023-2025 HyperCeiler Contributions
+*/
+package com.sevtinge.hyperceiler.utils.blur;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class StackBlurTest {
+
+    @Test
+    public void uniformImageIsUnchanged() {
+        int color = 0xCC3A7FE1;
+        for (int radius : new int[]{1, 5, 40, StackBlur.MAX_RADIUS}) {
+            int[] pixels = filled(17, 9, color);
+            StackBlur.blur(pixels, 17, 9, radius);
+            assertArrayEquals("radius " + radius, filled(17, 9, color), pixels);
+        }
+    }
+
+    @Test
+    public void radiusAboveMaxIsClamped() {
+        int[] clamped = randomPixels(24, 16, 1);
+        int[] huge = clamped.clone();
+        StackBlur.blur(clamped, 24, 16, StackBlur.MAX_RADIUS);
+        StackBlur.blur(huge, 24, 16, 10_000);
+        assertArrayEquals(clamped, huge);
+    }
+
+    @Test
+    public void radiusBelowOneIsNoOp() {
+        int[] pixels = randomPixels(8, 8, 2);
+        int[] expected = pixels.clone();
+        StackBlur.blur(pixels, 8, 8, 0);
+        assertArrayEquals(expected, pixels);
+    }
+
+    @Test
+    public void renderEffectRadiusIsClamped() {
+        assertEquals(1, StackBlur.fromRenderEffectRadius(0f));
+        assertEquals(StackBlur.MAX_RADIUS, StackBlur.fromRenderEffectRadius(10_000f));
+        assertEquals(Math.round((0.57735f * 60 + 0.5f) * 2.45f), StackBlur.fromRenderEffectRadius(60f));
+    }
+
+    @Test
+    public void matchesTriangleFilter() {
+        int width = 13, height = 7;
+        for (int radius : new int[]{1, 2, 6, 20}) {
+            int[] pixels = randomPixels(width, height, radius);
+            int[] expected = referenceBlur(pixels, width, height, radius);
+            StackBlur.blur(pixels, width, height, radius);
+            assertArrayEquals("radius " + radius, expected, pixels);
+        }
+    }
+
+    // 逐像素计算的三角权重模糊，边缘按最近像素延伸，每个方向各取整一次
+    private static int[] referenceBlur(int[] src, int width, int height, int radius) {
+        int[] temp = new int[src.length];
+        int[] dst = new int[src.length];
+        long weight = (long) (radius + 1) * (radius + 1);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                long[] sum = new long[4];
+                for (int i = -radius; i <= radius; i++) {
+                    accumulate(sum, src[y * width + Math.min(width - 1, Math.max(0, x + i))], radius + 1 - Math.abs(i));
+                }
+                temp[y * width + x] = pack(sum, weight);
+            }
+        }
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                long[] sum = new long[4];
+                for (int i = -radius; i <= radius; i++) {
+                    accumulate(sum, temp[Math.min(height - 1, Math.max(0, y + i)) * width + x], radius + 1 - Math.abs(i));
+                }
+                dst[y * width + x] = pack(sum, weight);
+            }
+        }
+        return dst;
+    }
+
+    private static void accumulate(long[] sum, int p, int w) {
+        sum[0] += (long) (p >>> 24) * w;
+        sum[1] += (long) ((p >> 16) & 0xff) * w;
+        sum[2] += (long) ((p >> 8) & 0xff) * w;
+        sum[3] += (long) (p & 0xff) * w;
+    }
+
+    private static int pack(long[] sum, long weight) {
+        return (int) (sum[0] / weight) << 24 | (int) (sum[1] / weight) << 16
+            | (int) (sum[2] / weight) << 8 | (int) (sum[3] / weight);
+    }
+
+    private static int[] filled(int width, int height, int color) {
+        int[] pixels = new int[width * height];
+        Arrays.fill(pixels, color);
+        return pixels;
+    }
+
+    private static int[] randomPixels(int width, int height, long seed) {
+        Random random = new Random(seed);
+        int[] pixels = new int[width * height];
+        for (int i = 0; i < pixels.length; i++) pixels[i] = random.nextInt();
+        return pixels;
+    }
+}
@@ -0,0 +1,149 @@
+/*
+  * This file is part of HyperCeiler.
+
+  * HyperCeiler is free software: you can redistribute it and/or modify
+  * it under the terms of the GNU Affero General Public License as
+  * published by the Free Software Foundation, either version 3 of the
+  * License.
+
+  * This program is distributed in the hope that it will be useful,
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  * GNU Affero General Public License for more details.
+
+  * You should have received a copy of the GNU Affero General Public License
+  * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+  * Copyright (C) 2023-2025 HyperCeiler Contributions
+*/
+package com.sevtinge.hyperceiler.utils.search;
+
+import static org.junit.Assume.assumeTrue;
+
+import com.sevtinge.hyperceiler.benchmark.Benchmark;
+import com.sevtinge.hyperceiler.data.ModData;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 对比之前 ModSearchAdapter 逐字符扫描全部功能的过滤方式与 {@link SearchIndex#search}，
+ * 模拟逐字输入时每次按键触发的一次查询。
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class SearchIndexBenchmark {
+    private static final int ITERATIONS = 2_000;
+    private static final int MODS = 1500;
+    private static final String HAN = "系统界面状态栏时钟控制中心桌面图标通知锁屏动画手势网络显示音量相机安全应用设置隐藏自定义";
+    private static final String[] WORDS = {"status", "bar", "clock", "control", "center", "home", "icon", "notification",
+        "lock", "screen", "animation", "gesture", "network", "display", "volume", "camera", "hide", "custom"};
+
+    private final List<ModData> mMods = new ArrayList<>();
+    private SearchIndex mIndex;
+
+    @Before
+    public void setUp() {
+        assumeTrue(Benchmark.isEnabled());
+        Random random = new Random(42);
+        for (int i = 0; i < MODS; i++) {
+            StringBuilder zh = new StringBuilder();
+            int length = 3 + random.nextInt(6);
+            for (int j = 0; j < length; j++) zh.append(HAN.charAt(random.nextInt(HAN.length())));
+            String en = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)];
+            String breadcrumbs = WORDS[random.nextInt(WORDS.length)];
+            mMods.add(SearchIndexTest.mod(zh.toString(), breadcrumbs, "pref_key_zh_" + i));
+            mMods.add(SearchIndexTest.mod(en, breadcrumbs, "pref_key_en_" + i));
+        }
+        mIndex = SearchIndex.build(mMods);
+    }
+
+    @Test
+    public void build() {
+        Benchmark.measure("SearchIndex.build", 5, () -> SearchIndex.build(mMods));
+    }
+
+    @Test
+    public void substring() {
+        String[] typing = {"n", "no", "not", "noti", "notif", "notifi", "notific"};
+        Benchmark.measure("legacy substring scan + sort", ITERATIONS, () -> {
+            List<ModData> last = null;
+            for (String query : typing) last = legacyFilter(query, false);
+            return last;
+        });
+        Benchmark.measure("SearchIndex substring", ITERATIONS, () -> {
+            SearchIndex.Result last = null;
+            for (String query : typing) last = mIndex.search(query, false, last);
+            return last;
+        });
+    }
+
+    @Test
+    public void anyChar() {
+        String[] typing = {"状", "状态", "状态栏", "状态栏时", "状态栏时钟"};
+        Benchmark.measure("legacy per-char scan + frequency sort", ITERATIONS, () -> {
+            List<ModData> last = null;
+            for (String query : typing) last = legacyFilter(query, true);
+            return last;
+        });
+        Benchmark.measure("SearchIndex any-char", ITERATIONS, () -> {
+            SearchIndex.Result last = null;
+            for (String query : typing) last = mIndex.search(query, true, last);
+            return last;
+        });
+    }
+
+    @Test
+    public void pinyinInitials() {
+        String[] typing = {"z", "zt", "ztl", "ztls"};
+        Benchmark.measure("SearchIndex pinyin initials", ITERATIONS, () -> {
+            SearchIndex.Result last = null;
+            for (String query : typing) last = mIndex.search(query, true, last);
+            return last;
+        });
+    }
+
+    // 之前 ModSearchAdapter.ItemFilter 与其排序的实现
+    private List<ModData> legacyFilter(String filterString, boolean isChina) {
+        ArrayList<ModData> nlist = new ArrayList<>();
+        HashMap<String, Integer> modMap = new HashMap<>();
+        if (isChina) {
+            for (int i = 0; i < filterString.length(); i++) {
+                findList(String.valueOf(filterString.charAt(i)), nlist, modMap);
+            }
+            nlist.sort((app1, app2) -> Integer.compare(frequency(filterString, app2.title), frequency(filterString, app1.title)));
+        } else {
+            findList(filterString, nlist, modMap);
+            nlist.sort((app1, app2) -> {
+                int breadcrumbs = app1.breadcrumbs.compareToIgnoreCase(app2.breadcrumbs);
+                return breadcrumbs == 0 ? app1.title.compareToIgnoreCase(app2.title) : breadcrumbs;
+            });
+        }
+        return nlist;
+    }
+
+    private void findList(String str, ArrayList<ModData> nlist, HashMap<String, Integer> modMap) {
+        for (ModData filterableData : mMods) {
+            if (filterableData.title.toLowerCase().contains(str) && modMap.get(filterableData.key) == null) {
+                nlist.add(filterableData);
+                modMap.put(filterableData.key, 0);
+            }
+        }
+    }
+
+    private static int frequency(String searchTerm, String str) {
+        int frequency = 0;
+        for (int i = 0; i < searchTerm.length(); i++) {
+            if (str.contains(String.valueOf(searchTerm.charAt(i)))) frequency++;
+        }
+        return frequency;
+    }
+}
@@ -0,0 +1,128 @@
+/*
+  * This file is part of HyperCeiler.
+
+  * HyperCeiler is free software: you can redistribute it and/or modify
+  * it under the terms of the GNU Affero General Public License as
+  * published by the Free Software Foundation, either version 3 of the
+  * License.
+
+  * This program is distributed in the hope that it will be useful,
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  * GNU Affero General Public License for more details.
+
+  * You should have received a copy of the GNU Affero General Public License
+  * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+  * Copyright (C) 2023-2025 HyperCeiler Contributions
+*/
+package com.sevtinge.hyperceiler.utils.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.sevtinge.hyperceiler.data.ModData;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class SearchIndexTest {
+    private final SearchIndex mIndex = SearchIndex.build(List.of(
+        mod("Status bar clock", "System UI", "pref_key_clock"),
+        mod("Control center", "System UI", "pref_key_control_center"),
+        mod("Clean share menu", "Framework", "pref_key_clean_share"),
+        mod("No zoom animation", "Launcher", "pref_key_launcher_nozoomanim"),
+        mod("控制中心", "系统界面", "pref_key_cn_control_center"),
+        mod("状态栏时钟", "系统界面", "pref_key_cn_clock"),
+        mod("中心图标", "桌面", "pref_key_cn_icon")
+    ));
+
+    @Test
+    public void substringMatchesWholeQueryInAlphaOrder() {
+        // 按面包屑、标题排序
+        assertEquals(List.of("Clean share menu", "Status bar clock"), titles(mIndex.search("cl", false, null)));
+        assertEquals(List.of(), titles(mIndex.search("clx", false, null)));
+        assertEquals(List.of("控制中心"), titles(mIndex.search("控制", false, null)));
+        assertEquals(mIndex.size(), mIndex.search("", false, null).mods.size());
+    }
+
+    @Test
+    public void substringNarrowsPreviousResult() {
+        SearchIndex.Result previous = null;
+        for (String query : new String[]{"c", "cl", "clo", "cloc", "clock"}) {
+            SearchIndex.Result narrowed = mIndex.search(query, false, previous);
+            assertEquals(query, titles(mIndex.search(query, false, null)), titles(narrowed));
+            previous = narrowed;
+        }
+        assertEquals(List.of("Status bar clock"), titles(previous));
+        // 删除字符后不能沿用上次结果
+        assertEquals(List.of("Clean share menu", "Status bar clock"), titles(mIndex.search("cl", false, previous)));
+    }
+
+    @Test
+    public void anyCharRanksWholeQueryFirst() {
+        List<String> titles = titles(mIndex.search("中心", true, null));
+        // 整串命中的两项在前，只命中单字的不会出现
+        assertEquals(List.of("控制中心", "中心图标"), titles.subList(0, 2));
+        assertEquals(2, titles.size());
+
+        titles = titles(mIndex.search("时心", true, null));
+        assertEquals(3, titles.size());
+        assertTrue(titles.containsAll(List.of("控制中心", "中心图标", "状态栏时钟")));
+    }
+
+    @Test
+    public void anyCharMatchesPinyinInitials() {
+        SearchIndex.Result kz = mIndex.search("kz", true, null);
+        assertEquals("控制中心", kz.mods.get(0).title);
+
+        SearchIndex.Result kzzx = mIndex.search("kzzx", true, kz);
+        assertEquals("控制中心", kzzx.mods.get(0).title);
+        assertEquals(titles(mIndex.search("kzzx", true, null)), titles(kzzx));
+
+        assertEquals("状态栏时钟", mIndex.search("ztl", true, null).mods.get(0).title);
+    }
+
+    @Test
+    public void newModsQuery() {
+        assertEquals(List.of("No zoom animation"), titles(mIndex.search(SearchHelper.NEW_MODS_SEARCH_QUERY, false, null)));
+        assertEquals(List.of("No zoom animation"), titles(mIndex.search(SearchHelper.NEW_MODS_SEARCH_QUERY, true, null)));
+    }
+
+    @Test
+    public void duplicateKeysKeepFirstEntry() {
+        SearchIndex index = SearchIndex.build(List.of(
+            mod("Downloads", "Framework", "prefs_key_downloads_ui"),
+            mod("Status bar clock", "System UI", "pref_key_clock"),
+            mod("Downloads", "Download manager", "prefs_key_downloads_ui")
+        ));
+        assertEquals(2, index.size());
+
+        SearchIndex.Result result = index.search("down", false, null);
+        assertEquals(1, result.mods.size());
+        assertEquals("Framework", result.mods.get(0).breadcrumbs);
+        List<String> titles = titles(index.search("downloads", true, null));
+        assertEquals(1, titles.stream().filter("Downloads"::equals).count());
+    }
+
+    static ModData mod(String title, String breadcrumbs, String key) {
+        ModData mod = new ModData();
+        mod.title = title;
+        mod.breadcrumbs = breadcrumbs;
+        mod.key = key;
+        return mod;
+    }
+
+    private static List<String> titles(SearchIndex.Result result) {
+        ArrayList<String> titles = new ArrayList<>();
+        for (ModData mod : result.mods) titles.add(mod.title);
+        return titles;
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * This file is part of HyperCeiler.
+
+ * HyperCeiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ * Copyright (C) 2023-2025 HyperCeiler Contributions
+ */
+package com.sevtinge.hyperceiler.view
+
+import android.database.MatrixCursor
+import android.os.Looper
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.RuntimeEnvironment
+import org.robolectric.Shadows.shadowOf
+import org.robolectric.annotation.Config
+import java.time.Duration
+
+@RunWith(RobolectricTestRunner::class)
+@Config(sdk = [34])
+class WeatherRepositoryTest {
+    private val columns = arrayOf("city_name", "description", "temperature")
+
+    @After
+    fun tearDown() {
+        WeatherRepository.setSource(null)
+    }
+
+    @Test
+    fun parseReadsFirstRow() {
+        val cursor = MatrixCursor(columns).apply {
+            addRow(arrayOf("北京", "晴", "25℃"))
+            addRow(arrayOf("上海", "多云", "22℃"))
+        }
+        val weather = WeatherRepository.parse(cursor)
+        assertEquals(WeatherRepository.Weather("北京", "晴", "25℃"), weather)
+        assertEquals("北京 晴 25℃", weather!!.format(true))
+        assertEquals("晴 25℃", weather.format(false))
+    }
+
+    @Test
+    fun parseEmptyCursorReturnsNull() {
+        assertNull(WeatherRepository.parse(MatrixCursor(columns)))
+    }
+
+    @Test
+    fun parseToleratesColumnOrderAndNulls() {
+        val cursor = MatrixCursor(arrayOf("temperature", "extra", "description", "city_name")).apply {
+            addRow(arrayOf("-3℃", 1, null, "哈尔滨"))
+        }
+        assertEquals(WeatherRepository.Weather("哈尔滨", null, "-3℃"), WeatherRepository.parse(cursor))
+    }
+
+    @Test(expected = IllegalArgumentException::class)
+    fun parseMissingColumnThrows() {
+        val cursor = MatrixCursor(arrayOf("city_name", "temperature")).apply {
+            addRow(arrayOf("北京", "25℃"))
+        }
+        WeatherRepository.parse(cursor)
+    }
+
+    @Test
+    fun registeredListenerReceivesSourceData() {
+        var queries = 0
+        WeatherRepository.setSource {
+            queries++
+            MatrixCursor(columns).apply { addRow(arrayOf("广州", "小雨", "28℃")) }
+        }
+        val received = ArrayList<WeatherRepository.Weather?>()
+        val listener = WeatherRepository.Listener { received.add(it) }
+        WeatherRepository.register(RuntimeEnvironment.getApplication(), listener)
+        try {
+            awaitMain { received.isNotEmpty() }
+            assertEquals(listOf(WeatherRepository.Weather("广州", "小雨", "28℃")), received)
+            assertEquals(WeatherRepository.snapshot, received[0])
+            assertEquals(1, queries)
+
+            // 已有缓存时新监听者立即收到结果，不再查询
+            val late = ArrayList<WeatherRepository.Weather?>()
+            val lateListener = WeatherRepository.Listener { late.add(it) }
+            WeatherRepository.register(RuntimeEnvironment.getApplication(), lateListener)
+            assertEquals(received, late)
+            assertEquals(1, queries)
+            WeatherRepository.unregister(lateListener)
+        } finally {
+            WeatherRepository.unregister(listener)
+        }
+        // 全部注销后清空缓存
+        assertNull(WeatherRepository.snapshot)
+    }
+
+    @Test
+    fun failingSourceDeliversNull() {
+        WeatherRepository.setSource { throw IllegalStateException("provider died") }
+        val received = ArrayList<WeatherRepository.Weather?>()
+        val listener = WeatherRepository.Listener { received.add(it) }
+        WeatherRepository.register(RuntimeEnvironment.getApplication(), listener)
+        try {
+            awaitMain { received.isNotEmpty() }
+            assertEquals(listOf<WeatherRepository.Weather?>(null), received)
+        } finally {
+            WeatherRepository.unregister(listener)
+        }
+    }
+
+    // 查询在后台线程延迟执行，结果再投递到主线程；Robolectric 的时钟需要手动推进
+    private fun awaitMain(condition: () -> Boolean) {
+        val deadline = System.currentTimeMillis() + 5_000
+        while (!condition()) {
+            assertTrue("timed out", System.currentTimeMillis() < deadline)
+            shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(50))
+            Thread.sleep(20)
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * This file is part of HyperCeiler.
+
+ * HyperCeiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ * Copyright (C) 2023-2025 HyperCeiler Contributions
+ */
+package com.hchen.database;
+
+import com.sun.source.tree.BlockTree;
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.IdentifierTree;
+import com.sun.source.tree.LambdaExpressionTree;
+import com.sun.source.tree.MemberSelectTree;
+import com.sun.source.tree.MethodInvocationTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.VariableTree;
+import com.sun.source.util.TreeScanner;
+import com.sun.source.util.Trees;
+
+import java.util.Set;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+
+/**
+ * 检查钩子类在构造阶段（字段初始化、构造函数、静态代码块）是否提前访问目标应用的 ClassLoader。
+ * <p>
+ * 这类钩子即使开关关闭也会在模块加载时触发类加载，应改为在 init() 中访问。
+ * 只能检查 Java 源码，Kotlin 编写的钩子不在检查范围内。
+ */
+public class EagerHookChecker {
+    private static final Set<String> HOOK_BASES = Set.of(
+            "com.sevtinge.hyperceiler.module.base.BaseHook",
+            "com.hchen.hooktool.BaseHC"
+    );
+    private static final Set<String> CLASS_LOADER_METHODS = Set.of(
+            "findClass", "findClassIfExists", "loadClass", "loadClassOrNull", "findClassIfExistsAuto"
+    );
+    private static final Set<String> CLASS_LOADER_FIELDS = Set.of(
+            "lpparam", "classLoader", "mLoadPackageParam"
+    );
+
+    private final ProcessingEnvironment mProcessingEnv;
+    private Trees mTrees;
+
+    public EagerHookChecker(ProcessingEnvironment processingEnv) {
+        mProcessingEnv = processingEnv;
+        try {
+            mTrees = Trees.instance(processingEnv);
+        } catch (Throwable e) {
+            // 非 javac 环境下无法取得语法树，跳过检查
+            mTrees = null;
+        }
+    }
+
+    public void check(RoundEnvironment roundEnv) {
+        if (mTrees == null) return;
+        for (Element element : roundEnv.getRootElements()) {
+            checkElement(element);
+        }
+    }
+
+    private void checkElement(Element element) {
+        if (!(element instanceof TypeElement typeElement)) return;
+        if (typeElement.getKind() == ElementKind.CLASS && isHook(typeElement)) {
+            ClassTree classTree = mTrees.getTree(typeElement);
+            if (classTree != null) checkClass(typeElement, classTree);
+        }
+        for (Element enclosed : typeElement.getEnclosedElements()) {
+            checkElement(enclosed);
+        }
+    }
+
+    private boolean isHook(TypeElement typeElement) {
+        TypeMirror superclass = typeElement.getSuperclass();
+        while (superclass.getKind() == TypeKind.DECLARED) {
+            TypeElement superElement = (TypeElement) ((DeclaredType) superclass).asElement();
+            if (HOOK_BASES.contains(superElement.getQualifiedName().toString())) return true;
+            superclass = superElement.getSuperclass();
+        }
+        return false;
+    }
+
+    private void checkClass(TypeElement typeElement, ClassTree classTree) {
+        for (Tree member : classTree.getMembers()) {
+            Tree target = null;
+            if (member instanceof VariableTree variableTree) {
+                target = variableTree.getInitializer();
+            } else if (member instanceof BlockTree blockTree) {
+                target = blockTree;
+            } else if (member instanceof MethodTree methodTree && methodTree.getName().contentEquals("<init>")) {
+                target = methodTree.getBody();
+            }
+            if (target == null) continue;
+
+            String usage = findClassLoaderUsage(target);
+            if (usage != null) {
+                mProcessingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                        typeElement.getQualifiedName() + " touches the target classloader during construction ("
+                                + usage + "), move it into init()", typeElement);
+            }
+        }
+    }
+
+    private String findClassLoaderUsage(Tree tree) {
+        String[] usage = new String[1];
+        new TreeScanner<Void, Void>() {
+            @Override
+            public Void visitMethodInvocation(MethodInvocationTree node, Void unused) {
+                Tree select = node.getMethodSelect();
+                String name = null;
+                if (select instanceof IdentifierTree identifierTree) {
+                    name = identifierTree.getName().toString();
+                } else if (select instanceof MemberSelectTree memberSelectTree) {
+                    name = memberSelectTree.getIdentifier().toString();
+                }
+                if (name != null && CLASS_LOADER_METHODS.contains(name) && usage[0] == null) {
+                    usage[0] = name + "()";
+                }
+                return super.visitMethodInvocation(node, unused);
+            }
+
+            @Override
+            public Void visitIdentifier(IdentifierTree node, Void unused) {
+                if (CLASS_LOADER_FIELDS.contains(node.getName().toString()) && usage[0] == null) {
+                    usage[0] = node.getName().toString();
+                }
+                return super.visitIdentifier(node, unused);
+            }
+
+            @Override
+            public Void visitClass(ClassTree node, Void unused) {
+                // 匿名内部类中的代码不会在构造时执行
+                return null;
+            }
+
+            @Override
+            public Void visitLambdaExpression(LambdaExpressionTree node, Void unused) {
+                return null;
+            }
+        }.scan(tree, null);
+        return usage[0];
+    }
+}
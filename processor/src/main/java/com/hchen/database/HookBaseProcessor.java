@@ -22,6 +22,10 @@ import com.google.auto.service.AutoService;
 
 import java.io.IOException;
 import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.function.Consumer;
 
@@ -48,6 +52,7 @@ public class HookBaseProcessor extends AbstractProcessor {
         ++count;
         if (count > 1) return true;
         delayedOutput();
+        new EagerHookChecker(processingEnv).check(roundEnv);
         try (Writer writer = processingEnv.getFiler().createSourceFile("com.sevtinge.hyperceiler.module.base.DataBase").openWriter()) {
             writer.write("""
                     /*
@@ -71,28 +76,48 @@ public class HookBaseProcessor extends AbstractProcessor {
                     package com.sevtinge.hyperceiler.module.base;
                     
                     import java.util.HashMap;
+                    import java.util.List;
+                    import java.util.Map;
+                    import java.util.function.Supplier;
                     
                     /**
-                     * 注解处理器自动生成的 Map 图
+                     * 注解处理器自动生成的 包名 -> 模块 分发表
                      *
                      * @author 焕晨HChen
                      */
                     public class DataBase {
-                        public String mTargetPackage;
-                        public int mTargetSdk;
-                        public float mTargetOSVersion;
-                        public int isPad;
+                        private static final Map<String, List<DataBase>> dataMap;
                     
-                        public DataBase(String targetPackage, int targetSdk, float targetOSVersion, int isPad){
+                        public final String mTargetPackage;
+                        public final int mTargetSdk;
+                        public final float mTargetOSVersion;
+                        public final int isPad;
+                        private final Supplier<BaseModule> mCreator;
+                    
+                        public DataBase(String targetPackage, int targetSdk, float targetOSVersion, int isPad, Supplier<BaseModule> creator) {
                             this.mTargetPackage = targetPackage;
                             this.mTargetSdk = targetSdk;
                             this.mTargetOSVersion = targetOSVersion;
                             this.isPad = isPad;
+                            this.mCreator = creator;
+                        }
+                    
+                        public BaseModule create() {
+                            return mCreator.get();
                         }
                     
-                        public static HashMap<String, DataBase> get() {
-                            HashMap<String, DataBase> dataMap = new HashMap<>();
+                        /**
+                         * 返回作用于该包名的全部模块（不可修改），未被作用的包名返回空列表。
+                         */
+                        public static List<DataBase> get(String targetPackage) {
+                            return dataMap.getOrDefault(targetPackage, List.of());
+                        }
+                    
+                        static {
+                            HashMap<String, List<DataBase>> map = new HashMap<>();
                     """);
+            // 按包名分组，生成直接构造引用，运行时无需反射
+            LinkedHashMap<String, List<String>> groups = new LinkedHashMap<>();
             roundEnv.getElementsAnnotatedWith(HookBase.class).forEach(new Consumer<Element>() {
                 @Override
                 public void accept(Element element) {
@@ -103,23 +128,29 @@ public class HookBaseProcessor extends AbstractProcessor {
                     }
                     if (fullClassName == null) {
                         System.out.println("W: Full class name is null!!!");
+                        return;
                     }
                     HookBase hookBase = element.getAnnotation(HookBase.class);
                     String targetPackage = hookBase.targetPackage();
                     int targetSdk = hookBase.targetSdk();
                     float targetOSVersion = hookBase.targetOSVersion();
                     int isPad = hookBase.isPad();
-                    try {
-                        writer.write("        ");
-                        writer.write("dataMap.put(\"" + fullClassName + "\", new DataBase(\"" + targetPackage + "\", "
-                                + targetSdk + ", " + targetOSVersion + "F, " + isPad + "));\n");
-                    } catch (IOException e) {
-                        e.printStackTrace();
-                    }
+                    groups.computeIfAbsent(targetPackage, k -> new ArrayList<>())
+                            .add("new DataBase(\"" + targetPackage + "\", " + targetSdk + ", " + targetOSVersion + "F, "
+                                    + isPad + ", " + fullClassName + "::new)");
                 }
             });
+            for (Map.Entry<String, List<String>> entry : groups.entrySet()) {
+                writer.write("        map.put(\"" + entry.getKey() + "\", List.of(\n");
+                List<String> dataBases = entry.getValue();
+                for (int i = 0; i < dataBases.size(); i++) {
+                    writer.write("                " + dataBases.get(i) + (i == dataBases.size() - 1 ? "\n" : ",\n"));
+                }
+                writer.write("        ));\n");
+            }
             writer.write("""
-                            return dataMap;
+                            // 生成后不可修改，防止分发表被篡改
+                            dataMap = Map.copyOf(map);
                         }
                     }
                     """);